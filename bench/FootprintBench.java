@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.List;
+import models.Delivery;
+
+/**
+ * Heap bytes per delivery with a year of deliveries held in memory, in the
+ * old layout (seven separate Strings, each row split into fresh copies the
+ * way the old loader did) and in the dictionary-encoded Delivery.
+ *
+ *   bench/run.sh FootprintBench [count]     (default 1,000,000)
+ *
+ * The rows are synthetic but shaped like the data files: unique package
+ * IDs, 60 towns, 400 vehicles, 500 drivers, ETAs spread over a year and the
+ * four statuses. Heap use is read after repeated System.gc() calls, so the
+ * figures are approximate; run with a fixed -Xmx for comparable results.
+ */
+public class FootprintBench {
+
+    // The pre-encoding Delivery: every field its own String
+    static final class StringDelivery {
+        final String packageId, origin, destination, eta, vehicleRegNo, driverId;
+        String status;
+
+        StringDelivery(String packageId, String origin, String destination, String eta,
+                       String vehicleRegNo, String driverId, String status) {
+            this.packageId = packageId;
+            this.origin = origin;
+            this.destination = destination;
+            this.eta = eta;
+            this.vehicleRegNo = vehicleRegNo;
+            this.driverId = driverId;
+            this.status = status;
+        }
+    }
+
+    private static final String[] STATUSES = {"Pending", "In Transit", "Delivered", "Cancelled"};
+    private static final int TOWNS = 60, VEHICLES = 400, DRIVERS = 500;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println("Deliveries: " + count);
+
+        long base = usedHeap();
+        List<StringDelivery> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] f = row(i).split(",");
+            strings.add(new StringDelivery(f[0], f[1], f[2], f[3], f[4], f[5], f[6]));
+        }
+        long stringBytes = usedHeap() - base;
+        report("Seven Strings", stringBytes, count);
+        strings = null;
+
+        base = usedHeap();
+        List<Delivery> encoded = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] f = row(i).split(",");
+            encoded.add(new Delivery(f[0], f[1], f[2], f[3], f[4], f[5], f[6]));
+        }
+        long encodedBytes = usedHeap() - base; // includes the symbol tables the rows point into
+        report("Dictionary-encoded", encodedBytes, count);
+        System.out.printf("Reduction:          %.1fx%n", (double) stringBytes / encodedBytes);
+
+        // Keep both lists reachable until measured
+        if (encoded.size() != count) {
+            throw new IllegalStateException();
+        }
+    }
+
+    // One deliveries.txt row, deterministic in i
+    static String row(int i) {
+        int town = i % TOWNS;
+        int other = (town + 1 + (i / TOWNS) % (TOWNS - 1)) % TOWNS;
+        int day = 1 + i % 28;
+        int month = 1 + (i / 28) % 12;
+        return String.format("PKG%07d,Town%02d,Town%02d,2025-%02d-%02d %02d:%02d,GR%04d-25,DR%03d,%s",
+                i, town, other, month, day, 6 + i % 12, (i * 7) % 60,
+                i % VEHICLES, i % DRIVERS, STATUSES[i % STATUSES.length]);
+    }
+
+    private static void report(String layout, long bytes, int count) {
+        System.out.printf("%-19s %6.1f bytes/delivery (%,d MB in total)%n",
+                layout + ":", (double) bytes / count, bytes >> 20);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,159 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import structures.queue.ConcurrentRingQueue;
+import structures.queue.Queue;
+import structures.queue.RingDeque;
+
+/**
+ * Throughput and allocation of the queues against the old LinkedList-backed
+ * Queue.
+ *
+ *   bench/run.sh QueueBench [ops] [producers]     (default 5,000,000 and 4)
+ *
+ * Single-threaded: batches of 1,000 enqueues then 1,000 dequeues, the
+ * pattern of the driver availability queue. Multi-producer: each producer
+ * enqueues ops / producers items while one consumer drains them, against a
+ * LinkedList behind a lock (the old Queue is not thread-safe on its own).
+ * Allocation is read from the JVM's per-thread allocation counters. Each
+ * case runs three times and the last run is reported, after warm-up.
+ */
+public class QueueBench {
+
+    // The pre-ring Queue: a java.util.LinkedList, one node per enqueue
+    static final class LinkedQueue<T> {
+        private final LinkedList<T> list = new LinkedList<>();
+
+        void enqueue(T item) {
+            list.addLast(item);
+        }
+
+        T dequeue() {
+            if (list.isEmpty()) throw new NoSuchElementException("Queue is empty.");
+            return list.removeFirst();
+        }
+
+        synchronized void enqueueLocked(T item) {
+            list.addLast(item);
+        }
+
+        synchronized T pollLocked() {
+            return list.pollFirst();
+        }
+    }
+
+    private static final int BATCH = 1_000;
+    private static final Integer ITEM = 42;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int ops = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        System.out.println("Operations: " + ops + " (enqueue + dequeue pairs), "
+                + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+
+        System.out.println("\n--- Single thread ---");
+        for (int run = 0; run < 3; run++) {
+            boolean last = run == 2;
+            single("LinkedList Queue (old)", ops, last, () -> {
+                LinkedQueue<Integer> q = new LinkedQueue<>();
+                for (int done = 0; done < ops; done += BATCH) {
+                    for (int i = 0; i < BATCH; i++) q.enqueue(ITEM);
+                    for (int i = 0; i < BATCH; i++) sink += q.dequeue();
+                }
+            });
+            single("Queue (ring)", ops, last, () -> {
+                Queue<Integer> q = new Queue<>();
+                for (int done = 0; done < ops; done += BATCH) {
+                    for (int i = 0; i < BATCH; i++) q.enqueue(ITEM);
+                    for (int i = 0; i < BATCH; i++) sink += q.dequeue();
+                }
+            });
+            single("RingDeque", ops, last, () -> {
+                RingDeque<Integer> q = new RingDeque<>();
+                for (int done = 0; done < ops; done += BATCH) {
+                    for (int i = 0; i < BATCH; i++) q.enqueue(ITEM);
+                    for (int i = 0; i < BATCH; i++) sink += q.dequeue();
+                }
+            });
+        }
+
+        System.out.println("\n--- " + producers + " producers, 1 consumer ---");
+        int perProducer = ops / producers;
+        for (int run = 0; run < 3; run++) {
+            boolean last = run == 2;
+            LinkedQueue<Integer> locked = new LinkedQueue<>();
+            multi("Locked LinkedList (old)", producers, perProducer, last,
+                    () -> { for (int i = 0; i < perProducer; i++) locked.enqueueLocked(ITEM); },
+                    locked::pollLocked);
+            ConcurrentRingQueue<Integer> ring = new ConcurrentRingQueue<>(1024);
+            multi("ConcurrentRingQueue", producers, perProducer, last,
+                    () -> { for (int i = 0; i < perProducer; i++) ring.enqueue(ITEM); },
+                    ring::poll);
+        }
+        if (sink == 0) {
+            System.out.println();
+        }
+    }
+
+    private static void single(String name, int ops, boolean print, Runnable body) {
+        long bytes = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        body.run();
+        long nanos = System.nanoTime() - start;
+        bytes = THREADS.getCurrentThreadAllocatedBytes() - bytes;
+        if (print) {
+            print(name, ops, nanos, bytes);
+        }
+    }
+
+    private static void multi(String name, int producers, int perProducer, boolean print,
+                              Runnable produce, Supplier<Integer> poll)
+            throws InterruptedException {
+        long total = (long) producers * perProducer;
+        long[] allocated = new long[producers + 1];
+        Thread[] threads = new Thread[producers + 1];
+        for (int p = 0; p < producers; p++) {
+            int slot = p;
+            threads[p] = new Thread(() -> {
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                produce.run();
+                allocated[slot] = THREADS.getCurrentThreadAllocatedBytes() - before;
+            });
+        }
+        threads[producers] = new Thread(() -> {
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            long taken = 0, sum = 0;
+            while (taken < total) {
+                Integer item = poll.get();
+                if (item == null) {
+                    Thread.yield();
+                } else {
+                    sum += item;
+                    taken++;
+                }
+            }
+            sink += sum;
+            allocated[producers] = THREADS.getCurrentThreadAllocatedBytes() - before;
+        });
+
+        long start = System.nanoTime();
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        long nanos = System.nanoTime() - start;
+        long bytes = 0;
+        for (long b : allocated) bytes += b;
+        if (print) {
+            print(name, total, nanos, bytes);
+        }
+    }
+
+    private static void print(String name, long ops, long nanos, long bytes) {
+        System.out.printf("%-24s %7.1f M ops/s  %6.1f bytes allocated/op%n",
+                name, ops * 1e3 / nanos, (double) bytes / ops);
+    }
+}
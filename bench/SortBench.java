@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import models.Vehicle;
+import structures.heap.IntKeyMinHeap;
+import structures.heap.MinHeap;
+import structures.sort.RadixSort;
+
+/**
+ * Sorting and heap times on random, sorted, reversed, all-equal and
+ * organ-pipe inputs, against the old code paths.
+ *
+ *   bench/run.sh SortBench [n] [quicksort-n]     (default 1,000,000 and 20,000)
+ *
+ * The old last-element-pivot quicksorts (MaintenanceManager by mileage,
+ * MainMenu by efficiency) go quadratic, and recurse n deep, on sorted and
+ * all-equal input, so they run on the smaller quicksort-n, on a thread with
+ * a large stack; RadixSort runs on both sizes. The heaps are filled with n
+ * vehicles in input order and drained: the old Comparator MinHeap against
+ * IntKeyMinHeap.
+ */
+public class SortBench {
+
+    private static final String[] SHAPES = {"random", "sorted", "reversed", "all-equal", "organ-pipe"};
+
+    private static long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int quickN = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        List<Vehicle> big = vehicles(n);
+        List<Vehicle> small = vehicles(quickN);
+
+        for (int run = 0; run < 2; run++) { // first pass warms up, second is printed
+            boolean print = run == 1;
+            if (print) {
+                System.out.printf("%n--- Sort by mileage (ms) ---%n%-11s %16s %16s %16s%n",
+                        "input", "quicksort " + quickN, "radix " + quickN, "radix " + n);
+            }
+            for (String shape : SHAPES) {
+                long quick = time(() -> withStack(() -> quickSortByMileage(mileageShaped(small, shape))));
+                long radixSmall = time(() -> RadixSort.sortByInt(mileageShaped(small, shape), Vehicle::getMileage));
+                long radixBig = time(() -> RadixSort.sortByInt(mileageShaped(big, shape), Vehicle::getMileage));
+                if (print) {
+                    System.out.printf("%-11s %16d %16d %16d%n", shape, quick, radixSmall, radixBig);
+                }
+            }
+
+            if (print) {
+                System.out.printf("%n--- Sort by efficiency (ms) ---%n%-11s %16s %16s %16s%n",
+                        "input", "quicksort " + quickN, "radix " + quickN, "radix " + n);
+            }
+            for (String shape : SHAPES) {
+                long quick = time(() -> withStack(() -> quickSortByEfficiency(efficiencyShaped(small, shape))));
+                long radixSmall = time(() -> RadixSort.sortByDouble(efficiencyShaped(small, shape), SortBench::efficiency));
+                long radixBig = time(() -> RadixSort.sortByDouble(efficiencyShaped(big, shape), SortBench::efficiency));
+                if (print) {
+                    System.out.printf("%-11s %16d %16d %16d%n", shape, quick, radixSmall, radixBig);
+                }
+            }
+
+            if (print) {
+                System.out.printf("%n--- Heap: add %d by mileage, then poll all (ms) ---%n%-11s %16s %16s%n",
+                        n, "input", "MinHeap", "IntKeyMinHeap");
+            }
+            for (String shape : SHAPES) {
+                List<Vehicle> input = mileageShaped(big, shape);
+                long boxed = time(() -> {
+                    MinHeap<Vehicle> heap = new MinHeap<>(Comparator.comparingInt(Vehicle::getMileage));
+                    for (Vehicle v : input) heap.add(v);
+                    while (!heap.isEmpty()) sink += heap.poll().getMileage();
+                });
+                long primitive = time(() -> {
+                    IntKeyMinHeap<Vehicle> heap = new IntKeyMinHeap<>(input.size());
+                    for (Vehicle v : input) heap.add(v.getMileage(), v);
+                    while (!heap.isEmpty()) sink += heap.poll().getMileage();
+                });
+                if (print) {
+                    System.out.printf("%-11s %16d %16d%n", shape, boxed, primitive);
+                }
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    // n vehicles with distinct registration numbers; mileage and fuel usage are set per shape
+    private static List<Vehicle> vehicles(int n) {
+        List<Vehicle> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(new Vehicle(String.format("BN%07d", i), i % 3 == 0 ? "Truck" : "Van", 0, 10.0, "DR001"));
+        }
+        return list;
+    }
+
+    // A copy of the list whose mileages have the given shape
+    private static List<Vehicle> mileageShaped(List<Vehicle> vehicles, String shape) {
+        int n = vehicles.size();
+        int[] keys = keys(n, shape);
+        for (int i = 0; i < n; i++) {
+            vehicles.get(i).setMileage(keys[i]);
+        }
+        return new ArrayList<>(vehicles);
+    }
+
+    // A copy of the list whose efficiencies (fuel usage per km) have the given shape
+    private static List<Vehicle> efficiencyShaped(List<Vehicle> vehicles, String shape) {
+        int n = vehicles.size();
+        int[] keys = keys(n, shape);
+        for (int i = 0; i < n; i++) {
+            vehicles.get(i).setMileage(100_000);
+            vehicles.get(i).setFuelUsage(1.0 + keys[i] / 1_000.0);
+        }
+        return new ArrayList<>(vehicles);
+    }
+
+    private static int[] keys(int n, String shape) {
+        int[] keys = new int[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            keys[i] = switch (shape) {
+                case "random" -> random.nextInt(1_000_000);
+                case "sorted" -> i;
+                case "reversed" -> n - i;
+                case "all-equal" -> 50_000;
+                default -> i < n / 2 ? i : n - i; // organ-pipe: up, then down
+            };
+        }
+        return keys;
+    }
+
+    private static double efficiency(Vehicle v) {
+        return v.getMileage() == 0 ? Double.MAX_VALUE : v.getFuelUsage() / (double) v.getMileage();
+    }
+
+    // === The pre-radix quicksorts, as they were ===
+
+    private static void quickSortByMileage(List<Vehicle> list) {
+        quickSortByMileage(list, 0, list.size() - 1);
+    }
+
+    private static void quickSortByMileage(List<Vehicle> list, int low, int high) {
+        if (low < high) {
+            Vehicle pivot = list.get(high);
+            int i = low - 1;
+            for (int j = low; j < high; j++) {
+                if (list.get(j).getMileage() <= pivot.getMileage()) {
+                    Collections.swap(list, ++i, j);
+                }
+            }
+            Collections.swap(list, i + 1, high);
+            quickSortByMileage(list, low, i);
+            quickSortByMileage(list, i + 2, high);
+        }
+    }
+
+    private static void quickSortByEfficiency(List<Vehicle> list) {
+        quickSortByEfficiency(list, 0, list.size() - 1);
+    }
+
+    private static void quickSortByEfficiency(List<Vehicle> list, int low, int high) {
+        if (low < high) {
+            double pivot = efficiency(list.get(high));
+            int i = low - 1;
+            for (int j = low; j < high; j++) {
+                if (efficiency(list.get(j)) < pivot) {
+                    Collections.swap(list, ++i, j);
+                }
+            }
+            Collections.swap(list, i + 1, high);
+            quickSortByEfficiency(list, low, i);
+            quickSortByEfficiency(list, i + 2, high);
+        }
+    }
+
+    // The quicksorts recurse once per element on the bad inputs
+    private static void withStack(Runnable body) {
+        Thread t = new Thread(null, body, "quicksort", 1L << 30);
+        t.start();
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long time(Runnable body) {
+        long start = System.nanoTime();
+        body.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,16 @@
+#!/bin/sh
+# Compile the application and the benchmarks, then run one benchmark:
+#
+#   bench/run.sh <BenchClass> [arguments]
+#
+# Each benchmark class describes its arguments in its header comment.
+# Extra JVM options can be passed in JAVA_OPTS (default -Xmx3g).
+set -e
+cd "$(dirname "$0")/.."
+out="${TMPDIR:-/tmp}/adom-bench"
+rm -rf "$out"
+mkdir -p "$out"
+javac -encoding UTF-8 -d "$out" $(find src bench -name '*.java')
+name="$1"
+shift
+exec java ${JAVA_OPTS:--Xmx3g} -cp "$out" "$name" "$@"
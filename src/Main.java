@@ -1,13 +1,163 @@
 import cli.MainMenu;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import modules.DispatchSimulator;
+import utils.PersistenceWriter;
 
 public class Main {
+
+    private static int archiveAfterDays = -1; // --archive-after-days; -1 = don't archive at startup
+
     public static void main(String[] args) {
+        long startNanos = System.nanoTime();
         System.out.println("********************************************");
         System.out.println("  Adom Logistics Management System  ");
         System.out.println("********************************************\n");
 
-        // Start the menu
-        MainMenu menu = new MainMenu();
+        // Durability of saves: --durability per-op|group|on-exit [--group-ms N] [--archive-after-days N]
+        args = configurePersistence(args);
+        if (args == null) {
+            return;
+        }
+
+        // Scripted mode: java Main --batch <file|-> [--flush-every N]
+        if (args.length >= 2 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+
+        // What-if mode: java Main --simulate [--requests N] [--days D] [--seed S] [--policies immediate,wave:15]
+        if (args.length >= 1 && args[0].equals("--simulate")) {
+            runSimulation(args);
+            return;
+        }
+
+        // Telemetry replay: java Main --telemetry <file|:port>
+        if (args.length >= 2 && args[0].equals("--telemetry")) {
+            new MainMenu().runTelemetry(args[1]);
+            PersistenceWriter.shutdown();
+            return;
+        }
+
+        // Start the menu; managers load on first use, or in the background with --prewarm
+        boolean prewarm = args.length >= 1 && args[0].equals("--prewarm");
+        MainMenu menu = new MainMenu(startNanos, prewarm);
+        if (archiveAfterDays >= 0) {
+            menu.archiveOldRecords(archiveAfterDays);
+        }
         menu.launch();
     }
+
+    // Applies and strips the persistence flags; returns the remaining args, or null on a bad value
+    private static String[] configurePersistence(String[] args) {
+        PersistenceWriter.Durability mode = PersistenceWriter.Durability.GROUP;
+        long groupMillis = 50;
+        List<String> rest = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--durability") && i + 1 < args.length) {
+                mode = PersistenceWriter.Durability.parse(args[++i]);
+                if (mode == null) {
+                    System.out.println("Invalid --durability value: " + args[i] + " (use per-op, group or on-exit)");
+                    return null;
+                }
+            } else if (args[i].equals("--group-ms") && i + 1 < args.length) {
+                try {
+                    groupMillis = Long.parseLong(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid --group-ms value: " + args[i]);
+                    return null;
+                }
+            } else if (args[i].equals("--archive-after-days") && i + 1 < args.length) {
+                try {
+                    archiveAfterDays = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    archiveAfterDays = -1;
+                }
+                if (archiveAfterDays < 0) {
+                    System.out.println("Invalid --archive-after-days value: " + args[i]);
+                    return null;
+                }
+            } else {
+                rest.add(args[i]);
+            }
+        }
+
+        PersistenceWriter.configure(mode, groupMillis);
+        return rest.toArray(new String[0]);
+    }
+
+    private static void runBatch(String[] args) {
+        int flushEvery = 0; // 0 = only save once at the end
+        if (args.length >= 4 && args[2].equals("--flush-every")) {
+            try {
+                flushEvery = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid --flush-every value: " + args[3]);
+                return;
+            }
+        }
+
+        String source = args[1];
+        try (BufferedReader reader = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in), 1 << 16)
+                : new BufferedReader(new FileReader(source), 1 << 16)) {
+            MainMenu menu = new MainMenu();
+            if (archiveAfterDays >= 0) {
+                menu.archiveOldRecords(archiveAfterDays);
+            }
+            menu.runBatch(reader, flushEvery);
+        } catch (IOException e) {
+            System.out.println("Error reading batch file: " + e.getMessage());
+        }
+    }
+
+    private static void runSimulation(String[] args) {
+        int requestsPerDay = 60;
+        int days = 1;
+        long seed = 42;
+        String policyList = "immediate,wave:15,wave:60";
+        try {
+            for (int i = 1; i + 1 < args.length; i += 2) {
+                switch (args[i]) {
+                    case "--requests" -> requestsPerDay = Integer.parseInt(args[i + 1]);
+                    case "--days" -> days = Integer.parseInt(args[i + 1]);
+                    case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                    case "--policies" -> policyList = args[i + 1];
+                    default -> {
+                        System.out.println("Unknown simulation option: " + args[i]);
+                        return;
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid simulation option value: " + e.getMessage());
+            return;
+        }
+        if (requestsPerDay < 1 || days < 1 || (long) requestsPerDay * days > 10_000_000) {
+            System.out.println("--requests and --days must be positive (at most 10,000,000 requests in total).");
+            return;
+        }
+
+        List<DispatchSimulator.Policy> policies = new ArrayList<>();
+        for (String name : policyList.split(",")) {
+            DispatchSimulator.Policy policy = DispatchSimulator.Policy.parse(name);
+            if (policy == null) {
+                System.out.println("Invalid policy: " + name + " (use immediate or wave:N)");
+                return;
+            }
+            policies.add(policy);
+        }
+
+        try {
+            DispatchSimulator sim = new DispatchSimulator(requestsPerDay, days, seed);
+            DispatchSimulator.printReport(sim, sim.runAll(policies));
+        } catch (IllegalStateException e) {
+            System.out.println("Simulation failed: " + e.getMessage());
+        }
+    }
 }
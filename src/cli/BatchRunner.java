@@ -0,0 +1,463 @@
+package cli;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import modules.LateDeliveryMonitor;
+import modules.TelemetryIngest;
+import utils.InputValidator;
+import utils.PersistenceWriter;
+import utils.ReportWriter;
+import utils.TimeSeriesStore;
+import utils.Validation;
+
+/**
+ * Non-interactive command mode. Reads one command per line from a single
+ * BufferedReader, validates the arguments with the same rules as the
+ * interactive prompts (but never prompts), and hands the touched data files
+ * to the persistence writer every N commands and once at the end.
+ *
+ * Supported commands (quote arguments that contain spaces):
+ *   add-vehicle GR1234-21 Truck 34000 12.5 DR001 [Accra]   (town: where it is parked, from towns.txt)
+ *   add-driver DR010 "Ama Owusu" 4
+ *   add-delivery PKG100 Tema Kumasi "2025-12-01 09:30"   (ETA optional: suggested from routes.txt)
+ *   queue-delivery PKG101 Tema Kumasi ["2025-12-01 09:30"]   (assigned at the next 'dispatch')
+ *   dispatch
+ *   update-status PKG100 "In Transit"
+ *   reroute PKG100 "Cape Coast"
+ *   remove-delivery PKG100
+ *   add-maintenance GR1234-21 "Oil Change" 2025-07-01 "Oil filter" 150.00 [2026-01-01]
+ *   archive 90   (moves closed deliveries and maintenance older than 90 days to the archive)
+ *   save   (waits until everything so far is on disk)
+ *   telemetry logs/odometer.csv   (or :9000 to take one connection on localhost; regNo,epochSeconds,odometerKm,fuelUsedLitres)
+ *   fuel-history all 2025-07-01 2025-07-31   (or one regNo, by week or: ... 2025-07-31 day)
+ *   export csv exports [fuel-efficiency delivery-status driver-performance maintenance-cost]   (all four if none named)
+ *   depot Kumasi   (new vehicles and drivers, telemetry, fuel history and exports use this depot from here on)
+ *   depots   (a summary line per depot)
+ *   move-vehicle GR1234-21 Kumasi
+ *   move-driver DR010 Takoradi
+ * Blank lines and lines starting with '#' are ignored.
+ *
+ * With several depots, deliveries go to the depot nearest their origin and
+ * later commands on a package, vehicle or driver go to the depot that has
+ * it; dispatch and archive run in every depot.
+ */
+public class BatchRunner {
+
+    private static final int MAX_ERRORS_SHOWN = 50;
+
+    private final DepotRouter router; // a script that never touches deliveries never loads them
+    private final int flushEvery;
+
+    // Files changed since the last flush, per depot
+    private static final class Dirty {
+        boolean vehicles, drivers, deliveries, maintenance;
+    }
+
+    private final Map<ServiceRegistry, Dirty> dirty = new LinkedHashMap<>();
+    private int processed, succeeded, failed, sinceFlush, flushes, lateCharged;
+    private final List<String> errors = new ArrayList<>();
+
+    public BatchRunner(DepotRouter router, int flushEvery) {
+        this.router = router;
+        this.flushEvery = flushEvery;
+    }
+
+    public void run(BufferedReader reader) throws IOException {
+        long start = System.nanoTime();
+        String line;
+        int lineNo = 0;
+
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            processed++;
+            try {
+                execute(tokenize(line));
+                succeeded++;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                failed++;
+                if (errors.size() < MAX_ERRORS_SHOWN) {
+                    errors.add("line " + lineNo + ": " + e.getMessage() + "  [" + line + "]");
+                }
+            }
+
+            if (flushEvery > 0 && ++sinceFlush >= flushEvery) {
+                flush();
+            }
+        }
+
+        flush();
+        try {
+            PersistenceWriter.flush(); // the timing includes getting the last writes to disk
+        } catch (IOException e) {
+            errors.add("final save: " + e.getMessage());
+        }
+        printSummary(System.nanoTime() - start);
+    }
+
+    private void execute(String[] t) {
+        ServiceRegistry services = router.current().services();
+        switch (t[0].toLowerCase()) {
+            case "add-vehicle" -> {
+                if (t.length != 6 && t.length != 7) {
+                    throw new IllegalArgumentException("Usage: add-vehicle <regNo> <Truck|Van> <mileage> <fuelUsage> <driverId> [<town>]");
+                }
+                check(Validation.checkPlate(t[1]));
+                String type = InputValidator.matchChoice(t[2], new String[]{"Truck", "Van"}, false);
+                if (type == null) {
+                    throw new IllegalArgumentException("Vehicle type must be Truck or Van");
+                }
+                check(Validation.checkInteger(t[3], 0, 1000000));
+                check(Validation.checkDouble(t[4], 0.1, 100.0));
+                check(Validation.checkString(t[5], 2, 15));
+                String town = t.length == 7 ? t[6] : null;
+                if (town != null) {
+                    check(Validation.checkLocation(town, 2, 50));
+                }
+                DepotRouter.Shard owner = router.isSharded() ? router.ownerOfVehicle(t[1]) : null;
+                if (owner != null) {
+                    throw new IllegalArgumentException("Vehicle " + t[1] + " is already at " + owner.getName() + ".");
+                }
+                services.vehicles().registerVehicle(t[1], type, Integer.parseInt(t[3]), Double.parseDouble(t[4]), t[5], town);
+                dirty(services).vehicles = true;
+            }
+            case "add-driver" -> {
+                expectArgs(t, 4, "add-driver <driverId> <name> <yearsOfExperience>");
+                check(Validation.checkString(t[1], 2, 15));
+                check(Validation.checkName(t[2], 2, 50));
+                check(Validation.checkInteger(t[3], 0, 50));
+                DepotRouter.Shard owner = router.isSharded() ? router.ownerOfDriver(t[1]) : null;
+                if (owner != null) {
+                    throw new IllegalArgumentException("Driver " + t[1] + " is already at " + owner.getName() + ".");
+                }
+                services.drivers().registerDriver(t[1], t[2], Integer.parseInt(t[3]));
+                dirty(services).drivers = true;
+            }
+            case "add-delivery", "queue-delivery" -> {
+                // The ETA may arrive quoted ("2025-12-01 09:30") or as two bare tokens
+                if (t.length == 6) {
+                    t = new String[]{t[0], t[1], t[2], t[3], t[4] + " " + t[5]};
+                }
+                // Without an ETA one is suggested from the route network
+                if (t.length != 4 && t.length != 5) {
+                    throw new IllegalArgumentException("Usage: " + t[0] + " <packageId> <origin> <destination> [<yyyy-MM-dd HH:mm>]");
+                }
+                check(Validation.checkString(t[1], 3, 20));
+                check(Validation.checkLocation(t[2], 2, 50));
+                check(Validation.checkLocation(t[3], 2, 50));
+                String eta = t.length == 5 ? t[4] : null;
+                if (eta != null) {
+                    check(Validation.checkFutureDateTime(eta));
+                }
+                if (router.isSharded()) {
+                    // Package IDs are unique across depots, not just within one
+                    DepotRouter.Shard owner = router.ownerOfDelivery(t[1]);
+                    if (owner != null) {
+                        throw new IllegalArgumentException("Package ID already exists at " + owner.getName() + ".");
+                    }
+                    services = router.depotFor(t[2]).services();
+                }
+                if (t[0].equalsIgnoreCase("queue-delivery")) {
+                    services.deliveries().queueDelivery(t[1], t[2], t[3], eta);
+                } else {
+                    services.deliveries().scheduleDelivery(t[1], t[2], t[3], eta);
+                    dirty(services).drivers = true;
+                }
+                dirty(services).deliveries = true;
+            }
+            case "dispatch" -> {
+                expectArgs(t, 1, "dispatch");
+                // Only a depot whose deliveries are loaded can have anything queued
+                for (DepotRouter.Shard shard : router.getShards()) {
+                    ServiceRegistry depot = shard.services();
+                    if (depot.deliveriesLoaded() && depot.deliveries().dispatchQueued() > 0) {
+                        dirty(depot).deliveries = true;
+                    }
+                }
+            }
+            case "update-status" -> {
+                expectArgs(t, 3, "update-status <packageId> <status>");
+                services = deliveryOwner(t[1]);
+                services.deliveries().changeStatus(t[1], t[2]);
+                Dirty d = dirty(services);
+                d.deliveries = true;
+                d.drivers = true;  // reliability counters move with Delivered
+                d.vehicles = true; // and so does the vehicle's position
+            }
+            case "reroute" -> {
+                expectArgs(t, 3, "reroute <packageId> <newDestination>");
+                check(Validation.checkLocation(t[2], 2, 50));
+                services = deliveryOwner(t[1]);
+                services.deliveries().reroute(t[1], t[2]);
+                dirty(services).deliveries = true;
+            }
+            case "remove-delivery" -> {
+                expectArgs(t, 2, "remove-delivery <packageId>");
+                services = deliveryOwner(t[1]);
+                if (!services.deliveries().removeDelivery(t[1])) {
+                    throw new IllegalArgumentException("Package not found.");
+                }
+                dirty(services).deliveries = true;
+            }
+            case "add-maintenance" -> {
+                if (t.length != 6 && t.length != 7) {
+                    throw new IllegalArgumentException("Usage: add-maintenance <regNo> <serviceType> <yyyy-MM-dd> <parts> <cost> [<nextServiceDate>]");
+                }
+                check(Validation.checkString(t[2], 2, 50));
+                check(Validation.checkPastDate(t[3]));
+                check(Validation.checkString(t[4], 1, 100));
+                check(Validation.checkCost(t[5]));
+                String next = t.length == 7 ? t[6] : "";
+                if (!next.isEmpty()) {
+                    check(Validation.checkFutureDate(next));
+                }
+                if (router.isSharded()) {
+                    DepotRouter.Shard owner = router.ownerOfVehicle(t[1]);
+                    if (owner == null) {
+                        throw new IllegalArgumentException("Vehicle not found.");
+                    }
+                    services = owner.services();
+                }
+                services.maintenance().recordMaintenance(t[1], t[2], t[3], t[4], Double.parseDouble(t[5]), next);
+                dirty(services).maintenance = true;
+            }
+            case "archive" -> {
+                expectArgs(t, 2, "archive <days>");
+                check(Validation.checkInteger(t[1], 0, 36500));
+                try {
+                    // Archiving writes and fsyncs the archive itself, then queues the live-file saves
+                    for (DepotRouter.Shard shard : router.getShards()) {
+                        shard.services().deliveries().archiveClosed(Integer.parseInt(t[1]));
+                        shard.services().maintenance().archiveOlderThan(Integer.parseInt(t[1]));
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Error archiving records: " + e.getMessage());
+                }
+            }
+            case "save" -> {
+                flush();
+                try {
+                    PersistenceWriter.flush();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e.getMessage());
+                }
+            }
+            case "telemetry" -> {
+                expectArgs(t, 2, "telemetry <file|:port>");
+                TelemetryIngest.Summary summary = new TelemetryIngest(services.vehicles(), services.maintenance(),
+                        services.history()).replay(t[1]);
+                TelemetryIngest.printSummary(summary, services.vehicles().getFuelStats(), services.history());
+                if (summary.applied() > 0) {
+                    dirty(services).vehicles = true;
+                }
+                if (summary.error() != null) {
+                    throw new IllegalStateException(summary.error());
+                }
+            }
+            case "fuel-history" -> {
+                if (t.length != 4 && t.length != 5) {
+                    throw new IllegalArgumentException("Usage: fuel-history <regNo|all> <from yyyy-MM-dd> <to yyyy-MM-dd> [day|week]");
+                }
+                check(Validation.checkDate(t[2]));
+                check(Validation.checkDate(t[3]));
+                TimeSeriesStore.Bucketing bucketing = TimeSeriesStore.Bucketing.WEEK;
+                if (t.length == 5) {
+                    if (t[4].equalsIgnoreCase("day")) {
+                        bucketing = TimeSeriesStore.Bucketing.DAY;
+                    } else if (!t[4].equalsIgnoreCase("week")) {
+                        throw new IllegalArgumentException("Unknown period '" + t[4] + "' (use day or week)");
+                    }
+                }
+                services.history().printReport(t[1], Validation.parseDay(t[2]), Validation.parseDay(t[3]), bucketing, false);
+            }
+            case "export" -> {
+                if (t.length < 3) {
+                    throw new IllegalArgumentException("Usage: export <csv|json> <dir> [report ...]");
+                }
+                ReportWriter.Format format = ReportWriter.Format.parse(t[1]);
+                if (format == null) {
+                    throw new IllegalArgumentException("Unknown export format '" + t[1] + "' (use csv or json)");
+                }
+                List<ReportExporter.Report> reports = new ArrayList<>();
+                for (int i = 3; i < t.length; i++) {
+                    ReportExporter.Report report = ReportExporter.Report.parse(t[i]);
+                    if (report == null) {
+                        throw new IllegalArgumentException("Unknown report '" + t[i] + "'");
+                    }
+                    reports.add(report);
+                }
+                if (reports.isEmpty()) {
+                    reports = List.of(ReportExporter.Report.values());
+                }
+                List<ReportExporter.Result> results = new ReportExporter(services).export(reports, format, new File(t[2]));
+                ReportExporter.printResults(results);
+                for (ReportExporter.Result r : results) {
+                    if (r.error() != null) {
+                        throw new IllegalStateException("Export of " + r.report().getFileName() + " failed: " + r.error());
+                    }
+                }
+            }
+            case "depot" -> {
+                expectArgs(t, 2, "depot <name>");
+                DepotRouter.Shard shard = router.select(t[1]);
+                if (shard == null) {
+                    throw new IllegalArgumentException("Unknown depot '" + t[1] + "'");
+                }
+                router.setCurrent(shard);
+            }
+            case "depots" -> {
+                expectArgs(t, 1, "depots");
+                router.printSummary();
+            }
+            case "move-vehicle", "move-driver" -> {
+                expectArgs(t, 3, t[0] + " <" + (t[0].equalsIgnoreCase("move-vehicle") ? "regNo" : "driverId") + "> <depot>");
+                DepotRouter.Shard to = router.select(t[2]);
+                if (to == null) {
+                    throw new IllegalArgumentException("Unknown depot '" + t[2] + "'");
+                }
+                // Both depots' files are saved by the move itself
+                if (t[0].equalsIgnoreCase("move-vehicle")) {
+                    router.moveVehicle(t[1], to);
+                } else {
+                    router.moveDriver(t[1], to);
+                }
+            }
+            default ->
+                throw new IllegalArgumentException("Unknown command '" + t[0] + "'");
+        }
+    }
+
+    private Dirty dirty(ServiceRegistry services) {
+        return dirty.computeIfAbsent(services, s -> new Dirty());
+    }
+
+    // The depot holding a package; with one depot there is nothing to look up
+    private ServiceRegistry deliveryOwner(String packageId) {
+        if (!router.isSharded()) {
+            return router.current().services();
+        }
+        DepotRouter.Shard owner = router.ownerOfDelivery(packageId);
+        if (owner == null) {
+            throw new IllegalArgumentException("Delivery not found.");
+        }
+        return owner.services();
+    }
+
+    // Write only the files that changed since the last flush
+    private void flush() {
+        // Late deliveries are charged here, on the batch thread, like the menu does between prompts
+        int now = LateDeliveryMonitor.currentMinute();
+        for (DepotRouter.Shard shard : router.getShards()) {
+            ServiceRegistry depot = shard.services();
+            if (depot.deliveriesLoaded()) {
+                int late = depot.deliveries().applyLateDeliveries(now).size();
+                if (late > 0) {
+                    lateCharged += late;
+                    dirty(depot).drivers = true;
+                    dirty(depot).deliveries = true;
+                }
+            }
+        }
+        boolean any = false;
+        for (Map.Entry<ServiceRegistry, Dirty> e : dirty.entrySet()) {
+            ServiceRegistry services = e.getKey();
+            Dirty d = e.getValue();
+            if (d.vehicles) {
+                services.vehicles().saveVehicles();
+            }
+            if (d.drivers) {
+                services.drivers().saveDrivers();
+            }
+            if (d.deliveries) {
+                services.deliveries().saveDeliveries();
+            }
+            if (d.maintenance) {
+                services.maintenance().saveMaintenance();
+            }
+            any |= d.vehicles || d.drivers || d.deliveries || d.maintenance;
+        }
+        if (any) {
+            flushes++;
+        }
+        dirty.clear();
+        sinceFlush = 0;
+    }
+
+    private void printSummary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.println("\n========== BATCH SUMMARY ==========");
+        System.out.println("Commands processed: " + processed);
+        System.out.println("Succeeded:          " + succeeded);
+        System.out.println("Failed:             " + failed);
+        System.out.println("File flushes:       " + flushes);
+        if (lateCharged > 0) {
+            System.out.println("Late deliveries:    " + lateCharged + " (a delay charged to each driver)");
+        }
+        System.out.printf("Elapsed:            %.3f s (%.0f commands/s)\n",
+                seconds, seconds > 0 ? processed / seconds : 0.0);
+
+        if (!errors.isEmpty()) {
+            System.out.println("\n--- Errors ---");
+            for (String error : errors) {
+                System.out.println(error);
+            }
+            if (failed > errors.size()) {
+                System.out.println("... and " + (failed - errors.size()) + " more");
+            }
+        }
+    }
+
+    private static void check(String error) {
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private static void expectArgs(String[] tokens, int count, String usage) {
+        if (tokens.length != count) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    // Split on whitespace, keeping "double quoted" arguments together
+    static String[] tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+        boolean hasToken = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+                hasToken = true;
+            } else if (Character.isWhitespace(c) && !inQuotes) {
+                if (hasToken) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    hasToken = false;
+                }
+            } else {
+                current.append(c);
+                hasToken = true;
+            }
+        }
+
+        if (inQuotes) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        if (hasToken) {
+            tokens.add(current.toString());
+        }
+        return tokens.toArray(new String[0]);
+    }
+}
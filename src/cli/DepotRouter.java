@@ -0,0 +1,423 @@
+package cli;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import models.Delivery;
+import models.Depot;
+import models.Driver;
+import models.Maintenance;
+import models.Vehicle;
+import modules.DeliveryManager;
+import modules.FuelStats;
+import modules.Gazetteer;
+import modules.LateDeliveryMonitor;
+import modules.MaintenanceManager;
+import utils.FileHandler;
+import utils.TextBuffer;
+
+/**
+ * The depots listed in data/depots.txt, each a shard with its own
+ * ServiceRegistry: its own vehicle table, driver queue, delivery store and
+ * data directory. Without that file there is one depot on data/.
+ *
+ * Work for one depot goes to that depot's managers only. Lookups by key
+ * walk the shards in turn (an array lookup each); summaries and searches
+ * over every depot run on all shards at once and are gathered when the
+ * slowest returns.
+ *
+ * The shard locks are taken by gathers (one depot each) and by moves (two
+ * depots, in a fixed order), and by nothing else. Single-depot commands
+ * from the menu or a batch run call the managers directly, without the
+ * lock; that is safe only because they run on the same thread that waits
+ * for gathers and moves, so they never overlap one. Anything that mutates
+ * a depot from another thread must take that shard's lock first.
+ */
+public class DepotRouter {
+
+    // One depot and its managers
+    public static final class Shard {
+        private final int index;
+        private final Depot depot;
+        private final ServiceRegistry services;
+
+        private Shard(int index, Depot depot, FileHandler files) {
+            this.index = index;
+            this.depot = depot;
+            this.services = new ServiceRegistry(files);
+        }
+
+        public String getName() {
+            return depot.getName();
+        }
+
+        public Depot getDepot() {
+            return depot;
+        }
+
+        public ServiceRegistry services() {
+            return services;
+        }
+    }
+
+    // One depot's line in the summary
+    public record Summary(String depot, String town, int vehicles, int idle, int drivers,
+                          int openDeliveries, int overdue, long km, double rate) {}
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final Gazetteer gazetteer = new Gazetteer();
+    private ExecutorService pool; // started on the first gather over more than one depot
+    private volatile Shard current;
+
+    public DepotRouter() {
+        this(FileHandler.loadDepots());
+    }
+
+    public DepotRouter(List<Depot> depots) {
+        List<File> used = new ArrayList<>();
+        for (Depot depot : depots) {
+            File dir = depot.getDirectory().getAbsoluteFile();
+            if (select(depot.getName()) != null || used.contains(dir)) {
+                System.out.println("Skipping depot " + depot.getName() + ": name or directory already in use.");
+                continue;
+            }
+            used.add(dir);
+            FileHandler files = dir.equals(FileHandler.DEFAULT.getDirectory().getAbsoluteFile())
+                    ? FileHandler.DEFAULT : new FileHandler(depot.getDirectory());
+            shards.add(new Shard(shards.size(), depot, files));
+        }
+        if (shards.isEmpty()) {
+            shards.add(new Shard(0, new Depot("Main", null, FileHandler.DEFAULT.getDirectory()), FileHandler.DEFAULT));
+        }
+        current = shards.get(0);
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    // The depot the menu and batch commands without a routing key work on
+    public Shard current() {
+        return current;
+    }
+
+    public void setCurrent(Shard shard) {
+        current = shard;
+    }
+
+    // Case-insensitive lookup by depot name, or null
+    public Shard select(String name) {
+        for (Shard s : shards) {
+            if (s.getName().equalsIgnoreCase(name.trim())) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    // The depot closest to a town; the current one if the town (or every depot's town) isn't in the gazetteer
+    public Shard depotFor(String town) {
+        Shard best = current;
+        double bestKm = Double.MAX_VALUE;
+        for (Shard s : shards) {
+            double km = s.getDepot().getTown() == null ? -1 : gazetteer.distanceKm(town, s.getDepot().getTown());
+            if (km >= 0 && km < bestKm) {
+                best = s;
+                bestKm = km;
+            }
+        }
+        return best;
+    }
+
+    // === Lookups by key: one depot at a time, current first, stopping at the owner ===
+
+    public Shard ownerOfVehicle(String regNo) {
+        for (Shard s : searchOrder()) {
+            if (s.services().vehicles().hasVehicle(regNo)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    public Shard ownerOfDriver(String driverId) {
+        for (Shard s : searchOrder()) {
+            if (s.services().drivers().getDriverById(driverId) != null) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    // Live or archived; may open cold partitions, but only where the package filter matches
+    public Shard ownerOfDelivery(String packageId) {
+        for (Shard s : searchOrder()) {
+            if (s.services().deliveries().packageExists(packageId)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    private List<Shard> searchOrder() {
+        List<Shard> order = new ArrayList<>(shards.size());
+        order.add(current);
+        for (Shard s : shards) {
+            if (s != current) {
+                order.add(s);
+            }
+        }
+        return order;
+    }
+
+    // === Scatter-gather over every depot ===
+
+    /**
+     * Run task on every depot at once, each under its own depot's lock,
+     * and return the results in depot order. A task that throws fails the
+     * whole gather with its exception.
+     */
+    public <T> List<T> gather(Function<Shard, T> task) {
+        List<T> results = new ArrayList<>(shards.size());
+        if (!isSharded()) {
+            results.add(runLocked(shards.get(0), task));
+            return results;
+        }
+        List<Future<T>> running = new ArrayList<>(shards.size());
+        for (Shard s : shards) {
+            running.add(pool().submit(() -> runLocked(s, task)));
+        }
+        for (Future<T> f : running) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException r) {
+                    throw r;
+                }
+                throw new IllegalStateException(String.valueOf(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted.");
+            }
+        }
+        return results;
+    }
+
+    private static <T> T runLocked(Shard s, Function<Shard, T> task) {
+        synchronized (s) {
+            return task.apply(s);
+        }
+    }
+
+    // One thread per depot: on first touch most of a gather is reading that depot's files
+    private synchronized ExecutorService pool() {
+        if (pool == null) {
+            AtomicInteger counter = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(shards.size(), r -> {
+                Thread t = new Thread(r, "depot-gather-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return pool;
+    }
+
+    public List<Summary> summarize() {
+        int now = LateDeliveryMonitor.currentMinute();
+        return gather(s -> {
+            ServiceRegistry services = s.services();
+            DeliveryManager deliveries = services.deliveries();
+            int[] open = new int[1];
+            deliveries.snapshot().forEach(d -> {
+                if (d.getStatusCode().isOpen()) {
+                    open[0]++;
+                }
+            });
+            FuelStats fuel = services.vehicles().getFuelStats();
+            return new Summary(s.getName(), s.getDepot().getTown(), fuel.vehicles(null),
+                    services.vehicles().getIdleCount(), services.drivers().getDriverCount(), open[0],
+                    deliveries.getEtaMonitor().overdue(now).size(), fuel.totalKm(null), fuel.averageRate(null));
+        });
+    }
+
+    public void printSummary() {
+        List<Summary> rows = summarize();
+        TextBuffer out = new TextBuffer(System.out);
+        out.column("Depot", 14).column("Town", 14).columnRight("Vehicles", 9).columnRight("Idle", 6)
+                .columnRight("Drivers", 8).columnRight("Open", 6).columnRight("Overdue", 8)
+                .columnRight("Km", 11).columnRight("L/100km", 8);
+        out.newline().rule(84);
+        int vehicles = 0, idle = 0, drivers = 0, open = 0, overdue = 0;
+        long km = 0;
+        double rateSum = 0;
+        for (Summary r : rows) {
+            out.column(r.depot(), 14).column(r.town() == null ? "-" : r.town(), 14).column(r.vehicles(), 9)
+                    .column(r.idle(), 6).column(r.drivers(), 8).column(r.openDeliveries(), 6)
+                    .column(r.overdue(), 8).column(r.km(), 11).column(r.rate(), 2, 8);
+            out.newline();
+            vehicles += r.vehicles();
+            idle += r.idle();
+            drivers += r.drivers();
+            open += r.openDeliveries();
+            overdue += r.overdue();
+            km += r.km();
+            rateSum += r.rate() * r.vehicles();
+        }
+        if (rows.size() > 1) {
+            out.rule(84);
+            out.column("All depots", 28).column(vehicles, 9).column(idle, 6).column(drivers, 8).column(open, 6)
+                    .column(overdue, 8).column(km, 11).column(vehicles == 0 ? 0 : rateSum / vehicles, 2, 8);
+            out.newline();
+        }
+        out.flush();
+    }
+
+    /**
+     * Every depot's vehicle, driver and delivery with this key (a reg no,
+     * driver ID or package ID), one line each, searched in parallel.
+     */
+    public List<String> findEverywhere(String key) {
+        List<String> lines = new ArrayList<>();
+        for (List<String> hits : gather(s -> find(s, key))) {
+            lines.addAll(hits);
+        }
+        return lines;
+    }
+
+    private static List<String> find(Shard s, String key) {
+        List<String> hits = new ArrayList<>();
+        String at = s.getName() + ": ";
+        Vehicle v = s.services().vehicles().getVehicleByRegNo(key);
+        if (v != null) {
+            hits.add(at + v);
+        }
+        Driver d = s.services().drivers().getDriverById(key);
+        if (d != null) {
+            hits.add(at + d);
+        }
+        for (Driver named : s.services().drivers().getDriversByName(key)) {
+            if (named != d) {
+                hits.add(at + named);
+            }
+        }
+        Delivery delivery = s.services().deliveries().getDelivery(key);
+        if (delivery != null) {
+            hits.add(at + "Package " + delivery.getPackageId() + ", " + delivery.getOrigin() + " -> "
+                    + delivery.getDestination() + ", " + delivery.getStatus() + ", ETA " + delivery.getEta());
+        } else if (s.services().deliveries().getArchive().contains(key)) {
+            hits.add(at + "Package " + key + " (archived)");
+        }
+        return hits;
+    }
+
+    // === Rebalancing ===
+
+    /**
+     * Move a vehicle and its live maintenance records to another depot
+     * and save both. Refused while the vehicle has open deliveries, which
+     * belong to the depot that dispatched them. Returns the number of
+     * maintenance records moved.
+     */
+    public int moveVehicle(String regNo, Shard to) {
+        Shard from = ownerOfVehicle(regNo);
+        if (from == null) {
+            throw new IllegalArgumentException("Vehicle not found.");
+        }
+        if (from == to) {
+            throw new IllegalArgumentException("Vehicle is already at " + to.getName() + ".");
+        }
+        ServiceRegistry source = from.services(), target = to.services();
+        // Loaded before taking the locks, so no depot's files are read while another is held
+        MaintenanceManager fromMaintenance = source.maintenance();
+        MaintenanceManager toMaintenance = target.maintenance();
+        DeliveryManager fromDeliveries = source.deliveries();
+        target.vehicles();
+
+        Shard first = from.index < to.index ? from : to;
+        Shard second = first == from ? to : from;
+        synchronized (first) {
+            synchronized (second) {
+                Vehicle v = source.vehicles().getVehicleByRegNo(regNo);
+                if (v == null) {
+                    throw new IllegalArgumentException("Vehicle not found.");
+                }
+                if (fromDeliveries.getOpenDeliveries(v) > 0) {
+                    throw new IllegalStateException("Vehicle " + v.getRegistrationNumber()
+                            + " has open deliveries; complete or cancel them first.");
+                }
+                source.vehicles().removeVehicle(v);
+                fromMaintenance.vehicleRemoved(v);
+                List<Maintenance> records = fromMaintenance.takeRecords(v.getRegistrationNumber());
+                target.vehicles().adoptVehicle(v);
+                toMaintenance.vehicleAdded(v);
+                toMaintenance.addRecords(records);
+
+                source.vehicles().saveVehicles();
+                target.vehicles().saveVehicles();
+                if (!records.isEmpty()) {
+                    fromMaintenance.saveMaintenance();
+                    toMaintenance.saveMaintenance();
+                }
+                return records.size();
+            }
+        }
+    }
+
+    // Move a driver to another depot's queue and save both; refused while it has open deliveries
+    public void moveDriver(String driverId, Shard to) {
+        Shard from = ownerOfDriver(driverId);
+        if (from == null) {
+            throw new IllegalArgumentException("Driver not found.");
+        }
+        if (from == to) {
+            throw new IllegalArgumentException("Driver is already at " + to.getName() + ".");
+        }
+        ServiceRegistry source = from.services(), target = to.services();
+        DeliveryManager fromDeliveries = source.deliveries();
+        target.drivers();
+
+        Shard first = from.index < to.index ? from : to;
+        Shard second = first == from ? to : from;
+        synchronized (first) {
+            synchronized (second) {
+                Driver d = source.drivers().getDriverById(driverId);
+                if (d == null) {
+                    throw new IllegalArgumentException("Driver not found.");
+                }
+                if (fromDeliveries.getOpenDeliveries(d) > 0) {
+                    throw new IllegalStateException("Driver " + d.getDriverId()
+                            + " has open deliveries; complete or cancel them first.");
+                }
+                source.drivers().removeDriver(d);
+                target.drivers().adoptDriver(d);
+                source.drivers().saveDrivers();
+                target.drivers().saveDrivers();
+            }
+        }
+    }
+
+    // === Lifecycle, for every depot ===
+
+    public void startPrewarm() {
+        for (Shard s : shards) {
+            s.services().startPrewarm();
+        }
+    }
+
+    // Let running loads finish, so exit never cuts a file migration short
+    public void shutdown() {
+        for (Shard s : shards) {
+            s.services().awaitPrewarm();
+        }
+    }
+}
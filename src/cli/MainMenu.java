@@ -1,28 +1,54 @@
 package cli;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import models.Delivery;
 import models.Vehicle;
 import modules.DeliveryManager;
 import modules.DriverManager;
+import modules.LateDeliveryMonitor;
 import modules.MaintenanceManager;
+import modules.TelemetryIngest;
 import modules.VehicleManager;
+import structures.sort.ParallelSort;
+import structures.sort.RadixSort;
 import utils.InputValidator;
+import utils.PersistenceWriter;
+import utils.ReportWriter;
 
 public class MainMenu {
 
-    private final Scanner scanner = new Scanner(System.in);
-    private final VehicleManager vehicleManager = new VehicleManager();
-    private final DriverManager driverManager = new DriverManager();
-    private final DeliveryManager deliveryManager = new DeliveryManager(driverManager, vehicleManager);
-    private final MaintenanceManager maintenanceManager = new MaintenanceManager(vehicleManager);
+    private static final String EXPORT_DIR = "exports";
+
+    // One set of managers per depot, each built on first use, so the menu never waits for a data file it doesn't need
+    private final DepotRouter router = new DepotRouter();
+    private final long startNanos;
+    private final boolean prewarm;
     private boolean running = true;
 
+    public MainMenu() {
+        this(System.nanoTime(), false);
+    }
+
+    // startNanos: when the process started, for the time-to-first-prompt report
+    public MainMenu(long startNanos, boolean prewarm) {
+        this.startNanos = startNanos;
+        this.prewarm = prewarm;
+    }
+
     public void launch() {
         InputValidator.showInfo("Welcome to Adom Logistics Management System!");
+        System.out.println("Ready in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms; data loads "
+                + (prewarm ? "in the background." : "when a menu first needs it."));
+        if (prewarm) {
+            router.startPrewarm();
+        }
 
         while (running) {
             showMainMenu();
-            int choice = InputValidator.getValidMenuChoice("Enter your choice (1-6): ", 1, 6);
+            int choice = InputValidator.getValidMenuChoice("Enter your choice (1-7): ", 1, 7);
 
             if (choice == -1) {
                 // User typed 'back' on main menu, ask if they want to exit
@@ -46,6 +72,8 @@ public class MainMenu {
                 case 5 ->
                     generateReports();
                 case 6 ->
+                    manageDepots();
+                case 7 ->
                     exitSystem();
             }
 
@@ -55,31 +83,92 @@ public class MainMenu {
         }
     }
 
+    // Managers of the depot the menu is working on
+    private ServiceRegistry services() {
+        return router.current().services();
+    }
+
+    // Run a command script against the same managers the menu uses
+    public void runBatch(BufferedReader reader, int flushEvery) throws IOException {
+        new BatchRunner(router, flushEvery).run(reader);
+        PersistenceWriter.shutdown();
+    }
+
+    /**
+     * Move closed deliveries and maintenance records older than maxAgeDays
+     * into the compressed archive, so startup and listings only carry
+     * recent work.
+     */
+    public void archiveOldRecords(int maxAgeDays) {
+        for (DepotRouter.Shard shard : router.getShards()) {
+            try {
+                int deliveries = shard.services().deliveries().archiveClosed(maxAgeDays);
+                int records = shard.services().maintenance().archiveOlderThan(maxAgeDays);
+                System.out.println((router.isSharded() ? shard.getName() + ": archived " : "Archived ") + deliveries
+                        + " closed deliveries and " + records + " maintenance records older than " + maxAgeDays + " days.");
+            } catch (IOException e) {
+                System.out.println("Error archiving records: " + e.getMessage());
+            }
+        }
+    }
+
     private void showMainMenu() {
+        showLateAlerts();
         System.out.println("\n========== MAIN MENU ==========");
+        if (router.isSharded()) {
+            System.out.println("Depot: " + router.current().getName());
+        }
         System.out.println("1. Manage Vehicles");
         System.out.println("2. Manage Drivers");
         System.out.println("3. Track Deliveries");
         System.out.println("4. Maintenance Scheduling");
         System.out.println("5. Generate Reports");
-        System.out.println("6. Exit");
-        System.out.print("Enter your choice (1-6): ");
+        System.out.println("6. Depots");
+        System.out.println("7. Exit");
+        System.out.print("Enter your choice (1-7): ");
+    }
+
+    /**
+     * Charge and announce deliveries that went past their ETA since the
+     * last prompt. Runs on the menu thread, which is the only one that
+     * changes drivers, and prints between prompts rather than over one.
+     */
+    private void showLateAlerts() {
+        int now = LateDeliveryMonitor.currentMinute();
+        for (DepotRouter.Shard shard : router.getShards()) {
+            ServiceRegistry depot = shard.services();
+            if (!depot.deliveriesLoaded()) {
+                continue;
+            }
+            List<Delivery> late = depot.deliveries().applyLateDeliveries(now);
+            for (Delivery d : late) {
+                System.out.println("[ALERT] Delivery " + d.getPackageId() + " is past its ETA (" + d.getEta()
+                        + "). Delay recorded for driver " + d.getDriverId() + ".");
+            }
+            if (!late.isEmpty()) {
+                depot.drivers().saveDrivers();
+                depot.deliveries().saveDeliveries();
+            }
+        }
     }
 
     private void manageVehicles() {
+        VehicleManager vehicleManager = services().vehicles();
         boolean inVehicleMenu = true;
 
         while (inVehicleMenu) {
+            showLateAlerts();
             System.out.println("\n--- Vehicle Management ---");
             System.out.println("1. Add Vehicle");
             System.out.println("2. View All Vehicles");
             System.out.println("3. Search Vehicle by Reg No");
             System.out.println("4. View Vehicles Sorted by Mileage");
             System.out.println("5. Search Vehicles by Mileage");
-            System.out.println("6. Back to Main Menu");
-            System.out.print("Enter your choice (1-6): ");
+            System.out.println("6. Replay Telemetry Log");
+            System.out.println("7. Back to Main Menu");
+            System.out.print("Enter your choice (1-7): ");
 
-            switch (scanner.nextLine().trim()) {
+            switch (InputValidator.readLine().trim()) {
                 case "1" ->
                     vehicleManager.addVehicle();
                 case "2" ->
@@ -91,6 +180,8 @@ public class MainMenu {
                 case "5" ->
                     vehicleManager.searchByMileage();
                 case "6" ->
+                    replayTelemetry();
+                case "7" ->
                     inVehicleMenu = false;
                 default ->
                     System.out.println("Invalid input. Please try again.");
@@ -98,20 +189,43 @@ public class MainMenu {
         }
     }
 
+    // Apply an odometer/fuel log (or one socket connection) to the fleet, then save it
+    private void replayTelemetry() {
+        System.out.println("\n--- Replay Telemetry Log ---");
+        System.out.println("Lines: regNo,epochSeconds,odometerKm,fuelUsedLitres");
+        String source = InputValidator.getValidString("Enter log file path (or :port to listen on localhost): ", 1, 200);
+        if (source.equals("BACK")) {
+            return;
+        }
+        runTelemetry(source);
+    }
+
+    public void runTelemetry(String source) {
+        TelemetryIngest.Summary summary = new TelemetryIngest(services().vehicles(), services().maintenance(),
+                services().history()).replay(source);
+        TelemetryIngest.printSummary(summary, services().vehicles().getFuelStats(), services().history());
+        if (summary.applied() > 0) {
+            services().vehicles().saveVehicles();
+        }
+    }
+
     private void manageDrivers() {
+        DriverManager driverManager = services().drivers();
         boolean inDriverMenu = true;
 
         while (inDriverMenu) {
+            showLateAlerts();
             System.out.println("\n--- Driver Management ---");
             System.out.println("1. Add New Driver");
             System.out.println("2. View All Drivers");
             System.out.println("3. Search Driver by ID");
             System.out.println("4. Assign Next Available Driver");
             System.out.println("5. Show Available Drivers Queue");
-            System.out.println("6. Back to Main Menu");
-            System.out.print("Enter your choice (1-6): ");
+            System.out.println("6. Driver Leaderboard");
+            System.out.println("7. Back to Main Menu");
+            System.out.print("Enter your choice (1-7): ");
 
-            switch (scanner.nextLine().trim()) {
+            switch (InputValidator.readLine().trim()) {
                 case "1" ->
                     driverManager.addDriver();
                 case "2" ->
@@ -123,6 +237,8 @@ public class MainMenu {
                 case "5" ->
                     driverManager.showAvailableDrivers();
                 case "6" ->
+                    driverManager.showLeaderboard();
+                case "7" ->
                     inDriverMenu = false;
                 default ->
                     System.out.println("Invalid input. Please try again.");
@@ -131,19 +247,27 @@ public class MainMenu {
     }
 
     private void trackDeliveries() {
+        DeliveryManager deliveryManager = services().deliveries();
         boolean inDeliveryMenu = true;
 
         while (inDeliveryMenu) {
+            showLateAlerts();
             System.out.println("\n--- Delivery Tracking ---");
             System.out.println("1. Add New Delivery");
             System.out.println("2. View All Deliveries");
             System.out.println("3. Search Delivery by Package ID");
             System.out.println("4. Update Delivery Status");
             System.out.println("5. Reroute Delivery");
-            System.out.println("6. Back to Main Menu");
-            System.out.print("Enter your choice (1-6): ");
-
-            switch (scanner.nextLine().trim()) {
+            System.out.println("6. View Deliveries Due in Next Hour");
+            System.out.println("7. View Overdue Deliveries");
+            System.out.println("8. Queue Delivery for Wave Dispatch");
+            System.out.println("9. Dispatch Queued Wave");
+            System.out.println("10. View Deliveries by ETA Date Range");
+            System.out.println("11. Find Nearest Idle Vehicles");
+            System.out.println("12. Back to Main Menu");
+            System.out.print("Enter your choice (1-12): ");
+
+            switch (InputValidator.readLine().trim()) {
                 case "1" ->
                     deliveryManager.addDelivery();
                 case "2" ->
@@ -155,6 +279,18 @@ public class MainMenu {
                 case "5" ->
                     deliveryManager.rerouteDelivery();
                 case "6" ->
+                    deliveryManager.viewDueSoon();
+                case "7" ->
+                    deliveryManager.viewOverdue();
+                case "8" ->
+                    deliveryManager.queueDeliveryForDispatch();
+                case "9" ->
+                    deliveryManager.dispatchQueuedInteractive();
+                case "10" ->
+                    deliveryManager.viewDeliveriesByDateRange();
+                case "11" ->
+                    deliveryManager.showNearestIdleVehicles();
+                case "12" ->
                     inDeliveryMenu = false;
                 default ->
                     System.out.println("Invalid input. Please try again.");
@@ -163,9 +299,11 @@ public class MainMenu {
     }
 
     private void scheduleMaintenance() {
+        MaintenanceManager maintenanceManager = services().maintenance();
         boolean inMaintenanceMenu = true;
 
         while (inMaintenanceMenu) {
+            showLateAlerts();
             System.out.println("\n--- Maintenance Scheduling ---");
             System.out.println("1. Schedule Maintenance Now");
             System.out.println("2. View Maintenance History for a Vehicle");
@@ -174,7 +312,7 @@ public class MainMenu {
             System.out.println("5. Back to Main Menu");
             System.out.print("Enter your choice (1-5): ");
 
-            switch (scanner.nextLine().trim()) {
+            switch (InputValidator.readLine().trim()) {
                 case "1" ->
                     maintenanceManager.scheduleMaintenance();
                 case "2" ->
@@ -192,15 +330,148 @@ public class MainMenu {
     }
 
     private void generateReports() {
+        boolean inReportMenu = true;
+
+        while (inReportMenu) {
+            showLateAlerts();
+            System.out.println("\n--- Reports ---");
+            System.out.println("1. Fuel Efficiency Report");
+            System.out.println("2. Fuel History by Day/Week");
+            System.out.println("3. Export All Reports to CSV");
+            System.out.println("4. Export All Reports to JSON");
+            System.out.println("5. Back to Main Menu");
+            System.out.print("Enter your choice (1-5): ");
+
+            switch (InputValidator.readLine().trim()) {
+                case "1" ->
+                    showFuelEfficiencyReport();
+                case "2" ->
+                    services().history().showHistoryReport();
+                case "3" ->
+                    exportReports(ReportWriter.Format.CSV);
+                case "4" ->
+                    exportReports(ReportWriter.Format.JSON);
+                case "5" ->
+                    inReportMenu = false;
+                default ->
+                    System.out.println("Invalid input. Please try again.");
+            }
+        }
+    }
+
+    private void manageDepots() {
+        boolean inDepotMenu = true;
+
+        while (inDepotMenu) {
+            showLateAlerts();
+            System.out.println("\n--- Depots (working on " + router.current().getName() + ") ---");
+            System.out.println("1. Switch Depot");
+            System.out.println("2. Depot Summary");
+            System.out.println("3. Find in All Depots");
+            System.out.println("4. Move Vehicle to Another Depot");
+            System.out.println("5. Move Driver to Another Depot");
+            System.out.println("6. Back to Main Menu");
+            System.out.print("Enter your choice (1-6): ");
+
+            switch (InputValidator.readLine().trim()) {
+                case "1" ->
+                    switchDepot();
+                case "2" ->
+                    router.printSummary();
+                case "3" ->
+                    findInAllDepots();
+                case "4" ->
+                    moveToDepot(true);
+                case "5" ->
+                    moveToDepot(false);
+                case "6" ->
+                    inDepotMenu = false;
+                default ->
+                    System.out.println("Invalid input. Please try again.");
+            }
+        }
+    }
+
+    private void switchDepot() {
+        DepotRouter.Shard shard = promptDepot("Switch to depot");
+        if (shard != null) {
+            router.setCurrent(shard);
+            InputValidator.showSuccess("Now working on " + shard.getName() + ".");
+        }
+    }
+
+    // A depot picked by name, or null for back
+    private DepotRouter.Shard promptDepot(String prompt) {
+        List<DepotRouter.Shard> shards = router.getShards();
+        String[] names = new String[shards.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = shards.get(i).getName();
+        }
+        String name = InputValidator.getValidChoice(prompt + " (" + String.join("/", names) + "): ", names, false);
+        return name.equals("BACK") ? null : router.select(name);
+    }
+
+    private void findInAllDepots() {
+        String key = InputValidator.getValidString("Reg no, driver ID or name, or package ID: ", 2, 50);
+        if (key.equals("BACK")) {
+            return;
+        }
+        List<String> hits = router.findEverywhere(key);
+        if (hits.isEmpty()) {
+            System.out.println("Nothing matching '" + key + "' in any depot.");
+        }
+        for (String hit : hits) {
+            System.out.println("• " + hit);
+        }
+    }
+
+    private void moveToDepot(boolean vehicle) {
+        if (!router.isSharded()) {
+            System.out.println("Only one depot is configured (see data/depots.txt).");
+            return;
+        }
+        String key = vehicle ? InputValidator.getValidPlate("Enter Registration Number: ")
+                : InputValidator.getValidString("Enter Driver ID: ", 2, 15);
+        if (key.equals("BACK")) {
+            return;
+        }
+        DepotRouter.Shard to = promptDepot("Move to depot");
+        if (to == null) {
+            return;
+        }
+        try {
+            if (vehicle) {
+                int records = router.moveVehicle(key, to);
+                InputValidator.showSuccess("Vehicle moved to " + to.getName() + " with " + records
+                        + " maintenance records.");
+            } else {
+                router.moveDriver(key, to);
+                InputValidator.showSuccess("Driver moved to " + to.getName() + ".");
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private void exportReports(ReportWriter.Format format) {
+        System.out.println("\nExporting reports to " + EXPORT_DIR + "/ ...");
+        List<ReportExporter.Result> results = new ReportExporter(services())
+                .export(List.of(ReportExporter.Report.values()), format, new File(EXPORT_DIR));
+        ReportExporter.printResults(results);
+    }
+
+    private void showFuelEfficiencyReport() {
         System.out.println("\n--- Fuel Efficiency Report ---");
 
-        List<Vehicle> vehicles = vehicleManager.getAllVehicles();
+        // Runs over a frozen snapshot, so concurrent dispatch never blocks on or tears the report
+        List<Vehicle> vehicles = services().vehicles().snapshot().toList();
         if (vehicles.isEmpty()) {
             System.out.println("No vehicles available to generate report.");
             return;
         }
 
-        quickSort(vehicles, 0, vehicles.size() - 1);
+        // Radix sort on the efficiency bits: linear time whatever the input order
+        RadixSort.sortByDouble(vehicles, this::getEfficiency);
 
         double totalEfficiency = 0;
         int validVehicles = 0;
@@ -235,64 +506,42 @@ public class MainMenu {
         }
 
         System.out.println("\n--- Efficiency Comparison by Vehicle Type ---");
-        Map<String, List<Vehicle>> typeMap = new HashMap<>();
-
-        for (Vehicle v : vehicles) {
-            typeMap.computeIfAbsent(v.getType().toLowerCase(), k -> new ArrayList<>()).add(v);
-        }
-
-        for (Map.Entry<String, List<Vehicle>> entry : typeMap.entrySet()) {
-            String type = entry.getKey();
-            List<Vehicle> group = entry.getValue();
-
+        // Group by type (alphabetical), most efficient first within each type
+        List<Vehicle> byType = new ArrayList<>(vehicles);
+        ParallelSort.sortBy(byType, v -> v.getType().toLowerCase(), this::getEfficiency);
+
+        int start = 0;
+        while (start < byType.size()) {
+            String type = byType.get(start).getType().toLowerCase();
+            int end = start;
             double groupTotal = 0;
             int count = 0;
 
-            for (Vehicle v : group) {
+            while (end < byType.size() && byType.get(end).getType().equalsIgnoreCase(type)) {
+                Vehicle v = byType.get(end++);
                 if (v.getMileage() > 0) {
                     groupTotal += v.getFuelUsage() / (double) v.getMileage();
                     count++;
                 }
             }
 
-            if (count == 0) {
-                continue;
+            if (count > 0) {
+                double avg = groupTotal / count;
+                System.out.printf("• %-10s → Average Efficiency: %.5f L/km | Best: %s\n",
+                        type, avg, byType.get(start).getRegistrationNumber());
             }
-
-            double avg = groupTotal / count;
-            System.out.printf("• %-10s → Average Efficiency: %.5f L/km\n", type, avg);
-        }
-    }
-
-    private void quickSort(List<Vehicle> list, int low, int high) {
-        if (low < high) {
-            int pi = partition(list, low, high);
-            quickSort(list, low, pi - 1);
-            quickSort(list, pi + 1, high);
+            start = end;
         }
     }
 
-    private int partition(List<Vehicle> list, int low, int high) {
-        double pivot = getEfficiency(list.get(high));
-        int i = low - 1;
-
-        for (int j = low; j < high; j++) {
-            if (getEfficiency(list.get(j)) < pivot) {
-                i++;
-                Collections.swap(list, i, j);
-            }
-        }
-
-        Collections.swap(list, i + 1, high);
-        return i + 1;
-    }
-
     private double getEfficiency(Vehicle v) {
         return v.getMileage() == 0 ? Double.MAX_VALUE : v.getFuelUsage() / (double) v.getMileage();
     }
 
     private void exitSystem() {
         System.out.println("\nExiting system. Thank you!");
+        router.shutdown();
+        PersistenceWriter.shutdown(); // wait for queued saves to reach disk
         running = false;
     }
 }
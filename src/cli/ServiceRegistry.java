@@ -0,0 +1,196 @@
+package cli;
+
+import java.util.function.Supplier;
+import modules.DeliveryManager;
+import modules.DriverManager;
+import modules.FuelHistory;
+import modules.MaintenanceManager;
+import modules.VehicleManager;
+import utils.FileHandler;
+
+/**
+ * Builds each manager the first time something asks for it, so the menu
+ * comes up before any data file is read.
+ *
+ * Dependencies are pulled on demand: asking for deliveries loads drivers
+ * and vehicles first, asking for maintenance loads vehicles. A manager is
+ * built at most once even when the menu and the prewarm thread ask for it
+ * at the same time; both get the same instance.
+ *
+ * Managers are not thread-safe, and building maintenance or deliveries
+ * reads the vehicle and driver managers. So while a prewarm is running,
+ * vehicles(), drivers() and maintenance() (which changes vehicles) first
+ * make sure every manager that reads those is built (joining the prewarm's
+ * build, or doing it here), and only then hand the manager out.
+ *
+ * One registry serves one data directory: with depots configured, each
+ * depot has its own (see DepotRouter).
+ */
+public class ServiceRegistry {
+
+    // One lazily built service; get() blocks while another thread is building it
+    private static final class Lazy<T> {
+        private final String name;
+        private final Supplier<T> factory;
+        private volatile T value;
+        private long loadMillis = -1;
+
+        Lazy(String name, Supplier<T> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        T get() {
+            T v = value;
+            if (v != null) {
+                return v;
+            }
+            synchronized (this) {
+                if (value == null) {
+                    long start = System.nanoTime();
+                    T built = factory.get();
+                    loadMillis = (System.nanoTime() - start) / 1_000_000;
+                    value = built; // publishes loadMillis with it
+                }
+                return value;
+            }
+        }
+
+        boolean isLoaded() {
+            return value != null;
+        }
+    }
+
+    private final FileHandler files;
+    private final Lazy<VehicleManager> vehicles;
+    private final Lazy<DriverManager> drivers;
+    private final Lazy<MaintenanceManager> maintenance;
+    private final Lazy<DeliveryManager> deliveries;
+    private final Lazy<FuelHistory> history;
+
+    private volatile Thread prewarm;
+
+    public ServiceRegistry() {
+        this(FileHandler.DEFAULT);
+    }
+
+    public ServiceRegistry(FileHandler files) {
+        this.files = files;
+        vehicles = new Lazy<>("vehicles", () -> new VehicleManager(files));
+        drivers = new Lazy<>("drivers", () -> new DriverManager(files));
+        maintenance = new Lazy<>("maintenance", () -> new MaintenanceManager(vehicles.get(), files));
+        deliveries = new Lazy<>("deliveries", this::createDeliveryManager);
+        history = new Lazy<>("fuel history", () -> new FuelHistory(files));
+    }
+
+    public FileHandler getFiles() {
+        return files;
+    }
+
+    public VehicleManager vehicles() {
+        if (prewarmRunning()) {
+            maintenance.get();
+            deliveries.get();
+        }
+        return vehicles.get();
+    }
+
+    public DriverManager drivers() {
+        if (prewarmRunning()) {
+            deliveries.get();
+        }
+        return drivers.get();
+    }
+
+    public DeliveryManager deliveries() {
+        return deliveries.get();
+    }
+
+    // Maintenance changes vehicles too, so it waits for the same builds as vehicles()
+    public MaintenanceManager maintenance() {
+        if (prewarmRunning()) {
+            deliveries.get();
+        }
+        return maintenance.get();
+    }
+
+    // Telemetry readings on disk; only their block summaries are read to open it
+    public FuelHistory history() {
+        return history.get();
+    }
+
+    public boolean deliveriesLoaded() {
+        return deliveries.isLoaded();
+    }
+
+    public boolean maintenanceLoaded() {
+        return maintenance.isLoaded();
+    }
+
+    public boolean historyLoaded() {
+        return history.isLoaded();
+    }
+
+    private DeliveryManager createDeliveryManager() {
+        return new DeliveryManager(drivers.get(), vehicles.get(), files);
+    }
+
+    // True on any thread but the prewarm's while a prewarm is still building managers
+    private boolean prewarmRunning() {
+        Thread t = prewarm;
+        return t != null && t != Thread.currentThread() && t.isAlive();
+    }
+
+    /**
+     * Load everything on a background thread, in dependency order, while
+     * the operator reads the menu. Anything the menu asks for first is
+     * simply loaded there and skipped here.
+     */
+    public synchronized void startPrewarm() {
+        if (prewarm != null) {
+            return;
+        }
+        prewarm = new Thread(() -> {
+            vehicles.get();
+            drivers.get();
+            maintenance.get();
+            deliveries.get();
+        }, "service-prewarm");
+        prewarm.setDaemon(true);
+        prewarm.setPriority(Thread.MIN_PRIORITY);
+        prewarm.start();
+    }
+
+    // Wait for a running prewarm, so exit never cuts a load (and its file migration) short
+    public void awaitPrewarm() {
+        Thread t;
+        synchronized (this) {
+            t = prewarm;
+        }
+        if (t == null) {
+            return;
+        }
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // "vehicles 41 ms, drivers 3 ms, deliveries not loaded, ..."
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Lazy<?> lazy : new Lazy<?>[]{vehicles, drivers, deliveries, maintenance, history}) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(lazy.name);
+            if (lazy.isLoaded()) {
+                sb.append(' ').append(lazy.loadMillis).append(" ms");
+            } else {
+                sb.append(" not loaded");
+            }
+        }
+        return sb.toString();
+    }
+}
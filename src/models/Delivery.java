@@ -1,47 +1,146 @@
 package models;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
 public class Delivery {
 
-    private String packageId;
-    private String origin;
-    private String destination;
-    private String eta;
-    private String vehicleRegNo;
-    private String driverId;
-    private String status; // e.g., Pending, In Transit, Delivered, Cancelled
+    public static final int NO_ETA = Integer.MIN_VALUE;
+    public static final int NOT_CHARGED = -1; // no lateness charged: not delivered, or delivered before it was kept
+    public static final String UNASSIGNED = "UNASSIGNED"; // vehicle/driver not yet dispatched
+    private static final DateTimeFormatter ETA_FORMATTER =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm").withResolverStyle(ResolverStyle.STRICT);
+
+    // Repeating values are stored as codes into the shared symbol tables,
+    // entity references as surrogate IDs from IdRegistry
+    private final int id;
+    private int originCode;
+    private int destinationCode;
+    private int etaMinute;          // minutes since 1970-01-01 00:00 (local wall clock)
+    private int vehicleRef;         // -1 while unassigned
+    private int driverRef;          // -1 while unassigned
+    private DeliveryStatus status;
+    private boolean delayCharged;   // the driver has been charged a delay for this ETA
+    private int chargedLateMinutes = NOT_CHARGED; // lateness charged to the driver on delivery
 
     public Delivery(String packageId, String origin, String destination, String eta,
                     String vehicleRegNo, String driverId, String status) {
-        this.packageId = packageId;
-        this.origin = origin;
-        this.destination = destination;
-        this.eta = eta;
-        this.vehicleRegNo = vehicleRegNo;
-        this.driverId = driverId;
-        this.status = status;
+        DeliveryStatus parsed = DeliveryStatus.parse(status);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Unknown delivery status: " + status);
+        }
+        int parsedEta = parseEta(eta); // before anything is interned for a row that may be rejected
+
+        this.id = IdRegistry.DELIVERIES.intern(packageId);
+        this.originCode = Symbols.LOCATIONS.intern(origin);
+        this.destinationCode = Symbols.LOCATIONS.intern(destination);
+        this.etaMinute = parsedEta;
+        this.vehicleRef = isUnassigned(vehicleRegNo) ? -1 : IdRegistry.VEHICLES.intern(vehicleRegNo);
+        this.driverRef = isUnassigned(driverId) ? -1 : IdRegistry.DRIVERS.intern(driverId);
+        this.status = parsed;
+    }
+
+    // Field-by-field copy for snapshots
+    private Delivery(Delivery other) {
+        this.id = other.id;
+        this.originCode = other.originCode;
+        this.destinationCode = other.destinationCode;
+        this.etaMinute = other.etaMinute;
+        this.vehicleRef = other.vehicleRef;
+        this.driverRef = other.driverRef;
+        this.status = other.status;
+        this.delayCharged = other.delayCharged;
+        this.chargedLateMinutes = other.chargedLateMinutes;
+    }
+
+    // Frozen copy for published snapshots; readers must not call the setters on it
+    public Delivery snapshot() {
+        return new Delivery(this);
     }
 
     // Getters
-    public String getPackageId() { return packageId; }
-    public String getOrigin() { return origin; }
-    public String getDestination() { return destination; }
-    public String getEta() { return eta; }
-    public String getVehicleRegNo() { return vehicleRegNo; }
-    public String getDriverId() { return driverId; }
-    public String getStatus() { return status; }
+    public int getId() { return id; }
+    public String getPackageId() { return IdRegistry.DELIVERIES.nameOf(id); }
+    public String getOrigin() { return Symbols.LOCATIONS.lookup(originCode); }
+    public String getDestination() { return Symbols.LOCATIONS.lookup(destinationCode); }
+    public String getEta() { return formatEta(etaMinute); }
+    public int getEtaMinute() { return etaMinute; }
+    public String getVehicleRegNo() { return vehicleRef < 0 ? UNASSIGNED : IdRegistry.VEHICLES.nameOf(vehicleRef); }
+    public int getVehicleRef() { return vehicleRef; }
+    public String getDriverId() { return driverRef < 0 ? UNASSIGNED : IdRegistry.DRIVERS.nameOf(driverRef); }
+    public int getDriverRef() { return driverRef; }
+    public boolean isAssigned() { return vehicleRef >= 0 && driverRef >= 0; }
+    public String getStatus() { return status.getLabel(); }
+    public DeliveryStatus getStatusCode() { return status; }
+    public boolean isDelayCharged() { return delayCharged; }
+    public int getChargedLateMinutes() { return chargedLateMinutes; }
 
     // Setters
-    public void setStatus(String status) { this.status = status; }
-    public void setDestination(String destination) { this.destination = destination; }
+    public void setStatus(String status) {
+        DeliveryStatus parsed = DeliveryStatus.parse(status);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Unknown delivery status: " + status);
+        }
+        this.status = parsed;
+    }
+
+    public void setStatus(DeliveryStatus status) { this.status = status; }
+    public void setDestination(String destination) { this.destinationCode = Symbols.LOCATIONS.intern(destination); }
+    public void setEtaMinute(int etaMinute) { this.etaMinute = etaMinute; }
+    public void setDelayCharged(boolean delayCharged) { this.delayCharged = delayCharged; }
+    public void setChargedLateMinutes(int chargedLateMinutes) { this.chargedLateMinutes = chargedLateMinutes; }
+
+    // Attach the vehicle and driver chosen by the dispatcher
+    public void assign(Vehicle vehicle, Driver driver) {
+        this.vehicleRef = vehicle.getId();
+        this.driverRef = driver.getId();
+    }
+
+    private static boolean isUnassigned(String ref) {
+        return ref == null || ref.isEmpty() || ref.equalsIgnoreCase(UNASSIGNED);
+    }
+
+    // === ETA encoding ===
+
+    /**
+     * "yyyy-MM-dd HH:mm" -> epoch minute; NO_ETA for none (null, empty or
+     * "N/A"). Anything else, including impossible dates like 2025-02-30,
+     * throws IllegalArgumentException so a bad row is rejected instead of
+     * being saved back without its ETA.
+     */
+    public static int parseEta(String eta) {
+        if (eta == null || eta.isEmpty() || eta.equals("N/A")) {
+            return NO_ETA;
+        }
+        try {
+            return toEpochMinute(LocalDateTime.parse(eta, ETA_FORMATTER));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid ETA: " + eta);
+        }
+    }
+
+    public static String formatEta(int epochMinute) {
+        if (epochMinute == NO_ETA) {
+            return "N/A";
+        }
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC).format(ETA_FORMATTER);
+    }
+
+    public static int toEpochMinute(LocalDateTime time) {
+        return (int) (time.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
 
     @Override
     public String toString() {
-        return "Package ID: " + packageId +
-                "\nOrigin: " + origin +
-                "\nDestination: " + destination +
-                "\nETA: " + eta +
-                "\nVehicle: " + vehicleRegNo +
-                "\nDriver: " + driverId +
+        return "Package ID: " + getPackageId() +
+                "\nOrigin: " + getOrigin() +
+                "\nDestination: " + getDestination() +
+                "\nETA: " + getEta() +
+                "\nVehicle: " + getVehicleRegNo() +
+                "\nDriver: " + getDriverId() +
                 "\nStatus: " + status + "\n";
     }
 }
@@ -0,0 +1,41 @@
+package models;
+
+public enum DeliveryStatus {
+    PENDING("Pending"),
+    IN_TRANSIT("In Transit"),
+    DELIVERED("Delivered"),
+    CANCELLED("Cancelled");
+
+    private static final DeliveryStatus[] VALUES = values();
+
+    private final String label;
+
+    DeliveryStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    // Pending and In Transit deliveries still need a driver and vehicle
+    public boolean isOpen() {
+        return this == PENDING || this == IN_TRANSIT;
+    }
+
+    // Accepts "In Transit", "in-transit", "IN_TRANSIT", ...; returns null if unknown
+    public static DeliveryStatus parse(String text) {
+        String normalized = text.trim().replace('-', ' ').replace('_', ' ');
+        for (DeliveryStatus status : VALUES) {
+            if (status.label.equalsIgnoreCase(normalized)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
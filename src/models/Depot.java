@@ -0,0 +1,28 @@
+package models;
+
+import java.io.File;
+
+// A depot as read from depots.txt: its name, the town it sits in, and the directory holding its data files
+public class Depot {
+    private final String name;
+    private final String town;
+    private final File directory;
+
+    public Depot(String name, String town, File directory) {
+        this.name = name;
+        this.town = town;
+        this.directory = directory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTown() {
+        return town;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+}
@@ -1,13 +1,23 @@
 package models;
 
 public class Driver {
+    public static final int NO_DAY = -1;
+
+    private final int id;          // surrogate ID from IdRegistry.DRIVERS
     private String driverId;
     private String name;
     private int yearsOfExperience;
     private int delays;
     private int infractions;
 
+    // Delivery outcomes, kept current by DriverPerformance
+    private int delivered;
+    private int onTime;
+    private long latenessMinutes;          // summed over late deliveries
+    private int firstDeliveryDay = NO_DAY; // epoch day of the first completed delivery
+
     public Driver(String driverId, String name, int yearsOfExperience) {
+        this.id = IdRegistry.DRIVERS.intern(driverId);
         this.driverId = driverId;
         this.name = name;
         this.yearsOfExperience = yearsOfExperience;
@@ -15,6 +25,28 @@ public class Driver {
         this.infractions = 0;
     }
 
+    // Field-by-field copy for saving; the writer thread reads it while this one keeps changing
+    private Driver(Driver other) {
+        this.id = other.id;
+        this.driverId = other.driverId;
+        this.name = other.name;
+        this.yearsOfExperience = other.yearsOfExperience;
+        this.delays = other.delays;
+        this.infractions = other.infractions;
+        this.delivered = other.delivered;
+        this.onTime = other.onTime;
+        this.latenessMinutes = other.latenessMinutes;
+        this.firstDeliveryDay = other.firstDeliveryDay;
+    }
+
+    public Driver snapshot() {
+        return new Driver(this);
+    }
+
+    public int getId() {
+        return id;
+    }
+
     public String getDriverId() {
         return driverId;
     }
@@ -35,14 +67,108 @@ public class Driver {
         return infractions;
     }
 
+    public int getDelivered() {
+        return delivered;
+    }
+
+    public int getOnTime() {
+        return onTime;
+    }
+
+    public long getLatenessMinutes() {
+        return latenessMinutes;
+    }
+
+    public int getFirstDeliveryDay() {
+        return firstDeliveryDay;
+    }
+
     public void addDelay() {
         delays++;
     }
 
+    // Lowers the reliability score: a driver on the leaderboard takes it through DriverPerformance
     public void addInfraction() {
         infractions++;
     }
 
+    // Set every counter at once, as saved (the loader's path; nothing is replayed)
+    public void restoreCounters(int delays, int infractions, int delivered, int onTime,
+                                long latenessMinutes, int firstDeliveryDay) {
+        this.delays = delays;
+        this.infractions = infractions;
+        this.delivered = delivered;
+        this.onTime = Math.min(onTime, delivered);
+        this.latenessMinutes = latenessMinutes;
+        this.firstDeliveryDay = delivered == 0 ? NO_DAY : firstDeliveryDay;
+    }
+
+    // A delivery completed lateMinutes after its ETA (0 = on time) on the given epoch day
+    public void recordDelivery(int lateMinutes, int day) {
+        delivered++;
+        if (lateMinutes <= 0) {
+            onTime++;
+        } else {
+            latenessMinutes += lateMinutes;
+        }
+        if (firstDeliveryDay == NO_DAY || day < firstDeliveryDay) {
+            firstDeliveryDay = day;
+        }
+    }
+
+    // Undo recordDelivery() for a delivery taken back out of Delivered
+    public void retractDelivery(int lateMinutes) {
+        if (delivered == 0) {
+            return;
+        }
+        delivered--;
+        if (lateMinutes <= 0) {
+            onTime = Math.max(0, onTime - 1);
+        } else {
+            latenessMinutes = Math.max(0, latenessMinutes - lateMinutes);
+        }
+        onTime = Math.min(onTime, delivered);
+        if (delivered == 0) {
+            firstDeliveryDay = NO_DAY;
+            latenessMinutes = 0;
+        }
+    }
+
+    // Share of completed deliveries that arrived by their ETA (1.0 with none yet)
+    public double getOnTimeRate() {
+        return delivered == 0 ? 1.0 : onTime / (double) delivered;
+    }
+
+    // Average minutes past the ETA over the late deliveries
+    public double getAverageLateness() {
+        int late = delivered - onTime;
+        return late == 0 ? 0 : latenessMinutes / (double) late;
+    }
+
+    // Completed deliveries per day since the first one, today included
+    public double getDeliveriesPerDay(int today) {
+        if (delivered == 0) {
+            return 0;
+        }
+        return delivered / (double) Math.max(1, today - firstDeliveryDay + 1);
+    }
+
+    /**
+     * Reliability from 0 to 100, in tenths of a point (so rankings compare
+     * exact integers). The on-time rate is smoothed towards 80% by two
+     * imaginary deliveries, so one lucky or unlucky trip doesn't put a new
+     * driver at either end of the board. Average lateness per delivery
+     * costs a point per 6 minutes (at most 20) and each infraction 3 points
+     * (at most 30).
+     */
+    public int getReliabilityScore() {
+        double onTimeScore = 100 * (onTime + 1.6) / (delivered + 2);
+        double latePenalty = delivered == 0 ? 0 : Math.min(20, latenessMinutes / (double) delivered / 6);
+        double infractionPenalty = Math.min(30, 3.0 * infractions);
+        double score = onTimeScore - latePenalty - infractionPenalty;
+        return (int) Math.round(Math.max(0, Math.min(100, score)) * 10);
+    }
+
     @Override
     public String toString() {
         return "Driver ID: " + driverId +
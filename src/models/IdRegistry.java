@@ -0,0 +1,74 @@
+package models;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Locale;
+import structures.hash.SymbolTable;
+
+/**
+ * Assigns dense int surrogate IDs (0, 1, 2, ...) to entity keys. Keys are
+ * case-insensitive: "vh001" and "VH001" resolve to the same ID, and that is
+ * decided once here instead of with equalsIgnoreCase at every comparison.
+ *
+ * Because IDs are dense, managers can index entities and per-entity counters
+ * with plain arrays. Names are published the same way SymbolTable publishes
+ * symbols, so nameOf() needs no lock.
+ */
+public class IdRegistry {
+
+    public static final IdRegistry VEHICLES = new IdRegistry();   // by registration number
+    public static final IdRegistry DRIVERS = new IdRegistry();    // by driver ID
+    public static final IdRegistry DELIVERIES = new IdRegistry(); // by package ID
+
+    private final SymbolTable keys = new SymbolTable(); // upper-cased keys
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(String[].class);
+
+    private volatile String[] names = new String[64];   // spelling used when first registered
+
+    // Return the ID for the key, assigning the next free ID if it is new
+    public synchronized int intern(String key) {
+        int before = keys.size();
+        int id = keys.intern(fold(key));
+        if (id == before) {
+            if (id == names.length) {
+                String[] grown = new String[id * 2];
+                System.arraycopy(names, 0, grown, 0, id);
+                ELEMENT.setRelease(grown, id, key);
+                names = grown;
+            } else {
+                ELEMENT.setRelease(names, id, key);
+            }
+        }
+        return id;
+    }
+
+    // Return the ID for the key, or -1 if it was never registered
+    public int idOf(String key) {
+        return keys.codeOf(fold(key));
+    }
+
+    public String nameOf(int id) {
+        if (id < 0) {
+            return null;
+        }
+        String[] table = names;
+        if (id < table.length) {
+            String name = (String) ELEMENT.getAcquire(table, id);
+            if (name != null) {
+                return name;
+            }
+        }
+        synchronized (this) {
+            return names[id];
+        }
+    }
+
+    // Number of IDs handed out so far; arrays sized to this can hold every entity
+    public int size() {
+        return keys.size();
+    }
+
+    private static String fold(String key) {
+        return key.trim().toUpperCase(Locale.ROOT);
+    }
+}
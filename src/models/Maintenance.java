@@ -4,7 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 public class Maintenance {
-    private String regNo;           // Vehicle registration number
+    private int vehicleRef;         // IdRegistry.VEHICLES ID of the serviced vehicle
     private String serviceType;     // e.g., "Oil Change", "Brake Replacement"
     private String serviceDate;     // Date maintenance was done (yyyy-MM-dd)
     private int mileageAtService;   // Mileage when service was done
@@ -14,8 +14,8 @@ public class Maintenance {
 
     public Maintenance(String regNo, String serviceType, String serviceDate, int mileageAtService,
                        String partsReplaced, double cost, String nextServiceDate) {
-        this.regNo = regNo;
-        this.serviceType = serviceType;
+        this.vehicleRef = IdRegistry.VEHICLES.intern(regNo);
+        this.serviceType = Symbols.TYPES.canonical(serviceType);
         this.serviceDate = serviceDate;
         this.mileageAtService = mileageAtService;
         this.partsReplaced = partsReplaced;
@@ -25,7 +25,7 @@ public class Maintenance {
 
     // Constructor used by FileHandler when reading from flat file
     public Maintenance(String regNo, String serviceDate, String description, List<String> partsList, double cost) {
-        this.regNo = regNo;
+        this.vehicleRef = IdRegistry.VEHICLES.intern(regNo);
         this.serviceDate = serviceDate;
         this.serviceType = description; // Assuming 'description' is actually the service type
         this.partsReplaced = String.join(";", partsList);
@@ -36,7 +36,7 @@ public class Maintenance {
 
     // Compatibility for FileHandler
     public String getVehicleRegNo() {
-        return regNo;
+        return getRegNo();
     }
 
     public String getDate() {
@@ -53,7 +53,11 @@ public class Maintenance {
 
     // Getters
     public String getRegNo() {
-        return regNo;
+        return IdRegistry.VEHICLES.nameOf(vehicleRef);
+    }
+
+    public int getVehicleRef() {
+        return vehicleRef;
     }
 
     public String getServiceType() {
@@ -84,7 +88,7 @@ public class Maintenance {
     public String toString() {
         return String.format(
             "Vehicle: %s\nService: %s\nDate: %s\nMileage: %dkm\nParts: %s\nCost: GHS %.2f\nNext Service: %s\n",
-            regNo, serviceType, serviceDate, mileageAtService, partsReplaced, cost,
+            getRegNo(), serviceType, serviceDate, mileageAtService, partsReplaced, cost,
             (nextServiceDate == null || nextServiceDate.isEmpty()) ? "N/A" : nextServiceDate
         );
     }
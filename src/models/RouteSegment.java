@@ -0,0 +1,32 @@
+package models;
+
+// One road between two towns, as read from routes.txt (both directions)
+public class RouteSegment {
+    private final String from;
+    private final String to;
+    private final int distanceKm;
+    private final int travelMinutes;
+
+    public RouteSegment(String from, String to, int distanceKm, int travelMinutes) {
+        this.from = from;
+        this.to = to;
+        this.distanceKm = distanceKm;
+        this.travelMinutes = travelMinutes;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public int getDistanceKm() {
+        return distanceKm;
+    }
+
+    public int getTravelMinutes() {
+        return travelMinutes;
+    }
+}
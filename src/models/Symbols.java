@@ -0,0 +1,22 @@
+package models;
+
+import structures.hash.SymbolTable;
+import structures.trie.RadixTree;
+
+/**
+ * Shared symbol tables used by the models. Town names and type labels repeat
+ * across thousands of records, so each distinct value is stored once.
+ *
+ * LOCATION_NAMES is the search index behind location suggestions at the
+ * prompts: towns from the road network plus every origin and destination
+ * in use, weighted by how often they are used.
+ */
+public final class Symbols {
+
+    public static final SymbolTable LOCATIONS = new SymbolTable(); // origins and destinations
+    public static final SymbolTable TYPES = new SymbolTable();     // vehicle and service types
+    public static final RadixTree LOCATION_NAMES = new RadixTree();
+
+    private Symbols() {
+    }
+}
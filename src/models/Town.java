@@ -0,0 +1,26 @@
+package models;
+
+// A town's position, as read from towns.txt (decimal degrees, north and east positive)
+public class Town {
+    private final String name;
+    private final double latitude;
+    private final double longitude;
+
+    public Town(String name, double latitude, double longitude) {
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+}
@@ -1,27 +1,51 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Vehicle {
+    private final int id;          // surrogate ID from IdRegistry.VEHICLES
     private String registrationNumber;
     private String type;           // e.g., "Truck" or "Van"
     private int mileage;           // in kilometers
     private double fuelUsage;      // in liters per 100km
-    private String driverId;       // ID of the assigned driver
-    private List<String> maintenanceHistory;
+    private int driverRef;         // IdRegistry.DRIVERS ID of the assigned driver
+    private String location;       // last known town, or null if unknown
+    private List<String> maintenanceHistory; // allocated on first record
 
     // Constructor
     public Vehicle(String registrationNumber, String type, int mileage, double fuelUsage, String driverId) {
+        this.id = IdRegistry.VEHICLES.intern(registrationNumber);
         this.registrationNumber = registrationNumber;
-        this.type = type;
+        this.type = Symbols.TYPES.canonical(type);
         this.mileage = mileage;
         this.fuelUsage = fuelUsage;
-        this.driverId = driverId;
-        this.maintenanceHistory = new ArrayList<>();
+        this.driverRef = IdRegistry.DRIVERS.intern(driverId);
+    }
+
+    // Field-by-field copy for snapshots
+    private Vehicle(Vehicle other) {
+        this.id = other.id;
+        this.registrationNumber = other.registrationNumber;
+        this.type = other.type;
+        this.mileage = other.mileage;
+        this.fuelUsage = other.fuelUsage;
+        this.driverRef = other.driverRef;
+        this.location = other.location;
+        this.maintenanceHistory = other.maintenanceHistory == null ? null : List.copyOf(other.maintenanceHistory);
+    }
+
+    // Frozen copy for published snapshots; readers must not call the setters on it
+    public Vehicle snapshot() {
+        return new Vehicle(this);
     }
 
     // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
     public String getRegistrationNumber() {
         return registrationNumber;
     }
@@ -39,11 +63,19 @@ public class Vehicle {
     }
 
     public String getDriverId() {
-        return driverId;
+        return IdRegistry.DRIVERS.nameOf(driverRef);
+    }
+
+    public int getDriverRef() {
+        return driverRef;
+    }
+
+    public String getLocation() {
+        return location;
     }
 
     public List<String> getMaintenanceHistory() {
-        return maintenanceHistory;
+        return maintenanceHistory == null ? Collections.emptyList() : maintenanceHistory;
     }
 
     public void setMileage(int mileage) {
@@ -55,10 +87,17 @@ public class Vehicle {
     }
 
     public void setDriverId(String driverId) {
-        this.driverId = driverId;
+        this.driverRef = IdRegistry.DRIVERS.intern(driverId);
+    }
+
+    public void setLocation(String location) {
+        this.location = location == null || location.isEmpty() ? null : Symbols.LOCATIONS.canonical(location);
     }
 
     public void addMaintenanceRecord(String record) {
+        if (maintenanceHistory == null) {
+            maintenanceHistory = new ArrayList<>(2);
+        }
         maintenanceHistory.add(record);
     }
 
@@ -69,6 +108,7 @@ public class Vehicle {
                ", Type: " + type +
                ", Mileage: " + mileage + " km" +
                ", Fuel Usage: " + fuelUsage + " L/100km" +
-               ", Driver ID: " + driverId + "]";
+               ", Driver ID: " + getDriverId() +
+               (location == null ? "" : ", Location: " + location) + "]";
     }
 }
@@ -0,0 +1,108 @@
+package modules;
+
+import java.util.List;
+import models.Delivery;
+import models.Driver;
+import models.Vehicle;
+import structures.assignment.AssignmentSolver;
+
+/**
+ * Matches a wave of unassigned deliveries to idle vehicles and drivers all at
+ * once instead of first-come-first-served.
+ *
+ * Picking delivery, vehicle and driver together is a 3-way matching with no
+ * fast exact solution, so it runs as two weighted assignments. First
+ * deliveries are matched to vehicles on fuel for the trip (including the
+ * empty run from where the vehicle is to the pickup), type fit and
+ * mileage. Then the deliveries that got a vehicle are matched to drivers on
+ * route length weighted by driver risk.
+ */
+public class BatchMatcher {
+
+    static final int LONG_ROUTE_KM = 150;     // at or above this a Truck is the right fit
+    static final int UNKNOWN_ROUTE_KM = 100;  // assumed length when the route is not on the network
+    static final double TYPE_MISMATCH_PENALTY = 25.0;
+    static final int UNKNOWN_DEADHEAD_KM = 50; // assumed empty run to the pickup when a position is unknown
+
+    // Result: per delivery (same order as the input), the chosen vehicle and driver or null
+    public static class Plan {
+        public final Vehicle[] vehicles;
+        public final Driver[] drivers;
+
+        Plan(int size) {
+            vehicles = new Vehicle[size];
+            drivers = new Driver[size];
+        }
+    }
+
+    public static Plan match(List<Delivery> deliveries, List<Vehicle> vehicles, List<Driver> drivers,
+                             RoutePlanner planner, Gazetteer gazetteer) {
+        int n = deliveries.size();
+        Plan plan = new Plan(n);
+        if (n == 0 || vehicles.isEmpty() || drivers.isEmpty()) {
+            return plan;
+        }
+
+        int[] km = new int[n];
+        for (int i = 0; i < n; i++) {
+            Delivery d = deliveries.get(i);
+            RoutePlanner.Route route = planner.plan(d.getOrigin(), d.getDestination());
+            km[i] = route == null ? UNKNOWN_ROUTE_KM : route.getDistanceKm();
+        }
+
+        // Stage 1: deliveries x vehicles
+        double[][] vehicleCost = new double[n][vehicles.size()];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < vehicles.size(); j++) {
+                Vehicle v = vehicles.get(j);
+                double deadhead = gazetteer.distanceKm(v.getLocation(), deliveries.get(i).getOrigin());
+                vehicleCost[i][j] = vehicleCost(km[i], deadhead < 0 ? UNKNOWN_DEADHEAD_KM : deadhead, v);
+            }
+        }
+        int[] vehicleFor = AssignmentSolver.solve(vehicleCost);
+
+        // Stage 2: deliveries that got a vehicle x drivers
+        int[] withVehicle = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (vehicleFor[i] >= 0) {
+                withVehicle[count++] = i;
+            }
+        }
+
+        double[][] driverCost = new double[count][drivers.size()];
+        for (int r = 0; r < count; r++) {
+            for (int j = 0; j < drivers.size(); j++) {
+                driverCost[r][j] = driverCost(km[withVehicle[r]], drivers.get(j));
+            }
+        }
+        int[] driverFor = AssignmentSolver.solve(driverCost);
+
+        for (int r = 0; r < count; r++) {
+            if (driverFor[r] >= 0) {
+                int i = withVehicle[r];
+                plan.vehicles[i] = vehicles.get(vehicleFor[i]);
+                plan.drivers[i] = drivers.get(driverFor[r]);
+            }
+        }
+        return plan;
+    }
+
+    // Litres of fuel for the empty run to the pickup and the trip, plus a penalty for the wrong
+    // vehicle type and a little for wear
+    static double vehicleCost(int km, double deadheadKm, Vehicle v) {
+        double cost = (km + deadheadKm) * v.getFuelUsage() / 100.0;
+        boolean wantsTruck = km >= LONG_ROUTE_KM;
+        if (wantsTruck != v.getType().equalsIgnoreCase("Truck")) {
+            cost += TYPE_MISMATCH_PENALTY;
+        }
+        return cost + v.getMileage() / 20000.0;
+    }
+
+    // Longer routes go to lower-risk drivers: risk rises with infractions and delays, falls with experience
+    static double driverCost(int km, Driver d) {
+        double risk = 1.0 + 0.5 * d.getInfractions() + 0.25 * d.getDelays()
+                - 0.1 * Math.min(d.getYearsOfExperience(), 10);
+        return km / 100.0 * Math.max(0.2, risk);
+    }
+}
@@ -1,34 +1,87 @@
 package modules;
 
-import java.util.Scanner;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import models.Delivery;
+import models.DeliveryStatus;
+import models.Driver;
+import models.IdRegistry;
+import models.Symbols;
+import models.Vehicle;
 import structures.list.LinkedList;
+import structures.persistent.PersistentVector;
+import structures.persistent.SnapshotTable;
+import structures.sort.RadixSort;
+import structures.trie.RadixTree;
+import utils.ArchiveStore;
+import utils.DeliveryPartitionStore;
 import utils.FileHandler;
 import utils.InputValidator;
+import utils.PackageIdIndex;
+import utils.Pager;
+import utils.PersistenceWriter;
+import utils.TextBuffer;
 
 public class DeliveryManager {
 
     private final LinkedList<Delivery> deliveryQueue = new LinkedList<>();
-    private final Scanner scanner = new Scanner(System.in);
+    private final Set<Delivery> waiting = new LinkedHashSet<>(); // unassigned Pending deliveries, oldest first
+    private Delivery[] byId = new Delivery[64];     // indexed by IdRegistry.DELIVERIES ID
+    private int[] openByVehicle = new int[64];      // open deliveries per IdRegistry.VEHICLES ID
+    private int[] openByDriver = new int[64];       // open deliveries per IdRegistry.DRIVERS ID
+    private final SnapshotTable<Delivery> published = new SnapshotTable<>(); // frozen copies for readers
+    private final FileHandler files;                 // this depot's data files
+    private final DeliveryPartitionStore store;
+    private final ArchiveStore<Delivery> archive;    // closed deliveries moved off the live files
+    private final PackageIdIndex packageIds;         // every package ID ever issued
+    private final RadixTree packageIndex = new RadixTree();  // loaded package IDs, for search suggestions
+    private Set<Integer> dirtyPartitions = new HashSet<>();  // weekly partitions changed since the last save
+    private static final int WAVE_CANDIDATES_PER_PAIR = 4;   // oldest deliveries offered per free driver and vehicle
+    private static final int HOT_DAYS = 14;                  // partitions older than this stay on disk until needed
+    private static final String[] ALLOWED_STATUSES = {"Pending", "In Transit", "Delivered", "Cancelled"};
+
     private final DriverManager driverManager;
     private final VehicleManager vehicleManager;
+    private final LateDeliveryMonitor etaMonitor;
+    private final RoutePlanner routePlanner = new RoutePlanner();
 
     public DeliveryManager(DriverManager driverManager, VehicleManager vehicleManager) {
+        this(driverManager, vehicleManager, FileHandler.DEFAULT);
+    }
+
+    public DeliveryManager(DriverManager driverManager, VehicleManager vehicleManager, FileHandler files) {
+        this.files = files;
+        this.store = new DeliveryPartitionStore(files.getDeliveryDirectory(), files.getLegacyDeliveryFile());
+        this.archive = files.deliveryArchive();
+        this.packageIds = new PackageIdIndex(store, archive);
         this.driverManager = driverManager;
         this.vehicleManager = vehicleManager;
+        this.etaMonitor = new LateDeliveryMonitor();
 
-        var loaded = FileHandler.loadDeliveries();
-        for (Delivery d : loaded) {
-            deliveryQueue.add(d);
-        }
-
-        if (!loaded.isEmpty()) {
-            System.out.println("Loaded " + loaded.size() + " deliveries from file.");
+        int loaded = adopt(store.loadHot(LateDeliveryMonitor.currentMinute(), HOT_DAYS));
+        if (loaded > 0) {
+            System.out.println("Loaded " + loaded + " deliveries from file (" + store.describe() + ").");
         }
     }
 
     public void addDelivery() {
-        System.out.println("\n--- Schedule New Delivery ---");
+        addDelivery(false);
+    }
+
+    // Take a delivery now but leave the vehicle and driver to the next wave dispatch
+    public void queueDeliveryForDispatch() {
+        addDelivery(true);
+    }
+
+    private void addDelivery(boolean deferAssignment) {
+        System.out.println(deferAssignment ? "\n--- Queue Delivery for Wave Dispatch ---" : "\n--- Schedule New Delivery ---");
 
         while (true) {
             // Get package ID
@@ -38,8 +91,7 @@ public class DeliveryManager {
             }
 
             // Check if package ID already exists
-            Delivery existing = deliveryQueue.find(d -> d.getPackageId().equals(packageId));
-            if (existing != null) {
+            if (packageExists(packageId)) {
                 if (!InputValidator.handleErrorAndAskRetry("Package ID already exists!")) {
                     return;
                 }
@@ -66,42 +118,38 @@ public class DeliveryManager {
                 continue;
             }
 
+            // Suggest an ETA from the road network
+            String suggestedEta = suggestEta(origin, destination);
+            if (suggestedEta != null) {
+                System.out.println("Suggested route: " + routePlanner.plan(origin, destination));
+                System.out.println("Suggested ETA: " + suggestedEta + " (press Enter to accept)");
+            }
+
             // Get ETA with proper future date validation
-            String eta = InputValidator.getValidFutureDateTime("Enter ETA");
+            String eta = InputValidator.getValidFutureDateTime("Enter ETA", suggestedEta);
             if (eta.equals("BACK")) {
                 return;
             }
 
             try {
-                var driver = driverManager.assignDriver();
-                if (driver == null) {
-                    if (!InputValidator.handleErrorAndAskRetry("No available driver. Cannot schedule delivery.")) {
-                        return;
-                    }
-                    continue;
-                }
-
-                var vehicle = vehicleManager.getAvailableVehicle();
-                if (vehicle == null) {
-                    if (!InputValidator.handleErrorAndAskRetry("No available vehicle. Cannot schedule delivery.")) {
-                        return;
-                    }
-                    continue;
+                if (deferAssignment) {
+                    queueDelivery(packageId, origin, destination, eta);
+                    saveDeliveries();
+                    InputValidator.showSuccess("Delivery queued. It will be assigned at the next wave dispatch.");
+                    return;
                 }
 
-                Delivery delivery = new Delivery(
-                        packageId, origin, destination, eta,
-                        vehicle.getRegistrationNumber(),
-                        driver.getDriverId(),
-                        "Pending"
-                );
-
-                deliveryQueue.add(delivery);
-                FileHandler.saveDeliveries(deliveryQueue.toList());
+                Delivery delivery = scheduleDelivery(packageId, origin, destination, eta);
+                System.out.println("Assigned Driver: " + driverManager.getDriverById(delivery.getDriverId()).getName());
+                saveDeliveries();
 
                 InputValidator.showSuccess("Delivery scheduled!");
                 return;
 
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                if (!InputValidator.handleErrorAndAskRetry(e.getMessage())) {
+                    return;
+                }
             } catch (Exception e) {
                 if (!InputValidator.handleErrorAndAskRetry("Error creating delivery: " + e.getMessage())) {
                     return;
@@ -110,9 +158,505 @@ public class DeliveryManager {
         }
     }
 
+    // Departure now plus the fastest known travel time, or null if the route is unknown
+    public String suggestEta(String origin, String destination) {
+        RoutePlanner.Route route = routePlanner.plan(origin, destination);
+        return route == null ? null : Delivery.formatEta(route.etaFrom(LateDeliveryMonitor.currentMinute()));
+    }
+
+    public RoutePlanner getRoutePlanner() {
+        return routePlanner;
+    }
+
+    // Schedule a delivery on the next available driver and vehicle without prompting or saving.
+    // A null or empty ETA is filled in from the route network.
+    public Delivery scheduleDelivery(String packageId, String origin, String destination, String eta) {
+        eta = checkNewDelivery(packageId, origin, destination, eta);
+
+        Driver driver = driverManager.pollAvailableDriver();
+        if (driver == null) {
+            throw new IllegalStateException("No available driver. Cannot schedule delivery.");
+        }
+
+        Vehicle vehicle = pickVehicle(origin);
+        if (vehicle == null) {
+            driverManager.releaseDriver(driver); // don't lose the driver we just dequeued
+            throw new IllegalStateException("No available vehicle. Cannot schedule delivery.");
+        }
+
+        Delivery delivery = new Delivery(
+                packageId, origin, destination, eta,
+                vehicle.getRegistrationNumber(),
+                driver.getDriverId(),
+                "Pending"
+        );
+        deliveryQueue.add(delivery);
+        index(delivery);
+        changed(delivery);
+        etaMonitor.track(delivery);
+        return delivery;
+    }
+
+    // Accept a Pending delivery with no vehicle or driver yet; dispatchQueued() assigns it later
+    public Delivery queueDelivery(String packageId, String origin, String destination, String eta) {
+        eta = checkNewDelivery(packageId, origin, destination, eta);
+
+        Delivery delivery = new Delivery(packageId, origin, destination, eta,
+                Delivery.UNASSIGNED, Delivery.UNASSIGNED, "Pending");
+        deliveryQueue.add(delivery);
+        waiting.add(delivery);
+        index(delivery);
+        changed(delivery);
+        etaMonitor.track(delivery);
+        return delivery;
+    }
+
+    // Shared checks for a new delivery; returns the ETA to use
+    private String checkNewDelivery(String packageId, String origin, String destination, String eta) {
+        if (packageExists(packageId)) {
+            throw new IllegalArgumentException("Package ID already exists!");
+        }
+        if (origin.equalsIgnoreCase(destination)) {
+            throw new IllegalArgumentException("Origin and destination cannot be the same!");
+        }
+        if (eta == null || eta.isEmpty()) {
+            eta = suggestEta(origin, destination);
+            if (eta == null) {
+                throw new IllegalArgumentException("No known route from " + origin + " to " + destination + "; an ETA is required.");
+            }
+        }
+        Delivery.parseEta(eta); // refuse a bad ETA before a driver is taken off the queue
+        return eta;
+    }
+
+    /**
+     * Assign queued (unassigned Pending) deliveries in one weighted matching
+     * against all idle drivers and idle vehicles. Only the oldest
+     * WAVE_CANDIDATES_PER_PAIR deliveries per free driver-vehicle pair are
+     * offered, so a wave costs the same however long the backlog is; the
+     * rest wait for the next one. Drivers that are not used go back to the
+     * availability queue in their original order. Returns the number of
+     * deliveries dispatched.
+     */
+    public int dispatchQueued() {
+        if (waiting.isEmpty()) {
+            return 0;
+        }
+        List<Vehicle> idleVehicles = vehicleManager.idleVehicles();
+        List<Driver> idleDrivers = driverManager.drainAvailableDrivers();
+        int limit = WAVE_CANDIDATES_PER_PAIR * Math.min(idleVehicles.size(), idleDrivers.size());
+        List<Delivery> waiting = new ArrayList<>(Math.min(limit, this.waiting.size()));
+        for (Delivery d : this.waiting) {
+            if (waiting.size() == limit) {
+                break;
+            }
+            waiting.add(d);
+        }
+
+        BatchMatcher.Plan plan = BatchMatcher.match(waiting, idleVehicles, idleDrivers, routePlanner,
+                vehicleManager.getGazetteer());
+
+        boolean[] used = new boolean[IdRegistry.DRIVERS.size()];
+        int dispatched = 0;
+        for (int i = 0; i < waiting.size(); i++) {
+            if (plan.vehicles[i] != null) {
+                Delivery d = waiting.get(i);
+                d.assign(plan.vehicles[i], plan.drivers[i]);
+                this.waiting.remove(d);
+                countOpen(d, 1);
+                changed(d);
+                used[plan.drivers[i].getId()] = true;
+                dispatched++;
+            }
+        }
+        for (Driver driver : idleDrivers) {
+            if (!used[driver.getId()]) {
+                driverManager.releaseDriver(driver);
+            }
+        }
+        return dispatched;
+    }
+
+    public void dispatchQueuedInteractive() {
+        System.out.println("\n--- Wave Dispatch ---");
+        long start = System.nanoTime();
+        int dispatched = dispatchQueued();
+        long micros = (System.nanoTime() - start) / 1000;
+
+        if (dispatched > 0) {
+            saveDeliveries();
+        }
+        InputValidator.showSuccess("Dispatched " + dispatched + " deliveries in " + micros + " µs; "
+                + waiting.size() + " still waiting for a free driver or vehicle.");
+    }
+
+    // The idle vehicle nearest the pickup; without known positions any idle vehicle, then the
+    // default pick
+    private Vehicle pickVehicle(String origin) {
+        List<Vehicle> nearest = vehicleManager.nearestIdleVehicles(origin, null, 1);
+        if (!nearest.isEmpty()) {
+            return nearest.get(0);
+        }
+        Vehicle idle = vehicleManager.anyIdleVehicle();
+        return idle != null ? idle : vehicleManager.getAvailableVehicle();
+    }
+
+    // Set a delivery's status without prompting or saving
+    public Delivery changeStatus(String packageId, String status) {
+        return changeStatus(packageId, status, LateDeliveryMonitor.currentMinute());
+    }
+
+    // Same, at a given epoch minute (the simulator's clock) for scoring the driver
+    public Delivery changeStatus(String packageId, String status, int nowMinute) {
+        Delivery delivery = findDelivery(packageId);
+        DeliveryStatus parsed = DeliveryStatus.parse(status);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid status '" + status + "'. Use Pending/In Transit/Delivered/Cancelled.");
+        }
+
+        setStatus(delivery, parsed, nowMinute);
+        return delivery;
+    }
+
+    // Change a delivery's destination without prompting or saving; returns the old destination
+    public String reroute(String packageId, String newDestination) {
+        Delivery delivery = findDelivery(packageId);
+        if (newDestination.equalsIgnoreCase(delivery.getDestination())) {
+            throw new IllegalArgumentException("New destination must be different from current destination!");
+        }
+        if (newDestination.equalsIgnoreCase(delivery.getOrigin())) {
+            throw new IllegalArgumentException("Destination cannot be the same as origin!");
+        }
+
+        String previous = delivery.getDestination();
+        markDirty(delivery); // the old ETA week loses the row if the new ETA moves it
+        delivery.setDestination(newDestination);
+        Symbols.LOCATION_NAMES.add(newDestination);
+
+        // Only an open delivery's ETA follows the route, and only by the change in travel time,
+        // so a date the operator set is kept; closed deliveries keep theirs as recorded
+        RoutePlanner.Route route = routePlanner.plan(delivery.getOrigin(), newDestination);
+        if (route != null && delivery.getStatusCode().isOpen()) {
+            RoutePlanner.Route old = routePlanner.plan(delivery.getOrigin(), previous);
+            if (delivery.getEtaMinute() == Delivery.NO_ETA) {
+                delivery.setEtaMinute(route.etaFrom(LateDeliveryMonitor.currentMinute()));
+                etaMonitor.track(delivery);
+            } else if (old != null) {
+                delivery.setEtaMinute(delivery.getEtaMinute() + route.getTravelMinutes() - old.getTravelMinutes());
+                etaMonitor.track(delivery);
+            }
+        }
+        changed(delivery);
+        return previous;
+    }
+
+    public boolean removeDelivery(String packageId) {
+        Delivery delivery = getDelivery(packageId);
+        if (delivery == null) {
+            return false;
+        }
+
+        deliveryQueue.removeIf(d -> d == delivery);
+        waiting.remove(delivery);
+        byId[delivery.getId()] = null;
+        packageIndex.remove(delivery.getPackageId());
+        published.remove(delivery.getId());
+        markDirty(delivery);
+        etaMonitor.untrack(delivery);
+        if (delivery.getStatusCode().isOpen()) {
+            countOpen(delivery, -1);
+        }
+        return true;
+    }
+
+    public void saveDeliveries() {
+        if (dirtyPartitions.isEmpty()) {
+            return;
+        }
+        PersistentVector<Delivery> frozen = snapshot();
+        Set<Integer> partitions = dirtyPartitions;
+        dirtyPartitions = new HashSet<>();
+        PersistenceWriter.submitPartitioned(files, PersistenceWriter.Target.DELIVERIES, partitions,
+                (keys, fsync) -> {
+                    packageIds.save(fsync); // filter first, so it always covers the IDs on disk
+                    store.write(frozen.toList(), keys, fsync);
+                });
+    }
+
+    // Case-insensitive lookup, resolved once through the ID registry; may open cold partitions
+    public Delivery getDelivery(String packageId) {
+        Delivery delivery = getLoadedDelivery(packageId);
+        if (delivery == null && store.hasColdPartitions()) {
+            // Only partitions whose package filter matches are read
+            if (adopt(store.loadCandidates(packageId)) > 0) {
+                delivery = getLoadedDelivery(packageId);
+            }
+        }
+        return delivery;
+    }
+
+    // Live or archived; package IDs are never reused
+    public boolean packageExists(String packageId) {
+        if (!packageIds.mightContain(packageId)) {
+            return false; // definitely new: no partition or archive reads
+        }
+        return getDelivery(packageId) != null || archive.contains(packageId);
+    }
+
+    /**
+     * Move Delivered and Cancelled deliveries whose ETA is more than
+     * maxAgeDays old into the compressed archive. The archive write is
+     * fsynced before the rows leave the weekly partitions, so a crash can
+     * leave a row in both places but never in neither. Returns how many
+     * deliveries were archived.
+     */
+    public int archiveClosed(int maxAgeDays) throws IOException {
+        int cutoff = LateDeliveryMonitor.currentMinute() - maxAgeDays * 24 * 60;
+        adopt(store.loadRange(Integer.MIN_VALUE + 1, cutoff - 1)); // only weeks that can hold old rows
+
+        List<Delivery> closed = new ArrayList<>();
+        for (Delivery d : deliveryQueue) {
+            if (!d.getStatusCode().isOpen() && d.getEtaMinute() != Delivery.NO_ETA && d.getEtaMinute() < cutoff) {
+                closed.add(d);
+            }
+        }
+        if (closed.isEmpty()) {
+            return 0;
+        }
+
+        archive.append(closed, true);
+        Set<Delivery> moved = new HashSet<>(closed);
+        deliveryQueue.removeIf(moved::contains);
+        for (Delivery d : closed) {
+            byId[d.getId()] = null;
+            packageIndex.remove(d.getPackageId());
+            published.remove(d.getId());
+            markDirty(d);
+            etaMonitor.untrack(d);
+        }
+        saveDeliveries();
+        return closed.size();
+    }
+
+    /**
+     * Every delivery on record as its seven text fields (package ID, origin,
+     * destination, ETA, vehicle, driver, status): loaded ones from a
+     * snapshot, then cold partitions and the archive streamed from disk
+     * without loading them. A stored row may carry further columns after
+     * these. The array handed to action is only valid during the call.
+     */
+    public void forEachDeliveryRow(Consumer<String[]> action) {
+        String[] fields = new String[7];
+        snapshot().forEach(d -> {
+            fields[0] = d.getPackageId();
+            fields[1] = d.getOrigin();
+            fields[2] = d.getDestination();
+            fields[3] = d.getEta();
+            fields[4] = d.getVehicleRegNo();
+            fields[5] = d.getDriverId();
+            fields[6] = d.getStatus();
+            action.accept(fields);
+        });
+        Consumer<String> stored = line -> {
+            String[] parts = line.split(",", -1);
+            if (parts.length >= 7 && parts.length <= 9) {
+                for (int i = 0; i < 7; i++) {
+                    parts[i] = parts[i].trim();
+                }
+                action.accept(parts);
+            }
+        };
+        store.forEachColdLine(stored);
+        archive.forEachLine(stored);
+    }
+
+    public ArchiveStore<Delivery> getArchive() {
+        return archive;
+    }
+
+    private Delivery getLoadedDelivery(String packageId) {
+        int id = IdRegistry.DELIVERIES.idOf(packageId);
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    // Deliveries with an ETA in [fromMinute, toMinute], earliest first; opens overlapping cold partitions
+    public List<Delivery> getDeliveriesBetween(int fromMinute, int toMinute) {
+        adopt(store.loadRange(fromMinute, toMinute));
+        List<Delivery> result = new ArrayList<>();
+        snapshot().forEach(d -> {
+            if (d.getEtaMinute() != Delivery.NO_ETA && d.getEtaMinute() >= fromMinute && d.getEtaMinute() <= toMinute) {
+                result.add(d);
+            }
+        });
+        RadixSort.sortByInt(result, Delivery::getEtaMinute);
+        return result;
+    }
+
+    // Bring rows read from a partition file into memory; returns how many
+    private int adopt(List<Delivery> rows) {
+        int now = LateDeliveryMonitor.currentMinute();
+        int adopted = 0;
+        for (Delivery d : rows) {
+            if (getLoadedDelivery(d.getPackageId()) != null) {
+                continue; // already in memory (e.g. re-added after the partition was written)
+            }
+            deliveryQueue.add(d);
+            if (isWaiting(d)) {
+                waiting.add(d);
+            }
+            index(d);
+            etaMonitor.trackLoaded(d, now);
+            adopted++;
+        }
+        return adopted;
+    }
+
+    // A delivery changed: publish it and mark its ETA week for the next save
+    private static boolean isWaiting(Delivery delivery) {
+        return delivery.getStatusCode() == DeliveryStatus.PENDING && !delivery.isAssigned();
+    }
+
+    private void changed(Delivery delivery) {
+        publish(delivery);
+        markDirty(delivery);
+    }
+
+    private void markDirty(Delivery delivery) {
+        int partition = DeliveryPartitionStore.partitionOf(delivery.getEtaMinute());
+        if (dirtyPartitions.add(partition)) {
+            // A cold partition must be in memory before it is rewritten
+            adopt(store.loadPartition(partition));
+        }
+    }
+
+    private Delivery findDelivery(String packageId) {
+        Delivery delivery = getDelivery(packageId);
+        if (delivery == null) {
+            throw new IllegalArgumentException("Delivery not found.");
+        }
+        return delivery;
+    }
+
+    // Status changes go through here so the open-delivery counters and driver scores stay right
+    private void setStatus(Delivery delivery, DeliveryStatus status, int nowMinute) {
+        DeliveryStatus previous = delivery.getStatusCode();
+        boolean wasOpen = previous.isOpen();
+        delivery.setStatus(status);
+        if (isWaiting(delivery)) {
+            waiting.add(delivery);
+        } else {
+            waiting.remove(delivery);
+        }
+        driverManager.getPerformance().statusChanged(driverManager.getDriverById(delivery.getDriverRef()),
+                delivery, previous, status, nowMinute);
+        Vehicle vehicle = vehicleManager.getVehicleById(delivery.getVehicleRef());
+        if (vehicle != null && status == DeliveryStatus.DELIVERED && previous != DeliveryStatus.DELIVERED) {
+            vehicleManager.moveVehicle(vehicle, delivery.getDestination()); // before it can turn idle below
+        }
+        if (wasOpen != status.isOpen()) {
+            countOpen(delivery, status.isOpen() ? 1 : -1);
+            if (status.isOpen()) {
+                etaMonitor.track(delivery);
+            } else {
+                etaMonitor.untrack(delivery);
+            }
+        }
+        changed(delivery); // last, so the published copy has the flag track() clears
+    }
+
+    public LateDeliveryMonitor getEtaMonitor() {
+        return etaMonitor;
+    }
+
+    /**
+     * Charge a delay to the driver of every delivery that has gone past its
+     * ETA since the last call, and return those deliveries. Call it from
+     * the thread that changes drivers (menu, batch or simulator). Each one
+     * is marked as charged, so a later session doesn't charge it again; the
+     * caller saves the drivers and the deliveries.
+     */
+    public List<Delivery> applyLateDeliveries(int nowMinute) {
+        List<Delivery> late = etaMonitor.takeLate(nowMinute);
+        for (Delivery d : late) {
+            Driver driver = driverManager.getDriverById(d.getDriverRef());
+            if (driver != null) {
+                driver.addDelay();
+            }
+            d.setDelayCharged(true);
+            changed(d);
+        }
+        return late;
+    }
+
+    private void index(Delivery delivery) {
+        if (delivery.getId() >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(byId.length * 2, delivery.getId() + 1));
+        }
+        if (byId[delivery.getId()] == null) {
+            packageIndex.add(delivery.getPackageId());
+            Symbols.LOCATION_NAMES.add(delivery.getOrigin());
+            Symbols.LOCATION_NAMES.add(delivery.getDestination());
+        }
+        byId[delivery.getId()] = delivery;
+        packageIds.add(delivery.getPackageId());
+        publish(delivery);
+        if (delivery.getStatusCode().isOpen()) {
+            countOpen(delivery, 1);
+        }
+    }
+
+    // Every change to a delivery ends here so new snapshots see it
+    private void publish(Delivery delivery) {
+        published.put(delivery.getId(), delivery.snapshot());
+    }
+
+    /**
+     * Consistent read-only view of all deliveries as of now, in O(1). Later
+     * changes don't show up in it, so reports can walk it without locking.
+     */
+    public PersistentVector<Delivery> snapshot() {
+        return published.snapshot();
+    }
+
+    private void countOpen(Delivery delivery, int delta) {
+        int vehicle = delivery.getVehicleRef();
+        int driver = delivery.getDriverRef();
+        if (vehicle >= 0) {
+            if (vehicle >= openByVehicle.length) {
+                openByVehicle = Arrays.copyOf(openByVehicle, Math.max(openByVehicle.length * 2, vehicle + 1));
+            }
+            openByVehicle[vehicle] += delta;
+            // Only the first open and last close change whether the vehicle is free
+            if (openByVehicle[vehicle] == (delta > 0 ? 1 : 0)) {
+                Vehicle v = vehicleManager.getVehicleById(vehicle);
+                if (v != null) {
+                    vehicleManager.setIdle(v, delta < 0);
+                }
+            }
+        }
+        if (driver >= 0) {
+            if (driver >= openByDriver.length) {
+                openByDriver = Arrays.copyOf(openByDriver, Math.max(openByDriver.length * 2, driver + 1));
+            }
+            openByDriver[driver] += delta;
+        }
+    }
+
+    // Number of Pending/In Transit deliveries on a driver
+    public int getOpenDeliveries(Driver driver) {
+        int id = driver.getId();
+        return id < openByDriver.length ? openByDriver[id] : 0;
+    }
+
+    // Number of Pending/In Transit deliveries on a vehicle
+    public int getOpenDeliveries(Vehicle vehicle) {
+        int id = vehicle.getId();
+        return id < openByVehicle.length ? openByVehicle[id] : 0;
+    }
+
     public void listDeliveries() {
         System.out.println("\n--- All Deliveries ---");
-        deliveryQueue.printAll();
+        Pager.browse(Pager.of(snapshot()), DeliveryManager::header, DeliveryManager::row, "(No items found)");
     }
 
     public void updateDeliveryStatus() {
@@ -124,7 +668,7 @@ public class DeliveryManager {
                 return;
             }
 
-            var delivery = deliveryQueue.find(d -> d.getPackageId().equalsIgnoreCase(packageId));
+            var delivery = getDelivery(packageId);
             if (delivery == null) {
                 if (!InputValidator.handleErrorAndAskRetry("Delivery not found.")) {
                     return;
@@ -132,15 +676,19 @@ public class DeliveryManager {
                 continue;
             }
 
-            String[] allowedStatuses = {"Pending", "In Transit", "Delivered", "Cancelled"};
-            String status = InputValidator.getValidChoice("Enter new status (Pending/In Transit/Delivered/Cancelled): ", allowedStatuses, false);
+            String status = InputValidator.getValidChoice("Enter new status (Pending/In Transit/Delivered/Cancelled): ", ALLOWED_STATUSES, false);
             if (status.equals("BACK")) {
                 return;
             }
 
             try {
-                delivery.setStatus(status);
-                FileHandler.saveDeliveries(deliveryQueue.toList());
+                DeliveryStatus previous = delivery.getStatusCode();
+                setStatus(delivery, DeliveryStatus.parse(status), LateDeliveryMonitor.currentMinute());
+                saveDeliveries();
+                if (previous == DeliveryStatus.DELIVERED || delivery.getStatusCode() == DeliveryStatus.DELIVERED) {
+                    driverManager.saveDrivers(); // the driver's score moved
+                    vehicleManager.saveVehicles(); // and the vehicle may be at the destination now
+                }
                 InputValidator.showSuccess("Delivery status updated.");
                 return;
             } catch (Exception e) {
@@ -151,6 +699,53 @@ public class DeliveryManager {
         }
     }
 
+    // The idle vehicles closest to a pickup town, from the spatial index
+    public void showNearestIdleVehicles() {
+        System.out.println("\n--- Nearest Idle Vehicles ---");
+        if (vehicleManager.getGazetteer().isEmpty()) {
+            System.out.println("No town gazetteer loaded; vehicle positions are unknown.");
+            return;
+        }
+
+        while (true) {
+            String town = InputValidator.getValidLocation("Enter pickup town: ", 2, 50);
+            if (town.equals("BACK")) {
+                return;
+            }
+            if (vehicleManager.getGazetteer().locate(town) < 0) {
+                if (!InputValidator.handleErrorAndAskRetry("'" + town + "' is not in the town gazetteer.")) {
+                    return;
+                }
+                continue;
+            }
+            String type = InputValidator.getValidChoice("Vehicle type (Truck/Van/Any): ", new String[]{"Truck", "Van", "Any"}, false);
+            if (type.equals("BACK")) {
+                return;
+            }
+            int k = InputValidator.getValidInteger("How many vehicles (1-50): ", 1, 50);
+            if (k == -999) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            List<Vehicle> nearest = vehicleManager.nearestIdleVehicles(town, type.equals("Any") ? null : type, k);
+            long micros = (System.nanoTime() - start) / 1000;
+            if (nearest.isEmpty()) {
+                System.out.println("No idle vehicle with a known position.");
+                return;
+            }
+            TextBuffer out = new TextBuffer(System.out);
+            out.column("Reg No", 12).column("Type", 6).column("At", 14).columnRight("km", 6).newline().rule(41);
+            for (Vehicle v : nearest) {
+                out.column(v.getRegistrationNumber(), 12).column(v.getType(), 6).column(v.getLocation(), 14)
+                        .column(vehicleManager.getGazetteer().distanceKm(v.getLocation(), town), 0, 6).newline();
+            }
+            out.append("Found in ").append(micros).append(" µs (straight-line distances).").newline();
+            out.flush();
+            return;
+        }
+    }
+
     public void rerouteDelivery() {
         System.out.println("\n--- Reroute Delivery ---");
 
@@ -160,7 +755,7 @@ public class DeliveryManager {
                 return;
             }
 
-            var delivery = deliveryQueue.find(d -> d.getPackageId().equalsIgnoreCase(packageId));
+            var delivery = getDelivery(packageId);
             if (delivery == null) {
                 if (!InputValidator.handleErrorAndAskRetry("Delivery not found.")) {
                     return;
@@ -194,9 +789,20 @@ public class DeliveryManager {
             }
 
             try {
-                delivery.setDestination(newDest);
-                FileHandler.saveDeliveries(deliveryQueue.toList());
+                String etaBefore = delivery.getEta();
+                reroute(delivery.getPackageId(), newDest);
+                saveDeliveries();
                 InputValidator.showSuccess("Delivery rerouted from '" + currentDestination + "' to '" + newDest + "'");
+                RoutePlanner.Route route = routePlanner.plan(delivery.getOrigin(), newDest);
+                if (route != null) {
+                    System.out.println("Route: " + route);
+                    if (!delivery.getEta().equals(etaBefore)) {
+                        System.out.println("Updated ETA: " + delivery.getEta());
+                    } else {
+                        System.out.println("ETA kept: " + etaBefore + " (suggested for the new route: "
+                                + suggestEta(delivery.getOrigin(), newDest) + ")");
+                    }
+                }
                 return;
             } catch (Exception e) {
                 if (!InputValidator.handleErrorAndAskRetry("Error rerouting delivery: " + e.getMessage())) {
@@ -208,11 +814,10 @@ public class DeliveryManager {
 
     public void removeDelivery() {
         System.out.print("Enter Package ID to remove: ");
-        String packageId = scanner.nextLine().trim();
+        String packageId = InputValidator.readLine().trim();
 
-        boolean removed = deliveryQueue.removeIf(d -> d.getPackageId().equalsIgnoreCase(packageId));
-        if (removed) {
-            FileHandler.saveDeliveries(deliveryQueue.toList());
+        if (removeDelivery(packageId)) {
+            saveDeliveries();
             System.out.println("Delivery removed.");
         } else {
             System.out.println("Package not found.");
@@ -228,13 +833,24 @@ public class DeliveryManager {
             if (packageId.equals("BACK")) {
                 return;
             }
+            if (InputValidator.showCompletions(packageIndex, packageId)) {
+                continue;
+            }
 
-            var delivery = deliveryQueue.find(d -> d.getPackageId().equalsIgnoreCase(packageId));
+            var delivery = getDelivery(packageId);
             if (delivery != null) {
                 System.out.println("Delivery Found:");
                 System.out.println(delivery);
                 return;
+            }
+            // Closed deliveries may have moved to the archive; only matching blocks are read
+            List<Delivery> archived = archive.find(packageId);
+            if (!archived.isEmpty()) {
+                System.out.println("Delivery Found (archived):");
+                System.out.println(archived.get(archived.size() - 1));
+                return;
             } else {
+                InputValidator.showDidYouMean(packageIndex, packageId, 1);
                 if (!InputValidator.handleErrorAndAskRetry("Delivery not found.")) {
                     return;
                 }
@@ -242,24 +858,74 @@ public class DeliveryManager {
         }
     }
 
+    /**
+     * View open deliveries whose ETA falls within the next hour
+     */
+    public void viewDueSoon() {
+        System.out.println("\n--- Deliveries Due in the Next Hour ---");
+        printEtaList(etaMonitor.dueWithin(LateDeliveryMonitor.currentMinute(), 60), "No deliveries due in the next hour.");
+    }
+
+    /**
+     * View open deliveries that have passed their ETA
+     */
+    public void viewOverdue() {
+        System.out.println("\n--- Overdue Deliveries ---");
+        printEtaList(etaMonitor.overdue(LateDeliveryMonitor.currentMinute()), "No overdue deliveries.");
+    }
+
+    /**
+     * View deliveries with an ETA between two dates (inclusive). Only the
+     * weekly partitions overlapping the range are read from disk.
+     */
+    public void viewDeliveriesByDateRange() {
+        System.out.println("\n--- Deliveries by ETA Date Range ---");
+
+        String from = InputValidator.getValidDate("Enter start date");
+        if (from.equals("BACK")) {
+            return;
+        }
+        String to = InputValidator.getValidDate("Enter end date");
+        if (to.equals("BACK")) {
+            return;
+        }
+
+        int fromMinute = Delivery.toEpochMinute(LocalDate.parse(from).atStartOfDay());
+        int toMinute = Delivery.toEpochMinute(LocalDate.parse(to).plusDays(1).atStartOfDay()) - 1;
+        if (toMinute < fromMinute) {
+            System.out.println("End date is before start date.");
+            return;
+        }
+        printEtaList(getDeliveriesBetween(fromMinute, toMinute), "No deliveries in that range.");
+    }
+
+    private void printEtaList(List<Delivery> deliveries, String emptyMessage) {
+        Pager.browse(Pager.of(deliveries), DeliveryManager::header, DeliveryManager::row, emptyMessage);
+    }
+
+    private static void header(TextBuffer out) {
+        out.column("Package ID", 14).column("Origin", 14).column("Destination", 14).column("ETA", 16)
+                .column("Vehicle", 12).column("Driver", 10).column("Status", 10);
+        out.newline().rule(96);
+    }
+
+    private static void row(Delivery d, TextBuffer out) {
+        out.column(d.getPackageId(), 14).column(d.getOrigin(), 14).column(d.getDestination(), 14)
+                .column(d.getEta(), 16).column(d.getVehicleRegNo(), 12).column(d.getDriverId(), 10)
+                .column(d.getStatus(), 10);
+    }
+
     /**
      * View all active deliveries (excludes cancelled deliveries by default)
      */
     public void viewActiveDeliveries() {
         System.out.println("\n--- Active Deliveries ---");
-
-        boolean foundActive = false;
-        for (var delivery : deliveryQueue.toList()) {
-            if (!delivery.getStatus().equalsIgnoreCase("Cancelled")) {
-                System.out.println(delivery);
-                System.out.println("----------------------------------------");
-                foundActive = true;
-            }
+        if (store.hasColdPartitions()) {
+            System.out.println("(Older weeks are not loaded; use View All or the date range view to include them.)");
         }
 
-        if (!foundActive) {
-            System.out.println("No active deliveries found.");
-        }
+        Pager.browse(Pager.filter(Pager.of(snapshot()), d -> d.getStatusCode() != DeliveryStatus.CANCELLED),
+                DeliveryManager::header, DeliveryManager::row, "No active deliveries found.");
     }
 
     /**
@@ -267,25 +933,24 @@ public class DeliveryManager {
      */
     public void viewAllDeliveries() {
         System.out.println("\n--- All Deliveries (Including Cancelled) ---");
+        adopt(store.loadAll()); // a full listing needs every partition
 
-        if (deliveryQueue.toList().isEmpty()) {
+        PersistentVector<Delivery> deliveries = snapshot();
+        if (deliveries.isEmpty()) {
             System.out.println("No deliveries found.");
             return;
         }
 
-        int active = 0, cancelled = 0;
-        for (var delivery : deliveryQueue.toList()) {
-            System.out.println(delivery);
-            System.out.println("----------------------------------------");
-
-            if (delivery.getStatus().equalsIgnoreCase("Cancelled")) {
-                cancelled++;
-            } else {
-                active++;
+        int[] cancelled = new int[1];
+        deliveries.forEach(d -> {
+            if (d.getStatusCode() == DeliveryStatus.CANCELLED) {
+                cancelled[0]++;
             }
-        }
+        });
+        Pager.browse(Pager.of(deliveries), DeliveryManager::header, DeliveryManager::row, "No deliveries found.");
 
-        System.out.println("\nSummary: " + active + " active deliveries, " + cancelled + " cancelled deliveries");
+        System.out.println("\nSummary: " + (deliveries.size() - cancelled[0]) + " active deliveries, "
+                + cancelled[0] + " cancelled deliveries");
     }
 
     /**
@@ -321,7 +986,7 @@ public class DeliveryManager {
      * View deliveries filtered by status
      */
     public void viewDeliveriesByStatus() {
-        String[] statuses = {"Pending", "In Transit", "Delivered", "Cancelled"};
+        DeliveryStatus[] statuses = DeliveryStatus.values();
         System.out.println("\nSelect status to filter:");
         for (int i = 0; i < statuses.length; i++) {
             System.out.println((i + 1) + ". " + statuses[i]);
@@ -332,20 +997,10 @@ public class DeliveryManager {
             return;
         }
 
-        String selectedStatus = statuses[choice - 1];
+        DeliveryStatus selectedStatus = statuses[choice - 1];
         System.out.println("\n--- Deliveries with Status: " + selectedStatus + " ---");
 
-        boolean found = false;
-        for (var delivery : deliveryQueue.toList()) {
-            if (delivery.getStatus().equalsIgnoreCase(selectedStatus)) {
-                System.out.println(delivery);
-                System.out.println("----------------------------------------");
-                found = true;
-            }
-        }
-
-        if (!found) {
-            System.out.println("No deliveries found with status: " + selectedStatus);
-        }
+        Pager.browse(Pager.filter(Pager.of(snapshot()), d -> d.getStatusCode() == selectedStatus),
+                DeliveryManager::header, DeliveryManager::row, "No deliveries found with status: " + selectedStatus);
     }
 }
@@ -0,0 +1,503 @@
+package modules;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import models.Delivery;
+import models.DeliveryStatus;
+import models.Driver;
+import models.IdRegistry;
+import models.Vehicle;
+import structures.heap.EventHeap;
+import utils.PersistenceWriter;
+import utils.Validation;
+
+/**
+ * Discrete-event "what-if" runs of the dispatcher.
+ *
+ * A synthetic workload of delivery requests is pushed through fresh
+ * VehicleManager / DriverManager / DeliveryManager / MaintenanceManager
+ * instances (loaded from the data files as usual) in virtual time. The
+ * events are requests, wave ticks, breakdowns, arrivals, service
+ * completions and late-delivery checks, and they sit in an EventHeap keyed
+ * by virtual minute. Scheduling, dispatch, status changes,
+ * ETA tracking and maintenance records all go through the managers' normal
+ * non-prompting methods. Saving is switched off for the whole run, so the
+ * data files are never touched.
+ *
+ * Every policy sees the same requests and the same random travel times and
+ * breakdowns, so the results differ only by dispatch decisions:
+ *
+ *   immediate   scheduleDelivery() on arrival (first free driver, first idle vehicle)
+ *   wave:N      queueDelivery() on arrival, dispatchQueued() every N minutes
+ *
+ * The real dispatcher only knows that a vehicle is busy while it has an open
+ * delivery. A trip given to a vehicle that is still driving or in the
+ * workshop waits for it here, and that wait shows up as lateness.
+ */
+public class DispatchSimulator {
+
+    // Event kinds
+    private static final int REQUEST = 0;       // arg: request
+    private static final int WAVE = 1;
+    private static final int BREAKDOWN = 2;     // arg: request
+    private static final int ARRIVE = 3;        // arg: request
+    private static final int SERVICE_DONE = 4;  // arg: vehicle ID
+    private static final int MONITOR = 5;
+
+    private static final int DAY_START = 6 * 60;             // requests arrive 06:00-18:00
+    private static final int REQUEST_WINDOW = 12 * 60;
+    private static final int PROMISE_SLACK = 60;             // ETA = request time + route time + slack
+    private static final int MONITOR_INTERVAL = 15;
+    private static final double BREAKDOWN_RATE = 0.02;       // per trip
+    private static final int SERVICE_INTERVAL_KM = 5000;
+    private static final int SERVICE_MINUTES = 240;
+
+    /** A dispatch policy: waveMinutes == 0 schedules each request as it arrives. */
+    public record Policy(String name, int waveMinutes) {
+
+        // "immediate" or "wave:N"; null if neither
+        public static Policy parse(String text) {
+            String t = text.trim().toLowerCase();
+            if (t.equals("immediate")) {
+                return new Policy("immediate", 0);
+            }
+            if (t.startsWith("wave:") && Validation.checkInteger(t.substring(5), 1, 24 * 60) == null) {
+                return new Policy(t, Integer.parseInt(t.substring(5)));
+            }
+            return null;
+        }
+    }
+
+    /** Outcome of one policy run. Times are in minutes unless named otherwise. */
+    public record Result(Policy policy, int requested, int delivered, int unserved, int late,
+                         double avgWait, double avgLate, int p95Late, int maxLate,
+                         double utilization, double idleVehicleHours,
+                         int breakdowns, int services, int closedAtStart,
+                         long events, long nanos) {
+
+        public double eventsPerSecond() {
+            return nanos == 0 ? 0 : events * 1e9 / nanos;
+        }
+    }
+
+    // The workload, shared by every policy
+    private final int requests;
+    private final int startMinute;        // virtual clock at the first day's midnight
+    private final String[] packageIds;
+    private final String[] origins;
+    private final String[] destinations;
+    private final int[] requestMinute;
+    private final int[] routeMinutes;
+    private final int[] routeKm;
+    private final double[] travelFactor;  // actual travel time / planned
+    private final double[] breakdownAt;   // fraction of the trip where it breaks down, or -1
+    private final int[] repairMinutes;
+
+    /**
+     * Build a workload of requestsPerDay random trips between towns on the
+     * route network for each of the given days, starting today.
+     */
+    public DispatchSimulator(int requestsPerDay, int days, long seed) {
+        RoutePlanner planner = new RoutePlanner();
+        List<String> towns = planner.getTowns();
+        if (towns.size() < 2) {
+            throw new IllegalStateException("The route network needs at least two towns to simulate deliveries.");
+        }
+
+        requests = requestsPerDay * days;
+        startMinute = (int) Validation.today() * 1440;
+        packageIds = new String[requests];
+        origins = new String[requests];
+        destinations = new String[requests];
+        requestMinute = new int[requests];
+        routeMinutes = new int[requests];
+        routeKm = new int[requests];
+        travelFactor = new double[requests];
+        breakdownAt = new double[requests];
+        repairMinutes = new int[requests];
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] offsets = new int[requestsPerDay];
+        for (int day = 0; day < days; day++) {
+            for (int i = 0; i < requestsPerDay; i++) {
+                offsets[i] = random.nextInt(REQUEST_WINDOW);
+            }
+            Arrays.sort(offsets);
+            for (int i = 0; i < requestsPerDay; i++) {
+                int r = day * requestsPerDay + i;
+                RoutePlanner.Route route;
+                do {
+                    origins[r] = towns.get(random.nextInt(towns.size()));
+                    destinations[r] = towns.get(random.nextInt(towns.size()));
+                    route = origins[r].equals(destinations[r]) ? null : planner.plan(origins[r], destinations[r]);
+                } while (route == null);
+
+                packageIds[r] = "SIM-" + (r + 1);
+                requestMinute[r] = startMinute + day * 1440 + DAY_START + offsets[i];
+                routeMinutes[r] = route.getTravelMinutes();
+                routeKm[r] = route.getDistanceKm();
+                travelFactor[r] = 0.9 + random.nextDouble() * 0.4;
+                breakdownAt[r] = random.nextDouble() < BREAKDOWN_RATE ? random.nextDouble() : -1;
+                repairMinutes[r] = 60 + random.nextInt(181);
+            }
+        }
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    // Run every policy in turn; saving stays off until the last run ends
+    public List<Result> runAll(List<Policy> policies) {
+        PersistenceWriter.Durability previous = PersistenceWriter.getDurability();
+        long groupMillis = PersistenceWriter.getGroupMillis();
+        PersistenceWriter.configure(PersistenceWriter.Durability.NONE, groupMillis);
+        try {
+            List<Result> results = new ArrayList<>();
+            for (Policy policy : policies) {
+                results.add(new Run(policy).execute());
+            }
+            return results;
+        } finally {
+            PersistenceWriter.configure(previous, groupMillis);
+        }
+    }
+
+    public static void printReport(DispatchSimulator sim, List<Result> results) {
+        System.out.println("\n========== DISPATCH SIMULATION ==========");
+        System.out.println("Requests: " + sim.requests + " synthetic deliveries (06:00-18:00 each day)");
+        for (Result r : results) {
+            System.out.println("\n--- Policy: " + r.policy().name() + " ---");
+            if (r.closedAtStart() > 0) {
+                System.out.println("Open deliveries from file closed at start: " + r.closedAtStart());
+            }
+            System.out.printf("Delivered:          %d of %d (%d unserved)\n", r.delivered(), r.requested(), r.unserved());
+            System.out.printf("On time:            %.1f%% (%d late)\n",
+                    r.delivered() == 0 ? 0.0 : 100.0 * (r.delivered() - r.late()) / r.delivered(), r.late());
+            System.out.printf("Lateness:           avg %.0f min when late, p95 %d min, max %d min\n",
+                    r.avgLate(), r.p95Late(), r.maxLate());
+            System.out.printf("Wait to depart:     avg %.0f min\n", r.avgWait());
+            System.out.printf("Fleet utilization:  %.1f%% (idle %.1f vehicle-hours)\n",
+                    r.utilization() * 100, r.idleVehicleHours());
+            System.out.printf("Breakdowns:         %d, scheduled services: %d\n", r.breakdowns(), r.services());
+            System.out.printf("Events:             %d in %.1f ms (%.0f events/s)\n",
+                    r.events(), r.nanos() / 1e6, r.eventsPerSecond());
+        }
+    }
+
+    // One policy over fresh managers
+    private final class Run {
+        private final Policy policy;
+        private final VehicleManager vehicleManager = new VehicleManager();
+        private final DriverManager driverManager = new DriverManager();
+        private final DeliveryManager deliveryManager = new DeliveryManager(driverManager, vehicleManager);
+        private final MaintenanceManager maintenanceManager = new MaintenanceManager(vehicleManager);
+        private final EventHeap events = new EventHeap(Math.max(64, requests * 2));
+
+        private final Delivery[] deliveries = new Delivery[requests];
+        private final int[] etaMinute = new int[requests];
+        private final String[] etaText = new String[requests];
+        private final int[] departMinute = new int[requests];
+        private final int[] arriveMinute = new int[requests];
+        private final int[] nextWaiting = new int[requests];   // per-vehicle queue of trips waiting for it
+
+        // By IdRegistry.VEHICLES ID
+        private boolean[] vehicleBusy;
+        private int[] busySince;
+        private long[] busyMinutes;
+        private int[] kmSinceService;
+        private int[] waitHead;
+        private int[] waitTail;
+
+        private boolean[] driverOut;           // by IdRegistry.DRIVERS ID: taken off the queue by this run
+
+        private final int[] backlog = new int[requests];       // immediate: requests with no free driver yet
+        private int backlogHead = 0;
+        private int backlogTail = 0;
+        private int[] waiting = new int[64];                    // wave: queued, not yet assigned
+        private int waitingCount = 0;
+
+        private int now;
+        private int notYetRequested = requests;
+        private int inFlight = 0;              // assigned and not yet delivered
+        private int unserved = 0;
+        private int breakdowns = 0;
+        private int services = 0;
+        private int closedAtStart = 0;
+        private long eventCount = 0;
+
+        Run(Policy policy) {
+            this.policy = policy;
+        }
+
+        Result execute() {
+            closedAtStart = closeOpenDeliveries();
+
+            int vehicles = IdRegistry.VEHICLES.size();
+            vehicleBusy = new boolean[vehicles];
+            busySince = new int[vehicles];
+            busyMinutes = new long[vehicles];
+            kmSinceService = new int[vehicles];
+            waitHead = new int[vehicles];
+            waitTail = new int[vehicles];
+            Arrays.fill(waitHead, -1);
+            Arrays.fill(waitTail, -1);
+            for (Vehicle v : vehicleManager.getAllVehicles()) {
+                kmSinceService[v.getId()] = v.getMileage() % SERVICE_INTERVAL_KM;
+            }
+            driverOut = new boolean[IdRegistry.DRIVERS.size()];
+
+            for (int r = 0; r < requests; r++) {
+                events.push(requestMinute[r], REQUEST, r);
+            }
+            int first = requests == 0 ? startMinute : requestMinute[0];
+            if (policy.waveMinutes() > 0) {
+                events.push(first, WAVE, 0);
+            }
+            events.push(first, MONITOR, 0);
+
+            long start = System.nanoTime();
+            while (!events.isEmpty()) {
+                events.pop();
+                now = events.time();
+                eventCount++;
+                switch (events.kind()) {
+                    case REQUEST -> request(events.arg());
+                    case WAVE -> wave();
+                    case BREAKDOWN -> breakdown(events.arg());
+                    case ARRIVE -> arrive(events.arg());
+                    case SERVICE_DONE -> freeVehicle(events.arg());
+                    case MONITOR -> monitor();
+                    default -> throw new IllegalStateException("Unknown event kind " + events.kind());
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            return summarize(nanos);
+        }
+
+        // The run starts with an idle fleet: open deliveries loaded from file are cancelled in memory
+        private int closeOpenDeliveries() {
+            int closed = 0;
+            for (Delivery d : deliveryManager.snapshot().toList()) {
+                if (d.getStatusCode().isOpen()) {
+                    deliveryManager.changeStatus(d.getPackageId(), "Cancelled", now);
+                    closed++;
+                }
+            }
+            return closed;
+        }
+
+        private void request(int r) {
+            notYetRequested--;
+            etaMinute[r] = requestMinute[r] + routeMinutes[r] + PROMISE_SLACK;
+            String eta = etaText[r] = Delivery.formatEta(etaMinute[r]);
+            if (policy.waveMinutes() == 0) {
+                // First come, first served: nobody overtakes a request already waiting for a driver
+                if (backlogHead < backlogTail || !schedule(r, eta)) {
+                    backlog[backlogTail++] = r;
+                }
+                return;
+            }
+            try {
+                deliveries[r] = deliveryManager.queueDelivery(packageIds[r], origins[r], destinations[r], eta);
+                if (waitingCount == waiting.length) {
+                    waiting = Arrays.copyOf(waiting, waitingCount * 2);
+                }
+                waiting[waitingCount++] = r;
+            } catch (IllegalArgumentException e) {
+                unserved++;
+            }
+        }
+
+        // Immediate policy; false if no driver is free right now
+        private boolean schedule(int r, String eta) {
+            if (!driverManager.hasAvailableDriver()) {
+                return false;
+            }
+            try {
+                deliveries[r] = deliveryManager.scheduleDelivery(packageIds[r], origins[r], destinations[r], eta);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                unserved++;
+                return true;
+            }
+            assigned(r);
+            return true;
+        }
+
+        private void wave() {
+            // Skip waves nobody could be dispatched in
+            if (waitingCount > 0 && driverManager.hasAvailableDriver() && deliveryManager.dispatchQueued() > 0) {
+                int kept = 0;
+                for (int i = 0; i < waitingCount; i++) {
+                    int r = waiting[i];
+                    if (deliveries[r].isAssigned()) {
+                        assigned(r);
+                    } else {
+                        waiting[kept++] = r;
+                    }
+                }
+                waitingCount = kept;
+            }
+            boolean stuck = waitingCount > 0 && inFlight == 0 && notYetRequested == 0;
+            if (notYetRequested > 0 || (waitingCount > 0 && !stuck)) {
+                events.push(now + policy.waveMinutes(), WAVE, 0);
+            } else {
+                unserved += waitingCount; // no driver or vehicle will ever come free for these
+                waitingCount = 0;
+            }
+        }
+
+        // A driver and vehicle were attached; the trip starts when the vehicle is free
+        private void assigned(int r) {
+            Delivery d = deliveries[r];
+            driverOut[d.getDriverRef()] = true;
+            inFlight++;
+            int v = d.getVehicleRef();
+            if (vehicleBusy[v]) {
+                nextWaiting[r] = -1;
+                if (waitTail[v] < 0) {
+                    waitHead[v] = r;
+                } else {
+                    nextWaiting[waitTail[v]] = r;
+                }
+                waitTail[v] = r;
+            } else {
+                vehicleBusy[v] = true;
+                busySince[v] = now;
+                depart(r);
+            }
+        }
+
+        private void depart(int r) {
+            departMinute[r] = now;
+            deliveryManager.changeStatus(packageIds[r], "In Transit", now);
+            int travel = (int) Math.round(routeMinutes[r] * travelFactor[r]);
+            if (breakdownAt[r] >= 0) {
+                int before = (int) (travel * breakdownAt[r]);
+                arriveMinute[r] = travel - before; // remaining travel, used by breakdown()
+                events.push(now + before, BREAKDOWN, r);
+            } else {
+                events.push(now + travel, ARRIVE, r);
+            }
+        }
+
+        private void breakdown(int r) {
+            breakdowns++;
+            Vehicle v = vehicleManager.getVehicleById(deliveries[r].getVehicleRef());
+            maintenanceManager.recordMaintenance(v.getRegistrationNumber(), "Breakdown repair", dateOf(now),
+                    "Roadside repair", 100 + repairMinutes[r], "");
+            events.push(now + repairMinutes[r] + arriveMinute[r], ARRIVE, r);
+        }
+
+        private void arrive(int r) {
+            arriveMinute[r] = now;
+            inFlight--;
+            deliveryManager.changeStatus(packageIds[r], "Delivered", now);
+            Delivery d = deliveries[r];
+
+            int id = d.getVehicleRef();
+            Vehicle vehicle = vehicleManager.getVehicleById(id);
+            busyMinutes[id] += now - busySince[id];
+            vehicleManager.updateReadings(vehicle, vehicle.getMileage() + routeKm[r], vehicle.getFuelUsage());
+            maintenanceManager.mileageChanged(vehicle);
+
+            Driver driver = driverManager.getDriverById(d.getDriverRef());
+            if (driverOut[driver.getId()] && deliveryManager.getOpenDeliveries(driver) == 0) {
+                driverOut[driver.getId()] = false;
+                driverManager.releaseDriver(driver);
+            }
+
+            kmSinceService[id] += routeKm[r];
+            if (kmSinceService[id] >= SERVICE_INTERVAL_KM) {
+                kmSinceService[id] = 0;
+                services++;
+                maintenanceManager.recordMaintenance(vehicle.getRegistrationNumber(), "Scheduled service",
+                        dateOf(now), "Oil filter|Engine oil", 150.0, "");
+                events.push(now + SERVICE_MINUTES, SERVICE_DONE, id);
+            } else {
+                freeVehicle(id);
+            }
+
+            // A driver may be free again: retry requests that found none
+            while (backlogHead < backlogTail) {
+                int next = backlog[backlogHead];
+                if (!schedule(next, etaText[next])) {
+                    break;
+                }
+                backlogHead++;
+            }
+        }
+
+        // The vehicle is out of service or back from a trip: start its next waiting trip
+        private void freeVehicle(int v) {
+            int r = waitHead[v];
+            if (r < 0) {
+                vehicleBusy[v] = false;
+                return;
+            }
+            waitHead[v] = nextWaiting[r];
+            if (waitHead[v] < 0) {
+                waitTail[v] = -1;
+            }
+            busySince[v] = now;
+            depart(r);
+        }
+
+        // Late-delivery checks in virtual time: overdue deliveries charge their driver a delay
+        private void monitor() {
+            deliveryManager.applyLateDeliveries(now);
+            if (notYetRequested > 0 || inFlight > 0 || waitingCount > 0) {
+                events.push(now + MONITOR_INTERVAL, MONITOR, 0);
+            }
+        }
+
+        private Result summarize(long nanos) {
+            unserved += backlogTail - backlogHead;
+            int delivered = 0;
+            int late = 0;
+            long waitSum = 0;
+            long lateSum = 0;
+            int lastArrival = requests == 0 ? startMinute : requestMinute[0];
+            int[] lateness = new int[requests];
+            for (int r = 0; r < requests; r++) {
+                if (deliveries[r] == null || deliveries[r].getStatusCode() != DeliveryStatus.DELIVERED) {
+                    continue;
+                }
+                int minutesLate = Math.max(0, arriveMinute[r] - etaMinute[r]);
+                lateness[delivered++] = minutesLate;
+                waitSum += departMinute[r] - requestMinute[r];
+                if (minutesLate > 0) {
+                    late++;
+                    lateSum += minutesLate;
+                }
+                lastArrival = Math.max(lastArrival, arriveMinute[r]);
+            }
+            Arrays.sort(lateness, 0, delivered);
+
+            int fleet = vehicleManager.getAllVehicles().size();
+            int firstRequest = requests == 0 ? startMinute : requestMinute[0];
+            long span = Math.max(1, lastArrival - firstRequest);
+            long busy = 0;
+            for (long minutes : busyMinutes) {
+                busy += minutes;
+            }
+            long capacity = fleet * span;
+            long idle = Math.max(0, capacity - busy - (long) services * SERVICE_MINUTES);
+
+            return new Result(policy, requests, delivered, unserved, late,
+                    delivered == 0 ? 0 : (double) waitSum / delivered,
+                    late == 0 ? 0 : (double) lateSum / late,
+                    delivered == 0 ? 0 : lateness[(int) Math.min(delivered - 1, Math.ceil(delivered * 0.95) - 1)],
+                    delivered == 0 ? 0 : lateness[delivered - 1],
+                    capacity == 0 ? 0 : (double) busy / capacity,
+                    idle / 60.0, breakdowns, services, closedAtStart, eventCount, nanos);
+        }
+    }
+
+    private static String dateOf(int minute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(minute, 1440)).toString();
+    }
+}
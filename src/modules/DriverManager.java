@@ -2,20 +2,38 @@ package modules;
 
 import java.util.*;
 import models.Driver;
+import models.IdRegistry;
 import structures.queue.Queue;
+import structures.trie.RadixTree;
 import utils.FileHandler;
 import utils.InputValidator;
+import utils.Pager;
+import utils.PersistenceWriter;
+import utils.TextBuffer;
+import utils.Validation;
 
 public class DriverManager {
 
+    private static final int LEADERBOARD_SIZE = 10;
+
     private final Queue<Driver> availableDrivers = new Queue<>();
-    private final Map<String, Driver> driverMap = new HashMap<>();
+    private Driver[] byId = new Driver[64]; // indexed by IdRegistry.DRIVERS ID
+    private int driverCount = 0;
+    private final RadixTree idIndex = new RadixTree();   // driver IDs, for prompt suggestions
+    private final RadixTree nameIndex = new RadixTree(); // driver names
+    private final DriverPerformance performance = new DriverPerformance(); // reliability leaderboard
+    private final FileHandler files;                                        // this depot's data files
 
     public DriverManager() {
-        List<Driver> loaded = FileHandler.loadDrivers();
+        this(FileHandler.DEFAULT);
+    }
+
+    public DriverManager(FileHandler files) {
+        this.files = files;
+        List<Driver> loaded = files.loadDrivers();
         for (Driver d : loaded) {
-            driverMap.put(d.getDriverId(), d);
-            availableDrivers.enqueue(d); // 
+            index(d);
+            availableDrivers.enqueue(d);
         }
 
         if (!loaded.isEmpty()) {
@@ -33,7 +51,7 @@ public class DriverManager {
                 return;
             }
 
-            if (driverMap.containsKey(id)) {
+            if (getDriverById(id) != null) {
                 if (!InputValidator.handleErrorAndAskRetry("Driver ID already exists.")) {
                     return;
                 }
@@ -65,11 +83,9 @@ public class DriverManager {
             }
 
             try {
-                Driver driver = new Driver(id, name, exp);
-                driverMap.put(id, driver);
-                availableDrivers.enqueue(driver);
+                registerDriver(id, name, exp);
 
-                FileHandler.saveDrivers(getAllDrivers());
+                saveDrivers();
                 InputValidator.showSuccess("Driver added successfully!");
                 return;
 
@@ -81,18 +97,59 @@ public class DriverManager {
         }
     }
 
-    // View all drivers
-    public void listDrivers() {
-        System.out.println("\n--- All Registered Drivers ---");
+    // Add a driver to the registry and the availability queue without prompting or saving
+    public Driver registerDriver(String id, String name, int yearsOfExperience) {
+        if (getDriverById(id) != null) {
+            throw new IllegalArgumentException("Driver ID already exists.");
+        }
 
-        if (driverMap.isEmpty()) {
-            System.out.println("No drivers found.");
-            return;
+        Driver driver = new Driver(id, name, yearsOfExperience);
+        index(driver);
+        availableDrivers.enqueue(driver);
+        return driver;
+    }
+
+    // Take a driver in from another depot, keeping its record; it joins the back of the queue
+    public void adoptDriver(Driver driver) {
+        if (getDriverById(driver.getId()) != null) {
+            throw new IllegalArgumentException("Driver ID already exists.");
         }
+        index(driver);
+        availableDrivers.enqueue(driver);
+    }
 
-        for (Driver d : driverMap.values()) {
-            System.out.println(d);
+    // Drop a driver from this depot (it is moving to another); the caller saves
+    public boolean removeDriver(Driver driver) {
+        int id = driver.getId();
+        if (getDriverById(id) != driver) {
+            return false;
         }
+        availableDrivers.remove(driver);
+        byId[id] = null;
+        driverCount--;
+        idIndex.remove(driver.getDriverId());
+        nameIndex.remove(driver.getName());
+        performance.remove(driver);
+        return true;
+    }
+
+    public int getDriverCount() {
+        return driverCount;
+    }
+
+    // The writer gets copies taken now, not the live drivers
+    public void saveDrivers() {
+        List<Driver> drivers = getAllDrivers();
+        drivers.replaceAll(Driver::snapshot);
+        PersistenceWriter.submit(files, PersistenceWriter.Target.DRIVERS, () -> drivers);
+    }
+
+    // View all drivers, a page at a time
+    public void listDrivers() {
+        System.out.println("\n--- All Registered Drivers ---");
+        Driver[] slots = byId;
+        Pager.browse(Pager.sparse(slots.length, i -> slots[i], driverCount),
+                DriverManager::header, DriverManager::row, "No drivers found.");
     }
 
     // Search by ID
@@ -105,12 +162,28 @@ public class DriverManager {
                 return;
             }
 
-            Driver found = driverMap.get(id);
+            if (InputValidator.showCompletions(idIndex, id)) {
+                continue;
+            }
+
+            Driver found = getDriverById(id);
             if (found != null) {
                 System.out.println("Driver Found:");
                 System.out.println(found);
                 return;
+            }
+
+            // Not an ID: try it as a driver's name
+            List<Driver> named = getDriversByName(id);
+            if (!named.isEmpty()) {
+                System.out.println("Driver(s) named '" + id + "':");
+                for (Driver d : named) {
+                    System.out.println(d);
+                }
+                return;
             } else {
+                InputValidator.showDidYouMean(idIndex, id, 1);
+                InputValidator.showDidYouMean(nameIndex, id, id.length() <= 4 ? 1 : 2);
                 if (!InputValidator.handleErrorAndAskRetry("Driver not found.")) {
                     return;
                 }
@@ -120,22 +193,143 @@ public class DriverManager {
 
     // Assign next available driver (FIFO)
     public Driver assignDriver() {
-        if (availableDrivers.isEmpty()) {
+        Driver assigned = pollAvailableDriver();
+        if (assigned == null) {
             System.out.println("No available drivers.");
             return null;
         }
 
-        Driver assigned = availableDrivers.dequeue();
         System.out.println("Assigned Driver: " + assigned.getName());
         return assigned;
     }
 
+    // Same as assignDriver() but silent, for batch callers
+    public Driver pollAvailableDriver() {
+        return availableDrivers.isEmpty() ? null : availableDrivers.dequeue();
+    }
+
+    public boolean hasAvailableDriver() {
+        return !availableDrivers.isEmpty();
+    }
+
+    // Take every waiting driver off the queue, in queue order (for wave dispatch)
+    public List<Driver> drainAvailableDrivers() {
+        List<Driver> drained = new ArrayList<>(availableDrivers.size());
+        while (!availableDrivers.isEmpty()) {
+            drained.add(availableDrivers.dequeue());
+        }
+        return drained;
+    }
+
+    // Put a driver back at the end of the availability queue
+    public void releaseDriver(Driver driver) {
+        availableDrivers.enqueue(driver);
+    }
+
+    public DriverPerformance getPerformance() {
+        return performance;
+    }
+
+    // Most and least reliable drivers, from the incrementally kept ranking
+    public void showLeaderboard() {
+        System.out.println("\n--- Driver Reliability Leaderboard ---");
+        if (driverCount == 0) {
+            System.out.println("No drivers found.");
+            return;
+        }
+        int today = (int) Validation.today();
+        TextBuffer out = new TextBuffer(System.out);
+        leaderboardHeader(out);
+        List<Driver> top = performance.top(LEADERBOARD_SIZE);
+        for (int i = 0; i < top.size(); i++) {
+            leaderboardRow(i + 1, top.get(i), today, out);
+        }
+        if (driverCount > LEADERBOARD_SIZE) {
+            out.newline().append("Needs attention:").newline();
+            List<Driver> bottom = performance.bottom(Math.min(LEADERBOARD_SIZE / 2, driverCount - LEADERBOARD_SIZE));
+            for (int i = 0; i < bottom.size(); i++) {
+                leaderboardRow(driverCount - i, bottom.get(i), today, out);
+            }
+        }
+        out.append("Score: on-time rate (smoothed), minus lateness and infraction penalties.").newline();
+        out.flush();
+    }
+
+    private static void leaderboardHeader(TextBuffer out) {
+        out.columnRight("#", 4).column("Driver ID", 10).column("Name", 24).columnRight("Score", 6)
+                .columnRight("On time %", 9).columnRight("Late min", 8).columnRight("Per day", 8).columnRight("Done", 6);
+        out.newline().rule(82);
+    }
+
+    private static void leaderboardRow(int rank, Driver d, int today, TextBuffer out) {
+        out.column(rank, 4).column(d.getDriverId(), 10).column(d.getName(), 24)
+                .column(d.getReliabilityScore() / 10.0, 1, 6)
+                .column(d.getOnTimeRate() * 100, 1, 9)
+                .column(d.getAverageLateness(), 0, 8)
+                .column(d.getDeliveriesPerDay(today), 2, 8).column(d.getDelivered(), 6);
+        out.newline();
+    }
+
     public void showAvailableDrivers() {
         System.out.println("\n--- Available Drivers (Queue Order) ---");
-        availableDrivers.printAll();
+        Pager.browse(Pager.indexed(availableDrivers.size(), availableDrivers::get),
+                DriverManager::header, DriverManager::row, "(Queue is empty)");
+    }
+
+    private static void header(TextBuffer out) {
+        out.column("Driver ID", 10).column("Name", 24).columnRight("Exp yrs", 7)
+                .columnRight("Delays", 6).columnRight("Infractions", 11);
+        out.newline().rule(62);
+    }
+
+    private static void row(Driver d, TextBuffer out) {
+        out.column(d.getDriverId(), 10).column(d.getName(), 24).column(d.getYearsOfExperience(), 7)
+                .column(d.getDelays(), 6).column(d.getInfractions(), 11);
+    }
+
+    // Case-insensitive lookup, resolved once through the ID registry
+    public Driver getDriverById(String id) {
+        return getDriverById(IdRegistry.DRIVERS.idOf(id));
+    }
+
+    public Driver getDriverById(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    // Exact, case-insensitive name match (names need not be unique)
+    public List<Driver> getDriversByName(String name) {
+        List<Driver> matches = new ArrayList<>();
+        if (!nameIndex.contains(name)) {
+            return matches;
+        }
+        for (Driver d : getAllDrivers()) {
+            if (d.getName().equalsIgnoreCase(name.trim())) {
+                matches.add(d);
+            }
+        }
+        return matches;
     }
 
     public List<Driver> getAllDrivers() {
-        return new ArrayList<>(driverMap.values());
+        List<Driver> drivers = new ArrayList<>(driverCount);
+        for (Driver d : byId) {
+            if (d != null) {
+                drivers.add(d);
+            }
+        }
+        return drivers;
+    }
+
+    private void index(Driver driver) {
+        if (driver.getId() >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(byId.length * 2, driver.getId() + 1));
+        }
+        if (byId[driver.getId()] == null) {
+            driverCount++;
+            idIndex.add(driver.getDriverId());
+            nameIndex.add(driver.getName());
+            performance.add(driver);
+        }
+        byId[driver.getId()] = driver;
     }
 }
@@ -0,0 +1,110 @@
+package modules;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import models.Delivery;
+import models.DeliveryStatus;
+import models.Driver;
+
+/**
+ * Driver scores kept current as deliveries change status.
+ *
+ * A delivery that reaches Delivered is charged to its driver once, as on
+ * time or as so many minutes past its ETA, and keeps the charged minutes
+ * (saved with it); one taken back out of Delivered is uncharged by exactly
+ * that. Each update touches one driver, so nothing is ever recomputed from
+ * the delivery history.
+ *
+ * Drivers sit in a TreeSet ordered by reliability score. A driver is taken
+ * out before its counters change and put back after, so the order is
+ * always right and a top-k board costs O(k) to read. Every change to a
+ * ranked driver's score (deliveries and infractions) goes through here.
+ */
+public class DriverPerformance {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    // Best first; ties by driver ID so the order is total
+    private static final Comparator<Driver> BY_SCORE = Comparator
+            .comparingInt((Driver d) -> -d.getReliabilityScore())
+            .thenComparing(Driver::getDriverId, String.CASE_INSENSITIVE_ORDER);
+
+    private final TreeSet<Driver> ranking = new TreeSet<>(BY_SCORE);
+
+    public synchronized void add(Driver driver) {
+        ranking.add(driver);
+    }
+
+    public synchronized void remove(Driver driver) {
+        ranking.remove(driver);
+    }
+
+    /**
+     * Apply one status change. nowMinute is when it happened, in the same
+     * epoch minutes as Delivery ETAs.
+     */
+    public synchronized void statusChanged(Driver driver, Delivery delivery, DeliveryStatus from, DeliveryStatus to,
+                                           int nowMinute) {
+        boolean completed = from != DeliveryStatus.DELIVERED && to == DeliveryStatus.DELIVERED;
+        boolean reopened = from == DeliveryStatus.DELIVERED && to != DeliveryStatus.DELIVERED;
+        if (driver == null || (!completed && !reopened)) {
+            return;
+        }
+
+        ranking.remove(driver);
+        if (completed) {
+            int eta = delivery.getEtaMinute();
+            int late = eta == Delivery.NO_ETA ? 0 : Math.max(0, nowMinute - eta);
+            driver.recordDelivery(late, Math.floorDiv(nowMinute, MINUTES_PER_DAY));
+            delivery.setChargedLateMinutes(late);
+        } else {
+            // Rows saved before the charge was kept have none; those are taken back as on time
+            int late = delivery.getChargedLateMinutes();
+            driver.retractDelivery(late == Delivery.NOT_CHARGED ? 0 : late);
+            delivery.setChargedLateMinutes(Delivery.NOT_CHARGED);
+        }
+        ranking.add(driver);
+    }
+
+    // An infraction lowers the score, so it is recorded here with the driver out of the set
+    public synchronized void addInfraction(Driver driver) {
+        boolean ranked = ranking.remove(driver);
+        driver.addInfraction();
+        if (ranked) {
+            ranking.add(driver);
+        }
+    }
+
+    // Up to k drivers, most reliable first
+    public synchronized List<Driver> top(int k) {
+        return take(ranking.iterator(), k);
+    }
+
+    // Up to k drivers, least reliable first
+    public synchronized List<Driver> bottom(int k) {
+        return take(ranking.descendingIterator(), k);
+    }
+
+    // 1-based position on the board, or -1 if the driver isn't on it
+    public synchronized int rankOf(Driver driver) {
+        if (!ranking.contains(driver)) {
+            return -1;
+        }
+        return ranking.headSet(driver).size() + 1;
+    }
+
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    private static List<Driver> take(Iterator<Driver> it, int k) {
+        List<Driver> result = new ArrayList<>(Math.max(0, Math.min(k, 64)));
+        while (it.hasNext() && result.size() < k) {
+            result.add(it.next());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,245 @@
+package modules;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import models.Vehicle;
+import structures.timeseries.SeriesStats;
+import utils.FileHandler;
+import utils.InputValidator;
+import utils.Pager;
+import utils.TextBuffer;
+import utils.TimeSeriesStore;
+import utils.TimeSeriesStore.Bucketing;
+import utils.Validation;
+
+/**
+ * Every odometer and fuel-counter reading telemetry has delivered, per
+ * vehicle, in a compressed TimeSeriesStore under the depot's telemetry
+ * directory.
+ *
+ * Both fields are cumulative counters, so distance and fuel over any
+ * window are last minus first, and L/100km follows from the two. The
+ * store answers fully covered blocks from their summaries, which keeps a
+ * fleet-wide report over months of readings to a couple of decoded blocks
+ * per vehicle.
+ */
+public class FuelHistory {
+
+    public static final int ODOMETER = 0, FUEL = 1, FIELDS = 2;
+
+    private static final int MIN_RATE_KM = 5; // as in TelemetryIngest
+
+    private final TimeSeriesStore store;
+    private TimeSeriesStore.Series[] byId = new TimeSeriesStore.Series[0];
+    private final double[] point = new double[FIELDS];
+    private boolean writeFailed; // report a failing disk once, not per reading
+
+    public FuelHistory() {
+        this(FileHandler.DEFAULT);
+    }
+
+    public FuelHistory(FileHandler files) {
+        this.store = files.telemetryHistory(FIELDS);
+    }
+
+    // One row of a report: a vehicle over the window, or one day/week of a vehicle
+    private record Line(String label, long readings, double odometer, double km, double litres) {}
+
+    /**
+     * Record a reading; false if it is not newer than the vehicle's last
+     * recorded one (or could not be written).
+     */
+    public synchronized boolean record(Vehicle v, long epochSecond, double odometerKm, double fuelLitres) {
+        int id = v.getId();
+        if (id >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(Math.max(64, byId.length * 2), id + 1));
+        }
+        if (byId[id] == null) {
+            byId[id] = store.series(v.getRegistrationNumber());
+        }
+        point[ODOMETER] = odometerKm;
+        point[FUEL] = fuelLitres;
+        try {
+            return byId[id].append(epochSecond, point);
+        } catch (IOException e) {
+            if (!writeFailed) {
+                writeFailed = true;
+                System.out.println("Error writing telemetry history: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    // Seal and fsync what has been recorded, e.g. at the end of a replay
+    public synchronized void flush() {
+        try {
+            store.flush(true);
+            writeFailed = false;
+        } catch (IOException e) {
+            System.out.println("Error saving telemetry history: " + e.getMessage());
+        }
+    }
+
+    // "123456 readings of 40 vehicles in 260 blocks, 1.9 MB (15.8 bytes/reading)"
+    public String describe() {
+        long points = store.points();
+        long bytes = store.bytesOnDisk();
+        return String.format("%d readings of %d vehicles in %d blocks, %.1f MB (%.1f bytes/reading)",
+                points, store.seriesCount(), store.blockCount(), bytes / 1048576.0,
+                points == 0 ? 0.0 : (double) bytes / points);
+    }
+
+    public void showHistoryReport() {
+        System.out.println("\n--- Fuel History ---");
+        if (store.points() == 0) {
+            System.out.println("No telemetry recorded yet. Replay a telemetry log first.");
+            return;
+        }
+        String vehicle = InputValidator.getValidString("Vehicle reg no (or ALL for the fleet): ", 3, 20);
+        if (vehicle.equals("BACK")) {
+            return;
+        }
+        String from = InputValidator.getValidDate("Enter start date");
+        if (from.equals("BACK")) {
+            return;
+        }
+        String to = InputValidator.getValidDate("Enter end date");
+        if (to.equals("BACK")) {
+            return;
+        }
+        Bucketing bucketing = Bucketing.WHOLE;
+        if (!vehicle.equalsIgnoreCase("ALL")) {
+            String per = InputValidator.getValidChoice("Break down by (Day/Week): ", new String[]{"Day", "Week"}, false);
+            if (per.equals("BACK")) {
+                return;
+            }
+            bucketing = per.equals("Day") ? Bucketing.DAY : Bucketing.WEEK;
+        }
+        try {
+            printReport(vehicle, Validation.parseDay(from), Validation.parseDay(to), bucketing, true);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Distance, fuel and L/100km between two dates (inclusive, local
+     * calendar): per vehicle for "ALL", else for one vehicle by day or week.
+     * Paged listings prompt between pages; batch mode prints every row.
+     */
+    public void printReport(String vehicle, int fromDay, int toDay, Bucketing bucketing, boolean paged) {
+        if (toDay < fromDay) {
+            throw new IllegalArgumentException("End date is before start date.");
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long from = LocalDate.ofEpochDay(fromDay).atStartOfDay(zone).toEpochSecond();
+        long to = LocalDate.ofEpochDay(toDay).plusDays(1).atStartOfDay(zone).toEpochSecond();
+        boolean fleet = vehicle.equalsIgnoreCase("ALL");
+
+        List<Line> lines = new ArrayList<>();
+        int summarized = 0, decoded = 0;
+        try {
+            if (fleet) {
+                for (String regNo : store.keys()) {
+                    TimeSeriesStore.Aggregate a = store.aggregate(regNo, from, to, Bucketing.WHOLE);
+                    summarized += a.blocksSummarized();
+                    decoded += a.blocksDecoded();
+                    if (!a.buckets().isEmpty()) {
+                        SeriesStats s = a.buckets().get(0).stats();
+                        lines.add(line(regNo, s, s.first(ODOMETER), s.first(FUEL)));
+                    }
+                }
+            } else {
+                String regNo = keyFor(vehicle.trim());
+                if (regNo == null) {
+                    throw new IllegalArgumentException("No telemetry recorded for " + vehicle.trim() + ".");
+                }
+                TimeSeriesStore.Aggregate a = store.aggregate(regNo, from, to, bucketing);
+                summarized = a.blocksSummarized();
+                decoded = a.blocksDecoded();
+                // Each period runs from the previous one's last reading, so no distance falls between periods
+                double odometer = Double.NaN, fuel = Double.NaN;
+                for (TimeSeriesStore.Bucket b : a.buckets()) {
+                    SeriesStats s = b.stats();
+                    String label = Instant.ofEpochSecond(b.start()).atZone(zone).toLocalDate().toString();
+                    lines.add(line(label, s, Double.isNaN(odometer) ? s.first(ODOMETER) : odometer,
+                            Double.isNaN(fuel) ? s.first(FUEL) : fuel));
+                    odometer = s.last(ODOMETER);
+                    fuel = s.last(FUEL);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading telemetry history: " + e.getMessage());
+            return;
+        }
+
+        String title = fleet ? "Vehicle" : bucketing == Bucketing.DAY ? "Day" : "Week of";
+        String empty = "No readings between " + LocalDate.ofEpochDay(fromDay) + " and " + LocalDate.ofEpochDay(toDay) + ".";
+        if (paged) {
+            Pager.browse(Pager.of(lines), out -> header(title, out), FuelHistory::row, empty);
+        } else if (lines.isEmpty()) {
+            System.out.println(empty);
+        } else {
+            TextBuffer out = new TextBuffer(System.out);
+            header(title, out);
+            for (Line l : lines) {
+                row(l, out);
+                out.newline();
+            }
+            out.flush();
+        }
+        if (!lines.isEmpty()) {
+            double km = 0, litres = 0;
+            long readings = 0;
+            for (Line l : lines) {
+                readings += l.readings();
+                km += l.km();
+                litres += Math.max(0, l.litres());
+            }
+            System.out.printf("Total: %d readings, %.0f km, %.1f L (%s L/100km)%n", readings, km, litres,
+                    km >= MIN_RATE_KM ? String.format("%.2f", litres / km * 100) : "-");
+            System.out.println("(" + summarized + " blocks answered from summaries, " + decoded + " decoded)");
+        }
+    }
+
+    // The stored spelling of a registration number, matched ignoring case
+    private String keyFor(String regNo) {
+        if (store.contains(regNo)) {
+            return regNo;
+        }
+        for (String key : store.keys()) {
+            if (key.equalsIgnoreCase(regNo)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private static Line line(String label, SeriesStats s, double startOdometer, double startFuel) {
+        return new Line(label, s.count(), s.max(ODOMETER), s.last(ODOMETER) - startOdometer,
+                s.last(FUEL) - startFuel);
+    }
+
+    private static void header(String title, TextBuffer out) {
+        out.column(title, 12).columnRight("Readings", 9).columnRight("Odometer", 10).columnRight("Km", 8)
+                .columnRight("Litres", 9).columnRight("L/100km", 8);
+        out.newline().rule(61);
+    }
+
+    // A negative fuel delta means the counter was reset in the window: litres and rate are unknown
+    private static void row(Line l, TextBuffer out) {
+        out.column(l.label(), 12).column(l.readings(), 9).column(l.odometer(), 0, 10).column(l.km(), 0, 8);
+        if (l.litres() < 0) {
+            out.columnRight("-", 9).columnRight("-", 8);
+        } else if (l.km() < MIN_RATE_KM) {
+            out.column(l.litres(), 1, 9).columnRight("-", 8);
+        } else {
+            out.column(l.litres(), 1, 9).column(l.litres() / l.km() * 100, 2, 8);
+        }
+    }
+}
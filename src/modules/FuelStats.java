@@ -0,0 +1,84 @@
+package modules;
+
+import java.util.ArrayList;
+import java.util.List;
+import models.Vehicle;
+
+/**
+ * Running fuel figures for the fleet and for each vehicle type.
+ *
+ * A vehicle's contribution (its odometer and its L/100km rate) is added
+ * when it joins the fleet. When a reading changes it, the old contribution
+ * is subtracted and the new one added, so the totals are always current
+ * without walking the fleet.
+ */
+public class FuelStats {
+
+    private final List<String> types = new ArrayList<>();
+    private final List<double[]> sums = new ArrayList<>(); // per type: vehicles, km, rate, litres
+
+    private static final int VEHICLES = 0, KM = 1, RATE = 2, LITRES = 3;
+
+    public synchronized void add(Vehicle v) {
+        apply(v, 1);
+    }
+
+    public synchronized void remove(Vehicle v) {
+        apply(v, -1);
+    }
+
+    // Number of vehicles of the type (null = whole fleet)
+    public synchronized int vehicles(String type) {
+        return (int) Math.round(total(type, VEHICLES));
+    }
+
+    // Odometer kilometres summed over the vehicles of the type
+    public synchronized long totalKm(String type) {
+        return Math.round(total(type, KM));
+    }
+
+    // Mean fuel usage in L/100km over the vehicles of the type, or 0 if there are none
+    public synchronized double averageRate(String type) {
+        double n = total(type, VEHICLES);
+        return n < 0.5 ? 0 : total(type, RATE) / n;
+    }
+
+    // Lifetime fuel burned, estimated as each vehicle's odometer at its current rate
+    public synchronized double estimatedLitres(String type) {
+        return total(type, LITRES);
+    }
+
+    public synchronized List<String> types() {
+        return new ArrayList<>(types);
+    }
+
+    private void apply(Vehicle v, int sign) {
+        double[] s = sums(v.getType());
+        s[VEHICLES] += sign;
+        s[KM] += sign * (double) v.getMileage();
+        s[RATE] += sign * v.getFuelUsage();
+        s[LITRES] += sign * v.getMileage() * v.getFuelUsage() / 100.0;
+    }
+
+    private double total(String type, int field) {
+        double total = 0;
+        for (int i = 0; i < types.size(); i++) {
+            if (type == null || types.get(i).equalsIgnoreCase(type)) {
+                total += sums.get(i)[field];
+            }
+        }
+        return total;
+    }
+
+    private double[] sums(String type) {
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i).equalsIgnoreCase(type)) {
+                return sums.get(i);
+            }
+        }
+        double[] s = new double[4];
+        types.add(type);
+        sums.add(s);
+        return s;
+    }
+}
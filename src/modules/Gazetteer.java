@@ -0,0 +1,96 @@
+package modules;
+
+import java.util.List;
+import java.util.Locale;
+import models.Town;
+import structures.hash.SymbolTable;
+import structures.spatial.PointGrid;
+import utils.FileHandler;
+
+/**
+ * Town positions from towns.txt, projected onto a flat kilometre grid.
+ *
+ * Latitude and longitude are turned into x/y kilometres once, with an
+ * equirectangular projection centred on the towns' mean latitude. Over a
+ * country-sized area that is within a few percent of the great-circle
+ * distance, which is plenty for ranking vehicles by how far they are from a
+ * pickup, and it lets the spatial index work with plain Euclidean distance.
+ */
+public class Gazetteer {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double CELL_KM = 25.0; // grid cell edge for the vehicle index
+
+    private final SymbolTable names = new SymbolTable(); // upper-cased town name -> index
+    private final double[] xs;
+    private final double[] ys;
+    private double minX, minY, maxX, maxY;
+
+    public Gazetteer() {
+        this(FileHandler.loadTowns());
+    }
+
+    public Gazetteer(List<Town> towns) {
+        xs = new double[towns.size()];
+        ys = new double[towns.size()];
+        double meanLat = 0;
+        for (Town t : towns) {
+            meanLat += t.getLatitude() / towns.size();
+        }
+        double cos = Math.cos(Math.toRadians(meanLat));
+
+        minX = minY = Double.MAX_VALUE;
+        maxX = maxY = -Double.MAX_VALUE;
+        for (Town t : towns) {
+            if (locate(t.getName()) >= 0) {
+                continue; // listed twice: the first position wins
+            }
+            int i = names.intern(key(t.getName()));
+            xs[i] = EARTH_RADIUS_KM * Math.toRadians(t.getLongitude()) * cos;
+            ys[i] = EARTH_RADIUS_KM * Math.toRadians(t.getLatitude());
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+    }
+
+    // Index of the town, or -1 if it is not in the gazetteer
+    public int locate(String town) {
+        return town == null ? -1 : names.codeOf(key(town));
+    }
+
+    public double x(int town) {
+        return xs[town];
+    }
+
+    public double y(int town) {
+        return ys[town];
+    }
+
+    // Straight-line distance between two towns, or -1 if either is unknown
+    public double distanceKm(String from, String to) {
+        int a = locate(from);
+        int b = locate(to);
+        if (a < 0 || b < 0) {
+            return -1;
+        }
+        return Math.hypot(xs[a] - xs[b], ys[a] - ys[b]);
+    }
+
+    public boolean isEmpty() {
+        return names.size() == 0;
+    }
+
+    // An empty point grid covering every town
+    public PointGrid newGrid() {
+        if (isEmpty()) {
+            return new PointGrid(0, 0, 0, 0, CELL_KM);
+        }
+        return new PointGrid(minX, minY, maxX, maxY, CELL_KM);
+    }
+
+    private static String key(String town) {
+        return town.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,159 @@
+package modules;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import models.Delivery;
+import structures.heap.EtaIndex;
+
+/**
+ * Watches open (Pending / In Transit) deliveries against their ETA.
+ *
+ * Open deliveries sit in an EtaIndex keyed by ETA minute. A tick only pops
+ * entries that have come due, so each delivery is looked at once when it
+ * becomes late: it moves to the overdue set until it is delivered or
+ * cancelled, and waits in a late list until the thread that owns the
+ * drivers takes it (DeliveryManager.applyLateDeliveries) and charges the
+ * delay. Ticks run from whichever thread asks; drivers are never touched
+ * here.
+ */
+public class LateDeliveryMonitor {
+
+    private final EtaIndex etaIndex = new EtaIndex();
+    private Delivery[] tracked = new Delivery[64]; // by delivery ID
+    private int[] overdueIds = new int[16];          // dense set of overdue IDs
+    private int[] overdueSlot = new int[64];         // slot in overdueIds by ID, -1 if not overdue
+    private int overdueCount = 0;
+    private final List<Delivery> late = new ArrayList<>(); // gone late, delay not yet charged
+
+    public LateDeliveryMonitor() {
+        Arrays.fill(overdueSlot, -1);
+    }
+
+    // Start watching a newly scheduled or reopened delivery, or re-key one whose ETA changed;
+    // either can go late, and be charged, again
+    public synchronized void track(Delivery delivery) {
+        if (delivery.getEtaMinute() == Delivery.NO_ETA || !delivery.getStatusCode().isOpen()) {
+            return;
+        }
+        delivery.setDelayCharged(false);
+        remember(delivery);
+        clearOverdue(delivery.getId());
+        etaIndex.put(delivery.getId(), delivery.getEtaMinute());
+    }
+
+    /**
+     * Track a delivery read from file. If it is already past its ETA it goes
+     * straight to the overdue set. Its delay is charged only if the file
+     * says it wasn't yet, i.e. it went late while no session was running;
+     * otherwise it was counted in the session where it went late.
+     */
+    public synchronized void trackLoaded(Delivery delivery, int nowMinute) {
+        if (delivery.getEtaMinute() == Delivery.NO_ETA || !delivery.getStatusCode().isOpen()) {
+            return;
+        }
+        remember(delivery);
+        if (delivery.getEtaMinute() <= nowMinute) {
+            markOverdue(delivery.getId());
+            if (!delivery.isDelayCharged()) {
+                late.add(delivery);
+            }
+        } else {
+            etaIndex.put(delivery.getId(), delivery.getEtaMinute());
+        }
+    }
+
+    // Stop watching a delivery (delivered, cancelled or removed)
+    public synchronized void untrack(Delivery delivery) {
+        int id = delivery.getId();
+        etaIndex.remove(id);
+        clearOverdue(id);
+        if (id < tracked.length) {
+            tracked[id] = null;
+        }
+    }
+
+    // Move every delivery whose ETA has passed to the overdue set and the late list
+    public synchronized void tick(int nowMinute) {
+        int id;
+        while ((id = etaIndex.pollDue(nowMinute)) >= 0) {
+            markOverdue(id);
+            late.add(tracked[id]);
+        }
+    }
+
+    // Tick, then hand over (and forget) everything that has gone late since the last call
+    public synchronized List<Delivery> takeLate(int nowMinute) {
+        tick(nowMinute);
+        List<Delivery> taken = new ArrayList<>(late);
+        late.clear();
+        return taken;
+    }
+
+    // Open deliveries due within the next given number of minutes, earliest first
+    public synchronized List<Delivery> dueWithin(int nowMinute, int minutes) {
+        tick(nowMinute);
+        List<Delivery> due = new ArrayList<>();
+        etaIndex.forEachBefore(nowMinute + minutes + 1, id -> due.add(tracked[id]));
+        due.sort((a, b) -> Integer.compare(a.getEtaMinute(), b.getEtaMinute()));
+        return due;
+    }
+
+    // Open deliveries that are past their ETA, earliest first
+    public synchronized List<Delivery> overdue(int nowMinute) {
+        tick(nowMinute);
+        List<Delivery> result = new ArrayList<>(overdueCount);
+        for (int i = 0; i < overdueCount; i++) {
+            result.add(tracked[overdueIds[i]]);
+        }
+        result.sort((a, b) -> Integer.compare(a.getEtaMinute(), b.getEtaMinute()));
+        return result;
+    }
+
+    public synchronized boolean isOverdue(Delivery delivery) {
+        int id = delivery.getId();
+        return id < overdueSlot.length && overdueSlot[id] >= 0;
+    }
+
+    public static int currentMinute() {
+        return Delivery.toEpochMinute(LocalDateTime.now());
+    }
+
+    // === Overdue set (O(1) add/remove by swapping with the last slot) ===
+
+    private void markOverdue(int id) {
+        if (id >= overdueSlot.length) {
+            int oldLength = overdueSlot.length;
+            overdueSlot = Arrays.copyOf(overdueSlot, Math.max(oldLength * 2, id + 1));
+            Arrays.fill(overdueSlot, oldLength, overdueSlot.length, -1);
+        }
+        if (overdueSlot[id] >= 0) {
+            return;
+        }
+        if (overdueCount == overdueIds.length) {
+            overdueIds = Arrays.copyOf(overdueIds, overdueCount * 2);
+        }
+        overdueIds[overdueCount] = id;
+        overdueSlot[id] = overdueCount++;
+    }
+
+    private void clearOverdue(int id) {
+        if (id >= overdueSlot.length || overdueSlot[id] < 0) {
+            return;
+        }
+        int slot = overdueSlot[id];
+        int last = overdueIds[--overdueCount];
+        overdueIds[slot] = last;
+        overdueSlot[last] = slot;
+        overdueSlot[id] = -1;
+    }
+
+    private void remember(Delivery delivery) {
+        int id = delivery.getId();
+        if (id >= tracked.length) {
+            tracked = Arrays.copyOf(tracked, Math.max(tracked.length * 2, id + 1));
+        }
+        tracked[id] = delivery;
+    }
+}
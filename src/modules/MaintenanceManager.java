@@ -1,63 +1,72 @@
 package modules;
 
+import models.IdRegistry;
 import models.Maintenance;
 import models.Vehicle;
+import structures.heap.IntKeyMinHeap;
+import structures.sort.ParallelSort;
+import structures.sort.RadixSort;
+import utils.ArchiveStore;
 import utils.FileHandler;
 import utils.InputValidator;
+import utils.Pager;
+import utils.PersistenceWriter;
+import utils.TextBuffer;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class MaintenanceManager {
 
-    private final List<Maintenance> allMaintenanceRecords = FileHandler.loadMaintenance(); // flat list
-    private final List<Vehicle> sortedVehicleList = new ArrayList<>();
+    private final List<Maintenance> allMaintenanceRecords; // flat list
+    private final ArchiveStore<Maintenance> archive;       // older records, by regNo
+    private final IntKeyMinHeap<Vehicle> maintenanceQueue; // lowest mileage first
+    private final VehicleManager vehicleManager;
+    private final FileHandler files;
+
+    // Mileage changes re-add a vehicle instead of re-keying it in place, so the heap can hold
+    // outdated entries. queuedMileage (by vehicle ID) is the key of each vehicle's current entry,
+    // NOT_QUEUED once it has been taken; entries with any other key are skipped and, once they
+    // make up half the heap, dropped by a rebuild.
+    private static final int NOT_QUEUED = -1;
+    private int[] queuedMileage = new int[0];
+    private int staleEntries;
+
     public MaintenanceManager(VehicleManager vehicleManager) {
-        // Load vehicles and sort manually by mileage using QuickSort
-        List<Vehicle> allVehicles = vehicleManager.getAllVehicles();
-        sortedVehicleList.addAll(allVehicles);
-        quickSortVehiclesByMileage(0, sortedVehicleList.size() - 1);
-        System.out.println("Loaded " + allMaintenanceRecords.size() + " maintenance records.");
+        this(vehicleManager, FileHandler.DEFAULT);
     }
 
-    // QuickSort implementation for vehicles by mileage ascending
-    private void quickSortVehiclesByMileage(int low, int high) {
-        if (low < high) {
-            int pivotIndex = partition(low, high);
-            quickSortVehiclesByMileage(low, pivotIndex - 1);
-            quickSortVehiclesByMileage(pivotIndex + 1, high);
+    public MaintenanceManager(VehicleManager vehicleManager, FileHandler files) {
+        this.vehicleManager = vehicleManager;
+        this.files = files;
+        this.allMaintenanceRecords = files.loadMaintenance();
+        this.archive = files.maintenanceArchive();
+        // Heapify all vehicles by mileage in one O(n) pass
+        List<Vehicle> allVehicles = vehicleManager.getAllVehicles();
+        int[] mileage = new int[allVehicles.size()];
+        Vehicle[] vehicles = allVehicles.toArray(new Vehicle[0]);
+        for (int i = 0; i < vehicles.length; i++) {
+            mileage[i] = vehicles[i].getMileage();
         }
-    }
-
-    private int partition(int low, int high) {
-        Vehicle pivot = sortedVehicleList.get(high);
-        int pivotMileage = pivot.getMileage();
-        int i = low - 1;
-
-        for (int j = low; j < high; j++) {
-            if (sortedVehicleList.get(j).getMileage() <= pivotMileage) {
-                i++;
-                swapVehicles(i, j);
-            }
+        maintenanceQueue = IntKeyMinHeap.of(mileage, vehicles, vehicles.length);
+        for (Vehicle v : vehicles) {
+            setQueuedMileage(v.getId(), v.getMileage());
         }
-        swapVehicles(i + 1, high);
-        return i + 1;
-    }
-
-    private void swapVehicles(int i, int j) {
-        Vehicle temp = sortedVehicleList.get(i);
-        sortedVehicleList.set(i, sortedVehicleList.get(j));
-        sortedVehicleList.set(j, temp);
+        System.out.println("Loaded " + allMaintenanceRecords.size() + " maintenance records.");
     }
 
     // === CORE LOGIC ===
     public void scheduleNextMaintenance() {
-        if (sortedVehicleList.isEmpty()) {
+        Vehicle next = pollQueue(); // lowest mileage first
+        if (next == null) {
             System.out.println("No vehicles currently need maintenance.");
             return;
         }
 
-        Vehicle next = sortedVehicleList.remove(0); // simulate priority
         System.out.println("\nVehicle Due for Maintenance:");
         System.out.println(next);
 
@@ -126,7 +135,7 @@ public class MaintenanceManager {
                 );
 
                 allMaintenanceRecords.add(m);
-                FileHandler.saveMaintenance(allMaintenanceRecords);
+                saveMaintenance();
                 InputValidator.showSuccess("Maintenance scheduled and logged successfully!");
                 return;
 
@@ -138,6 +147,170 @@ public class MaintenanceManager {
         }
     }
 
+    // Log a completed service for a vehicle without prompting or saving
+    public Maintenance recordMaintenance(String regNo, String serviceType, String serviceDate,
+                                         String partsReplaced, double cost, String nextServiceDate) {
+        Vehicle vehicle = vehicleManager.getVehicleByRegNo(regNo);
+        if (vehicle == null) {
+            throw new IllegalArgumentException("Vehicle not found.");
+        }
+
+        Maintenance m = new Maintenance(
+                vehicle.getRegistrationNumber(),
+                serviceType, serviceDate, vehicle.getMileage(),
+                partsReplaced, cost, nextServiceDate
+        );
+        allMaintenanceRecords.add(m);
+        return m;
+    }
+
+    // Follow a vehicle's new odometer reading in the queue (no-op once it has been taken)
+    public synchronized void mileageChanged(Vehicle vehicle) {
+        int id = vehicle.getId();
+        if (id >= queuedMileage.length || queuedMileage[id] == NOT_QUEUED
+                || queuedMileage[id] == vehicle.getMileage()) {
+            return;
+        }
+        maintenanceQueue.add(vehicle.getMileage(), vehicle);
+        queuedMileage[id] = vehicle.getMileage();
+        staleEntries++;
+        if (staleEntries > 16 && staleEntries * 2 > maintenanceQueue.size()) {
+            rebuildQueue();
+        }
+    }
+
+    // Queue a vehicle that joined this depot
+    public synchronized void vehicleAdded(Vehicle vehicle) {
+        maintenanceQueue.add(vehicle.getMileage(), vehicle);
+        setQueuedMileage(vehicle.getId(), vehicle.getMileage());
+    }
+
+    // Forget a vehicle that left this depot; its heap entry goes stale and is skipped
+    public synchronized void vehicleRemoved(Vehicle vehicle) {
+        int id = vehicle.getId();
+        if (id < queuedMileage.length && queuedMileage[id] != NOT_QUEUED) {
+            queuedMileage[id] = NOT_QUEUED;
+            staleEntries++;
+        }
+    }
+
+    // Take a vehicle's live records out (it is moving depots); archived ones stay put
+    public synchronized List<Maintenance> takeRecords(String regNo) {
+        List<Maintenance> taken = new ArrayList<>();
+        allMaintenanceRecords.removeIf(m -> {
+            if (m.getRegNo().equalsIgnoreCase(regNo)) {
+                taken.add(m);
+                return true;
+            }
+            return false;
+        });
+        return taken;
+    }
+
+    public synchronized void addRecords(List<Maintenance> records) {
+        allMaintenanceRecords.addAll(records);
+    }
+
+    // Take the live entry with the lowest mileage, or null if there is none
+    private synchronized Vehicle pollQueue() {
+        Vehicle next = peekQueue();
+        if (next != null) {
+            maintenanceQueue.poll();
+            queuedMileage[next.getId()] = NOT_QUEUED;
+        }
+        return next;
+    }
+
+    // Drop outdated entries from the top, then look at the first live one
+    private synchronized Vehicle peekQueue() {
+        while (!maintenanceQueue.isEmpty() && !isLive(maintenanceQueue.peekKey(), maintenanceQueue.peek())) {
+            maintenanceQueue.poll();
+            staleEntries--;
+        }
+        return maintenanceQueue.peek();
+    }
+
+    private boolean isLive(int key, Vehicle vehicle) {
+        int id = vehicle.getId();
+        return id < queuedMileage.length && queuedMileage[id] == key;
+    }
+
+    // Drop every outdated entry and heapify the rest again, in O(n)
+    private void rebuildQueue() {
+        maintenanceQueue.retain(this::isLive);
+        staleEntries = 0;
+    }
+
+    private void setQueuedMileage(int id, int mileage) {
+        if (id >= queuedMileage.length) {
+            int old = queuedMileage.length;
+            queuedMileage = Arrays.copyOf(queuedMileage, Math.max(old * 2, id + 1));
+            Arrays.fill(queuedMileage, old, queuedMileage.length, NOT_QUEUED);
+        }
+        queuedMileage[id] = mileage;
+    }
+
+    // Records never change once made, so a copy of the list is a frozen view
+    public void saveMaintenance() {
+        List<Maintenance> records = new ArrayList<>(allMaintenanceRecords);
+        PersistenceWriter.submit(files, PersistenceWriter.Target.MAINTENANCE, () -> records);
+    }
+
+    /**
+     * Every maintenance record as its seven text fields (reg no, service
+     * type, service date, mileage, parts, cost, next service date): live
+     * records, then the archive one block at a time. The array handed to
+     * action is only valid during the call.
+     */
+    public void forEachRecordRow(Consumer<String[]> action) {
+        String[] fields = new String[7];
+        for (Maintenance m : allMaintenanceRecords) {
+            fields[0] = m.getRegNo();
+            fields[1] = m.getServiceType();
+            fields[2] = m.getServiceDate();
+            fields[3] = Integer.toString(m.getMileageAtService());
+            fields[4] = m.getPartsReplaced();
+            fields[5] = Double.toString(m.getCost());
+            fields[6] = m.getNextServiceDate() == null ? "" : m.getNextServiceDate();
+            action.accept(fields);
+        }
+        archive.forEachLine(line -> {
+            String[] parts = line.split(",", -1);
+            if (parts.length == 7) {
+                for (int i = 0; i < 7; i++) {
+                    parts[i] = parts[i].trim();
+                }
+                action.accept(parts);
+            }
+        });
+    }
+
+    /**
+     * Move records serviced more than maxAgeDays ago into the compressed
+     * archive (fsynced first), then save the smaller live file. History
+     * views still include them. Returns how many records were archived.
+     */
+    public int archiveOlderThan(int maxAgeDays) throws IOException {
+        LocalDate cutoffDate = LocalDate.now().minusDays(maxAgeDays);
+        int cutoff = cutoffDate.getYear() * 10000 + cutoffDate.getMonthValue() * 100 + cutoffDate.getDayOfMonth();
+
+        List<Maintenance> old = new ArrayList<>();
+        List<Maintenance> kept = new ArrayList<>();
+        for (Maintenance m : allMaintenanceRecords) {
+            int day = serviceDay(m);
+            (day < cutoff ? old : kept).add(m); // unparseable dates (MAX_VALUE) stay live
+        }
+        if (old.isEmpty()) {
+            return 0;
+        }
+
+        archive.append(old, true);
+        allMaintenanceRecords.clear();
+        allMaintenanceRecords.addAll(kept);
+        saveMaintenance();
+        return old.size();
+    }
+
     public void viewHistory() {
         System.out.println("\n--- View Maintenance History ---");
 
@@ -147,16 +320,23 @@ public class MaintenanceManager {
                 return;
             }
 
-            boolean found = false;
-            System.out.println("\n--- Maintenance History for " + regNo + " ---");
+            int vehicleId = IdRegistry.VEHICLES.idOf(regNo);
+            List<Maintenance> history = new ArrayList<>();
             for (Maintenance m : allMaintenanceRecords) {
-                if (m.getRegNo().equalsIgnoreCase(regNo)) {
-                    System.out.println(m);
-                    found = true;
+                if (m.getVehicleRef() == vehicleId) {
+                    history.add(m);
                 }
             }
+            history.addAll(archive.find(regNo)); // only blocks whose filter matches are decompressed
+
+            // Oldest service first; records logged on the same day keep their order
+            ParallelSort.sortByInt(history, MaintenanceManager::serviceDay);
+            if (!history.isEmpty()) {
+                System.out.println("\n--- Maintenance History for " + regNo + " ---");
+                Pager.browse(Pager.of(history), MaintenanceManager::historyHeader, MaintenanceManager::historyRow, "");
+            }
 
-            if (!found) {
+            if (history.isEmpty()) {
                 if (!InputValidator.handleErrorAndAskRetry("No maintenance records found for this vehicle.")) {
                     return;
                 }
@@ -168,8 +348,44 @@ public class MaintenanceManager {
 
     public void showMaintenanceQueue() {
         System.out.println("\n--- Maintenance Priority Queue (by mileage) ---");
-        for (Vehicle v : sortedVehicleList) {
-            System.out.printf("• RegNo: %s | Mileage: %d km\n", v.getRegistrationNumber(), v.getMileage());
+        // Sort a copy of the live heap contents; the queue itself stays a heap
+        int[] mileage;
+        Object[] vehicles;
+        synchronized (this) {
+            rebuildQueue();
+            mileage = maintenanceQueue.keysSnapshot();
+            vehicles = maintenanceQueue.itemsSnapshot();
+        }
+        RadixSort.sort(mileage, vehicles);
+        Pager.browse(Pager.indexed(vehicles.length, i -> (Vehicle) vehicles[i]),
+                out -> out.column("Reg No", 12).columnRight("Mileage km", 10).newline().rule(23),
+                (v, out) -> out.column(v.getRegistrationNumber(), 12).column(v.getMileage(), 10),
+                "No vehicles in the maintenance queue.");
+    }
+
+    private static void historyHeader(TextBuffer out) {
+        out.column("Date", 10).column("Service", 16).columnRight("Mileage km", 10).columnRight("Cost GHS", 10)
+                .column("Next", 10).column("Parts", 30);
+        out.newline().rule(91);
+    }
+
+    private static void historyRow(Maintenance m, TextBuffer out) {
+        String next = m.getNextServiceDate();
+        out.column(m.getServiceDate(), 10).column(m.getServiceType(), 16).column(m.getMileageAtService(), 10)
+                .column(m.getCost(), 2, 10).column(next == null || next.isEmpty() ? "N/A" : next, 10)
+                .column(m.getPartsReplaced(), 30);
+    }
+
+    // yyyy-MM-dd as yyyyMMdd; unparseable dates sort last
+    private static int serviceDay(Maintenance m) {
+        String date = m.getServiceDate();
+        if (date == null || date.length() != 10) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            return Integer.parseInt(date.substring(0, 4) + date.substring(5, 7) + date.substring(8, 10));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
         }
     }
 
@@ -183,10 +399,10 @@ public class MaintenanceManager {
     }
 
     public void viewNextVehicleDue() {
-        if (sortedVehicleList.isEmpty()) {
+        Vehicle next = peekQueue();
+        if (next == null) {
             System.out.println("No vehicles currently due for maintenance.");
         } else {
-            Vehicle next = sortedVehicleList.get(0);
             System.out.println("\nNext Vehicle Due for Maintenance:");
             System.out.printf("• RegNo: %s | Mileage: %d km\n", next.getRegistrationNumber(), next.getMileage());
         }
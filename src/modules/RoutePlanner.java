@@ -0,0 +1,146 @@
+package modules;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import models.RouteSegment;
+import models.Symbols;
+import structures.graph.RouteGraph;
+import structures.graph.RouteGraph.ShortestPaths;
+import structures.hash.SymbolTable;
+import utils.FileHandler;
+
+/**
+ * Suggests distance and travel time between towns using the road network in
+ * routes.txt.
+ *
+ * One Dijkstra run answers every destination from a source, so whole
+ * shortest-path trees are cached per source (LRU). Repeat lookups from a
+ * busy depot are a cache hit plus two array reads.
+ */
+public class RoutePlanner {
+
+    private static final int CACHED_SOURCES = 64;
+
+    private final SymbolTable towns = new SymbolTable(); // upper-cased town name -> node
+    private final List<String> townNames = new ArrayList<>();
+    private final RouteGraph graph;
+    private final Map<Integer, ShortestPaths> cache =
+            new LinkedHashMap<>(CACHED_SOURCES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPaths> eldest) {
+                    return size() > CACHED_SOURCES;
+                }
+            };
+
+    public RoutePlanner() {
+        this(FileHandler.loadRoutes());
+    }
+
+    public RoutePlanner(List<RouteSegment> segments) {
+        int count = segments.size();
+        int[] from = new int[count];
+        int[] to = new int[count];
+        int[] km = new int[count];
+        int[] minutes = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            RouteSegment s = segments.get(i);
+            from[i] = node(s.getFrom());
+            to[i] = node(s.getTo());
+            km[i] = s.getDistanceKm();
+            minutes[i] = s.getTravelMinutes();
+        }
+        graph = new RouteGraph(towns.size(), from, to, km, minutes);
+    }
+
+    /**
+     * Fastest route between two towns, or null if either town is not on the
+     * network or there is no road between them.
+     */
+    public Route plan(String origin, String destination) {
+        int source = nodeOf(origin);
+        int target = nodeOf(destination);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+
+        ShortestPaths paths = pathsFrom(source);
+        if (paths.minutesTo(target) == RouteGraph.UNREACHABLE) {
+            return null;
+        }
+        return new Route(paths, target);
+    }
+
+    public boolean knowsTown(String town) {
+        return nodeOf(town) >= 0;
+    }
+
+    public List<String> getTowns() {
+        return new ArrayList<>(townNames);
+    }
+
+    private synchronized ShortestPaths pathsFrom(int source) {
+        ShortestPaths paths = cache.get(source);
+        if (paths == null) {
+            paths = graph.shortestPathsFrom(source);
+            cache.put(source, paths);
+        }
+        return paths;
+    }
+
+    private int node(String town) {
+        int before = towns.size();
+        int node = towns.intern(town.toUpperCase(Locale.ROOT));
+        if (node == before) {
+            townNames.add(town);
+            Symbols.LOCATION_NAMES.add(town);
+        }
+        return node;
+    }
+
+    private int nodeOf(String town) {
+        return towns.codeOf(town.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // A suggested route; the town list is only built if asked for
+    public class Route {
+        private final ShortestPaths paths;
+        private final int target;
+
+        private Route(ShortestPaths paths, int target) {
+            this.paths = paths;
+            this.target = target;
+        }
+
+        public int getDistanceKm() {
+            return paths.kmTo(target);
+        }
+
+        public int getTravelMinutes() {
+            return paths.minutesTo(target);
+        }
+
+        // ETA (epoch minute) if the trip starts at the given minute
+        public int etaFrom(int startMinute) {
+            return startMinute + getTravelMinutes();
+        }
+
+        public List<String> getTowns() {
+            List<String> names = new ArrayList<>();
+            for (int n : paths.pathTo(target)) {
+                names.add(townNames.get(n));
+            }
+            return names;
+        }
+
+        @Override
+        public String toString() {
+            int minutes = getTravelMinutes();
+            return String.join(" -> ", getTowns()) + " (" + getDistanceKm() + " km, ~"
+                    + (minutes / 60) + "h " + (minutes % 60) + "m)";
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package modules;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import models.IdRegistry;
+import models.Vehicle;
+import structures.queue.ConcurrentRingQueue;
+
+/**
+ * Replays odometer and fuel telemetry into the fleet.
+ *
+ * Three stages, so parsing and applying overlap:
+ *   1. A parser thread reads raw bytes and parses each line by hand into a
+ *      Chunk: up to CHUNK readings in primitive arrays, no per-reading
+ *      objects.
+ *   2. Full chunks go through a bounded ConcurrentRingQueue. When the
+ *      applier falls behind, the queue fills, enqueue() waits and the parser
+ *      stops reading; on a socket that stalls the sender through TCP flow
+ *      control instead of buffering without limit.
+ *   3. The calling thread drains up to BATCH_CHUNKS chunks at a time,
+ *      records every reading in the FuelHistory, keeps only the newest
+ *      reading per vehicle, and applies each vehicle once: mileage index
+ *      and fuel totals through VehicleManager.updateReadings, then the
+ *      maintenance queue.
+ *
+ * Line format: regNo,epochSeconds,odometerKm,fuelUsedLitres where
+ * fuelUsedLitres is the vehicle's cumulative fuel counter. L/100km is
+ * worked out from how far both counters moved since an earlier reading in
+ * the same replay, once the vehicle has covered MIN_RATE_KM.
+ */
+public class TelemetryIngest {
+
+    private static final int CHUNK = 1024;           // readings per queue entry
+    private static final int QUEUE_CHUNKS = 64;      // queue capacity: 64K readings in flight
+    private static final int BATCH_CHUNKS = 16;      // coalesce up to 16K readings per apply
+    private static final int MAX_LINE = 256;
+    private static final int MIN_RATE_KM = 5;        // shorter hops are too noisy to derive a rate from
+    private static final double RATE_WINDOW_KM = 500; // a new rate over this distance replaces the old one
+
+    // Readings parsed from up to CHUNK lines
+    private static final class Chunk {
+        final int[] vehicle = new int[CHUNK];
+        final long[] time = new long[CHUNK];
+        final int[] odometer = new int[CHUNK];
+        final double[] fuel = new double[CHUNK];
+        int count;
+    }
+
+    private static final Chunk END = new Chunk(); // last entry the parser sends
+
+    /**
+     * What one replay did. coalesced counts readings replaced by a newer one
+     * for the same vehicle within a batch; regressions and applied count the
+     * one surviving reading per vehicle per batch.
+     */
+    public record Summary(long lines, long readings, long malformed, long unknownVehicles, long coalesced,
+                          long regressions, long applied, int vehiclesUpdated, int batches, long producerStalls,
+                          long recorded, long millis, String error) {
+    }
+
+    private final VehicleManager vehicleManager;
+    private final MaintenanceManager maintenanceManager;
+    private final FuelHistory history; // null: don't record readings
+
+    private final ConcurrentRingQueue<Chunk> queue = new ConcurrentRingQueue<>(QUEUE_CHUNKS);
+    private final ConcurrentRingQueue<Chunk> free = new ConcurrentRingQueue<>(QUEUE_CHUNKS + BATCH_CHUNKS);
+
+    // Parser-side counters, read by the applier after END
+    private long lines, readings, malformed, stalls;
+    private volatile String parseError;
+
+    // Applier state, by vehicle ID
+    private int[] latestOdometer = new int[0];
+    private long[] latestTime = new long[0];
+    private double[] latestFuel = new double[0];
+    private boolean[] touched = new boolean[0];
+    private int[] touchedIds = new int[0];
+    private int touchedCount;
+    private int[] rateBaseOdometer = new int[0]; // counters at the start of the distance the next rate covers
+    private double[] rateBaseFuel = new double[0];
+    private boolean[] everUpdated = new boolean[0];
+
+    public TelemetryIngest(VehicleManager vehicleManager, MaintenanceManager maintenanceManager, FuelHistory history) {
+        this.vehicleManager = vehicleManager;
+        this.maintenanceManager = maintenanceManager;
+        this.history = history;
+    }
+
+    // A log file path, or :port to take one connection on localhost
+    public Summary replay(String source) {
+        if (source.startsWith(":")) {
+            int port;
+            try {
+                port = Integer.parseInt(source.substring(1));
+            } catch (NumberFormatException e) {
+                port = -1;
+            }
+            if (port < 1 || port > 65535) {
+                return failed("Invalid telemetry port '" + source + "' (use :1-65535)");
+            }
+            return listen(port);
+        }
+        return replayFile(source);
+    }
+
+    // Replay a log file
+    public Summary replayFile(String path) {
+        try (InputStream in = new FileInputStream(path)) {
+            return ingest(in);
+        } catch (IOException e) {
+            return failed("Cannot read " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Accept one connection on localhost:port and ingest until the sender closes it
+    public Summary listen(int port) {
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            System.out.println("Waiting for telemetry on " + server.getInetAddress().getHostAddress() + ":"
+                    + server.getLocalPort() + " ...");
+            try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+                return ingest(in);
+            }
+        } catch (IOException e) {
+            return failed("Telemetry socket error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse on a background thread and apply on this one until the stream
+     * ends. Not for concurrent use: one replay per instance at a time.
+     */
+    public Summary ingest(InputStream in) {
+        long start = System.nanoTime();
+        lines = readings = malformed = stalls = 0;
+        parseError = null;
+
+        Thread parser = new Thread(() -> {
+            try {
+                parse(in);
+            } catch (IOException e) {
+                parseError = e.getMessage();
+            } finally {
+                queue.enqueue(END);
+            }
+        }, "telemetry-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        long unknown = 0, coalesced = 0, regressions = 0, applied = 0, recorded = 0;
+        int updated = 0, batches = 0;
+        boolean[] counted = new boolean[0];
+        Chunk[] batch = new Chunk[BATCH_CHUNKS];
+        boolean done = false;
+        int idle = 0;
+        while (!done) {
+            int n = 0;
+            Chunk chunk;
+            while (n < BATCH_CHUNKS && (chunk = queue.poll()) != null) {
+                if (chunk == END) {
+                    done = true;
+                    break;
+                }
+                batch[n++] = chunk;
+            }
+            if (n == 0) {
+                if (!done) {
+                    idle = waitForWork(idle);
+                }
+                continue;
+            }
+            idle = 0;
+
+            // Coalesce: newest reading per vehicle across the whole batch
+            for (int c = 0; c < n; c++) {
+                Chunk ch = batch[c];
+                for (int i = 0; i < ch.count; i++) {
+                    int id = ch.vehicle[i];
+                    Vehicle v = vehicleManager.getVehicleById(id);
+                    if (v == null) {
+                        unknown++;
+                        continue;
+                    }
+                    if (history != null && history.record(v, ch.time[i], ch.odometer[i], ch.fuel[i])) {
+                        recorded++;
+                    }
+                    ensureCapacity(id);
+                    if (!touched[id]) {
+                        touched[id] = true;
+                        touchedIds[touchedCount++] = id;
+                        latestTime[id] = Long.MIN_VALUE;
+                    } else {
+                        coalesced++;
+                    }
+                    if (ch.time[i] >= latestTime[id]) {
+                        latestTime[id] = ch.time[i];
+                        latestOdometer[id] = ch.odometer[i];
+                        latestFuel[id] = ch.fuel[i];
+                    }
+                }
+                ch.count = 0;
+                free.offer(ch);
+            }
+
+            // Apply once per vehicle
+            for (int t = 0; t < touchedCount; t++) {
+                int id = touchedIds[t];
+                touched[id] = false;
+                Vehicle v = vehicleManager.getVehicleById(id);
+                if (latestOdometer[id] < v.getMileage()) {
+                    regressions++; // odometers only go up; a lower reading is stale or wrong
+                    continue;
+                }
+                vehicleManager.updateReadings(v, latestOdometer[id], fuelUsage(id, v));
+                maintenanceManager.mileageChanged(v);
+                applied++;
+                if (id >= counted.length) {
+                    counted = Arrays.copyOf(counted, Math.max(counted.length * 2, id + 1));
+                }
+                if (!counted[id]) {
+                    counted[id] = true;
+                    updated++;
+                }
+            }
+            touchedCount = 0;
+            batches++;
+        }
+
+        try {
+            parser.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (history != null) {
+            history.flush();
+        }
+        return new Summary(lines, readings, malformed, unknown, coalesced, regressions, applied, updated, batches,
+                stalls, recorded, (System.nanoTime() - start) / 1_000_000, parseError);
+    }
+
+    public static void printSummary(Summary s, FuelStats fuel, FuelHistory history) {
+        if (s.error() != null) {
+            System.out.println("Telemetry replay stopped: " + s.error());
+        }
+        double seconds = Math.max(s.millis(), 1) / 1000.0;
+        System.out.println("\n========== TELEMETRY SUMMARY ==========");
+        System.out.println("Lines read:         " + s.lines() + " (" + s.malformed() + " malformed)");
+        System.out.println("Readings:           " + s.readings() + " (" + s.unknownVehicles() + " unknown vehicle, "
+                + s.regressions() + " odometer went back)");
+        System.out.println("Applied:            " + s.applied() + " updates to " + s.vehiclesUpdated() + " vehicles in "
+                + s.batches() + " batches (" + s.coalesced() + " readings coalesced)");
+        System.out.println("Backpressure:       parser waited " + s.producerStalls() + " times for a full queue");
+        if (history != null) {
+            System.out.println("History:            " + s.recorded() + " readings recorded; " + history.describe());
+        }
+        System.out.printf("Elapsed:            %.3f s (%.0f readings/s)%n", seconds, s.readings() / seconds);
+        System.out.printf("Fleet:              %d vehicles, %d km, mean %.2f L/100km, ~%.0f L burned%n",
+                fuel.vehicles(null), fuel.totalKm(null), fuel.averageRate(null), fuel.estimatedLitres(null));
+    }
+
+    // L/100km after this reading: blend in the rate over the distance since the base, weighted by distance
+    private double fuelUsage(int id, Vehicle v) {
+        double current = v.getFuelUsage();
+        if (!everUpdated[id]) {
+            everUpdated[id] = true;
+            rateBaseOdometer[id] = latestOdometer[id];
+            rateBaseFuel[id] = latestFuel[id];
+            return current;
+        }
+        int km = latestOdometer[id] - rateBaseOdometer[id];
+        double litres = latestFuel[id] - rateBaseFuel[id];
+        if (litres < 0) {
+            // Fuel counter reset (new unit, power loss): start measuring again from here
+            rateBaseOdometer[id] = latestOdometer[id];
+            rateBaseFuel[id] = latestFuel[id];
+            return current;
+        }
+        if (km < MIN_RATE_KM) {
+            return current;
+        }
+        double rate = Math.max(0.1, Math.min(100.0, litres / km * 100.0));
+        double weight = Math.min(1.0, km / RATE_WINDOW_KM);
+        rateBaseOdometer[id] = latestOdometer[id];
+        rateBaseFuel[id] = latestFuel[id];
+        return Math.round((current + weight * (rate - current)) * 100.0) / 100.0;
+    }
+
+    private static Summary failed(String error) {
+        return new Summary(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, error);
+    }
+
+    // Spin briefly, then yield, then sleep in short naps while the parser catches up
+    private static int waitForWork(int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(100_000);
+        }
+        return idle + 1;
+    }
+
+    // === Parsing (parser thread) ===
+
+    private void parse(InputStream in) throws IOException {
+        byte[] buf = new byte[1 << 16];
+        byte[] line = new byte[MAX_LINE];
+        int length = 0;
+        boolean overlong = false;
+        Chunk chunk = takeChunk();
+
+        int read;
+        while ((read = in.read(buf)) > 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = buf[i];
+                if (b == '\n') {
+                    if (overlong) {
+                        lines++;
+                        malformed++;
+                    } else if (parseLine(line, length, chunk) && chunk.count == CHUNK) {
+                        send(chunk);
+                        chunk = takeChunk();
+                    }
+                    length = 0;
+                    overlong = false;
+                } else if (length < MAX_LINE) {
+                    line[length++] = b;
+                } else {
+                    overlong = true;
+                }
+            }
+        }
+        if (length > 0 && !overlong) {
+            parseLine(line, length, chunk);
+        }
+        if (chunk.count > 0) {
+            send(chunk);
+        }
+    }
+
+    private Chunk takeChunk() {
+        Chunk chunk = free.poll();
+        return chunk != null ? chunk : new Chunk();
+    }
+
+    private void send(Chunk chunk) {
+        if (!queue.offer(chunk)) {
+            stalls++;
+            queue.enqueue(chunk); // waits: this is where backpressure reaches the reader
+        }
+    }
+
+    // Parse one line into the chunk; false for blank, header and malformed lines
+    private boolean parseLine(byte[] b, int length, Chunk chunk) {
+        while (length > 0 && (b[length - 1] == '\r' || b[length - 1] == ' ')) {
+            length--;
+        }
+        if (length == 0) {
+            return false;
+        }
+        lines++;
+
+        int c1 = indexOf(b, ',', 0, length);
+        int c2 = indexOf(b, ',', c1 + 1, length);
+        int c3 = indexOf(b, ',', c2 + 1, length);
+        if (c1 <= 0 || c2 < 0 || c3 < 0 || indexOf(b, ',', c3 + 1, length) >= 0) {
+            malformed++;
+            return false;
+        }
+        long time = parseLong(b, c1 + 1, c2);
+        long odometer = parseLong(b, c2 + 1, c3);
+        double fuel = parseDecimal(b, c3 + 1, length);
+        if (time < 0 || odometer < 0 || odometer > Integer.MAX_VALUE || fuel < 0) {
+            if (lines == 1) {
+                lines = 0; // a header line
+            } else {
+                malformed++;
+            }
+            return false;
+        }
+
+        String regNo = new String(b, 0, c1, StandardCharsets.US_ASCII).trim();
+        int i = chunk.count;
+        chunk.vehicle[i] = IdRegistry.VEHICLES.idOf(regNo); // -1 for unknown, counted by the applier
+        chunk.time[i] = time;
+        chunk.odometer[i] = (int) odometer;
+        chunk.fuel[i] = fuel;
+        chunk.count++;
+        readings++;
+        return true;
+    }
+
+    private static int indexOf(byte[] b, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Non-negative integer in [from, to), or -1 if it isn't one
+    private static long parseLong(byte[] b, int from, int to) {
+        if (from >= to || to - from > 18) {
+            return -1;
+        }
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    // Non-negative decimal like 1234.56 in [from, to), or -1 if it isn't one
+    private static double parseDecimal(byte[] b, int from, int to) {
+        int dot = indexOf(b, '.', from, to);
+        if (dot < 0) {
+            return parseLong(b, from, to);
+        }
+        long whole = dot == from ? 0 : parseLong(b, from, dot);
+        int digits = to - dot - 1;
+        long fraction = digits == 0 ? 0 : parseLong(b, dot + 1, to);
+        if (whole < 0 || fraction < 0 || digits > 9) {
+            return -1;
+        }
+        return whole + fraction / Math.pow(10, digits);
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < touched.length) {
+            return;
+        }
+        int size = Math.max(Math.max(64, touched.length * 2), id + 1);
+        latestOdometer = Arrays.copyOf(latestOdometer, size);
+        latestTime = Arrays.copyOf(latestTime, size);
+        latestFuel = Arrays.copyOf(latestFuel, size);
+        touched = Arrays.copyOf(touched, size);
+        touchedIds = Arrays.copyOf(touchedIds, size);
+        rateBaseOdometer = Arrays.copyOf(rateBaseOdometer, size);
+        rateBaseFuel = Arrays.copyOf(rateBaseFuel, size);
+        everUpdated = Arrays.copyOf(everUpdated, size);
+    }
+}
@@ -0,0 +1,133 @@
+package modules;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import models.Vehicle;
+import structures.spatial.PointGrid;
+
+/**
+ * Where the idle vehicles are, one PointGrid per vehicle type.
+ *
+ * A vehicle is in the index while it is idle and its last known town is in
+ * the gazetteer. It leaves when it takes a delivery and comes back, at the
+ * delivery's destination, when its last open delivery closes. Each of those
+ * is an O(1) grid update, so asking for the nearest idle vehicles never
+ * scans the fleet. Idle vehicles with no known town are kept in a plain set
+ * (with the placed ones) so a fallback pick doesn't scan it either.
+ */
+public class VehicleLocator {
+
+    private final Gazetteer gazetteer;
+    private final List<String> types = new ArrayList<>(); // canonical type per grid
+    private final List<PointGrid> grids = new ArrayList<>();
+    private final Set<Integer> idle = new LinkedHashSet<>(); // every idle vehicle ID, placed or not
+
+    public VehicleLocator(Gazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+    }
+
+    public Gazetteer getGazetteer() {
+        return gazetteer;
+    }
+
+    // Idle vehicles go in at their current town (if known); busy ones come out
+    public synchronized void setIdle(Vehicle vehicle, boolean idle) {
+        int town = gazetteer.locate(vehicle.getLocation());
+        PointGrid grid = grid(vehicle.getType(), true);
+        if (idle) {
+            this.idle.add(vehicle.getId());
+        } else {
+            this.idle.remove(vehicle.getId());
+        }
+        if (idle && town >= 0) {
+            grid.put(vehicle.getId(), gazetteer.x(town), gazetteer.y(town));
+        } else {
+            grid.remove(vehicle.getId());
+        }
+    }
+
+    // Follow a change of location for an idle vehicle
+    public synchronized void moved(Vehicle vehicle) {
+        if (idle.contains(vehicle.getId())) {
+            setIdle(vehicle, true);
+        }
+    }
+
+    /**
+     * IDs of up to k idle vehicles closest to the town, nearest first. A
+     * null type means any type. Empty when the town is not in the
+     * gazetteer.
+     */
+    public synchronized int[] nearestIdle(String town, String type, int k) {
+        int at = gazetteer.locate(town);
+        if (at < 0 || k <= 0) {
+            return new int[0];
+        }
+        double x = gazetteer.x(at);
+        double y = gazetteer.y(at);
+        if (type != null) {
+            PointGrid grid = grid(type, false);
+            return grid == null ? new int[0] : grid.nearest(x, y, k);
+        }
+
+        // k from each type's grid, merged by distance
+        int[] merged = new int[0];
+        double[] dist = new double[0];
+        for (PointGrid grid : grids) {
+            int[] ids = grid.nearest(x, y, k);
+            int[] out = new int[Math.min(k, merged.length + ids.length)];
+            double[] outDist = new double[out.length];
+            int a = 0, b = 0;
+            for (int i = 0; i < out.length; i++) {
+                double db = b < ids.length ? Math.hypot(grid.x(ids[b]) - x, grid.y(ids[b]) - y) : Double.MAX_VALUE;
+                if (a < merged.length && dist[a] <= db) {
+                    outDist[i] = dist[a];
+                    out[i] = merged[a++];
+                } else {
+                    outDist[i] = db;
+                    out[i] = ids[b++];
+                }
+            }
+            merged = out;
+            dist = outDist;
+        }
+        return merged;
+    }
+
+    // ID of the longest-idle vehicle, placed or not, or -1 if none is idle
+    public synchronized int anyIdle() {
+        return idle.isEmpty() ? -1 : idle.iterator().next();
+    }
+
+    // IDs of every idle vehicle, placed or not
+    public synchronized int[] idleIds() {
+        int[] ids = new int[idle.size()];
+        int i = 0;
+        for (int id : idle) {
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    // Every idle vehicle, placed on a grid or not
+    public synchronized int idleCount() {
+        return idle.size();
+    }
+
+    private PointGrid grid(String type, boolean create) {
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i).equalsIgnoreCase(type)) {
+                return grids.get(i);
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        PointGrid grid = gazetteer.newGrid();
+        types.add(type);
+        grids.add(grid);
+        return grid;
+    }
+}
@@ -1,23 +1,47 @@
 package modules;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import models.IdRegistry;
 import models.Vehicle;
 import structures.bst.BST;
 import structures.hash.HashTable;
+import structures.persistent.PersistentVector;
+import structures.persistent.SnapshotTable;
+import structures.sort.ParallelSort;
+import structures.trie.RadixTree;
 import utils.FileHandler;
 import utils.InputValidator;
+import utils.Pager;
+import utils.PersistenceWriter;
+import utils.TextBuffer;
+import utils.Validation;
 
 public class VehicleManager {
 
     private final HashTable vehicleTable = new HashTable(); // for reg number
     private final BST vehicleTree = new BST();              // for mileage
+    private Vehicle[] byId = new Vehicle[64];               // indexed by IdRegistry.VEHICLES ID
+    private final RadixTree regNoIndex = new RadixTree();   // for prefix and fuzzy suggestions
+    private final SnapshotTable<Vehicle> published = new SnapshotTable<>(); // frozen copies for readers
+    private final VehicleLocator locator = new VehicleLocator(new Gazetteer()); // idle vehicles by position
+    private final FuelStats fuelStats = new FuelStats();                         // fleet fuel totals
+    private final FileHandler files;                                             // this depot's data files
 
     public VehicleManager() {
+        this(FileHandler.DEFAULT);
+    }
+
+    public VehicleManager(FileHandler files) {
+        this.files = files;
         // Load vehicles from file on initialization
-        List<Vehicle> loadedVehicles = FileHandler.loadVehicles();
+        List<Vehicle> loadedVehicles = files.loadVehicles();
         for (Vehicle vehicle : loadedVehicles) {
             vehicleTable.put(vehicle.getRegistrationNumber(), vehicle);
             vehicleTree.insert(vehicle);
+            index(vehicle);
+            locator.setIdle(vehicle, true); // DeliveryManager marks the busy ones as it loads
         }
         if (!loadedVehicles.isEmpty()) {
             System.out.println("Loaded " + loadedVehicles.size() + " vehicles from file.");
@@ -30,12 +54,12 @@ public class VehicleManager {
 
         while (true) {
             // Get registration number
-            String regNo = InputValidator.getValidString("Enter Registration Number: ", 3, 20);
+            String regNo = InputValidator.getValidPlate("Enter Registration Number: ");
             if (regNo.equals("BACK")) {
                 return;
             }
 
-            if (vehicleTable.containsKey(regNo)) {
+            if (hasVehicle(regNo)) {
                 if (!InputValidator.handleErrorAndAskRetry("Vehicle with this registration number already exists!")) {
                     return;
                 }
@@ -67,15 +91,17 @@ public class VehicleManager {
                 return;
             }
 
-            try {
-                Vehicle vehicle = new Vehicle(regNo, type, mileage, fuelUsage, driverId);
+            // Where it is parked, so nearest-vehicle dispatch can use it
+            String location = promptLocation();
+            if (location == null) {
+                return;
+            }
 
-                // Add to in-memory structures
-                vehicleTable.put(regNo, vehicle);
-                vehicleTree.insert(vehicle);
+            try {
+                registerVehicle(regNo, type, mileage, fuelUsage, driverId, location);
 
                 // Save updated list to file
-                FileHandler.saveVehicles(vehicleTable.toList());
+                saveVehicles();
 
                 InputValidator.showSuccess("Vehicle added and saved successfully!");
                 return;
@@ -88,15 +114,115 @@ public class VehicleManager {
         }
     }
 
-    // Display all vehicles (unsorted, via HashTable)
+    // Add a vehicle to the in-memory structures without prompting or saving
+    public Vehicle registerVehicle(String regNo, String type, int mileage, double fuelUsage, String driverId) {
+        return registerVehicle(regNo, type, mileage, fuelUsage, driverId, null);
+    }
+
+    // Same, parked at a known town (null or empty if unknown)
+    public Vehicle registerVehicle(String regNo, String type, int mileage, double fuelUsage, String driverId,
+                                   String location) {
+        if (hasVehicle(regNo)) {
+            throw new IllegalArgumentException("Vehicle with this registration number already exists!");
+        }
+
+        Vehicle vehicle = new Vehicle(regNo, type, mileage, fuelUsage, driverId);
+        vehicle.setLocation(location);
+        vehicleTable.put(regNo, vehicle);
+        vehicleTree.insert(vehicle);
+        index(vehicle);
+        locator.setIdle(vehicle, true);
+        return vehicle;
+    }
+
+    // Take a vehicle in from another depot, keeping its readings and position
+    public void adoptVehicle(Vehicle vehicle) {
+        if (hasVehicle(vehicle.getRegistrationNumber())) {
+            throw new IllegalArgumentException("Vehicle with this registration number already exists!");
+        }
+        vehicleTable.put(vehicle.getRegistrationNumber(), vehicle);
+        vehicleTree.insert(vehicle);
+        index(vehicle);
+        locator.setIdle(vehicle, true);
+    }
+
+    // Drop a vehicle from this depot (it is moving to another); the caller saves
+    public boolean removeVehicle(Vehicle vehicle) {
+        int id = vehicle.getId();
+        if (getVehicleById(id) != vehicle) {
+            return false;
+        }
+        locator.setIdle(vehicle, false);
+        vehicleTable.remove(vehicle.getRegistrationNumber());
+        vehicleTree.remove(vehicle);
+        regNoIndex.remove(vehicle.getRegistrationNumber());
+        fuelStats.remove(vehicle);
+        byId[id] = null;
+        published.remove(id);
+        return true;
+    }
+
+    public int getIdleCount() {
+        return locator.idleCount();
+    }
+
+    // A gazetteer town, "" to skip, or null for back
+    private String promptLocation() {
+        while (true) {
+            System.out.print("Enter Current Town (Enter to skip): ");
+            String input = InputValidator.readLine().trim();
+            if (input.isEmpty()) {
+                return "";
+            }
+            if (input.equalsIgnoreCase("back") || input.equalsIgnoreCase("b")) {
+                return null;
+            }
+            String error = Validation.checkLocation(input, 2, 50);
+            if (error == null && getGazetteer().locate(input) < 0) {
+                error = "'" + input + "' is not in the town gazetteer";
+            }
+            if (error == null) {
+                return input;
+            }
+            System.out.println(error + " (or 'back' to return)");
+        }
+    }
+
+    public boolean hasVehicle(String regNo) {
+        return getVehicleByRegNo(regNo) != null;
+    }
+
+    // Published snapshots hold frozen copies, so the writer never sees a vehicle mid-update
+    public void saveVehicles() {
+        PersistentVector<Vehicle> frozen = snapshot();
+        PersistenceWriter.submit(files, PersistenceWriter.Target.VEHICLES, frozen::toList);
+    }
+
+    // Display all vehicles in registration order, a page at a time from a snapshot
     public void listVehicles() {
         System.out.println("\n--- All Vehicles ---");
-        vehicleTable.printAll();
+        Pager.browse(Pager.of(snapshot()), VehicleManager::header, VehicleManager::row, "No vehicles registered.");
     }
 
-    // Display vehicles sorted by mileage (using BST)
+    // Display vehicles sorted by mileage, ties by registration number
     public void listVehiclesSortedByMileage() {
-        vehicleTree.printInOrder();
+        System.out.println("\n--- Vehicles Sorted by Mileage ---");
+        List<Vehicle> vehicles = snapshot().toList();
+        // Stable: sort by the tie-breaker first, then by mileage
+        ParallelSort.sort(vehicles, (a, b) -> a.getRegistrationNumber().compareToIgnoreCase(b.getRegistrationNumber()));
+        ParallelSort.sortByInt(vehicles, Vehicle::getMileage);
+        Pager.browse(Pager.of(vehicles), VehicleManager::header, VehicleManager::row, "No vehicles registered.");
+    }
+
+    private static void header(TextBuffer out) {
+        out.column("Reg No", 12).column("Type", 10).columnRight("Mileage km", 10)
+                .columnRight("L/100km", 8).column("Driver", 10).column("Location", 12);
+        out.newline().rule(67);
+    }
+
+    private static void row(Vehicle v, TextBuffer out) {
+        out.column(v.getRegistrationNumber(), 12).column(v.getType(), 10).column(v.getMileage(), 10)
+                .column(v.getFuelUsage(), 1, 8).column(v.getDriverId(), 10).column(v.getLocation(), 12);
     }
 
     // Search for a vehicle by registration number
@@ -109,12 +235,17 @@ public class VehicleManager {
                 return;
             }
 
-            Vehicle found = vehicleTable.get(regNo);
+            if (InputValidator.showCompletions(regNoIndex, regNo)) {
+                continue;
+            }
+
+            Vehicle found = getVehicleByRegNo(regNo);
             if (found != null) {
                 System.out.println("Vehicle Found:");
                 System.out.println(found);
                 return;
             } else {
+                InputValidator.showDidYouMean(regNoIndex, regNo, 2);
                 if (!InputValidator.handleErrorAndAskRetry("Vehicle not found.")) {
                     return;
                 }
@@ -137,9 +268,105 @@ public class VehicleManager {
         }
     }
 
-    // Optional: Expose vehicle lookup by regNo
+    // Case-insensitive lookup by regNo, resolved once through the ID registry
     public Vehicle getVehicleByRegNo(String regNo) {
-        return vehicleTable.get(regNo);
+        return getVehicleById(IdRegistry.VEHICLES.idOf(regNo));
+    }
+
+    public Vehicle getVehicleById(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    private void index(Vehicle vehicle) {
+        if (vehicle.getId() >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(byId.length * 2, vehicle.getId() + 1));
+        }
+        if (byId[vehicle.getId()] == null) {
+            regNoIndex.add(vehicle.getRegistrationNumber());
+            fuelStats.add(vehicle);
+        }
+        byId[vehicle.getId()] = vehicle;
+        publish(vehicle);
+    }
+
+    // Republish a vehicle after changing it so new snapshots see the change
+    public void publish(Vehicle vehicle) {
+        published.put(vehicle.getId(), vehicle.snapshot());
+    }
+
+    /**
+     * Consistent read-only view of the fleet as of now, in O(1). Later
+     * changes don't show up in it, so reports can walk it without locking.
+     */
+    public PersistentVector<Vehicle> snapshot() {
+        return published.snapshot();
+    }
+
+    /**
+     * Set a vehicle's odometer and fuel usage, keeping the mileage index
+     * and the fuel totals in step (Vehicle.setMileage alone would leave
+     * the BST ordered by the old value).
+     */
+    public void updateReadings(Vehicle vehicle, int mileage, double fuelUsage) {
+        fuelStats.remove(vehicle);
+        if (mileage != vehicle.getMileage()) {
+            vehicleTree.remove(vehicle);
+            vehicle.setMileage(mileage);
+            vehicleTree.insert(vehicle);
+        }
+        vehicle.setFuelUsage(fuelUsage);
+        fuelStats.add(vehicle);
+        publish(vehicle);
+    }
+
+    public FuelStats getFuelStats() {
+        return fuelStats;
+    }
+
+    // Record that the vehicle is now at the given town
+    public void moveVehicle(Vehicle vehicle, String town) {
+        vehicle.setLocation(town);
+        locator.moved(vehicle);
+        publish(vehicle);
+    }
+
+    // Called by DeliveryManager as a vehicle's first delivery opens and its last one closes
+    public void setIdle(Vehicle vehicle, boolean idle) {
+        locator.setIdle(vehicle, idle);
+    }
+
+    /**
+     * Up to k idle vehicles of the type (null for any) closest to the
+     * town, nearest first. Empty when the town is not in the gazetteer or
+     * no idle vehicle has a known position.
+     */
+    public List<Vehicle> nearestIdleVehicles(String town, String type, int k) {
+        int[] ids = locator.nearestIdle(town, type, k);
+        List<Vehicle> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(byId[id]);
+        }
+        return result;
+    }
+
+    // The idle vehicle that has waited longest, wherever it is, or null if none is idle
+    public Vehicle anyIdleVehicle() {
+        int id = locator.anyIdle();
+        return id < 0 ? null : byId[id];
+    }
+
+    // Every idle vehicle, placed or not, without scanning the fleet
+    public List<Vehicle> idleVehicles() {
+        int[] ids = locator.idleIds();
+        List<Vehicle> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(byId[id]);
+        }
+        return result;
+    }
+
+    public Gazetteer getGazetteer() {
+        return locator.getGazetteer();
     }
 
     // ** New method to get any available vehicle (example implementation) **
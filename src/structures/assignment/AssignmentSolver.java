@@ -0,0 +1,221 @@
+package structures.assignment;
+
+import java.util.Arrays;
+import structures.sort.ParallelSort;
+
+/**
+ * Minimum-cost assignment of rows to columns (rectangular allowed).
+ *
+ * Uses the Hungarian algorithm (O(n^2 * m), n = smaller side) while that
+ * fits in the work limit. Beyond it, a greedy pass runs (rows with the
+ * cheapest best option pick first, each taking its cheapest free column),
+ * followed by a few rounds of improving pairwise swaps.
+ * Costs are expected to be non-negative.
+ */
+public class AssignmentSolver {
+
+    // n * n * m above this switches to the greedy fallback (a 1000 x 1000 wave still runs Hungarian)
+    public static final long HUNGARIAN_WORK_LIMIT = 1_000_000_000L;
+    private static final int SWAP_PASSES = 3;
+
+    /**
+     * Returns rowToCol: the column assigned to each row, or -1 when there
+     * are more rows than columns and the row was left out.
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int cols = cost[0].length;
+        if (cols == 0) {
+            int[] none = new int[rows];
+            Arrays.fill(none, -1);
+            return none;
+        }
+
+        int small = Math.min(rows, cols);
+        if ((long) small * small * Math.max(rows, cols) > HUNGARIAN_WORK_LIMIT) {
+            int[] rowToCol = greedy(cost);
+            improveBySwaps(cost, rowToCol);
+            return rowToCol;
+        }
+        if (rows <= cols) {
+            return hungarian(cost, rows, cols);
+        }
+
+        // More rows than columns: solve the transpose, then invert
+        double[][] transposed = new double[cols][rows];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                transposed[c][r] = cost[r][c];
+            }
+        }
+        int[] colToRow = hungarian(transposed, cols, rows);
+        int[] rowToCol = new int[rows];
+        Arrays.fill(rowToCol, -1);
+        for (int c = 0; c < cols; c++) {
+            rowToCol[colToRow[c]] = c;
+        }
+        return rowToCol;
+    }
+
+    // Shortest augmenting path with potentials; requires n <= m
+    private static int[] hungarian(double[][] a, int n, int m) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];   // p[j] = row (1-based) matched to column j
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                double[] row = a[i0 - 1];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        double cur = row[j - 1] - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] rowToCol = new int[n];
+        Arrays.fill(rowToCol, -1);
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                rowToCol[p[j] - 1] = j - 1;
+            }
+        }
+        return rowToCol;
+    }
+
+    // O(rows * cols): rows ordered by their best cost, each takes its cheapest free column
+    public static int[] greedy(double[][] cost) {
+        int rows = cost.length;
+        int cols = rows == 0 ? 0 : cost[0].length;
+
+        double[] rowBest = new double[rows];
+        for (int r = 0; r < rows; r++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (double c : cost[r]) {
+                best = Math.min(best, c);
+            }
+            rowBest[r] = best;
+        }
+        int[] order = ParallelSort.sortedOrder(rows, (a, b) -> Double.compare(rowBest[a], rowBest[b]));
+
+        int[] rowToCol = new int[rows];
+        Arrays.fill(rowToCol, -1);
+        boolean[] taken = new boolean[cols];
+        int free = cols;
+
+        for (int r : order) {
+            if (free == 0) {
+                break;
+            }
+            double[] row = cost[r];
+            int bestCol = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int c = 0; c < cols; c++) {
+                if (!taken[c] && row[c] < best) {
+                    best = row[c];
+                    bestCol = c;
+                }
+            }
+            if (bestCol >= 0) {
+                taken[bestCol] = true;
+                rowToCol[r] = bestCol;
+                free--;
+            }
+        }
+        return rowToCol;
+    }
+
+    /**
+     * Local search on a greedy result: swap the columns of two rows, or move a
+     * row to a free column, whenever that lowers the total. O(rows^2) per pass.
+     */
+    static void improveBySwaps(double[][] cost, int[] rowToCol) {
+        int rows = rowToCol.length;
+        int cols = cost[0].length;
+        boolean[] taken = new boolean[cols];
+        for (int c : rowToCol) {
+            if (c >= 0) {
+                taken[c] = true;
+            }
+        }
+
+        for (int pass = 0; pass < SWAP_PASSES; pass++) {
+            boolean improved = false;
+            for (int i = 0; i < rows; i++) {
+                int ci = rowToCol[i];
+                if (ci < 0) {
+                    continue;
+                }
+                double[] rowI = cost[i];
+
+                // Move to a cheaper free column
+                for (int c = 0; c < cols; c++) {
+                    if (!taken[c] && rowI[c] < rowI[ci]) {
+                        taken[ci] = false;
+                        taken[c] = true;
+                        rowToCol[i] = ci = c;
+                        improved = true;
+                    }
+                }
+
+                // Swap with another row
+                for (int k = i + 1; k < rows; k++) {
+                    int ck = rowToCol[k];
+                    if (ck < 0) {
+                        continue;
+                    }
+                    double delta = rowI[ck] + cost[k][ci] - rowI[ci] - cost[k][ck];
+                    if (delta < -1e-12) {
+                        rowToCol[i] = ck;
+                        rowToCol[k] = ci;
+                        ci = ck;
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) {
+                break;
+            }
+        }
+    }
+}
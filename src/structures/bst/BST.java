@@ -1,6 +1,9 @@
 package structures.bst;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import models.Vehicle;
+import utils.TextBuffer;
 
 public class BST {
     private static class Node {
@@ -15,21 +18,73 @@ public class BST {
 
     private Node root;
 
-    // Insert vehicle by mileage
+    // Insert vehicle by mileage (iterative: a fleet loaded in mileage order makes a deep, list-like tree)
     public void insert(Vehicle vehicle) {
-        root = insertRecursive(root, vehicle);
+        Node fresh = new Node(vehicle);
+        if (root == null) {
+            root = fresh;
+            return;
+        }
+
+        int mileage = vehicle.getMileage();
+        Node node = root;
+        while (true) {
+            if (mileage < node.vehicle.getMileage()) {
+                if (node.left == null) {
+                    node.left = fresh;
+                    return;
+                }
+                node = node.left;
+            } else {
+                if (node.right == null) {
+                    node.right = fresh;
+                    return;
+                }
+                node = node.right;
+            }
+        }
     }
 
-    private Node insertRecursive(Node node, Vehicle vehicle) {
-        if (node == null) return new Node(vehicle);
+    /**
+     * Remove this vehicle (by identity). Must be called while the vehicle
+     * still has the mileage it was inserted with: change the mileage
+     * between remove() and a fresh insert(). Returns false if it isn't in
+     * the tree.
+     */
+    public boolean remove(Vehicle vehicle) {
+        int mileage = vehicle.getMileage();
+        Node parent = null;
+        Node node = root;
+        while (node != null && node.vehicle != vehicle) {
+            parent = node;
+            node = mileage < node.vehicle.getMileage() ? node.left : node.right;
+        }
+        if (node == null) {
+            return false;
+        }
 
-        if (vehicle.getMileage() < node.vehicle.getMileage()) {
-            node.left = insertRecursive(node.left, vehicle);
-        } else {
-            node.right = insertRecursive(node.right, vehicle);
+        if (node.left != null && node.right != null) {
+            // Two children: take the in-order successor's vehicle, then unlink the successor
+            Node successorParent = node;
+            Node successor = node.right;
+            while (successor.left != null) {
+                successorParent = successor;
+                successor = successor.left;
+            }
+            node.vehicle = successor.vehicle;
+            parent = successorParent;
+            node = successor;
         }
 
-        return node;
+        Node child = node.left != null ? node.left : node.right;
+        if (parent == null) {
+            root = child;
+        } else if (parent.left == node) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+        return true;
     }
 
     // In-order traversal (sorted by mileage)
@@ -37,42 +92,42 @@ public class BST {
         System.out.println("\n--- Vehicles Sorted by Mileage ---");
         if (root == null) {
             System.out.println("No vehicles in BST.");
-        } else {
-            printInOrderRecursive(root);
+            return;
         }
-    }
 
-    private void printInOrderRecursive(Node node) {
-        if (node != null) {
-            printInOrderRecursive(node.left);
-            System.out.println(node.vehicle);
-            printInOrderRecursive(node.right);
+        TextBuffer out = new TextBuffer(System.out);
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            out.append(node.vehicle.toString()).newline();
+            node = node.right;
         }
+        out.flush();
     }
 
     // Search for vehicles with a specific mileage
     public void searchByMileage(int mileage) {
         System.out.println("\n--- Vehicles with Mileage: " + mileage + " ---");
-        boolean found = searchRecursive(root, mileage);
-        if (!found) {
-            System.out.println("No vehicles found with mileage: " + mileage);
-        }
-    }
-
-    private boolean searchRecursive(Node node, int mileage) {
-        if (node == null) return false;
-
         boolean found = false;
 
-        if (node.vehicle.getMileage() == mileage) {
-            System.out.println(node.vehicle);
-            found = true;
+        // Equal mileage always goes right, so follow one path down
+        Node node = root;
+        while (node != null) {
+            int m = node.vehicle.getMileage();
+            if (m == mileage) {
+                System.out.println(node.vehicle);
+                found = true;
+            }
+            node = mileage < m ? node.left : node.right;
         }
 
-        // Search both sides since there can be multiple with same mileage
-        boolean leftFound = searchRecursive(node.left, mileage);
-        boolean rightFound = searchRecursive(node.right, mileage);
-
-        return found || leftFound || rightFound;
+        if (!found) {
+            System.out.println("No vehicles found with mileage: " + mileage);
+        }
     }
 }
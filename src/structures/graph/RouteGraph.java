@@ -0,0 +1,184 @@
+package structures.graph;
+
+import java.util.Arrays;
+
+/**
+ * Undirected road network stored as a compact adjacency array (CSR):
+ * the neighbours of node n are targets[offsets[n] .. offsets[n + 1]).
+ * Each edge carries a distance in km and a travel time in minutes.
+ */
+public class RouteGraph {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int nodeCount;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] edgeKm;
+    private final int[] edgeMinutes;
+
+    /**
+     * Build from an edge list; each edge (from[i], to[i]) is added in both
+     * directions.
+     */
+    public RouteGraph(int nodeCount, int[] from, int[] to, int[] km, int[] minutes) {
+        this.nodeCount = nodeCount;
+        int edges = from.length;
+
+        int[] degree = new int[nodeCount + 1];
+        for (int i = 0; i < edges; i++) {
+            degree[from[i]]++;
+            degree[to[i]]++;
+        }
+
+        offsets = new int[nodeCount + 1];
+        for (int n = 0; n < nodeCount; n++) {
+            offsets[n + 1] = offsets[n] + degree[n];
+        }
+
+        targets = new int[edges * 2];
+        edgeKm = new int[edges * 2];
+        edgeMinutes = new int[edges * 2];
+        int[] fill = Arrays.copyOf(offsets, nodeCount);
+        for (int i = 0; i < edges; i++) {
+            addHalfEdge(fill, from[i], to[i], km[i], minutes[i]);
+            addHalfEdge(fill, to[i], from[i], km[i], minutes[i]);
+        }
+    }
+
+    private void addHalfEdge(int[] fill, int a, int b, int km, int minutes) {
+        int slot = fill[a]++;
+        targets[slot] = b;
+        edgeKm[slot] = km;
+        edgeMinutes[slot] = minutes;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Dijkstra on travel time from one source. The result holds the fastest
+     * time, the distance along that path and the predecessor for every node,
+     * so it answers every destination from this source.
+     */
+    public ShortestPaths shortestPathsFrom(int source) {
+        int[] minutes = new int[nodeCount];
+        int[] km = new int[nodeCount];
+        int[] prev = new int[nodeCount];
+        Arrays.fill(minutes, UNREACHABLE);
+        Arrays.fill(km, UNREACHABLE);
+        Arrays.fill(prev, -1);
+        minutes[source] = 0;
+        km[source] = 0;
+
+        // Heap entries pack (minutes << 32 | node) so the queue is a plain long[]
+        long[] heap = new long[Math.max(16, nodeCount)];
+        int size = 0;
+        heap[size++] = source;
+
+        while (size > 0) {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+
+            int node = (int) top;
+            int time = (int) (top >>> 32);
+            if (time > minutes[node]) {
+                continue; // stale entry
+            }
+
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int next = targets[e];
+                int candidate = time + edgeMinutes[e];
+                if (candidate < minutes[next]) {
+                    minutes[next] = candidate;
+                    km[next] = km[node] + edgeKm[e];
+                    prev[next] = node;
+
+                    if (size == heap.length) {
+                        heap = Arrays.copyOf(heap, size * 2);
+                    }
+                    heap[size] = ((long) candidate << 32) | next;
+                    siftUp(heap, size++);
+                }
+            }
+        }
+
+        return new ShortestPaths(source, minutes, km, prev);
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heap[i] >= heap[parent]) {
+                break;
+            }
+            long tmp = heap[i];
+            heap[i] = heap[parent];
+            heap[parent] = tmp;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        int left;
+        while ((left = 2 * i + 1) < size) {
+            int smallest = left;
+            if (left + 1 < size && heap[left + 1] < heap[left]) {
+                smallest = left + 1;
+            }
+            if (heap[smallest] >= heap[i]) {
+                break;
+            }
+            long tmp = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = tmp;
+            i = smallest;
+        }
+    }
+
+    // Shortest-path tree rooted at one source
+    public static class ShortestPaths {
+        private final int source;
+        private final int[] minutes;
+        private final int[] km;
+        private final int[] prev;
+
+        ShortestPaths(int source, int[] minutes, int[] km, int[] prev) {
+            this.source = source;
+            this.minutes = minutes;
+            this.km = km;
+            this.prev = prev;
+        }
+
+        public int getSource() {
+            return source;
+        }
+
+        public int minutesTo(int node) {
+            return minutes[node];
+        }
+
+        public int kmTo(int node) {
+            return km[node];
+        }
+
+        // Nodes from the source to the target, or an empty array if unreachable
+        public int[] pathTo(int node) {
+            if (minutes[node] == UNREACHABLE) {
+                return new int[0];
+            }
+            int length = 0;
+            for (int n = node; n != -1; n = prev[n]) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int n = node; n != -1; n = prev[n]) {
+                path[--length] = n;
+            }
+            return path;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package structures.hash;
+
+import java.util.Locale;
+
+/**
+ * Fixed-size Bloom filter over string keys (case-insensitive, like the ID
+ * registry).
+ *
+ * mightContain() never misses a key that was added; it can say yes for a
+ * key that wasn't (about 1% of the time at 10 bits per key). Probes use
+ * double hashing of a 64-bit FNV-1a hash, so each test costs one pass over
+ * the key.
+ */
+public class BloomFilter {
+
+    private static final int BITS_PER_KEY = 10;
+
+    private final long[] words;
+    private final int bitMask;
+    private final int hashes;
+
+    // Sized for the expected number of keys at roughly 1% false positives
+    public BloomFilter(int expectedKeys) {
+        this(expectedKeys, BITS_PER_KEY);
+    }
+
+    // More bits per key give fewer false positives; the probe count follows (bits * ln 2)
+    public BloomFilter(int expectedKeys, int bitsPerKey) {
+        this(wordsFor(expectedKeys, bitsPerKey), Math.max(1, (int) Math.round(bitsPerKey * 0.693)));
+    }
+
+    private BloomFilter(long[] words, int hashes) {
+        this.words = words;
+        this.bitMask = words.length * 64 - 1;
+        this.hashes = hashes;
+    }
+
+    private static long[] wordsFor(int expectedKeys, int bitsPerKey) {
+        long bits = Math.max(64L, (long) expectedKeys * bitsPerKey);
+        int words = 1;
+        while (words * 64L < bits && words < (1 << 24)) {
+            words <<= 1; // power of two, so a bit index is a mask away
+        }
+        return new long[words];
+    }
+
+    public void add(String key) {
+        long h = hash(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & bitMask;
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long h = hash(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & bitMask;
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int bitCount() {
+        return words.length * 64;
+    }
+
+    // Hex dump of the bit array, for storing the filter in a text file
+    public String toHex() {
+        StringBuilder sb = new StringBuilder(words.length * 16 + 4);
+        sb.append(hashes).append(':');
+        for (long w : words) {
+            String hex = Long.toHexString(w);
+            for (int i = hex.length(); i < 16; i++) {
+                sb.append('0');
+            }
+            sb.append(hex);
+        }
+        return sb.toString();
+    }
+
+    // Inverse of toHex(); throws IllegalArgumentException on malformed text
+    public static BloomFilter fromHex(String text) {
+        int colon = text.indexOf(':');
+        String hex = text.substring(colon + 1);
+        if (colon <= 0 || hex.isEmpty() || hex.length() % 16 != 0 || Integer.bitCount(hex.length() / 16) != 1) {
+            throw new IllegalArgumentException("Malformed filter");
+        }
+        try {
+            long[] words = new long[hex.length() / 16];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = Long.parseUnsignedLong(hex.substring(i * 16, i * 16 + 16), 16);
+            }
+            return new BloomFilter(words, Integer.parseInt(text.substring(0, colon)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed filter", e);
+        }
+    }
+
+    // 64-bit FNV-1a over the trimmed, upper-cased key
+    static long hash(String key) {
+        String folded = key.trim().toUpperCase(Locale.ROOT);
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < folded.length(); i++) {
+            h ^= folded.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 29);
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import models.Vehicle;
+import utils.TextBuffer;
 
 public class HashTable {
     private static class Entry {
@@ -98,13 +99,15 @@ public class HashTable {
     }
 
     public void printAll() {
-        System.out.println("--- Vehicles in HashTable ---");
+        TextBuffer out = new TextBuffer(System.out);
+        out.append("--- Vehicles in HashTable ---").newline();
         for (Entry bucket : buckets) {
             Entry current = bucket;
             while (current != null) {
-                System.out.println(current.value);
+                out.append(current.value.toString()).newline();
                 current = current.next;
             }
         }
+        out.flush();
     }
 }
@@ -0,0 +1,122 @@
+package structures.hash;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bloom filter that grows with the number of keys instead of being sized
+ * up front.
+ *
+ * Keys go into the newest stage until it reaches its capacity; then a stage
+ * with twice the capacity and 2 more bits per key is opened. Lookups test
+ * every stage. Each stage's false-positive rate is about 40% of the one
+ * before, so the total stays under roughly 1.6x the first stage's (~1%)
+ * however many keys are added.
+ *
+ * Keys can't be removed, so the filter stays a superset of what was added.
+ * All methods are synchronized; the writer thread may save it while the
+ * menu thread adds keys.
+ */
+public class ScalableBloomFilter {
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int FIRST_BITS_PER_KEY = 10;
+    private static final int MAX_BITS_PER_KEY = 24;
+
+    private static class Stage {
+        final int capacity;
+        final int bitsPerKey;
+        final BloomFilter filter;
+        int count;
+
+        Stage(int capacity, int bitsPerKey, BloomFilter filter) {
+            this.capacity = capacity;
+            this.bitsPerKey = bitsPerKey;
+            this.filter = filter;
+        }
+    }
+
+    private final List<Stage> stages = new ArrayList<>();
+    private long size;
+
+    public ScalableBloomFilter() {
+        this(MIN_CAPACITY);
+    }
+
+    // First stage sized for expectedKeys, so a rebuild from known data starts with one stage
+    public ScalableBloomFilter(int expectedKeys) {
+        int capacity = Math.max(MIN_CAPACITY, expectedKeys);
+        stages.add(new Stage(capacity, FIRST_BITS_PER_KEY, new BloomFilter(capacity, FIRST_BITS_PER_KEY)));
+    }
+
+    // Returns false if the key (or a colliding one) was already present; nothing is added then
+    public synchronized boolean add(String key) {
+        if (mightContain(key)) {
+            return false; // re-adding would only use up capacity
+        }
+        Stage last = stages.get(stages.size() - 1);
+        if (last.count >= last.capacity) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE / 2, last.capacity * 2L);
+            int bits = Math.min(MAX_BITS_PER_KEY, last.bitsPerKey + 2);
+            last = new Stage(capacity, bits, new BloomFilter(capacity, bits));
+            stages.add(last);
+        }
+        last.filter.add(key);
+        last.count++;
+        size++;
+        return true;
+    }
+
+    public synchronized boolean mightContain(String key) {
+        // Newest stage first: recently issued IDs are the likeliest to be checked again
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            if (stages.get(i).filter.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Distinct keys added (approximately: a false positive is never added)
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized int stageCount() {
+        return stages.size();
+    }
+
+    // One "capacity,bitsPerKey,count,filterHex" line per stage
+    public synchronized List<String> toLines() {
+        List<String> lines = new ArrayList<>(stages.size());
+        for (Stage s : stages) {
+            lines.add(s.capacity + "," + s.bitsPerKey + "," + s.count + "," + s.filter.toHex());
+        }
+        return lines;
+    }
+
+    // Inverse of toLines(); throws IllegalArgumentException on malformed text
+    public static ScalableBloomFilter fromLines(List<String> lines) {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("No filter stages");
+        }
+        ScalableBloomFilter result = new ScalableBloomFilter();
+        result.stages.clear();
+        for (String line : lines) {
+            String[] parts = line.split(",");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed filter stage");
+            }
+            try {
+                Stage s = new Stage(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                        BloomFilter.fromHex(parts[3].trim()));
+                s.count = Integer.parseInt(parts[2].trim());
+                result.stages.add(s);
+                result.size += s.count;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed filter stage", e);
+            }
+        }
+        return result;
+    }
+}
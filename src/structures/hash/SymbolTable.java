@@ -0,0 +1,115 @@
+package structures.hash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Interns strings to dense int codes (0, 1, 2, ...) so that values which
+ * repeat across many records (town names, registration numbers, driver IDs)
+ * are stored once and referenced by code.
+ *
+ * Open addressing with linear probing; codes are never removed.
+ *
+ * intern() is synchronized. lookup() is not: each symbol is stored with
+ * release semantics before a grown array is published, and read with
+ * acquire, so a reader sees either the symbol or null. A null (a code
+ * interned by a thread this one has not synchronized with yet) falls back
+ * to a locked read.
+ */
+public class SymbolTable {
+
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(String[].class);
+
+    private volatile String[] symbols = new String[64];
+    private int[] slots = new int[128]; // code + 1, 0 = empty
+    private int count;
+
+    // Return the code for the string, adding it if it is new
+    public synchronized int intern(String s) {
+        int mask = slots.length - 1;
+        int i = mix(s.hashCode()) & mask;
+
+        while (slots[i] != 0) {
+            int code = slots[i] - 1;
+            if (symbols[code].equals(s)) {
+                return code;
+            }
+            i = (i + 1) & mask;
+        }
+
+        int code = count++;
+        if (code == symbols.length) {
+            String[] grown = new String[code * 2];
+            System.arraycopy(symbols, 0, grown, 0, code);
+            ELEMENT.setRelease(grown, code, s);
+            symbols = grown;
+        } else {
+            ELEMENT.setRelease(symbols, code, s);
+        }
+        slots[i] = code + 1;
+
+        if (count * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return code;
+    }
+
+    // Return the shared instance equal to s, so callers can drop their own copy
+    public String canonical(String s) {
+        return s == null ? null : lookup(intern(s));
+    }
+
+    // Return the code for the string, or -1 if it was never interned
+    public synchronized int codeOf(String s) {
+        int mask = slots.length - 1;
+        int i = mix(s.hashCode()) & mask;
+
+        while (slots[i] != 0) {
+            int code = slots[i] - 1;
+            if (symbols[code].equals(s)) {
+                return code;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public String lookup(int code) {
+        if (code < 0) {
+            return null;
+        }
+        String[] table = symbols;
+        if (code < table.length) {
+            String s = (String) ELEMENT.getAcquire(table, code);
+            if (s != null) {
+                return s;
+            }
+        }
+        synchronized (this) {
+            return symbols[code];
+        }
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    private void rehash(int capacity) {
+        int[] fresh = new int[capacity];
+        int mask = capacity - 1;
+        for (int code = 0; code < count; code++) {
+            int i = mix(symbols[code].hashCode()) & mask;
+            while (fresh[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            fresh[i] = code + 1;
+        }
+        slots = fresh;
+    }
+
+    // Spread the low bits so sequential IDs don't cluster
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,164 @@
+package structures.heap;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Indexed binary min-heap of delivery IDs keyed by ETA minute.
+ *
+ * Keeps each ID's position in the heap so an entry can be removed or
+ * re-keyed in O(log n) when a delivery closes or is rerouted, and the
+ * earliest ETA is always at the root.
+ */
+public class EtaIndex {
+
+    private int[] ids = new int[64];   // heap order
+    private int[] keys = new int[64];  // ETA minute of ids[i]
+    private int[] pos = new int[64];   // heap slot of each ID, -1 if absent
+    private int size = 0;
+
+    public EtaIndex() {
+        Arrays.fill(pos, -1);
+    }
+
+    // Insert or re-key an ID
+    public void put(int id, int etaMinute) {
+        ensureId(id);
+        int slot = pos[id];
+        if (slot >= 0) {
+            int old = keys[slot];
+            keys[slot] = etaMinute;
+            if (etaMinute < old) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+            return;
+        }
+
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        ids[size] = id;
+        keys[size] = etaMinute;
+        pos[id] = size;
+        siftUp(size++);
+    }
+
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+
+        int slot = pos[id];
+        pos[id] = -1;
+        size--;
+        if (slot != size) {
+            move(size, slot);
+            siftDown(slot);
+            siftUp(slot);
+        }
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < pos.length && pos[id] >= 0;
+    }
+
+    // Remove and return the earliest ID if its ETA is at or before the given minute, else -1
+    public int pollDue(int minute) {
+        if (size == 0 || keys[0] > minute) {
+            return -1;
+        }
+        int id = ids[0];
+        remove(id);
+        return id;
+    }
+
+    /**
+     * Visit every ID whose ETA is before the bound. Subtrees whose root is
+     * already past the bound are skipped, so the cost is proportional to the
+     * number of matches rather than the heap size.
+     */
+    public void forEachBefore(int boundMinute, IntConsumer action) {
+        visit(0, boundMinute, action);
+    }
+
+    private void visit(int slot, int bound, IntConsumer action) {
+        // Iterate down the left spine, recurse right; depth stays O(log n)
+        while (slot < size && keys[slot] < bound) {
+            action.accept(ids[slot]);
+            visit(2 * slot + 2, bound, action);
+            slot = 2 * slot + 1;
+        }
+    }
+
+    public int keyOf(int id) {
+        return keys[pos[id]];
+    }
+
+    public int peekKey() {
+        return size == 0 ? Integer.MAX_VALUE : keys[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (keys[slot] >= keys[parent]) {
+                break;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        int left;
+        while ((left = 2 * slot + 1) < size) {
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && keys[right] < keys[left]) {
+                smallest = right;
+            }
+            if (keys[smallest] >= keys[slot]) {
+                break;
+            }
+            swap(slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        int key = keys[i];
+        ids[i] = ids[j];
+        keys[i] = keys[j];
+        ids[j] = id;
+        keys[j] = key;
+        pos[ids[i]] = i;
+        pos[ids[j]] = j;
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        keys[to] = keys[from];
+        pos[ids[to]] = to;
+    }
+
+    private void ensureId(int id) {
+        if (id >= pos.length) {
+            int oldLength = pos.length;
+            pos = Arrays.copyOf(pos, Math.max(oldLength * 2, id + 1));
+            Arrays.fill(pos, oldLength, pos.length, -1);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package structures.heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Min-heap of simulation events, each an (int time, int kind, int arg)
+ * triple.
+ *
+ * Events live in parallel primitive arrays, so pushing and popping never
+ * allocates once the arrays have grown. The sort key packs the time with a
+ * push counter, so events due at the same time come out in the order they
+ * were pushed and a run is repeatable.
+ *
+ * The heap is 4-ary: half the depth of a binary heap, and the four children
+ * of a node sit next to each other in the key array.
+ */
+public class EventHeap {
+
+    private long[] keys;   // time << 32 | push sequence
+    private int[] kinds;
+    private int[] args;
+    private int size = 0;
+    private int sequence = 0;
+
+    // The event removed by the last pop()
+    private int time;
+    private int kind;
+    private int arg;
+
+    public EventHeap() {
+        this(64);
+    }
+
+    public EventHeap(int capacity) {
+        int n = Math.max(capacity, 4);
+        keys = new long[n];
+        kinds = new int[n];
+        args = new int[n];
+    }
+
+    public void push(int time, int kind, int arg) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            kinds = Arrays.copyOf(kinds, size * 2);
+            args = Arrays.copyOf(args, size * 2);
+        }
+        long key = ((long) time << 32) | (sequence++ & 0xFFFFFFFFL);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 2;
+            if (key >= keys[parent]) {
+                break;
+            }
+            keys[i] = keys[parent];
+            kinds[i] = kinds[parent];
+            args[i] = args[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        kinds[i] = kind;
+        args[i] = arg;
+    }
+
+    // Remove the earliest event; read it back with time(), kind() and arg()
+    public void pop() {
+        if (size == 0) {
+            throw new NoSuchElementException("No events scheduled.");
+        }
+        time = (int) (keys[0] >> 32);
+        kind = kinds[0];
+        arg = args[0];
+
+        size--;
+        if (size == 0) {
+            return;
+        }
+        long key = keys[size];
+        int k = kinds[size];
+        int a = args[size];
+        int i = 0;
+        while (true) {
+            int first = 4 * i + 1;
+            if (first >= size) {
+                break;
+            }
+            int min = first;
+            int last = Math.min(first + 4, size);
+            for (int c = first + 1; c < last; c++) {
+                if (keys[c] < keys[min]) {
+                    min = c;
+                }
+            }
+            if (key <= keys[min]) {
+                break;
+            }
+            keys[i] = keys[min];
+            kinds[i] = kinds[min];
+            args[i] = args[min];
+            i = min;
+        }
+        keys[i] = key;
+        kinds[i] = k;
+        args[i] = a;
+    }
+
+    public int peekTime() {
+        if (size == 0) {
+            throw new NoSuchElementException("No events scheduled.");
+        }
+        return (int) (keys[0] >> 32);
+    }
+
+    public int time() {
+        return time;
+    }
+
+    public int kind() {
+        return kind;
+    }
+
+    public int arg() {
+        return arg;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
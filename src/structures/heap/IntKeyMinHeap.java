@@ -0,0 +1,150 @@
+package structures.heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap ordered by a primitive int key.
+ *
+ * Keys and payloads live in parallel arrays, so comparisons are plain int
+ * compares with no Comparator call, boxing or getter in the inner loop.
+ * Equal keys come out in no particular order.
+ */
+public class IntKeyMinHeap<T> {
+
+    /** Decides which entries retain() keeps. */
+    @FunctionalInterface
+    public interface EntryFilter<T> {
+        boolean keep(int key, T item);
+    }
+
+    private int[] keys;
+    private Object[] items;
+    private int size = 0;
+
+    public IntKeyMinHeap() {
+        this(16);
+    }
+
+    public IntKeyMinHeap(int capacity) {
+        keys = new int[Math.max(capacity, 2)];
+        items = new Object[keys.length];
+    }
+
+    // Build from parallel arrays in O(n) (bottom-up heapify); the arrays are copied
+    public static <T> IntKeyMinHeap<T> of(int[] keys, T[] items, int count) {
+        IntKeyMinHeap<T> heap = new IntKeyMinHeap<>(count);
+        System.arraycopy(keys, 0, heap.keys, 0, count);
+        System.arraycopy(items, 0, heap.items, 0, count);
+        heap.size = count;
+        for (int i = (count >>> 1) - 1; i >= 0; i--) {
+            heap.siftDown(i);
+        }
+        return heap;
+    }
+
+    public void add(int key, T item) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            items = Arrays.copyOf(items, size * 2);
+        }
+        keys[size] = key;
+        items[size] = item;
+        siftUp(size++);
+    }
+
+    // Remove and return the item with the smallest key, or null if empty
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (size == 0) return null;
+
+        T min = (T) items[0];
+        size--;
+        keys[0] = keys[size];
+        items[0] = items[size];
+        items[size] = null;
+        if (size > 0) {
+            siftDown(0);
+        }
+        return min;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        return size == 0 ? null : (T) items[0];
+    }
+
+    public int peekKey() {
+        if (size == 0) throw new NoSuchElementException("Heap is empty.");
+        return keys[0];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Drop every entry the filter rejects and re-heapify in O(n); returns how many were dropped
+    @SuppressWarnings("unchecked")
+    public int retain(EntryFilter<? super T> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (filter.keep(keys[i], (T) items[i])) {
+                keys[kept] = keys[i];
+                items[kept++] = items[i];
+            }
+        }
+        Arrays.fill(items, kept, size, null);
+        int dropped = size - kept;
+        size = kept;
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        return dropped;
+    }
+
+    // Copies of the current contents in heap (not sorted) order
+    public int[] keysSnapshot() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    public Object[] itemsSnapshot() {
+        return Arrays.copyOf(items, size);
+    }
+
+    private void siftUp(int index) {
+        int key = keys[index];
+        Object item = items[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (key >= keys[parent]) break;
+            keys[index] = keys[parent];
+            items[index] = items[parent];
+            index = parent;
+        }
+        keys[index] = key;
+        items[index] = item;
+    }
+
+    private void siftDown(int index) {
+        int key = keys[index];
+        Object item = items[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child]) {
+                child = right;
+            }
+            if (key <= keys[child]) break;
+            keys[index] = keys[child];
+            items[index] = items[child];
+            index = child;
+        }
+        keys[index] = key;
+        items[index] = item;
+    }
+}
@@ -3,6 +3,7 @@ package structures.list;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.function.Predicate;
+import utils.TextBuffer;
 
 public class LinkedList<T> implements Iterable<T> {
 
@@ -17,6 +18,7 @@ public class LinkedList<T> implements Iterable<T> {
     }
 
     private Node head;
+    private Node tail; // last node, so add() doesn't walk the list
     private int size = 0;
 
     public void add(T item) {
@@ -24,12 +26,9 @@ public class LinkedList<T> implements Iterable<T> {
         if (head == null) {
             head = newNode;
         } else {
-            Node cur = head;
-            while (cur.next != null) {
-                cur = cur.next;
-            }
-            cur.next = newNode;
+            tail.next = newNode;
         }
+        tail = newNode;
         size++;
     }
 
@@ -41,6 +40,9 @@ public class LinkedList<T> implements Iterable<T> {
 
         if (head.data.toString().contains(packageId)) {
             head = head.next;
+            if (head == null) {
+                tail = null;
+            }
             size--;
             return true;
         }
@@ -51,6 +53,9 @@ public class LinkedList<T> implements Iterable<T> {
         while (cur != null) {
             if (cur.data.toString().contains(packageId)) {
                 prev.next = cur.next;
+                if (cur == tail) {
+                    tail = prev;
+                }
                 size--;
                 return true;
             }
@@ -72,6 +77,7 @@ public class LinkedList<T> implements Iterable<T> {
         }
 
         if (head == null) {
+            tail = null;
             return removedAny;
         }
 
@@ -90,6 +96,7 @@ public class LinkedList<T> implements Iterable<T> {
                 current = current.next;
             }
         }
+        tail = prev;
 
         return removedAny;
     }
@@ -111,11 +118,13 @@ public class LinkedList<T> implements Iterable<T> {
             return;
         }
 
+        TextBuffer out = new TextBuffer(System.out);
         Node cur = head;
         while (cur != null) {
-            System.out.println(cur.data);
+            out.append(String.valueOf(cur.data)).newline();
             cur = cur.next;
         }
+        out.flush();
     }
 
     public int size() {
@@ -0,0 +1,133 @@
+package structures.persistent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Immutable sparse array indexed by a dense int ID (the surrogate IDs from
+ * IdRegistry), stored as a 32-way trie.
+ *
+ * with(i, value) copies only the nodes on the path to slot i (at most 7
+ * nodes of 32 references for any int index) and shares everything else with
+ * the old version, so every version stays valid and can be read by any
+ * thread without locking.
+ */
+public final class PersistentVector<T> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentVector<Object> EMPTY = new PersistentVector<>(null, 0, 0, 0);
+
+    private final Object[] root; // null while empty
+    private final int shift;     // bit shift at the root; 0 means the root is a leaf
+    private final int count;     // non-null slots
+    private final int bound;     // one past the highest index ever set
+
+    private PersistentVector(Object[] root, int shift, int count, int bound) {
+        this.root = root;
+        this.shift = shift;
+        this.count = count;
+        this.bound = bound;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= bound) {
+            return null;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0 && node != null; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node == null ? null : (T) node[index & MASK];
+    }
+
+    // New version with slot index set to value (null clears it); this version is unchanged
+    public PersistentVector<T> with(int index, T value) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Negative index: " + index);
+        }
+        if (get(index) == value) {
+            return this;
+        }
+
+        // Add levels on top until the index fits under the root
+        Object[] newRoot = root;
+        int newShift = shift;
+        while (newShift < 30 && (index >>> (newShift + BITS)) != 0) {
+            if (newRoot != null) {
+                Object[] parent = new Object[WIDTH];
+                parent[0] = newRoot;
+                newRoot = parent;
+            }
+            newShift += BITS;
+        }
+
+        boolean wasSet = get(index) != null;
+        newRoot = assoc(newRoot, newShift, index, value);
+        int newCount = count + (value != null ? 1 : 0) - (wasSet ? 1 : 0);
+        int newBound = value != null ? Math.max(bound, index + 1) : bound;
+        return new PersistentVector<>(newRoot, newShift, newCount, newBound);
+    }
+
+    private static Object[] assoc(Object[] node, int level, int index, Object value) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int slot = (index >>> level) & MASK;
+        if (level == 0) {
+            copy[slot] = value;
+        } else {
+            copy[slot] = assoc((Object[]) copy[slot], level - BITS, index, value);
+        }
+        return copy;
+    }
+
+    // Number of non-null entries
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    // One past the highest index ever set; slots below it may be null
+    public int bound() {
+        return bound;
+    }
+
+    // Visit non-null entries in index order
+    public void forEach(Consumer<? super T> action) {
+        if (root != null) {
+            visit(root, shift, action);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void visit(Object[] node, int level, Consumer<? super T> action) {
+        for (Object child : node) {
+            if (child == null) {
+                continue;
+            }
+            if (level == 0) {
+                action.accept((T) child);
+            } else {
+                visit((Object[]) child, level - BITS, action);
+            }
+        }
+    }
+
+    // Non-null entries in index order, as a new mutable list
+    public List<T> toList() {
+        List<T> list = new ArrayList<>(count);
+        forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,33 @@
+package structures.persistent;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Published, read-only view of a table keyed by surrogate ID.
+ *
+ * Writers store frozen copies of changed rows; each write builds a new
+ * PersistentVector and swaps it in with a CAS, so concurrent writers never
+ * lose each other's updates. Readers call snapshot() and get a consistent
+ * version in O(1) that later writes can't change, so long reports need no
+ * lock and never see a half-applied update.
+ */
+public class SnapshotTable<T> {
+
+    private final AtomicReference<PersistentVector<T>> root = new AtomicReference<>(PersistentVector.empty());
+
+    public void put(int id, T frozen) {
+        PersistentVector<T> current, next;
+        do {
+            current = root.get();
+            next = current.with(id, frozen);
+        } while (current != next && !root.compareAndSet(current, next));
+    }
+
+    public void remove(int id) {
+        put(id, null);
+    }
+
+    public PersistentVector<T> snapshot() {
+        return root.get();
+    }
+}
@@ -0,0 +1,211 @@
+package structures.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.NoSuchElementException;
+
+/**
+ * Bounded lock-free multi-producer / multi-consumer queue (Vyukov's
+ * array-based design).
+ *
+ * Each slot has a sequence number. A producer claims a slot by CAS on the
+ * tail counter and publishes it by bumping the slot's sequence; a consumer
+ * does the same on the head counter. The head and tail counters sit on
+ * their own cache lines so producers and consumers don't false-share.
+ *
+ * Keeps the Queue API: enqueue waits (spins, then yields) while the queue is
+ * full, which gives producers natural backpressure; offer/poll never wait.
+ */
+public class ConcurrentRingQueue<T> extends ConcurrentRingQueueFields {
+
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final int mask;
+    private final long[] sequences;
+    private final Object[] elements;
+
+    public ConcurrentRingQueue(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        sequences = new long[size];
+        elements = new Object[size];
+        for (int i = 0; i < size; i++) {
+            sequences[i] = i;
+        }
+    }
+
+    // Add to the back if there is room; false when full
+    public boolean offer(T item) {
+        if (item == null) throw new NullPointerException("Queue does not accept null");
+
+        long tail = getTail();
+        while (true) {
+            int slot = (int) tail & mask;
+            long seq = (long) SEQUENCE.getAcquire(sequences, slot);
+            long diff = seq - tail;
+            if (diff == 0) {
+                if (casTail(tail, tail + 1)) {
+                    ELEMENT.set(elements, slot, item);
+                    SEQUENCE.setRelease(sequences, slot, tail + 1);
+                    return true;
+                }
+                tail = getTail();
+            } else if (diff < 0) {
+                return false; // full
+            } else {
+                tail = getTail(); // another producer got there first
+            }
+        }
+    }
+
+    // Add to the back, waiting for room if the queue is full
+    public void enqueue(T item) {
+        int spins = 0;
+        while (!offer(item)) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    // Remove from the front, or null if empty
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long head = getHead();
+        while (true) {
+            int slot = (int) head & mask;
+            long seq = (long) SEQUENCE.getAcquire(sequences, slot);
+            long diff = seq - (head + 1);
+            if (diff == 0) {
+                if (casHead(head, head + 1)) {
+                    T item = (T) ELEMENT.get(elements, slot);
+                    ELEMENT.set(elements, slot, null);
+                    SEQUENCE.setRelease(sequences, slot, head + mask + 1);
+                    return item;
+                }
+                head = getHead();
+            } else if (diff < 0) {
+                return null; // empty
+            } else {
+                head = getHead();
+            }
+        }
+    }
+
+    // Remove from the front
+    public T dequeue() {
+        T item = poll();
+        if (item == null) throw new NoSuchElementException("Queue is empty.");
+        return item;
+    }
+
+    /**
+     * Peek front without removing. With other consumers running the element
+     * may be taken before the caller acts on it.
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        long head = getHead();
+        int slot = (int) head & mask;
+        if ((long) SEQUENCE.getAcquire(sequences, slot) == head + 1) {
+            T item = (T) ELEMENT.get(elements, slot);
+            if (item != null) {
+                return item;
+            }
+        }
+        throw new NoSuchElementException("Queue is empty.");
+    }
+
+    // Move up to max elements into the target; returns how many were moved
+    public int drainTo(RingDeque<T> target, int max) {
+        int moved = 0;
+        T item;
+        while (moved < max && (item = poll()) != null) {
+            target.addLast(item);
+            moved++;
+        }
+        return moved;
+    }
+
+    // Approximate while producers or consumers are active
+    public int size() {
+        long size = getTail() - getHead();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
+
+/*
+ * Field layout with padding: the hot head and tail counters are each
+ * surrounded by 56+ bytes of unused longs so they land on separate cache
+ * lines. The JVM keeps superclass fields before subclass fields, which is
+ * what makes the padding stick.
+ */
+abstract class ConcurrentRingQueuePadLeft {
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class ConcurrentRingQueueTail extends ConcurrentRingQueuePadLeft {
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            TAIL = MethodHandles.lookup().findVarHandle(ConcurrentRingQueueTail.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long tail;
+
+    final long getTail() {
+        return tail;
+    }
+
+    final boolean casTail(long expect, long update) {
+        return TAIL.compareAndSet(this, expect, update);
+    }
+}
+
+abstract class ConcurrentRingQueuePadMiddle extends ConcurrentRingQueueTail {
+    long p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class ConcurrentRingQueueHead extends ConcurrentRingQueuePadMiddle {
+    private static final VarHandle HEAD;
+
+    static {
+        try {
+            HEAD = MethodHandles.lookup().findVarHandle(ConcurrentRingQueueHead.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long head;
+
+    final long getHead() {
+        return head;
+    }
+
+    final boolean casHead(long expect, long update) {
+        return HEAD.compareAndSet(this, expect, update);
+    }
+}
+
+abstract class ConcurrentRingQueueFields extends ConcurrentRingQueueHead {
+    long p21, p22, p23, p24, p25, p26, p27;
+}
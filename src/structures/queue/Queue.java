@@ -1,52 +1,68 @@
 package structures.queue;
 
 import java.util.LinkedList;
-import java.util.NoSuchElementException;
+import utils.TextBuffer;
 
 public class Queue<T> {
-    private final LinkedList<T> list = new LinkedList<>();
+    // Array ring buffer: no node allocation per enqueue
+    private final RingDeque<T> ring = new RingDeque<>();
 
     // Add to the back
     public void enqueue(T item) {
-        list.addLast(item);
+        ring.enqueue(item);
     }
 
     // Remove from the front
     public T dequeue() {
-        if (isEmpty()) throw new NoSuchElementException("Queue is empty.");
-        return list.removeFirst();
+        return ring.dequeue();
     }
 
     // Peek front without removing
     public T peek() {
-        if (isEmpty()) throw new NoSuchElementException("Queue is empty.");
-        return list.getFirst();
+        return ring.peek();
+    }
+
+    // Take an item out wherever it is in the queue
+    public boolean remove(T item) {
+        return ring.remove(item);
+    }
+
+    // i-th item from the front
+    public T get(int i) {
+        return ring.get(i);
     }
 
     public boolean isEmpty() {
-        return list.isEmpty();
+        return ring.isEmpty();
     }
 
     public int size() {
-        return list.size();
+        return ring.size();
     }
 
+    // Streams through one buffer instead of a println per item
     public void printAll() {
         if (isEmpty()) {
             System.out.println("(Queue is empty)");
-        } else {
-            for (T item : list) {
-                System.out.println(item);
-            }
+            return;
+        }
+        TextBuffer out = new TextBuffer(System.out);
+        for (T item : ring) {
+            out.append(String.valueOf(item)).newline();
         }
+        out.flush();
     }
 
     public LinkedList<T> toList() {
-        return new LinkedList<>(list);
+        LinkedList<T> copy = new LinkedList<>();
+        for (T item : ring) {
+            copy.add(item);
+        }
+        return copy;
     }
 
     // Optional: clear the queue
     public void clear() {
-        list.clear();
+        ring.clear();
     }
 }
@@ -0,0 +1,157 @@
+package structures.queue;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Unbounded, single-threaded deque on a growable power-of-two ring buffer.
+ * No node is allocated per element; the array only doubles when full.
+ * Offers the same enqueue / dequeue / peek / size API as Queue.
+ */
+public class RingDeque<T> implements Iterable<T> {
+
+    private Object[] elements;
+    private int head = 0; // index of the first element
+    private int size = 0;
+
+    public RingDeque() {
+        this(16);
+    }
+
+    public RingDeque(int initialCapacity) {
+        int capacity = 1;
+        while (capacity < initialCapacity) {
+            capacity <<= 1;
+        }
+        elements = new Object[capacity];
+    }
+
+    // Add to the back
+    public void enqueue(T item) {
+        addLast(item);
+    }
+
+    // Remove from the front
+    public T dequeue() {
+        if (isEmpty()) throw new NoSuchElementException("Queue is empty.");
+        return pollFirst();
+    }
+
+    // Peek front without removing
+    public T peek() {
+        if (isEmpty()) throw new NoSuchElementException("Queue is empty.");
+        return get(0);
+    }
+
+    public void addLast(T item) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = item;
+        size++;
+    }
+
+    public void addFirst(T item) {
+        if (size == elements.length) {
+            grow();
+        }
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = item;
+        size++;
+    }
+
+    // Remove from the front, or null if empty
+    @SuppressWarnings("unchecked")
+    public T pollFirst() {
+        if (size == 0) {
+            return null;
+        }
+        T item = (T) elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return item;
+    }
+
+    // Remove from the back, or null if empty
+    @SuppressWarnings("unchecked")
+    public T pollLast() {
+        if (size == 0) {
+            return null;
+        }
+        int tail = (head + size - 1) & (elements.length - 1);
+        T item = (T) elements[tail];
+        elements[tail] = null;
+        size--;
+        return item;
+    }
+
+    // Remove the first element equal to item, closing the gap; O(n)
+    public boolean remove(Object item) {
+        int mask = elements.length - 1;
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(elements[(head + i) & mask], item)) {
+                for (int j = i; j < size - 1; j++) {
+                    elements[(head + j) & mask] = elements[(head + j + 1) & mask];
+                }
+                elements[(head + size - 1) & mask] = null;
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // i-th element from the front
+    @SuppressWarnings("unchecked")
+    public T get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return (T) elements[(head + i) & (elements.length - 1)];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            elements[(head + i) & (elements.length - 1)] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        Object[] bigger = new Object[elements.length * 2];
+        for (int i = 0; i < size; i++) {
+            bigger[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        elements = bigger;
+        head = 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+        };
+    }
+}
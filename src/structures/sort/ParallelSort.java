@@ -0,0 +1,215 @@
+package structures.sort;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Stable merge sort that splits large inputs across the common ForkJoin pool.
+ *
+ * The key-extracted variants read each element's key(s) once into primitive
+ * arrays and then sort an index permutation against those arrays, so a key
+ * like fuel per km is computed n times instead of n log n times. Recursion
+ * depth is about log2(n) whatever the input order, so sorted fleets can't
+ * blow the stack the way the old quicksorts could.
+ */
+public class ParallelSort {
+
+    // Below this many elements a range is sorted on the calling thread
+    static final int SEQUENTIAL_CUTOFF = 8192;
+    private static final int INSERTION_CUTOFF = 32;
+
+    // Stable sort of the list in place by a comparator
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        Object[] items = list.toArray();
+        int[] order = sortedOrder(items.length, (a, b) -> comparator.compare((T) items[a], (T) items[b]));
+        apply(list, items, order);
+    }
+
+    // Stable sort by an int key, each key extracted once
+    @SuppressWarnings("unchecked")
+    public static <T> void sortByInt(List<T> list, ToIntFunction<? super T> key) {
+        Object[] items = list.toArray();
+        int[] keys = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            keys[i] = key.applyAsInt((T) items[i]);
+        }
+        apply(list, items, sortedOrder(items.length, (a, b) -> Integer.compare(keys[a], keys[b])));
+    }
+
+    // Stable sort by a double key, each key extracted once
+    @SuppressWarnings("unchecked")
+    public static <T> void sortByDouble(List<T> list, ToDoubleFunction<? super T> key) {
+        Object[] items = list.toArray();
+        double[] keys = new double[items.length];
+        for (int i = 0; i < items.length; i++) {
+            keys[i] = key.applyAsDouble((T) items[i]);
+        }
+        apply(list, items, sortedOrder(items.length, (a, b) -> Double.compare(keys[a], keys[b])));
+    }
+
+    /**
+     * Stable sort by a comparable primary key, then a double secondary key
+     * (e.g. vehicle type, then efficiency). Primary keys are ranked once so
+     * the merge only compares ints and doubles.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, K extends Comparable<? super K>> void sortBy(List<T> list,
+                                                                    Function<? super T, ? extends K> primary,
+                                                                    ToDoubleFunction<? super T> secondary) {
+        Object[] items = list.toArray();
+        int n = items.length;
+        int[] rank = rank(items, primary);
+        double[] second = new double[n];
+        for (int i = 0; i < n; i++) {
+            second[i] = secondary.applyAsDouble((T) items[i]);
+        }
+        apply(list, items, sortedOrder(n, (a, b) -> {
+            int c = Integer.compare(rank[a], rank[b]);
+            return c != 0 ? c : Double.compare(second[a], second[b]);
+        }));
+    }
+
+    /**
+     * Indices 0..n-1 ordered by the comparator (ties keep index order).
+     * Large inputs sort their halves in parallel.
+     */
+    public static int[] sortedOrder(int n, IntBinaryOperator comparator) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        if (n < 2) {
+            return order;
+        }
+        int[] buffer = new int[n];
+        if (n <= SEQUENTIAL_CUTOFF) {
+            mergeSort(order, buffer, 0, n, comparator);
+        } else {
+            ForkJoinPool.commonPool().invoke(new MergeTask(order, buffer, 0, n, comparator));
+        }
+        return order;
+    }
+
+    // Map each distinct primary key to its rank in sorted order
+    @SuppressWarnings("unchecked")
+    private static <T, K extends Comparable<? super K>> int[] rank(Object[] items, Function<? super T, ? extends K> key) {
+        Map<K, Integer> codes = new HashMap<>();
+        int[] code = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            K k = key.apply((T) items[i]);
+            Integer c = codes.get(k);
+            if (c == null) {
+                c = codes.size();
+                codes.put(k, c);
+            }
+            code[i] = c;
+        }
+
+        // Few distinct keys (vehicle types): sort them and translate codes to ranks
+        Object[] distinct = new Object[codes.size()];
+        for (Map.Entry<K, Integer> e : codes.entrySet()) {
+            distinct[e.getValue()] = e.getKey();
+        }
+        int[] byRank = sortedOrder(distinct.length, (a, b) -> compareKeys((K) distinct[a], (K) distinct[b]));
+        int[] rankOfCode = new int[distinct.length];
+        for (int r = 0; r < byRank.length; r++) {
+            rankOfCode[byRank[r]] = r;
+        }
+        for (int i = 0; i < code.length; i++) {
+            code[i] = rankOfCode[code[i]];
+        }
+        return code;
+    }
+
+    // Nulls last
+    private static <K extends Comparable<? super K>> int compareKeys(K a, K b) {
+        if (a == null) return b == null ? 0 : 1;
+        if (b == null) return -1;
+        return a.compareTo(b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void apply(List<T> list, Object[] items, int[] order) {
+        for (int i = 0; i < order.length; i++) {
+            list.set(i, (T) items[order[i]]);
+        }
+    }
+
+    private static class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a, buffer;
+        private final int from, to;
+        private final IntBinaryOperator comparator;
+
+        MergeTask(int[] a, int[] buffer, int from, int to, IntBinaryOperator comparator) {
+            this.a = a;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_CUTOFF) {
+                mergeSort(a, buffer, from, to, comparator);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeTask(a, buffer, from, mid, comparator),
+                      new MergeTask(a, buffer, mid, to, comparator));
+            merge(a, buffer, from, mid, to, comparator);
+        }
+    }
+
+    // Sequential top-down merge sort of a[from, to)
+    private static void mergeSort(int[] a, int[] buffer, int from, int to, IntBinaryOperator comparator) {
+        if (to - from <= INSERTION_CUTOFF) {
+            insertionSort(a, from, to, comparator);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, buffer, from, mid, comparator);
+        mergeSort(a, buffer, mid, to, comparator);
+        merge(a, buffer, from, mid, to, comparator);
+    }
+
+    private static void merge(int[] a, int[] buffer, int from, int mid, int to, IntBinaryOperator comparator) {
+        if (comparator.applyAsInt(a[mid - 1], a[mid]) <= 0) {
+            return; // halves already in order (common on pre-sorted input)
+        }
+        System.arraycopy(a, from, buffer, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            a[k++] = comparator.applyAsInt(buffer[j], buffer[i]) < 0 ? buffer[j++] : buffer[i++];
+        }
+        while (i < mid) {
+            a[k++] = buffer[i++];
+        }
+        while (j < to) {
+            a[k++] = buffer[j++];
+        }
+    }
+
+    private static void insertionSort(int[] a, int from, int to, IntBinaryOperator comparator) {
+        for (int i = from + 1; i < to; i++) {
+            int x = a[i];
+            int j = i - 1;
+            while (j >= from && comparator.applyAsInt(a[j], x) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = x;
+        }
+    }
+}
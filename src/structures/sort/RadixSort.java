@@ -0,0 +1,142 @@
+package structures.sort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * LSD radix sort on primitive keys, one byte per pass.
+ *
+ * Runs in O(n) per pass regardless of input order, so already-sorted or
+ * adversarial fleets cost the same as random ones, and it is stable. Keys
+ * are extracted once up front instead of on every comparison.
+ *
+ * Signed ints and doubles are mapped to unsigned-comparable bit patterns:
+ * ints flip the sign bit; doubles flip the sign bit when positive and all
+ * bits when negative, which orders them like Double.compare.
+ */
+public class RadixSort {
+
+    // Sort the list in place, ascending by an int key
+    @SuppressWarnings("unchecked")
+    public static <T> void sortByInt(List<T> list, ToIntFunction<? super T> key) {
+        int n = list.size();
+        if (n < 2) return;
+
+        Object[] items = list.toArray();
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.applyAsInt((T) items[i]);
+        }
+        sort(keys, items);
+        writeBack(list, items);
+    }
+
+    // Sort the list in place, ascending by a double key (NaN sorts last)
+    @SuppressWarnings("unchecked")
+    public static <T> void sortByDouble(List<T> list, ToDoubleFunction<? super T> key) {
+        int n = list.size();
+        if (n < 2) return;
+
+        Object[] items = list.toArray();
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = sortableBits(key.applyAsDouble((T) items[i]));
+        }
+        sort(keys, items);
+        writeBack(list, items);
+    }
+
+    // Sort keys ascending and apply the same permutation to items
+    public static void sort(int[] keys, Object[] items) {
+        int n = keys.length;
+        if (n < 2) return;
+        int[] k = new int[n];
+        for (int i = 0; i < n; i++) {
+            k[i] = keys[i] ^ Integer.MIN_VALUE;
+        }
+        int[] kTmp = new int[n];
+        Object[] it = items;
+        Object[] iTmp = new Object[n];
+        int[] count = new int[257];
+
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                count[((k[i] >>> shift) & 0xFF) + 1]++;
+            }
+            if (count[((k[0] >>> shift) & 0xFF) + 1] == n) {
+                continue; // every key has the same byte here: nothing to do
+            }
+            for (int b = 0; b < 256; b++) {
+                count[b + 1] += count[b];
+            }
+            for (int i = 0; i < n; i++) {
+                int dest = count[(k[i] >>> shift) & 0xFF]++;
+                kTmp[dest] = k[i];
+                iTmp[dest] = it[i];
+            }
+            int[] swapK = k; k = kTmp; kTmp = swapK;
+            Object[] swapI = it; it = iTmp; iTmp = swapI;
+        }
+
+        for (int i = 0; i < n; i++) {
+            keys[i] = k[i] ^ Integer.MIN_VALUE;
+        }
+        if (it != items) {
+            System.arraycopy(it, 0, items, 0, n);
+        }
+    }
+
+    // Sort unsigned 64-bit keys ascending and apply the same permutation to items
+    public static void sort(long[] keys, Object[] items) {
+        int n = keys.length;
+        if (n < 2) return;
+        long[] k = keys;
+        long[] kTmp = new long[n];
+        Object[] it = items;
+        Object[] iTmp = new Object[n];
+        int[] count = new int[257];
+
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                count[(int) ((k[i] >>> shift) & 0xFF) + 1]++;
+            }
+            if (count[(int) ((k[0] >>> shift) & 0xFF) + 1] == n) {
+                continue;
+            }
+            for (int b = 0; b < 256; b++) {
+                count[b + 1] += count[b];
+            }
+            for (int i = 0; i < n; i++) {
+                int dest = count[(int) ((k[i] >>> shift) & 0xFF)]++;
+                kTmp[dest] = k[i];
+                iTmp[dest] = it[i];
+            }
+            long[] swapK = k; k = kTmp; kTmp = swapK;
+            Object[] swapI = it; it = iTmp; iTmp = swapI;
+        }
+
+        if (k != keys) {
+            System.arraycopy(k, 0, keys, 0, n);
+        }
+        if (it != items) {
+            System.arraycopy(it, 0, items, 0, n);
+        }
+    }
+
+    // Map a double to a long whose unsigned order matches Double.compare
+    public static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void writeBack(List<T> list, Object[] items) {
+        for (int i = 0; i < items.length; i++) {
+            list.set(i, (T) items[i]);
+        }
+    }
+}
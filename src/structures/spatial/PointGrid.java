@@ -0,0 +1,208 @@
+package structures.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid of points keyed by small int IDs, for nearest-neighbour
+ * queries over a set that changes all the time.
+ *
+ * The covered area is cut into square cells. Each cell keeps its points in
+ * an intrusive doubly linked list threaded through per-ID arrays, so
+ * insert, move and remove are O(1) and allocate nothing. A k-nearest query
+ * searches rings of cells outward from the query point and stops once no
+ * unvisited cell can hold anything closer than the k-th best so far; with
+ * points spread over the area that is a handful of cells whatever the
+ * total.
+ *
+ * Points outside the bounds are clamped into the edge cells, which keeps
+ * them findable but makes searches near them slower; size the grid to the
+ * area the points actually come from.
+ */
+public class PointGrid {
+
+    private static final int NONE = -1;
+
+    private final double minX, minY, cellSize;
+    private final int columns, rows;
+    private final int[] head;     // first ID in each cell, or NONE
+
+    // Per ID; cell is NONE while the ID is not in the grid
+    private int[] cell = new int[0];
+    private int[] next = new int[0];
+    private int[] prev = new int[0];
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int size;
+
+    public PointGrid(double minX, double minY, double maxX, double maxY, double cellSize) {
+        if (!(cellSize > 0) || maxX < minX || maxY < minY) {
+            throw new IllegalArgumentException("Invalid grid bounds or cell size.");
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = (int) ((maxX - minX) / cellSize) + 1;
+        this.rows = (int) ((maxY - minY) / cellSize) + 1;
+        this.head = new int[columns * rows];
+        Arrays.fill(head, NONE);
+    }
+
+    // Add the ID at (x, y), or move it there if it is already in the grid
+    public void put(int id, double x, double y) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative ID: " + id);
+        }
+        ensureCapacity(id);
+        int target = cellOf(x, y);
+        xs[id] = x;
+        ys[id] = y;
+        if (cell[id] == target) {
+            return;
+        }
+        if (cell[id] != NONE) {
+            unlink(id);
+        } else {
+            size++;
+        }
+        link(id, target);
+    }
+
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        unlink(id);
+        cell[id] = NONE;
+        size--;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < cell.length && cell[id] != NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Position of an ID in the grid (undefined for IDs not in it)
+    public double x(int id) {
+        return xs[id];
+    }
+
+    public double y(int id) {
+        return ys[id];
+    }
+
+    /**
+     * IDs of the up to k points closest to (x, y), nearest first. Ties
+     * go to the lower ID so results are repeatable.
+     */
+    public int[] nearest(double x, double y, int k) {
+        if (k <= 0 || size == 0) {
+            return new int[0];
+        }
+        k = Math.min(k, size);
+        int[] best = new int[k];
+        double[] bestDist = new double[k];
+        int found = 0;
+
+        int cx = column(x);
+        int cy = row(y);
+        int maxRing = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every cell in this ring is at least (ring - 1) cells away from the query point
+            if (found == k && (ring - 1) * cellSize > Math.sqrt(bestDist[k - 1])) {
+                break;
+            }
+            for (int gy = cy - ring; gy <= cy + ring; gy++) {
+                if (gy < 0 || gy >= rows) {
+                    continue;
+                }
+                boolean edgeRow = gy == cy - ring || gy == cy + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int gx = cx - ring; gx <= cx + ring; gx += step) {
+                    if (gx < 0 || gx >= columns) {
+                        continue;
+                    }
+                    for (int id = head[gy * columns + gx]; id != NONE; id = next[id]) {
+                        double dx = xs[id] - x;
+                        double dy = ys[id] - y;
+                        double d = dx * dx + dy * dy;
+                        if (found < k) {
+                            found = insert(best, bestDist, found, id, d);
+                        } else if (d < bestDist[k - 1] || (d == bestDist[k - 1] && id < best[k - 1])) {
+                            insert(best, bestDist, k - 1, id, d);
+                        }
+                    }
+                }
+            }
+        }
+        return found == k ? best : Arrays.copyOf(best, found);
+    }
+
+    // Insertion into the sorted prefix [0, count); returns the new count
+    private static int insert(int[] best, double[] bestDist, int count, int id, double d) {
+        int i = count;
+        while (i > 0 && (bestDist[i - 1] > d || (bestDist[i - 1] == d && best[i - 1] > id))) {
+            best[i] = best[i - 1];
+            bestDist[i] = bestDist[i - 1];
+            i--;
+        }
+        best[i] = id;
+        bestDist[i] = d;
+        return count + 1;
+    }
+
+    private void link(int id, int c) {
+        cell[id] = c;
+        prev[id] = NONE;
+        next[id] = head[c];
+        if (head[c] != NONE) {
+            prev[head[c]] = id;
+        }
+        head[c] = id;
+    }
+
+    private void unlink(int id) {
+        int c = cell[id];
+        if (prev[id] != NONE) {
+            next[prev[id]] = next[id];
+        } else {
+            head[c] = next[id];
+        }
+        if (next[id] != NONE) {
+            prev[next[id]] = prev[id];
+        }
+    }
+
+    private int cellOf(double x, double y) {
+        return row(y) * columns + column(x);
+    }
+
+    private int column(double x) {
+        return clamp((int) Math.floor((x - minX) / cellSize), columns);
+    }
+
+    private int row(double y) {
+        return clamp((int) Math.floor((y - minY) / cellSize), rows);
+    }
+
+    private static int clamp(int i, int count) {
+        return i < 0 ? 0 : Math.min(i, count - 1);
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < cell.length) {
+            return;
+        }
+        int old = cell.length;
+        int grown = Math.max(Math.max(16, old * 2), id + 1);
+        cell = Arrays.copyOf(cell, grown);
+        Arrays.fill(cell, old, grown, NONE);
+        next = Arrays.copyOf(next, grown);
+        prev = Arrays.copyOf(prev, grown);
+        xs = Arrays.copyOf(xs, grown);
+        ys = Arrays.copyOf(ys, grown);
+    }
+}
@@ -0,0 +1,39 @@
+package structures.timeseries;
+
+/** Reads what a BitOutput wrote, most significant bit first. */
+public final class BitInput {
+
+    private final byte[] bytes;
+    private long bits; // next bit to read
+
+    public BitInput(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public boolean readBit() {
+        if ((bits >>> 3) >= bytes.length) {
+            throw new IllegalStateException("Read past the end of the block.");
+        }
+        boolean bit = (bytes[(int) (bits >>> 3)] & (0x80 >>> (bits & 7))) != 0;
+        bits++;
+        return bit;
+    }
+
+    // n bits (0 <= n <= 64) as the low bits of a long
+    public long readBits(int n) {
+        if (((bits + n + 7) >>> 3) > bytes.length) {
+            throw new IllegalStateException("Read past the end of the block.");
+        }
+        long value = 0;
+        while (n > 0) {
+            int available = 8 - (int) (bits & 7);
+            int take = Math.min(available, n);
+            int b = bytes[(int) (bits >>> 3)] & 0xFF;
+            int chunk = (b >>> (available - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            bits += take;
+            n -= take;
+        }
+        return value;
+    }
+}
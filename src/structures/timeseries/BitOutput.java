@@ -0,0 +1,57 @@
+package structures.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Growable bit buffer, written most significant bit first. Bits are packed
+ * into longs, so a write touches at most two words whatever its width.
+ */
+public final class BitOutput {
+
+    private long[] words;
+    private long bits; // bits written so far
+
+    public BitOutput(int initialBytes) {
+        words = new long[Math.max(1, (initialBytes + 7) >>> 3)];
+    }
+
+    public void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    // The low n bits of value (0 <= n <= 64)
+    public void writeBits(long value, int n) {
+        if (n == 0) {
+            return;
+        }
+        int word = (int) (bits >>> 6);
+        if (word + 1 >= words.length) {
+            words = Arrays.copyOf(words, words.length * 2 + 1);
+        }
+        if (n < 64) {
+            value &= (1L << n) - 1;
+        }
+        int used = (int) (bits & 63);
+        int free = 64 - used;
+        if (n <= free) {
+            words[word] |= value << (free - n);
+        } else {
+            words[word] |= value >>> (n - free);
+            words[word + 1] |= value << (64 - (n - free));
+        }
+        bits += n;
+    }
+
+    public long bitLength() {
+        return bits;
+    }
+
+    // The written bytes, last one zero-padded
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[(int) ((bits + 7) >>> 3)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (words[i >>> 3] >>> (56 - 8 * (i & 7)));
+        }
+        return bytes;
+    }
+}
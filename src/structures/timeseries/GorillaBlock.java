@@ -0,0 +1,210 @@
+package structures.timeseries;
+
+/**
+ * One block of a time series, compressed as it is written: timestamps as
+ * delta-of-deltas and each double field XORed against its previous value,
+ * after Facebook's Gorilla paper.
+ *
+ * A point costs one bit per field when a value repeats and one bit for the
+ * timestamp when readings arrive at a steady interval; slowly climbing
+ * counters like an odometer usually take a dozen or two bits. Blocks hold
+ * at most MAX_POINTS points and decode on their own, so a reader never has
+ * to start earlier than the block a range begins in.
+ *
+ * The block keeps a SeriesStats of everything appended, which is written
+ * alongside the bits as the block's summary.
+ */
+public final class GorillaBlock {
+
+    public static final int MAX_POINTS = 512;
+
+    /** Receives decoded points; values is reused between calls. */
+    public interface PointVisitor {
+        void point(long time, double[] values);
+    }
+
+    private final int fields;
+    private final BitOutput out;
+    private final SeriesStats stats;
+
+    private long prevTime;
+    private long prevDelta;
+    private final long[] prevBits;
+    private final int[] prevLeading;
+    private final int[] prevTrailing;
+
+    public GorillaBlock(int fields) {
+        if (fields <= 0) {
+            throw new IllegalArgumentException("A block needs at least one field.");
+        }
+        this.fields = fields;
+        this.out = new BitOutput(64 + 8 * fields);
+        this.stats = new SeriesStats(fields);
+        this.prevBits = new long[fields];
+        this.prevLeading = new int[fields];
+        this.prevTrailing = new int[fields];
+    }
+
+    // Points must come in time order (equal times are allowed)
+    public void append(long time, double[] values) {
+        if (isFull()) {
+            throw new IllegalStateException("Block is full.");
+        }
+        if (stats.count() > 0 && time < prevTime) {
+            throw new IllegalArgumentException("Point at " + time + " is older than " + prevTime + ".");
+        }
+        if (stats.count() == 0) {
+            out.writeBits(time, 64);
+            for (int f = 0; f < fields; f++) {
+                long bits = Double.doubleToLongBits(values[f]);
+                out.writeBits(bits, 64);
+                prevBits[f] = bits;
+                prevLeading[f] = -1;
+            }
+            prevDelta = 0;
+        } else {
+            long delta = time - prevTime;
+            writeDeltaOfDelta(delta - prevDelta);
+            prevDelta = delta;
+            for (int f = 0; f < fields; f++) {
+                writeValue(f, Double.doubleToLongBits(values[f]));
+            }
+        }
+        prevTime = time;
+        stats.add(time, values);
+    }
+
+    public boolean isFull() {
+        return stats.count() >= MAX_POINTS;
+    }
+
+    public int count() {
+        return (int) stats.count();
+    }
+
+    public int fields() {
+        return fields;
+    }
+
+    public SeriesStats stats() {
+        return stats;
+    }
+
+    public long bitLength() {
+        return out.bitLength();
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    // Decode the points of a block written with this many fields
+    public static void decode(byte[] bytes, int count, int fields, PointVisitor visitor) {
+        BitInput in = new BitInput(bytes);
+        double[] values = new double[fields];
+        long[] bits = new long[fields];
+        int[] leading = new int[fields];
+        int[] trailing = new int[fields];
+        long time = 0;
+        long delta = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                time = in.readBits(64);
+                for (int f = 0; f < fields; f++) {
+                    bits[f] = in.readBits(64);
+                }
+            } else {
+                delta += readDeltaOfDelta(in);
+                time += delta;
+                for (int f = 0; f < fields; f++) {
+                    bits[f] = readValue(in, bits[f], leading, trailing, f);
+                }
+            }
+            for (int f = 0; f < fields; f++) {
+                values[f] = Double.longBitsToDouble(bits[f]);
+            }
+            visitor.point(time, values);
+        }
+    }
+
+    // '0' | '10'+7 | '110'+9 | '1110'+12 | '1111'+64
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            out.writeBit(false);
+        } else if (dod >= -63 && dod <= 64) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod + 63, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod + 255, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod + 2047, 12);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitInput in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return in.readBits(7) - 63;
+        }
+        if (!in.readBit()) {
+            return in.readBits(9) - 255;
+        }
+        if (!in.readBit()) {
+            return in.readBits(12) - 2047;
+        }
+        return in.readBits(64);
+    }
+
+    /*
+     * '0' when the value repeats. Otherwise '1' then either '0' and the
+     * meaningful bits inside the previous leading/trailing-zero window, or
+     * '1', 5 bits of leading zeros, 6 bits of length (0 meaning 64) and the
+     * meaningful bits.
+     */
+    private void writeValue(int f, long bits) {
+        long xor = bits ^ prevBits[f];
+        prevBits[f] = bits;
+        if (xor == 0) {
+            out.writeBit(false);
+            return;
+        }
+        out.writeBit(true);
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (prevLeading[f] >= 0 && leading >= prevLeading[f] && trailing >= prevTrailing[f]) {
+            out.writeBit(false);
+            out.writeBits(xor >>> prevTrailing[f], 64 - prevLeading[f] - prevTrailing[f]);
+        } else {
+            int significant = 64 - leading - trailing;
+            out.writeBit(true);
+            out.writeBits(leading, 5);
+            out.writeBits(significant & 63, 6);
+            out.writeBits(xor >>> trailing, significant);
+            prevLeading[f] = leading;
+            prevTrailing[f] = trailing;
+        }
+    }
+
+    private static long readValue(BitInput in, long prev, int[] leading, int[] trailing, int f) {
+        if (!in.readBit()) {
+            return prev;
+        }
+        if (in.readBit()) {
+            leading[f] = (int) in.readBits(5);
+            int significant = (int) in.readBits(6);
+            if (significant == 0) {
+                significant = 64;
+            }
+            trailing[f] = 64 - leading[f] - significant;
+        }
+        int significant = 64 - leading[f] - trailing[f];
+        return prev ^ (in.readBits(significant) << trailing[f]);
+    }
+}
@@ -0,0 +1,153 @@
+package structures.timeseries;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Count, min, max, sum, first and last of each field over a run of points.
+ *
+ * Every sealed block carries one for its own points, and range queries
+ * build one per bucket; merging two is O(fields), which is what lets a
+ * query take a whole block from its summary without decoding it. Points
+ * must be added (and stats merged) in time order for first/last to mean
+ * anything.
+ */
+public final class SeriesStats {
+
+    private final int fields;
+    private long count;
+    private long firstTime = Long.MAX_VALUE;
+    private long lastTime = Long.MIN_VALUE;
+    private final double[] min, max, sum, first, last;
+
+    public SeriesStats(int fields) {
+        this.fields = fields;
+        min = new double[fields];
+        max = new double[fields];
+        sum = new double[fields];
+        first = new double[fields];
+        last = new double[fields];
+        clear();
+    }
+
+    public void add(long time, double[] values) {
+        if (count == 0) {
+            firstTime = time;
+            System.arraycopy(values, 0, first, 0, fields);
+        }
+        for (int f = 0; f < fields; f++) {
+            double v = values[f];
+            min[f] = Math.min(min[f], v);
+            max[f] = Math.max(max[f], v);
+            sum[f] += v;
+        }
+        System.arraycopy(values, 0, last, 0, fields);
+        lastTime = time;
+        count++;
+    }
+
+    // Fold in the stats of points that all come after this one's
+    public void merge(SeriesStats other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            firstTime = other.firstTime;
+            System.arraycopy(other.first, 0, first, 0, fields);
+        }
+        for (int f = 0; f < fields; f++) {
+            min[f] = Math.min(min[f], other.min[f]);
+            max[f] = Math.max(max[f], other.max[f]);
+            sum[f] += other.sum[f];
+        }
+        System.arraycopy(other.last, 0, last, 0, fields);
+        lastTime = other.lastTime;
+        count += other.count;
+    }
+
+    public void clear() {
+        count = 0;
+        firstTime = Long.MAX_VALUE;
+        lastTime = Long.MIN_VALUE;
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        Arrays.fill(sum, 0);
+        Arrays.fill(first, Double.NaN);
+        Arrays.fill(last, Double.NaN);
+    }
+
+    public int fields() {
+        return fields;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long firstTime() {
+        return firstTime;
+    }
+
+    public long lastTime() {
+        return lastTime;
+    }
+
+    public double min(int field) {
+        return min[field];
+    }
+
+    public double max(int field) {
+        return max[field];
+    }
+
+    public double sum(int field) {
+        return sum[field];
+    }
+
+    public double average(int field) {
+        return count == 0 ? Double.NaN : sum[field] / count;
+    }
+
+    public double first(int field) {
+        return first[field];
+    }
+
+    public double last(int field) {
+        return last[field];
+    }
+
+    // Fixed-size form for block headers: 24 + 40 * fields bytes
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(firstTime);
+        out.writeLong(lastTime);
+        for (int f = 0; f < fields; f++) {
+            out.writeDouble(min[f]);
+            out.writeDouble(max[f]);
+            out.writeDouble(sum[f]);
+            out.writeDouble(first[f]);
+            out.writeDouble(last[f]);
+        }
+    }
+
+    public static SeriesStats readFrom(DataInput in, int fields) throws IOException {
+        SeriesStats s = new SeriesStats(fields);
+        s.count = in.readLong();
+        s.firstTime = in.readLong();
+        s.lastTime = in.readLong();
+        for (int f = 0; f < fields; f++) {
+            s.min[f] = in.readDouble();
+            s.max[f] = in.readDouble();
+            s.sum[f] = in.readDouble();
+            s.first[f] = in.readDouble();
+            s.last[f] = in.readDouble();
+        }
+        return s;
+    }
+
+    public static int serializedSize(int fields) {
+        return 24 + 40 * fields;
+    }
+}
@@ -0,0 +1,315 @@
+package structures.trie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import structures.heap.MinHeap;
+
+/**
+ * Compressed trie over case-insensitive keys, for prompt suggestions.
+ *
+ * Each key carries a weight (how often it was added, e.g. how many
+ * deliveries use a town) and the spelling it was first added with. Edges
+ * hold whole runs of characters and children are kept in sorted arrays, so
+ * a lookup touches one node per branching point.
+ *
+ * complete() returns the heaviest keys under a prefix without visiting the
+ * whole subtree: every node records the largest weight below it, and a
+ * best-first walk stops after k keys. fuzzy() walks the trie with one
+ * Levenshtein row per character and drops any branch whose row already
+ * exceeds the edit budget.
+ */
+public class RadixTree {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        String label;                    // edge label from the parent (folded)
+        char[] firsts = NO_KEYS;         // first char of each child's label, sorted
+        Node[] children = NO_CHILDREN;
+        int childCount;
+        int weight;                      // > 0 when a key ends here
+        String spelling;
+        int maxWeight;                   // largest weight in this subtree
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int find(char c) {
+            return Arrays.binarySearch(firsts, 0, childCount, c);
+        }
+
+        void insertChild(int at, Node child) {
+            if (childCount == children.length) {
+                int size = Math.max(2, childCount * 2);
+                firsts = Arrays.copyOf(firsts, size);
+                children = Arrays.copyOf(children, size);
+            }
+            System.arraycopy(firsts, at, firsts, at + 1, childCount - at);
+            System.arraycopy(children, at, children, at + 1, childCount - at);
+            firsts[at] = child.label.charAt(0);
+            children[at] = child;
+            childCount++;
+        }
+
+        void removeChild(int at) {
+            System.arraycopy(firsts, at + 1, firsts, at, childCount - at - 1);
+            System.arraycopy(children, at + 1, children, at, childCount - at - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        void recomputeMax() {
+            int max = weight;
+            for (int i = 0; i < childCount; i++) {
+                max = Math.max(max, children[i].maxWeight);
+            }
+            maxWeight = max;
+        }
+    }
+
+    // A key found by fuzzy(), with its edit distance from the query
+    public record Match(String key, int distance, int weight) {}
+
+    private final Node root = new Node("");
+    private int size;
+    private int maxKeyLength;
+
+    // Add one use of the key (first spelling wins)
+    public synchronized void add(String key) {
+        String k = fold(key);
+        if (k.isEmpty()) {
+            return;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < k.length()) {
+            int at = node.find(k.charAt(i));
+            if (at < 0) {
+                Node leaf = new Node(k.substring(i));
+                node.insertChild(-at - 1, leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            Node child = node.children[at];
+            int common = commonPrefix(child.label, k, i);
+            if (common < child.label.length()) {
+                // Split the edge: node -> mid -> child
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.insertChild(0, child);
+                mid.maxWeight = child.maxWeight;
+                node.children[at] = mid;
+                child = mid;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+
+        if (node.weight == 0) {
+            node.spelling = key.trim();
+            size++;
+            maxKeyLength = Math.max(maxKeyLength, k.length());
+        }
+        node.weight++;
+        for (Node n : path) {
+            n.maxWeight = Math.max(n.maxWeight, node.weight);
+        }
+    }
+
+    // Remove one use of the key; it disappears when its weight reaches zero
+    public synchronized void remove(String key) {
+        String k = fold(key);
+        List<Node> path = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>(); // index of path[i + 1] in path[i]
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < k.length()) {
+            int at = node.find(k.charAt(i));
+            if (at < 0 || !k.startsWith(node.children[at].label, i)) {
+                return;
+            }
+            node = node.children[at];
+            path.add(node);
+            slots.add(at);
+            i += node.label.length();
+        }
+        if (node.weight == 0) {
+            return;
+        }
+
+        if (--node.weight == 0) {
+            node.spelling = null;
+            size--;
+        }
+        // Prune empty leaves and merge pass-through nodes, then fix the subtree maxima
+        for (int d = path.size() - 1; d > 0; d--) {
+            Node n = path.get(d);
+            Node parent = path.get(d - 1);
+            if (n.weight == 0 && n.childCount == 0) {
+                parent.removeChild(slots.get(d - 1));
+            } else if (n.weight == 0 && n.childCount == 1) {
+                Node only = n.children[0];
+                only.label = n.label + only.label;
+                parent.children[slots.get(d - 1)] = only;
+            } else {
+                n.recomputeMax();
+            }
+        }
+        root.recomputeMax();
+    }
+
+    public synchronized boolean contains(String key) {
+        Node node = locate(fold(key));
+        return node != null && node.weight > 0;
+    }
+
+    // Number of distinct keys
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Up to k keys starting with the prefix, heaviest first (ties in key
+     * order). Cost depends on k and the prefix length, not the tree size.
+     */
+    public synchronized List<String> complete(String prefix, int k) {
+        List<String> result = new ArrayList<>(Math.max(0, k));
+        String p = fold(prefix);
+
+        // Find the topmost node whose path starts with the prefix
+        Node start = root;
+        String path = "";
+        int i = 0;
+        while (i < p.length() && k > 0) {
+            int at = start.find(p.charAt(i));
+            if (at < 0) {
+                return result;
+            }
+            Node child = start.children[at];
+            int n = Math.min(child.label.length(), p.length() - i);
+            if (!child.label.regionMatches(0, p, i, n)) {
+                return result;
+            }
+            start = child;
+            path += child.label;
+            i += n;
+        }
+
+        // Entries are subtrees (ranked by their best weight) or keys (ranked by their weight).
+        // A subtree's path sorts before every key in it, so equal weights come out in key order.
+        record Entry(int rank, String path, Node node, boolean key) {}
+        MinHeap<Entry> frontier = new MinHeap<>(Comparator.comparingInt((Entry e) -> -e.rank())
+                .thenComparing(Entry::path)
+                .thenComparing(e -> !e.key()));
+        frontier.add(new Entry(start.maxWeight, path, start, false));
+
+        while (!frontier.isEmpty() && result.size() < k) {
+            Entry e = frontier.poll();
+            if (e.key()) {
+                result.add(e.node().spelling);
+                continue;
+            }
+            Node n = e.node();
+            if (n.weight > 0) {
+                frontier.add(new Entry(n.weight, e.path(), n, true));
+            }
+            for (int c = 0; c < n.childCount; c++) {
+                Node child = n.children[c];
+                frontier.add(new Entry(child.maxWeight, e.path() + child.label, child, false));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Up to k keys within maxEdits insertions, deletions or substitutions of
+     * the query, closest first, then heaviest.
+     */
+    public synchronized List<Match> fuzzy(String query, int maxEdits, int k) {
+        String q = fold(query);
+        int n = q.length();
+        int inf = maxEdits + 1;
+        // One reusable row per depth; only the diagonal band |depth - j| <= maxEdits is computed
+        int[][] rows = new int[maxKeyLength + 1][n + 2];
+        for (int j = 0; j <= n + 1; j++) {
+            rows[0][j] = Math.min(j, inf);
+        }
+        List<Match> found = new ArrayList<>();
+        for (int i = 0; i < root.childCount; i++) {
+            walk(root.children[i], 0, q, rows, maxEdits, found);
+        }
+        found.sort(Comparator.comparingInt(Match::distance)
+                .thenComparing(Comparator.comparingInt(Match::weight).reversed())
+                .thenComparing(Match::key));
+        return found.size() > k ? new ArrayList<>(found.subList(0, k)) : found;
+    }
+
+    private static void walk(Node node, int depth, String q, int[][] rows, int maxEdits, List<Match> found) {
+        int n = q.length();
+        int inf = maxEdits + 1;
+        for (int c = 0; c < node.label.length(); c++) {
+            char ch = node.label.charAt(c);
+            int[] prev = rows[depth++];
+            int[] row = rows[depth];
+            int lo = Math.max(1, depth - maxEdits);
+            int hi = Math.min(n, depth + maxEdits);
+            row[0] = Math.min(depth, inf);
+            row[lo - 1] = lo > 1 ? inf : row[0];
+            int best = row[lo - 1];
+            for (int j = lo; j <= hi; j++) {
+                int v = prev[j - 1] + (q.charAt(j - 1) == ch ? 0 : 1);
+                v = Math.min(v, Math.min(row[j - 1], prev[j]) + 1);
+                row[j] = Math.min(v, inf);
+                best = Math.min(best, row[j]);
+            }
+            row[hi + 1] = inf; // the next row reads one cell past this band
+            if (best > maxEdits) {
+                return; // every longer key only moves further away
+            }
+        }
+        if (node.weight > 0 && Math.abs(depth - n) <= maxEdits && rows[depth][n] <= maxEdits) {
+            found.add(new Match(node.spelling, rows[depth][n], node.weight));
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            walk(node.children[i], depth, q, rows, maxEdits, found);
+        }
+    }
+
+    // Node where the key ends, or null if no key path spells it
+    private Node locate(String k) {
+        Node node = root;
+        int i = 0;
+        while (i < k.length()) {
+            int at = node.find(k.charAt(i));
+            if (at < 0 || !k.startsWith(node.children[at].label, i)) {
+                return null;
+            }
+            node = node.children[at];
+            i += node.label.length();
+        }
+        return node;
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int max = Math.min(label.length(), key.length() - from);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(from + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    private static String fold(String key) {
+        return key.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,390 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import structures.hash.BloomFilter;
+import structures.sort.ParallelSort;
+
+/**
+ * Append-only, compressed store for records that are no longer worked on
+ * (closed deliveries, old maintenance).
+ *
+ * Rows keep their normal text format and are grouped into blocks of up to
+ * BLOCK_ROWS rows, sorted by key and Deflate-compressed. Each block on disk
+ * is [raw length][compressed length][bytes]. The sparse index next to it
+ * (name.arc.idx) has one line per block: offset, length, row count, first and
+ * last key, and a Bloom filter of the block's keys. A lookup decompresses
+ * only the blocks whose key range and filter both match.
+ *
+ * Blocks are written before their index lines, so after a crash the index is
+ * rebuilt from any complete blocks past its end and a torn tail is dropped.
+ */
+public class ArchiveStore<T> {
+
+    private static final int BLOCK_ROWS = 512;
+    private static final int HEADER_BYTES = 8;
+
+    private static class Block {
+        long offset;
+        int length;     // compressed bytes, header excluded
+        int rows;
+        String minKey, maxKey;
+        BloomFilter keys;
+    }
+
+    private final File file;
+    private final File indexFile;
+    private final Function<T, String> key;
+    private final Function<T, String> format;
+    private final Function<String, T> parse;
+    private final List<Block> blocks = new ArrayList<>();
+    private long end;               // end of the last complete block
+    private int rowCount;
+
+    public ArchiveStore(File file, Function<T, String> key, Function<T, String> format, Function<String, T> parse) {
+        this.file = file;
+        this.indexFile = new File(file.getPath() + ".idx");
+        this.key = key;
+        this.format = format;
+        this.parse = parse;
+        readIndex();
+        recover();
+    }
+
+    // === Writing ===
+
+    /**
+     * Append rows as new blocks. With fsync the rows are on disk when this
+     * returns, so callers may then drop them from the live files.
+     */
+    public synchronized void append(List<T> rows, boolean fsync) throws IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String[]> keyed = new ArrayList<>(rows.size()); // {folded key, line}
+        for (T row : rows) {
+            keyed.add(new String[]{fold(key.apply(row)), format.apply(row)});
+        }
+        ParallelSort.sort(keyed, Comparator.comparing(r -> r[0]));
+
+        file.getParentFile().mkdirs();
+        List<Block> added = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(end); // drop a torn block left by a crash
+            out.seek(end);
+            for (int from = 0; from < keyed.size(); from += BLOCK_ROWS) {
+                List<String[]> chunk = keyed.subList(from, Math.min(from + BLOCK_ROWS, keyed.size()));
+                Block b = summarize(chunk);
+                byte[] raw = join(chunk);
+                byte[] packed = deflate(deflater, raw);
+                b.offset = end;
+                b.length = packed.length;
+                out.writeInt(raw.length);
+                out.writeInt(packed.length);
+                out.write(packed);
+                end += HEADER_BYTES + packed.length;
+                added.add(b);
+            }
+            if (fsync) {
+                out.getFD().sync();
+            }
+        } finally {
+            deflater.end();
+        }
+
+        try (FileOutputStream out = new FileOutputStream(indexFile, true);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (Block b : added) {
+                writer.write(indexLine(b));
+                writer.newLine();
+            }
+            writer.flush();
+            if (fsync) {
+                out.getFD().sync();
+            }
+        }
+        blocks.addAll(added);
+        rowCount += rows.size();
+    }
+
+    // === Lookup ===
+
+    // Every archived row with this key (case-insensitive), oldest block first
+    public synchronized List<T> find(String wanted) {
+        String k = fold(wanted);
+        List<T> found = new ArrayList<>();
+        for (Block b : blocks) {
+            if (k.compareTo(b.minKey) < 0 || k.compareTo(b.maxKey) > 0 || !b.keys.mightContain(k)) {
+                continue;
+            }
+            try {
+                for (String line : readBlock(b)) {
+                    if (fold(keyOf(line)).equals(k)) {
+                        try {
+                            found.add(parse.apply(line));
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("Skipping invalid archived line (" + e.getMessage() + "): " + line);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error reading archive block at " + b.offset + ": " + e.getMessage());
+            }
+        }
+        return found;
+    }
+
+    public synchronized boolean contains(String wanted) {
+        return !find(wanted).isEmpty();
+    }
+
+    // Keys of every archived row; blocks are decompressed in parallel
+    public synchronized List<String> keys() {
+        return blocks.parallelStream().flatMap(b -> {
+            List<String> keys = new ArrayList<>(b.rows);
+            try {
+                for (String line : readBlock(b)) {
+                    keys.add(keyOf(line));
+                }
+            } catch (IOException e) {
+                System.out.println("Error reading archive block at " + b.offset + ": " + e.getMessage());
+            }
+            return keys.stream();
+        }).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Every archived row in its text form, one block in memory at a time.
+     * Blocks are never rewritten, so only the block list is read under the
+     * lock and appends can carry on while this runs.
+     */
+    public void forEachLine(Consumer<String> action) {
+        List<Block> current;
+        synchronized (this) {
+            current = new ArrayList<>(blocks);
+        }
+        for (Block b : current) {
+            try {
+                for (String line : readBlock(b)) {
+                    if (!line.isEmpty()) {
+                        action.accept(line);
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error reading archive block at " + b.offset + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized int rowCount() {
+        return rowCount;
+    }
+
+    public synchronized int blockCount() {
+        return blocks.size();
+    }
+
+    // === Block encoding ===
+
+    private static Block summarize(List<String[]> chunk) {
+        Block b = new Block();
+        b.rows = chunk.size();
+        b.minKey = chunk.get(0)[0];
+        b.maxKey = chunk.get(chunk.size() - 1)[0];
+        b.keys = new BloomFilter(chunk.size());
+        for (String[] r : chunk) {
+            b.keys.add(r[0]);
+        }
+        return b;
+    }
+
+    private static byte[] join(List<String[]> chunk) {
+        StringBuilder sb = new StringBuilder(chunk.size() * 64);
+        for (String[] r : chunk) {
+            sb.append(r[1]).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] buf = new byte[8192];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buf);
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private String[] readBlock(Block b) throws IOException {
+        byte[] packed = new byte[b.length];
+        int rawLength;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(b.offset);
+            rawLength = in.readInt();
+            in.readInt();
+            in.readFully(packed);
+        }
+        return inflate(packed, rawLength).split("\n");
+    }
+
+    private static String inflate(byte[] packed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(packed);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int got = inflater.inflate(raw, n, rawLength - n);
+                if (got == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += got;
+            }
+            if (n != rawLength) {
+                throw new IOException("corrupt block");
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String keyOf(String line) {
+        int comma = line.indexOf(',');
+        return comma < 0 ? line : line.substring(0, comma);
+    }
+
+    private static String fold(String key) {
+        return key.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // === Index ===
+
+    private static String indexLine(Block b) {
+        return b.offset + "," + b.length + "," + b.rows + "," + b.minKey + "," + b.maxKey + "," + b.keys.toHex();
+    }
+
+    private void readIndex() {
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(indexFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length != 6) {
+                    break; // a torn last line; recover() rebuilds from the blocks
+                }
+                try {
+                    Block b = new Block();
+                    b.offset = Long.parseLong(parts[0]);
+                    b.length = Integer.parseInt(parts[1]);
+                    b.rows = Integer.parseInt(parts[2]);
+                    b.minKey = parts[3];
+                    b.maxKey = parts[4];
+                    b.keys = BloomFilter.fromHex(parts[5]);
+                    if (b.offset != end) {
+                        break;
+                    }
+                    blocks.add(b);
+                    end = b.offset + HEADER_BYTES + b.length;
+                    rowCount += b.rows;
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading archive index " + indexFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    // Reconcile the index with the block file after a crash or a lost index
+    private void recover() {
+        long length = file.length();
+        boolean changed = false;
+        while (!blocks.isEmpty() && end > length) {
+            Block last = blocks.remove(blocks.size() - 1);
+            end = last.offset;
+            rowCount -= last.rows;
+            changed = true;
+        }
+
+        if (end < length) {
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                while (end + HEADER_BYTES <= length) {
+                    in.seek(end);
+                    int rawLength = in.readInt();
+                    int packedLength = in.readInt();
+                    if (rawLength < 0 || packedLength < 0 || end + HEADER_BYTES + packedLength > length) {
+                        break;
+                    }
+                    byte[] packed = new byte[packedLength];
+                    in.readFully(packed);
+                    List<String[]> chunk = new ArrayList<>();
+                    for (String line : inflate(packed, rawLength).split("\n")) {
+                        chunk.add(new String[]{fold(keyOf(line)), line});
+                    }
+                    Block b = summarize(chunk);
+                    b.offset = end;
+                    b.length = packedLength;
+                    blocks.add(b);
+                    end += HEADER_BYTES + packedLength;
+                    rowCount += b.rows;
+                    changed = true;
+                }
+            } catch (IOException e) {
+                System.out.println("Archive " + file.getName() + ": ignoring damaged data after offset " + end);
+            }
+        }
+
+        if (changed) {
+            try {
+                writeIndex();
+            } catch (IOException e) {
+                System.out.println("Error rebuilding archive index: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (Block b : blocks) {
+                writer.write(indexLine(b));
+                writer.newLine();
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), indexFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
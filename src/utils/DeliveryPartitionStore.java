@@ -0,0 +1,406 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import models.Delivery;
+import structures.hash.BloomFilter;
+
+/**
+ * Delivery storage split into one file per ETA week (Monday to Sunday),
+ * e.g. data/deliveries/deliveries-2025-06-02.txt, plus
+ * deliveries-undated.txt for rows without an ETA.
+ *
+ * manifest.txt keeps one line per partition with its min/max ETA, row and
+ * open-delivery counts, and a Bloom filter of its package IDs. Startup loads
+ * only hot partitions (recent weeks, or any with open deliveries); the rest
+ * are opened when a date-range query overlaps them or when a package lookup
+ * hits their filter.
+ *
+ * A partition is always loaded whole, and only loaded partitions are ever
+ * rewritten, so rows in cold files can't be lost by a save.
+ */
+public class DeliveryPartitionStore {
+
+    public static final int UNDATED = Integer.MIN_VALUE; // partition key for rows with no ETA
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final String MANIFEST = "manifest.txt";
+
+    private static class Partition {
+        final int key;          // epoch day of the week's Monday, or UNDATED
+        int minEta, maxEta;     // epoch minutes; NO_ETA when undated
+        int rows, open;
+        BloomFilter ids;
+        boolean loaded;
+
+        Partition(int key) {
+            this.key = key;
+        }
+    }
+
+    private final File dir;
+    private final TreeMap<Integer, Partition> partitions = new TreeMap<>();
+
+    public DeliveryPartitionStore(File dir) {
+        this(dir, null);
+    }
+
+    // legacyFile: a single-file deliveries.txt to split into partitions on first start (null for none)
+    public DeliveryPartitionStore(File dir, File legacyFile) {
+        this.dir = dir;
+        readManifest();
+        rescanUnlisted();
+        if (legacyFile != null) {
+            migrateLegacyFile(legacyFile);
+        }
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    // Partition key for an ETA: the epoch day of that week's Monday
+    public static int partitionOf(int etaMinute) {
+        if (etaMinute == Delivery.NO_ETA) {
+            return UNDATED;
+        }
+        int day = Math.floorDiv(etaMinute, MINUTES_PER_DAY);
+        return day - Math.floorMod(day + 3, 7); // 1970-01-01 was a Thursday
+    }
+
+    // === Loading ===
+
+    /**
+     * Load partitions whose ETAs reach into the last hotDays days (or later),
+     * partitions holding open deliveries, and the undated partition.
+     */
+    public synchronized List<Delivery> loadHot(int nowMinute, int hotDays) {
+        int cutoff = nowMinute - hotDays * MINUTES_PER_DAY;
+        List<Delivery> rows = new ArrayList<>();
+        for (Partition p : partitions.values()) {
+            if (!p.loaded && (p.key == UNDATED || p.maxEta >= cutoff || p.open > 0)) {
+                load(p, rows);
+            }
+        }
+        return rows;
+    }
+
+    // Load every cold partition whose ETA range overlaps [fromMinute, toMinute]
+    public synchronized List<Delivery> loadRange(int fromMinute, int toMinute) {
+        List<Delivery> rows = new ArrayList<>();
+        for (Partition p : partitions.values()) {
+            if (!p.loaded && p.key != UNDATED && p.maxEta >= fromMinute && p.minEta <= toMinute) {
+                load(p, rows);
+            }
+        }
+        return rows;
+    }
+
+    // Load every cold partition whose filter may contain the package ID
+    public synchronized List<Delivery> loadCandidates(String packageId) {
+        List<Delivery> rows = new ArrayList<>();
+        for (Partition p : partitions.values()) {
+            if (!p.loaded && p.ids.mightContain(packageId)) {
+                load(p, rows);
+            }
+        }
+        return rows;
+    }
+
+    // Load one partition if it exists on disk and is not loaded yet (before writing into it)
+    public synchronized List<Delivery> loadPartition(int key) {
+        List<Delivery> rows = new ArrayList<>();
+        Partition p = partitions.get(key);
+        if (p != null && !p.loaded) {
+            load(p, rows);
+        }
+        return rows;
+    }
+
+    public synchronized List<Delivery> loadAll() {
+        List<Delivery> rows = new ArrayList<>();
+        for (Partition p : partitions.values()) {
+            if (!p.loaded) {
+                load(p, rows);
+            }
+        }
+        return rows;
+    }
+
+    // Package IDs of every stored row, loaded or not, read in parallel without building deliveries
+    public synchronized List<String> readAllPackageIds() {
+        List<File> files = new ArrayList<>();
+        for (Partition p : partitions.values()) {
+            files.add(fileFor(p.key));
+        }
+        return files.parallelStream()
+                .flatMap(f -> FileHandler.readKeys(f, "packageid").stream())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Rows of every partition not loaded into memory, as raw lines, read one
+     * line at a time (for exports that must not pull old weeks into memory).
+     */
+    public void forEachColdLine(Consumer<String> action) {
+        List<File> files = new ArrayList<>();
+        synchronized (this) {
+            for (Partition p : partitions.values()) {
+                if (!p.loaded) {
+                    files.add(fileFor(p.key));
+                }
+            }
+        }
+        for (File f : files) {
+            FileHandler.forEachRow(f, "packageid", action);
+        }
+    }
+
+    public synchronized boolean hasColdPartitions() {
+        for (Partition p : partitions.values()) {
+            if (!p.loaded) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // "N of M partitions loaded"
+    public synchronized String describe() {
+        int loaded = 0;
+        for (Partition p : partitions.values()) {
+            if (p.loaded) {
+                loaded++;
+            }
+        }
+        return loaded + " of " + partitions.size() + " delivery partitions loaded";
+    }
+
+    private void load(Partition p, List<Delivery> into) {
+        into.addAll(FileHandler.loadDeliveries(fileFor(p.key)));
+        p.loaded = true;
+    }
+
+    // === Writing ===
+
+    /**
+     * Rewrite the given partitions from the rows in memory (all loaded
+     * deliveries; rows of other partitions are ignored), then the manifest.
+     * A partition left with no rows has its file removed.
+     */
+    public synchronized void write(List<Delivery> allLoaded, Set<Integer> keys, boolean fsync) throws IOException {
+        if (keys.isEmpty()) {
+            return;
+        }
+        dir.mkdirs();
+
+        Map<Integer, List<Delivery>> byPartition = new HashMap<>();
+        for (Integer key : keys) {
+            byPartition.put(key, new ArrayList<>());
+        }
+        for (Delivery d : allLoaded) {
+            List<Delivery> bucket = byPartition.get(partitionOf(d.getEtaMinute()));
+            if (bucket != null) {
+                bucket.add(d);
+            }
+        }
+
+        for (Map.Entry<Integer, List<Delivery>> e : byPartition.entrySet()) {
+            int key = e.getKey();
+            List<Delivery> rows = e.getValue();
+            Partition existing = partitions.get(key);
+            if (existing != null && !existing.loaded) {
+                continue; // never overwrite a file we haven't read
+            }
+            if (rows.isEmpty()) {
+                Files.deleteIfExists(fileFor(key).toPath());
+                partitions.remove(key);
+                continue;
+            }
+            FileHandler.writeDeliveries(fileFor(key), rows, fsync);
+            Partition p = summarize(key, rows);
+            p.loaded = true;
+            partitions.put(key, p);
+        }
+        writeManifest(fsync);
+    }
+
+    private static Partition summarize(int key, List<Delivery> rows) {
+        Partition p = new Partition(key);
+        p.minEta = Integer.MAX_VALUE;
+        p.maxEta = Integer.MIN_VALUE;
+        p.ids = new BloomFilter(rows.size());
+        for (Delivery d : rows) {
+            p.minEta = Math.min(p.minEta, d.getEtaMinute());
+            p.maxEta = Math.max(p.maxEta, d.getEtaMinute());
+            p.ids.add(d.getPackageId());
+            if (d.getStatusCode().isOpen()) {
+                p.open++;
+            }
+        }
+        p.rows = rows.size();
+        return p;
+    }
+
+    // === Manifest ===
+
+    private void readManifest() {
+        File file = new File(dir, MANIFEST);
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (parts.length != 6) {
+                    System.out.println("Skipping invalid manifest line: " + line);
+                    continue;
+                }
+                try {
+                    Partition p = new Partition(Integer.parseInt(parts[0].trim()));
+                    p.minEta = Integer.parseInt(parts[1].trim());
+                    p.maxEta = Integer.parseInt(parts[2].trim());
+                    p.rows = Integer.parseInt(parts[3].trim());
+                    p.open = Integer.parseInt(parts[4].trim());
+                    p.ids = BloomFilter.fromHex(parts[5].trim());
+                    if (fileFor(p.key).exists()) {
+                        partitions.put(p.key, p);
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Skipping invalid manifest line (" + e.getMessage() + "): " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading delivery manifest: " + e.getMessage());
+        }
+    }
+
+    /**
+     * write() saves the partition files before the manifest, so a crash in
+     * between leaves a file the manifest doesn't list, or lists with an old
+     * summary. Such files (any deliveries-*.txt missing from the manifest or
+     * changed after it) are read and summarized again here, so they are
+     * neither invisible to queries nor overwritten unread.
+     */
+    private void rescanUnlisted() {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("deliveries-") && name.endsWith(".txt"));
+        if (files == null) {
+            return;
+        }
+        long manifestTime = new File(dir, MANIFEST).lastModified(); // 0 when there is none
+        int rescanned = 0;
+        for (File f : files) {
+            Integer key = keyOf(f.getName());
+            if (key == null) {
+                continue;
+            }
+            if (partitions.containsKey(key) && f.lastModified() <= manifestTime) {
+                continue;
+            }
+            List<Delivery> rows = FileHandler.loadDeliveries(f);
+            if (rows.isEmpty()) {
+                continue;
+            }
+            partitions.put(key, summarize(key, rows));
+            rescanned++;
+        }
+        if (rescanned > 0) {
+            System.out.println("Rebuilt the manifest entries of " + rescanned + " delivery partition(s) in " + dir.getPath());
+            try {
+                writeManifest(true);
+            } catch (IOException e) {
+                System.out.println("Error writing delivery manifest: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeManifest(boolean fsync) throws IOException {
+        File tmp = new File(dir, MANIFEST + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out))) {
+            writer.write("# partitionKey,minEta,maxEta,rows,open,packageIdFilter");
+            writer.newLine();
+            for (Partition p : partitions.values()) {
+                writer.write(p.key + "," + p.minEta + "," + p.maxEta + "," + p.rows + "," + p.open + "," + p.ids.toHex());
+                writer.newLine();
+            }
+            writer.flush();
+            if (fsync) {
+                out.getFD().sync();
+            }
+        }
+        // Swap in whole so a crash mid-write leaves the old manifest intact
+        Files.move(tmp.toPath(), new File(dir, MANIFEST).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // === One-time migration from data/deliveries.txt ===
+
+    private void migrateLegacyFile(File legacy) {
+        if (!partitions.isEmpty() || !legacy.exists()) {
+            return;
+        }
+
+        List<Delivery> rows = FileHandler.loadDeliveries(legacy);
+        Set<Integer> keys = new TreeSet<>();
+        for (Delivery d : rows) {
+            keys.add(partitionOf(d.getEtaMinute()));
+        }
+        try {
+            write(rows, keys, true);
+            // Partitions written here are cold until loadHot() picks them
+            for (Partition p : partitions.values()) {
+                p.loaded = false;
+            }
+            Files.move(legacy.toPath(), new File(legacy.getPath() + ".migrated").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Migrated " + rows.size() + " deliveries into " + partitions.size()
+                    + " weekly partitions under " + dir.getPath());
+        } catch (IOException e) {
+            System.out.println("Error migrating deliveries: " + e.getMessage());
+        }
+    }
+
+    // Partition key of a partition file name, or null if it isn't one
+    private static Integer keyOf(String name) {
+        String stamp = name.substring("deliveries-".length(), name.length() - ".txt".length());
+        if (stamp.equals("undated")) {
+            return UNDATED;
+        }
+        try {
+            int day = (int) LocalDate.parse(stamp).toEpochDay();
+            return partitionOf(day * MINUTES_PER_DAY) == day ? day : null; // only Mondays name partitions
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private File fileFor(int key) {
+        if (key == UNDATED) {
+            return new File(dir, "deliveries-undated.txt");
+        }
+        return new File(dir, "deliveries-" + LocalDate.ofEpochDay(key) + ".txt");
+    }
+}
@@ -3,73 +3,166 @@ package utils;
 import models.Vehicle;
 import models.Driver;
 import models.Delivery;
+import models.Depot;
+import models.DeliveryStatus;
 import models.Maintenance;
+import models.RouteSegment;
+import models.Town;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Reads and writes the data files of one data directory. Each depot has its
+ * own directory and its own FileHandler; the road network, the town
+ * gazetteer and the depot list are shared and stay static.
+ */
 public class FileHandler {
 
-    private static final String VEHICLE_FILE = "data/vehicles.txt";
-    private static final String DRIVER_FILE = "data/drivers.txt";
-    private static final String DELIVERY_FILE = "data/deliveries.txt";
-    private static final String MAINTENANCE_FILE = "data/maintenance.txt";
+    private static final String DATA_DIR = "data";
+    private static final String ROUTE_FILE = "data/routes.txt";
+    private static final String TOWN_FILE = "data/towns.txt";
+    private static final String DEPOT_FILE = "data/depots.txt";
+
+    // The single-depot layout: everything directly under data/
+    public static final FileHandler DEFAULT = new FileHandler(new File(DATA_DIR));
+
+    private final File dir;
+    private final File vehicleFile;
+    private final File driverFile;
+    private final File deliveryFile;    // single-file layout, migrated on first start
+    private final File deliveryDir;
+    private final File maintenanceFile;
+    private final File archiveDir;
+    private final File telemetryDir;
+
+    public FileHandler(File dir) {
+        this.dir = dir;
+        this.vehicleFile = new File(dir, "vehicles.txt");
+        this.driverFile = new File(dir, "drivers.txt");
+        this.deliveryFile = new File(dir, "deliveries.txt");
+        this.deliveryDir = new File(dir, "deliveries");
+        this.maintenanceFile = new File(dir, "maintenance.txt");
+        this.archiveDir = new File(dir, "archive");
+        this.telemetryDir = new File(dir, "telemetry");
+    }
+
+    public File getDirectory() {
+        return dir;
+    }
+
+    public File getDeliveryDirectory() {
+        return deliveryDir;
+    }
+
+    public File getLegacyDeliveryFile() {
+        return deliveryFile;
+    }
+
+    // Column rules for each data file, the same ones the prompts apply to typed input.
+    // Rows that break them are reported with their line number, skipped and kept in <file>.rejected.
+
+    private static final String[] VEHICLE_TYPES = {"Truck", "Van"};
+
+    private static final Validation.Schema VEHICLE_ROWS = new Validation.Schema("vehicle")
+            .field("registrationNumber", Validation::checkPlate)
+            .field("type", v -> InputValidator.matchChoice(v, VEHICLE_TYPES, false) == null
+                    ? "Vehicle type must be Truck or Van" : null)
+            .field("mileage", v -> Validation.checkInteger(v, 0, Integer.MAX_VALUE))
+            .field("fuelUsage", v -> Validation.checkDouble(v, 0.1, 100.0))
+            .field("driverId", v -> Validation.checkString(v, 2, 15))
+            .optional("location", v -> v.isEmpty() ? null : Validation.checkLocation(v, 2, 50));
+
+    private static final Validation.Schema DRIVER_ROWS = new Validation.Schema("driver")
+            .field("driverId", v -> Validation.checkString(v, 2, 15))
+            .field("name", v -> Validation.checkName(v, 2, 50))
+            .field("yearsOfExperience", v -> Validation.checkInteger(v, 0, 50))
+            .field("delays", v -> Validation.checkInteger(v, 0, Integer.MAX_VALUE))
+            .field("infractions", v -> Validation.checkInteger(v, 0, Integer.MAX_VALUE))
+            // Delivery outcome columns; files written before they existed simply stop here
+            .optional("delivered", v -> v.isEmpty() ? null : Validation.checkInteger(v, 0, Integer.MAX_VALUE))
+            .optional("onTime", v -> v.isEmpty() ? null : Validation.checkInteger(v, 0, Integer.MAX_VALUE))
+            .optional("latenessMinutes", v -> v.isEmpty() ? null : Validation.checkInteger(v, 0, Integer.MAX_VALUE))
+            .optional("firstDelivery", v -> v.isEmpty() ? null : Validation.checkDate(v));
+
+    private static final Validation.Schema DELIVERY_ROWS = new Validation.Schema("delivery")
+            .field("packageId", v -> Validation.checkString(v, 3, 20))
+            .field("origin", v -> Validation.checkLocation(v, 2, 50))
+            .field("destination", v -> Validation.checkLocation(v, 2, 50))
+            .field("eta", FileHandler::checkEta)
+            .field("vehicleRegNo", v -> Validation.checkString(v, 1, 20))
+            .field("driverId", v -> Validation.checkString(v, 1, 15))
+            .field("status", v -> DeliveryStatus.parse(v) == null ? "Unknown delivery status" : null)
+            // Files written before it existed stop here; their late rows count as already charged
+            .optional("delayCharged", v -> v.isEmpty() || v.equals("true") || v.equals("false")
+                    ? null : "Expected true or false")
+            // Minutes late charged to the driver on delivery; empty while not delivered
+            .optional("lateMinutes", v -> v.isEmpty() ? null : Validation.checkInteger(v, 0, Integer.MAX_VALUE));
+
+    private static final Validation.Schema MAINTENANCE_ROWS = new Validation.Schema("maintenance")
+            .field("registrationNumber", v -> Validation.checkString(v, 1, 20))
+            .field("serviceType", v -> Validation.checkString(v, 2, 50))
+            .field("serviceDate", Validation::checkDate)
+            .field("mileageAtService", v -> Validation.checkInteger(v, 0, Integer.MAX_VALUE))
+            .field("partsReplaced", v -> Validation.checkString(v, 1, 100))
+            .field("cost", Validation::checkCost)
+            .field("nextServiceDate", v -> v.isEmpty() ? null : Validation.checkDate(v));
+
+    private static final Validation.Schema DEPOT_ROWS = new Validation.Schema("depot")
+            .field("depot", v -> Validation.checkName(v, 2, 30))
+            .field("town", v -> Validation.checkLocation(v, 2, 50))
+            .optional("directory", v -> v.isEmpty() ? null : Validation.checkString(v, 1, 200));
+
+    private static final Validation.Schema TOWN_ROWS = new Validation.Schema("town")
+            .field("town", v -> Validation.checkLocation(v, 2, 50))
+            .field("latitude", v -> Validation.checkDouble(v, -90.0, 90.0))
+            .field("longitude", v -> Validation.checkDouble(v, -180.0, 180.0));
 
     // === VEHICLES ===
 
-    public static void saveVehicles(List<Vehicle> vehicles) {
+    public synchronized void saveVehicles(List<Vehicle> vehicles) {
         try {
-            ensureDataDirectory();
-            BufferedWriter writer = new BufferedWriter(new FileWriter(VEHICLE_FILE));
-            for (Vehicle v : vehicles) {
-                writer.write(v.getRegistrationNumber() + "," +
-                             v.getType() + "," +
-                             v.getMileage() + "," +
-                             v.getFuelUsage() + "," +
-                             v.getDriverId());
-                writer.newLine();
-            }
-            writer.close();
-            System.out.println("Vehicles saved to " + VEHICLE_FILE);
+            writeVehicles(vehicles, false);
+            System.out.println("Vehicles saved to " + vehicleFile.getPath());
         } catch (IOException e) {
             System.out.println("Error saving vehicles: " + e.getMessage());
         }
     }
 
-    public static List<Vehicle> loadVehicles() {
+    // Rewrite the file without printing; with fsync the data is on disk when this returns
+    public synchronized void writeVehicles(List<Vehicle> vehicles, boolean fsync) throws IOException {
+        writeRows(vehicleFile, vehicles, v -> v.getRegistrationNumber() + "," +
+                v.getType() + "," +
+                v.getMileage() + "," +
+                v.getFuelUsage() + "," +
+                v.getDriverId() + "," +
+                (v.getLocation() == null ? "" : v.getLocation()), fsync);
+    }
+
+    public List<Vehicle> loadVehicles() {
         List<Vehicle> vehicles = new ArrayList<>();
-        File file = new File(VEHICLE_FILE);
+        File file = vehicleFile;
         if (!file.exists()) {
-            System.out.println("No existing vehicle file found.");
+            System.out.println("No existing vehicle file found (" + file.getPath() + ").");
             return vehicles;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean firstLine = true;
-            while ((line = reader.readLine()) != null) {
-                // Skip header if present
-                if (firstLine && line.toLowerCase().contains("registration")) {
-                    firstLine = false;
-                    continue;
-                }
-                firstLine = false;
-
-                String[] parts = line.split(",");
-                if (parts.length == 5) {
-                    try {
-                        String reg = parts[0].trim();
-                        String type = parts[1].trim();
-                        int mileage = Integer.parseInt(parts[2].trim());
-                        double fuel = Double.parseDouble(parts[3].trim());
-                        String driverId = parts[4].trim();
-                        vehicles.add(new Vehicle(reg, type, mileage, fuel, driverId));
-                    } catch (NumberFormatException e) {
-                        System.out.println("Skipping invalid vehicle line (number format): " + line);
-                    }
-                } else {
-                    System.out.println("Skipping invalid vehicle line (wrong field count): " + line);
+        try {
+            Validation.Report rows = readValidated(file, "registration", VEHICLE_ROWS, true);
+            for (int i = 0; i < rows.size(); i++) {
+                String[] f = rows.fields(i);
+                if (f != null) {
+                    Vehicle vehicle = new Vehicle(f[0], f[1], Integer.parseInt(f[2]), Double.parseDouble(f[3]), f[4]);
+                    vehicle.setLocation(f[5]);
+                    vehicles.add(vehicle);
                 }
             }
         } catch (Exception e) {
@@ -81,61 +174,50 @@ public class FileHandler {
 
     // === DRIVERS ===
 
-    public static void saveDrivers(List<Driver> drivers) {
+    public synchronized void saveDrivers(List<Driver> drivers) {
         try {
-            ensureDataDirectory();
-            BufferedWriter writer = new BufferedWriter(new FileWriter(DRIVER_FILE));
-            for (Driver d : drivers) {
-                writer.write(d.getDriverId() + "," +
-                             d.getName() + "," +
-                             d.getYearsOfExperience() + "," +
-                             d.getDelays() + "," +
-                             d.getInfractions());
-                writer.newLine();
-            }
-            writer.close();
-            System.out.println("Drivers saved to " + DRIVER_FILE);
+            writeDrivers(drivers, false);
+            System.out.println("Drivers saved to " + driverFile.getPath());
         } catch (IOException e) {
             System.out.println("Error saving drivers: " + e.getMessage());
         }
     }
 
-    public static List<Driver> loadDrivers() {
+    public synchronized void writeDrivers(List<Driver> drivers, boolean fsync) throws IOException {
+        writeRows(driverFile, drivers, d -> d.getDriverId() + "," +
+                d.getName() + "," +
+                d.getYearsOfExperience() + "," +
+                d.getDelays() + "," +
+                d.getInfractions() + "," +
+                d.getDelivered() + "," +
+                d.getOnTime() + "," +
+                d.getLatenessMinutes() + "," +
+                (d.getFirstDeliveryDay() == Driver.NO_DAY ? "" : LocalDate.ofEpochDay(d.getFirstDeliveryDay())), fsync);
+    }
+
+    private static int intOrZero(String value) {
+        return value.isEmpty() ? 0 : Integer.parseInt(value);
+    }
+
+    public List<Driver> loadDrivers() {
         List<Driver> drivers = new ArrayList<>();
-        File file = new File(DRIVER_FILE);
+        File file = driverFile;
         if (!file.exists()) {
-            System.out.println("No existing driver file found.");
+            System.out.println("No existing driver file found (" + file.getPath() + ").");
             return drivers;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean firstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (firstLine && line.toLowerCase().contains("driverid")) {
-                    firstLine = false;
+        try {
+            Validation.Report rows = readValidated(file, "driverid", DRIVER_ROWS, true);
+            for (int i = 0; i < rows.size(); i++) {
+                String[] f = rows.fields(i);
+                if (f == null) {
                     continue;
                 }
-                firstLine = false;
-
-                String[] parts = line.split(",");
-                if (parts.length == 5) {
-                    try {
-                        String id = parts[0].trim();
-                        String name = parts[1].trim();
-                        int exp = Integer.parseInt(parts[2].trim());
-                        int delays = Integer.parseInt(parts[3].trim());
-                        int infractions = Integer.parseInt(parts[4].trim());
-                        Driver d = new Driver(id, name, exp);
-                        for (int i = 0; i < delays; i++) d.addDelay();
-                        for (int i = 0; i < infractions; i++) d.addInfraction();
-                        drivers.add(d);
-                    } catch (NumberFormatException e) {
-                        System.out.println("Skipping invalid driver line (number format): " + line);
-                    }
-                } else {
-                    System.out.println("Skipping invalid driver line (wrong field count): " + line);
-                }
+                Driver d = new Driver(f[0], f[1], Integer.parseInt(f[2]));
+                d.restoreCounters(Integer.parseInt(f[3]), Integer.parseInt(f[4]), intOrZero(f[5]), intOrZero(f[6]),
+                        intOrZero(f[7]), f[8].isEmpty() ? Driver.NO_DAY : Validation.parseDay(f[8]));
+                drivers.add(d);
             }
         } catch (Exception e) {
             System.out.println("Error loading drivers: " + e.getMessage());
@@ -146,133 +228,372 @@ public class FileHandler {
 
     // === DELIVERIES ===
 
-    public static void saveDeliveries(List<Delivery> deliveries) {
-        try {
-            ensureDataDirectory();
-            BufferedWriter writer = new BufferedWriter(new FileWriter(DELIVERY_FILE));
-            for (Delivery d : deliveries) {
-                writer.write(d.getPackageId() + "," +
-                             d.getOrigin() + "," +
-                             d.getDestination() + "," +
-                             d.getEta() + "," +
-                             d.getVehicleRegNo() + "," +
-                             d.getDriverId() + "," +
-                             d.getStatus());
-                writer.newLine();
-            }
-            writer.close();
-            System.out.println("Deliveries saved to " + DELIVERY_FILE);
-        } catch (IOException e) {
-            System.out.println("Error saving deliveries: " + e.getMessage());
-        }
+    // Deliveries are stored in partition files (see DeliveryPartitionStore); these read and write one file
+
+    public static void writeDeliveries(File file, List<Delivery> deliveries, boolean fsync) throws IOException {
+        writeRows(file, deliveries, FileHandler::formatDelivery, fsync);
     }
 
-    public static List<Delivery> loadDeliveries() {
+    public static List<Delivery> loadDeliveries(File file) {
         List<Delivery> deliveries = new ArrayList<>();
-        File file = new File(DELIVERY_FILE);
         if (!file.exists()) {
-            System.out.println("No existing deliveries file found.");
             return deliveries;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean firstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (firstLine && line.toLowerCase().contains("packageid")) {
-                    firstLine = false;
-                    continue;
-                }
-                firstLine = false;
-
-                String[] parts = line.split(",");
-                if (parts.length == 7) {
-                    deliveries.add(new Delivery(
-                        parts[0].trim(), parts[1].trim(), parts[2].trim(), parts[3].trim(),
-                        parts[4].trim(), parts[5].trim(), parts[6].trim()
-                    ));
-                } else {
-                    System.out.println("Skipping invalid delivery line: " + line);
+        try {
+            Validation.Report rows = readValidated(file, "packageid", DELIVERY_ROWS, true);
+            for (int i = 0; i < rows.size(); i++) {
+                String[] f = rows.fields(i);
+                if (f != null) {
+                    Delivery d = new Delivery(f[0], f[1], f[2], f[3], f[4], f[5], f[6]);
+                    d.setDelayCharged(!f[7].equals("false"));
+                    d.setChargedLateMinutes(f[8].isEmpty() ? Delivery.NOT_CHARGED : Integer.parseInt(f[8]));
+                    deliveries.add(d);
                 }
             }
         } catch (Exception e) {
-            System.out.println("Error loading deliveries: " + e.getMessage());
+            System.out.println("Error loading deliveries from " + file.getName() + ": " + e.getMessage());
         }
 
         return deliveries;
     }
 
+    // The same rule the Delivery constructor applies, so a row it would refuse is rejected (and kept) here
+    private static String checkEta(String value) {
+        if (value.isEmpty()) {
+            return "ETA is empty (use yyyy-MM-dd HH:mm, or N/A for none)";
+        }
+        try {
+            Delivery.parseEta(value);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage() + " (use yyyy-MM-dd HH:mm, or N/A for none)";
+        }
+    }
+
+    static String formatDelivery(Delivery d) {
+        return d.getPackageId() + "," +
+                d.getOrigin() + "," +
+                d.getDestination() + "," +
+                d.getEta() + "," +
+                d.getVehicleRegNo() + "," +
+                d.getDriverId() + "," +
+                d.getStatus() + "," +
+                d.isDelayCharged() + "," +
+                (d.getChargedLateMinutes() == Delivery.NOT_CHARGED ? "" : d.getChargedLateMinutes());
+    }
+
+    // One deliveries.txt row; throws IllegalArgumentException if it is malformed
+    static Delivery parseDelivery(String line) {
+        String[] parts = line.split(",", -1);
+        if (parts.length < 7 || parts.length > 9) {
+            throw new IllegalArgumentException("wrong field count");
+        }
+        Delivery d = new Delivery(parts[0].trim(), parts[1].trim(), parts[2].trim(), parts[3].trim(),
+                parts[4].trim(), parts[5].trim(), parts[6].trim());
+        d.setDelayCharged(parts.length == 7 || !parts[7].trim().equals("false"));
+        if (parts.length == 9 && !parts[8].trim().isEmpty()) {
+            d.setChargedLateMinutes(Integer.parseInt(parts[8].trim()));
+        }
+        return d;
+    }
+
     // === MAINTENANCE ===
 
-    public static void saveMaintenance(List<Maintenance> records) {
+    public synchronized void saveMaintenance(List<Maintenance> records) {
         try {
-            ensureDataDirectory();
-            BufferedWriter writer = new BufferedWriter(new FileWriter(MAINTENANCE_FILE));
-            for (Maintenance m : records) {
-                writer.write(m.getRegNo() + "," +
-                             m.getServiceType() + "," +
-                             m.getServiceDate() + "," +
-                             m.getMileageAtService() + "," +
-                             m.getPartsReplaced() + "," +
-                             m.getCost() + "," +
-                             m.getNextServiceDate());
-                writer.newLine();
-            }
-            writer.close();
-            System.out.println("Maintenance records saved to " + MAINTENANCE_FILE);
+            writeMaintenance(records, false);
+            System.out.println("Maintenance records saved to " + maintenanceFile.getPath());
         } catch (IOException e) {
             System.out.println("Error saving maintenance: " + e.getMessage());
         }
     }
 
-    public static List<Maintenance> loadMaintenance() {
+    public synchronized void writeMaintenance(List<Maintenance> records, boolean fsync) throws IOException {
+        writeRows(maintenanceFile, records, FileHandler::formatMaintenance, fsync);
+    }
+
+    public List<Maintenance> loadMaintenance() {
         List<Maintenance> records = new ArrayList<>();
-        File file = new File(MAINTENANCE_FILE);
+        File file = maintenanceFile;
         if (!file.exists()) {
-            System.out.println("No existing maintenance file found.");
+            System.out.println("No existing maintenance file found (" + file.getPath() + ").");
             return records;
         }
 
+        try {
+            Validation.Report rows = readValidated(file, "registration", MAINTENANCE_ROWS, true);
+            for (int i = 0; i < rows.size(); i++) {
+                String[] f = rows.fields(i);
+                if (f != null) {
+                    records.add(new Maintenance(f[0], f[1], f[2], Integer.parseInt(f[3]), f[4],
+                            Double.parseDouble(f[5]), f[6]));
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Error loading maintenance: " + e.getMessage());
+        }
+
+        return records;
+    }
+
+    static String formatMaintenance(Maintenance m) {
+        return m.getRegNo() + "," +
+                m.getServiceType() + "," +
+                m.getServiceDate() + "," +
+                m.getMileageAtService() + "," +
+                m.getPartsReplaced() + "," +
+                m.getCost() + "," +
+                m.getNextServiceDate();
+    }
+
+    // One maintenance.txt row; throws IllegalArgumentException (or NumberFormatException) if it is malformed
+    static Maintenance parseMaintenance(String line) {
+        String[] parts = line.split(",", -1);
+        if (parts.length != 7) {
+            throw new IllegalArgumentException("wrong field count");
+        }
+        return new Maintenance(parts[0].trim(), parts[1].trim(), parts[2].trim(),
+                Integer.parseInt(parts[3].trim()), parts[4].trim(),
+                Double.parseDouble(parts[5].trim()), parts[6].trim());
+    }
+
+    // First field of every row in a data file, skipping a header that contains headerMarker
+    static List<String> readKeys(File file, String headerMarker) {
+        List<String> keys = new ArrayList<>();
+        forEachRow(file, headerMarker, line -> {
+            int comma = line.indexOf(',');
+            if (comma > 0) {
+                keys.add(line.substring(0, comma).trim());
+            }
+        });
+        return keys;
+    }
+
+    // Non-blank data lines of a file, streamed (header skipped)
+    static void forEachRow(File file, String headerMarker, Consumer<String> action) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file), 1 << 16)) {
+            String line;
+            boolean firstLine = true;
+            while ((line = reader.readLine()) != null) {
+                if (firstLine && line.toLowerCase().contains(headerMarker)) {
+                    firstLine = false;
+                    continue;
+                }
+                firstLine = false;
+                if (!line.isBlank()) {
+                    action.accept(line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    // === ARCHIVE (compressed, append-only) ===
+
+    // Closed deliveries, keyed by package ID
+    public ArchiveStore<Delivery> deliveryArchive() {
+        return new ArchiveStore<>(new File(archiveDir, "deliveries.arc"),
+                Delivery::getPackageId, FileHandler::formatDelivery, FileHandler::parseDelivery);
+    }
+
+    // Old maintenance records, keyed by registration number
+    public ArchiveStore<Maintenance> maintenanceArchive() {
+        return new ArchiveStore<>(new File(archiveDir, "maintenance.arc"),
+                Maintenance::getRegNo, FileHandler::formatMaintenance, FileHandler::parseMaintenance);
+    }
+
+    // === TELEMETRY HISTORY (compressed time series, append-only) ===
+
+    // Per-vehicle readings with this many fields per point
+    public TimeSeriesStore telemetryHistory(int fields) {
+        return new TimeSeriesStore(telemetryDir, fields);
+    }
+
+    // === ROUTES (read-only road network) ===
+
+    public static List<RouteSegment> loadRoutes() {
+        List<RouteSegment> routes = new ArrayList<>();
+        File file = new File(ROUTE_FILE);
+        if (!file.exists()) {
+            System.out.println("No route network file found. Route suggestions are disabled.");
+            return routes;
+        }
+
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
             boolean firstLine = true;
             while ((line = reader.readLine()) != null) {
-                if (firstLine && line.toLowerCase().contains("registration")) {
+                if (firstLine && line.toLowerCase().startsWith("from")) {
                     firstLine = false;
                     continue;
                 }
                 firstLine = false;
+                if (line.isBlank()) {
+                    continue;
+                }
 
-                String[] parts = line.split(",", -1);
-                if (parts.length == 7) {
+                String[] parts = line.split(",");
+                if (parts.length == 4) {
                     try {
-                        String reg = parts[0].trim();
-                        String type = parts[1].trim();
-                        String date = parts[2].trim();
-                        int mileage = Integer.parseInt(parts[3].trim());
-                        String partsReplaced = parts[4].trim();
-                        double cost = Double.parseDouble(parts[5].trim());
-                        String nextDate = parts[6].trim();
-                        records.add(new Maintenance(reg, type, date, mileage, partsReplaced, cost, nextDate));
+                        routes.add(new RouteSegment(parts[0].trim(), parts[1].trim(),
+                                Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim())));
                     } catch (NumberFormatException e) {
-                        System.out.println("Skipping invalid maintenance line (number format): " + line);
+                        System.out.println("Skipping invalid route line (number format): " + line);
                     }
                 } else {
-                    System.out.println("Skipping invalid maintenance line (wrong field count): " + line);
+                    System.out.println("Skipping invalid route line (wrong field count): " + line);
                 }
             }
         } catch (Exception e) {
-            System.out.println("Error loading maintenance: " + e.getMessage());
+            System.out.println("Error loading routes: " + e.getMessage());
         }
 
-        return records;
+        return routes;
+    }
+
+    // === TOWNS (read-only gazetteer) ===
+
+    public static List<Town> loadTowns() {
+        List<Town> towns = new ArrayList<>();
+        File file = new File(TOWN_FILE);
+        if (!file.exists()) {
+            System.out.println("No town gazetteer found. Nearest-vehicle dispatch is disabled.");
+            return towns;
+        }
+
+        try {
+            Validation.Report rows = readValidated(file, "latitude", TOWN_ROWS, false);
+            for (int i = 0; i < rows.size(); i++) {
+                String[] f = rows.fields(i);
+                if (f != null) {
+                    towns.add(new Town(f[0], Double.parseDouble(f[1]), Double.parseDouble(f[2])));
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Error loading towns: " + e.getMessage());
+        }
+
+        return towns;
+    }
+
+    // === DEPOTS (shared list of depots and their data directories) ===
+
+    // Empty when there is no depot file: a single depot on data/
+    public static List<Depot> loadDepots() {
+        List<Depot> depots = new ArrayList<>();
+        File file = new File(DEPOT_FILE);
+        if (!file.exists()) {
+            return depots;
+        }
+
+        try {
+            Validation.Report rows = readValidated(file, "depot", DEPOT_ROWS, false);
+            for (int i = 0; i < rows.size(); i++) {
+                String[] f = rows.fields(i);
+                if (f != null) {
+                    String directory = f[2].isEmpty()
+                            ? DATA_DIR + "/depots/" + f[0].toLowerCase().replace(' ', '-') : f[2];
+                    depots.add(new Depot(f[0], f[1], new File(directory)));
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Error loading depots: " + e.getMessage());
+        }
+
+        return depots;
     }
 
     // === Utility ===
 
-    private static void ensureDataDirectory() {
-        File dir = new File("data");
-        if (!dir.exists()) {
+    // Rows after the optional header line, checked against the schema; invalid rows are reported.
+    // For files the app rewrites, invalid rows are also kept aside (see keepRejected).
+    private static Validation.Report readValidated(File file, String headerMarker, Validation.Schema schema,
+                                                   boolean rewritten) throws IOException {
+        List<String> rows = new ArrayList<>();
+        int firstLine = 1;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file), 1 << 16)) {
+            String line = reader.readLine();
+            if (line != null && line.toLowerCase().contains(headerMarker)) {
+                firstLine = 2;
+                line = reader.readLine();
+            }
+            for (; line != null; line = reader.readLine()) {
+                rows.add(line);
+            }
+        }
+        Validation.Report report = schema.validate(rows, firstLine);
+        report.print(file.getName(), 10);
+        if (rewritten && report.errorCount() > 0) {
+            keepRejected(file, report);
+        }
+        return report;
+    }
+
+    /**
+     * Append the invalid rows of a data file to file.rejected, each under a
+     * comment saying why, so the next save (which only writes the rows that
+     * loaded) does not lose them. Rows already in that file are not added
+     * again, so loading the same file twice before a save is harmless.
+     */
+    private static void keepRejected(File file, Validation.Report report) {
+        File rejected = new File(file.getPath() + ".rejected");
+        try {
+            Set<String> kept = new HashSet<>();
+            if (rejected.exists()) {
+                for (String line : Files.readAllLines(rejected.toPath())) {
+                    if (!line.startsWith("#")) {
+                        kept.add(line);
+                    }
+                }
+            }
+            List<String> rows = report.invalidRows();
+            List<String> errors = report.errors();
+            int added = 0;
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(rejected, true))) {
+                for (int i = 0; i < rows.size(); i++) {
+                    if (kept.add(rows.get(i))) {
+                        writer.write("# " + file.getName() + " " + errors.get(i));
+                        writer.newLine();
+                        writer.write(rows.get(i));
+                        writer.newLine();
+                        added++;
+                    }
+                }
+            }
+            if (added > 0) {
+                System.out.println("Kept " + added + " invalid row(s) in " + rejected.getPath()
+                        + "; fix them there and copy them back to keep them.");
+            }
+        } catch (IOException e) {
+            System.out.println("Error keeping invalid rows of " + file.getName() + ": " + e.getMessage()
+                    + ". They will be dropped from the file on the next save.");
+        }
+    }
+
+    // One line per row; the writer is flushed (and fsynced if asked) before the file is closed
+    // Written to file.tmp and renamed over the file, so a crash or error mid-write leaves the old file whole
+    private static <T> void writeRows(File file, List<T> rows, Function<T, String> format, boolean fsync)
+            throws IOException {
+        ensureDirectory(file.getAbsoluteFile().getParentFile());
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out), 1 << 16)) {
+            for (T row : rows) {
+                writer.write(format.apply(row));
+                writer.newLine();
+            }
+            writer.flush();
+            if (fsync) {
+                out.getFD().sync();
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void ensureDirectory(File dir) {
+        if (dir != null && !dir.exists()) {
             dir.mkdirs();
         }
     }
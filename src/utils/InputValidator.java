@@ -1,10 +1,9 @@
 package utils;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Scanner;
+import models.Symbols;
+import structures.trie.RadixTree;
 
 /**
  * Utility class for robust input validation and error handling
@@ -12,7 +11,15 @@ import java.util.Scanner;
 public class InputValidator {
 
     private static final Scanner scanner = new Scanner(System.in);
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /**
+     * Read one raw line from the shared console reader. Every interactive
+     * class reads through here so piped input is never split across several
+     * Scanners.
+     */
+    public static String readLine() {
+        return scanner.nextLine();
+    }
 
     /**
      * Get a valid integer input with retry mechanism and special command
@@ -40,16 +47,14 @@ public class InputValidator {
                     return -999; // Special value to indicate user wants to go back
                 }
 
-                int value = Integer.parseInt(input);
-                if (value < min || value > max) {
-                    System.out.println("Please enter a number between " + min + " and " + max + " (or 'back' to return)");
-                    System.out.println("INFO: Valid range: " + min + " to " + max);
+                String error = checkInteger(input, min, max);
+                if (error != null) {
+                    System.out.println(error + " (or 'back' to return)");
                     continue;
                 }
-                return value;
+                return Integer.parseInt(input);
             } catch (NumberFormatException e) {
                 System.out.println("Invalid input. Please enter a valid number (or 'back' to return)");
-                System.out.println("INFO: Enter only numeric values (e.g., 123)");
             }
         }
     }
@@ -68,12 +73,12 @@ public class InputValidator {
                     return -999.0; // Special value to indicate user wants to go back
                 }
 
-                double value = Double.parseDouble(input);
-                if (value < min || value > max) {
-                    System.out.println("Please enter a number between " + min + " and " + max + " (or 'back' to return)");
+                String error = checkDouble(input, min, max);
+                if (error != null) {
+                    System.out.println(error + " (or 'back' to return)");
                     continue;
                 }
-                return value;
+                return Double.parseDouble(input);
             } catch (NumberFormatException e) {
                 System.out.println("Invalid input. Please enter a valid decimal number (or 'back' to return)");
             }
@@ -93,24 +98,9 @@ public class InputValidator {
                 return "BACK";
             }
 
-            if (input.isEmpty()) {
-                System.out.println("Name cannot be empty. Please try again (or 'back' to return)");
-                continue;
-            }
-
-            if (input.length() < minLength) {
-                System.out.println("Name must be at least " + minLength + " characters long (or 'back' to return)");
-                continue;
-            }
-
-            if (input.length() > maxLength) {
-                System.out.println("Name must be no more than " + maxLength + " characters long (or 'back' to return)");
-                continue;
-            }
-
-            // Check if name contains only letters, spaces, hyphens and apostrophes
-            if (!input.matches("[a-zA-Z\\s\\-']+")) {
-                System.out.println("Name can only contain letters, spaces, hyphens, and apostrophes (or 'back' to return)");
+            String error = checkName(input, minLength, maxLength);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
                 continue;
             }
 
@@ -131,12 +121,12 @@ public class InputValidator {
                 return "BACK";
             }
 
-            try {
-                LocalDate.parse(input, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                return input;
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format. Please use YYYY-MM-DD (e.g., 2025-07-16) or 'back' to return");
+            String error = checkDate(input);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
+                continue;
             }
+            return input;
         }
     }
 
@@ -153,20 +143,12 @@ public class InputValidator {
                 return "BACK";
             }
 
-            try {
-                LocalDate inputDate = LocalDate.parse(input, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                LocalDate today = LocalDate.now();
-
-                if (inputDate.isBefore(today)) {
-                    System.out.println("Date cannot be in the past. Please enter today's date ("
-                            + today.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ") or later (or 'back' to return)");
-                    continue;
-                }
-
-                return input;
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format. Please use YYYY-MM-DD (e.g., 2025-07-16) or 'back' to return");
+            String error = checkFutureDate(input);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
+                continue;
             }
+            return input;
         }
     }
 
@@ -183,20 +165,12 @@ public class InputValidator {
                 return "BACK";
             }
 
-            try {
-                LocalDate inputDate = LocalDate.parse(input, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                LocalDate today = LocalDate.now();
-
-                if (inputDate.isAfter(today)) {
-                    System.out.println("Date cannot be in the future. Please enter today's date ("
-                            + today.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ") or earlier (or 'back' to return)");
-                    continue;
-                }
-
-                return input;
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format. Please use YYYY-MM-DD (e.g., 2025-07-16) or 'back' to return");
+            String error = checkPastDate(input);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
+                continue;
             }
+            return input;
         }
     }
 
@@ -204,6 +178,14 @@ public class InputValidator {
      * Get a valid future date-time input for ETA
      */
     public static String getValidFutureDateTime(String prompt) {
+        return getValidFutureDateTime(prompt, null);
+    }
+
+    /**
+     * Get a valid future date-time input; an empty line accepts the suggested
+     * value when one is given
+     */
+    public static String getValidFutureDateTime(String prompt, String suggested) {
         while (true) {
             System.out.print(prompt + " (Format: yyyy-MM-dd HH:mm, must be in the future): ");
             String input = scanner.nextLine().trim();
@@ -213,19 +195,16 @@ public class InputValidator {
                 return "BACK";
             }
 
-            try {
-                LocalDateTime inputDateTime = LocalDateTime.parse(input, DATE_FORMATTER);
-                LocalDateTime now = LocalDateTime.now();
-
-                if (inputDateTime.isBefore(now)) {
-                    System.out.println("ETA cannot be in the past. Please enter a future date and time (or 'back' to return)");
-                    continue;
-                }
+            if (input.isEmpty() && suggested != null) {
+                return suggested;
+            }
 
-                return input;
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format. Please use yyyy-MM-dd HH:mm (e.g., 2025-07-16 14:30) or 'back' to return");
+            String error = checkFutureDateTime(input);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
+                continue;
             }
+            return input;
         }
     }
 
@@ -243,13 +222,13 @@ public class InputValidator {
                     return -999.0;
                 }
 
-                double cost = Double.parseDouble(input);
-                if (cost < 0) {
-                    System.out.println("Cost cannot be negative. Please enter a positive value (or 'back' to return)");
+                String error = checkCost(input);
+                if (error != null) {
+                    System.out.println(error + " (or 'back' to return)");
                     continue;
                 }
 
-                return cost;
+                return Double.parseDouble(input);
             } catch (NumberFormatException e) {
                 System.out.println("Invalid input. Please enter a valid cost (e.g., 150.50) or 'back' to return");
             }
@@ -270,28 +249,9 @@ public class InputValidator {
                 return "BACK";
             }
 
-            if (input.isEmpty()) {
-                System.out.println("Phone number cannot be empty. Please try again (or 'back' to return)");
-                continue;
-            }
-
-            // Remove all non-digit characters to check length
-            String digitsOnly = input.replaceAll("[^0-9]", "");
-
-            if (digitsOnly.length() < 10) {
-                System.out.println("Phone number must contain at least 10 digits (or 'back' to return)");
-                continue;
-            }
-
-            if (digitsOnly.length() > 15) {
-                System.out.println("Phone number must contain no more than 15 digits (or 'back' to return)");
-                continue;
-            }
-
-            // Check if phone contains only valid characters (numbers, spaces, hyphens, parentheses, plus)
-            if (!input.matches("[0-9\\s\\-()\\+]+")) {
-                System.out.println("Phone number can only contain numbers, spaces, hyphens, parentheses, and plus sign");
-                System.out.println("Examples: +1-234-567-8900, (234) 567-8900, 234-567-8900 (or 'back' to return)");
+            String error = checkPhoneNumber(input);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
                 continue;
             }
 
@@ -312,33 +272,33 @@ public class InputValidator {
                 return "BACK";
             }
 
-            if (input.isEmpty()) {
-                System.out.println("License number cannot be empty. Please try again (or 'back' to return)");
+            String error = checkLicenseNumber(input, minLength, maxLength);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
                 continue;
             }
 
-            if (input.length() < minLength) {
-                System.out.println("License number must be at least " + minLength + " characters long (or 'back' to return)");
-                continue;
-            }
+            return input;
+        }
+    }
 
-            if (input.length() > maxLength) {
-                System.out.println("License number must be no more than " + maxLength + " characters long (or 'back' to return)");
-                continue;
-            }
+    /**
+     * Get a valid vehicle registration number (letters and digits in groups
+     * separated by hyphens or spaces)
+     */
+    public static String getValidPlate(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String input = scanner.nextLine().trim().toUpperCase();
 
-            // Check if license contains only letters, numbers, and hyphens
-            if (!input.matches("[A-Z0-9\\-]+")) {
-                System.out.println("License number can only contain letters, numbers, and hyphens (e.g., ABC-123-DEF or DL123456) (or 'back' to return)");
-                continue;
+            // Check for back command
+            if (input.equals("BACK") || input.equals("B")) {
+                return "BACK";
             }
 
-            // Ensure it contains at least one letter and one number for realism
-            boolean hasLetter = input.matches(".*[A-Z].*");
-            boolean hasNumber = input.matches(".*[0-9].*");
-
-            if (!hasLetter || !hasNumber) {
-                System.out.println("License number must contain at least one letter and one number (e.g., ABC-123-DEF or DL123456) (or 'back' to return)");
+            String error = checkPlate(input);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
                 continue;
             }
 
@@ -360,38 +320,80 @@ public class InputValidator {
                 return "BACK";
             }
 
-            if (input.isEmpty()) {
-                System.out.println("Location cannot be empty. Please try again (or 'back' to return)");
+            if (showCompletions(Symbols.LOCATION_NAMES, input)) {
                 continue;
             }
 
-            if (input.length() < minLength) {
-                System.out.println("Location must be at least " + minLength + " characters long (or 'back' to return)");
-                continue;
-            }
-
-            if (input.length() > maxLength) {
-                System.out.println("Location must be no more than " + maxLength + " characters long (or 'back' to return)");
-                continue;
-            }
-
-            // Check if location contains only letters, spaces, commas, periods, hyphens, apostrophes
-            // No pure numbers allowed - must start with a letter
-            if (!input.matches("[a-zA-Z][a-zA-Z\\s,.'\\-]*")) {
-                System.out.println("Location must start with a letter and contain only letters, spaces, commas, periods, apostrophes, and hyphens (or 'back' to return)");
+            String error = checkLocation(input, minLength, maxLength);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
                 System.out.println("Examples: 'Accra', 'Cape Coast', 'Ho Central', 'St. Mary's District'");
                 continue;
             }
 
-            // Additional check: reject if it's purely numeric or starts with numbers
-            if (input.matches("^[0-9].*") || input.matches("^[0-9\\s,.\\-']+$")) {
-                System.out.println("Location cannot be purely numeric or start with numbers (or 'back' to return)");
-                System.out.println("Please enter a proper location name like 'Accra' or 'Cape Coast'");
-                continue;
-            }
+            return confirmLocation(input);
+        }
+    }
 
+    // Offer close known spellings for an unknown town; Enter keeps what was typed
+    private static String confirmLocation(String input) {
+        RadixTree index = Symbols.LOCATION_NAMES;
+        if (index.contains(input)) {
             return input;
         }
+        List<RadixTree.Match> close = index.fuzzy(input, input.length() <= 4 ? 1 : 2, 5);
+        if (close.isEmpty()) {
+            return input;
+        }
+
+        System.out.println("'" + input + "' is not a known location. Did you mean:");
+        for (int i = 0; i < close.size(); i++) {
+            System.out.println("  " + (i + 1) + ". " + close.get(i).key());
+        }
+        System.out.print("Enter a number to use it, or press Enter to keep '" + input + "': ");
+        String choice = scanner.nextLine().trim();
+        try {
+            int pick = Integer.parseInt(choice);
+            if (pick >= 1 && pick <= close.size()) {
+                return close.get(pick - 1).key();
+            }
+        } catch (NumberFormatException e) {
+            // keep the typed value
+        }
+        return input;
+    }
+
+    /**
+     * Search prompts accept "abc?" to list up to 10 known entries starting
+     * with abc. Returns true if the input was such a query (and was shown).
+     */
+    public static boolean showCompletions(RadixTree index, String input) {
+        if (!input.endsWith("?")) {
+            return false;
+        }
+        String prefix = input.substring(0, input.length() - 1);
+        List<String> matches = index.complete(prefix, 10);
+        if (matches.isEmpty()) {
+            System.out.println("No entries start with '" + prefix.trim() + "'.");
+        } else {
+            System.out.println("Matches: " + String.join(", ", matches));
+        }
+        return true;
+    }
+
+    // After a failed lookup, print the closest known entries (if any)
+    public static void showDidYouMean(RadixTree index, String input, int maxEdits) {
+        List<RadixTree.Match> close = index.fuzzy(input, maxEdits, 5);
+        List<String> prefixed = close.isEmpty() ? index.complete(input, 5) : List.of();
+        if (!close.isEmpty()) {
+            StringBuilder sb = new StringBuilder("Did you mean: ");
+            for (int i = 0; i < close.size(); i++) {
+                sb.append(i == 0 ? "" : ", ").append(close.get(i).key());
+            }
+            System.out.println(sb.append('?'));
+        } else if (!prefixed.isEmpty()) {
+            System.out.println("Did you mean: " + String.join(", ", prefixed) + "?");
+        }
     }
 
     public static String getValidChoice(String prompt, String[] allowedValues, boolean caseSensitive) {
@@ -404,10 +406,9 @@ public class InputValidator {
                 return "BACK"; // Special value to indicate user wants to go back
             }
 
-            for (String allowed : allowedValues) {
-                if (caseSensitive ? input.equals(allowed) : input.equalsIgnoreCase(allowed)) {
-                    return caseSensitive ? input : allowed;
-                }
+            String match = matchChoice(input, allowedValues, caseSensitive);
+            if (match != null) {
+                return match;
             }
 
             System.out.print("Invalid choice. Please select from: ");
@@ -434,18 +435,9 @@ public class InputValidator {
                 return "BACK"; // Special value to indicate user wants to go back
             }
 
-            if (input.isEmpty()) {
-                System.out.println("Input cannot be empty. Please try again (or 'back' to return)");
-                continue;
-            }
-
-            if (input.length() < minLength) {
-                System.out.println("Input must be at least " + minLength + " characters long (or 'back' to return)");
-                continue;
-            }
-
-            if (input.length() > maxLength) {
-                System.out.println("Input must be no more than " + maxLength + " characters long (or 'back' to return)");
+            String error = checkString(input, minLength, maxLength);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
                 continue;
             }
 
@@ -466,12 +458,12 @@ public class InputValidator {
                 return "BACK"; // Special value to indicate user wants to go back
             }
 
-            try {
-                LocalDateTime.parse(input, DATE_FORMATTER);
-                return input;
-            } catch (DateTimeParseException e) {
-                System.out.println("Invalid date format. Please use yyyy-MM-dd HH:mm (e.g., 2025-07-16 14:30) or 'back' to return");
+            String error = checkDateTime(input);
+            if (error != null) {
+                System.out.println(error + " (or 'back' to return)");
+                continue;
             }
+            return input;
         }
     }
 
@@ -501,6 +493,79 @@ public class InputValidator {
         }
     }
 
+    // === Validation rules (no prompting) ===
+    // Each check returns null when the input is valid, otherwise the message
+    // to show. The rules themselves live in Validation, which the batch
+    // runner and the file loaders use too.
+
+    public static String checkInteger(String input, int min, int max) {
+        return Validation.checkInteger(input, min, max);
+    }
+
+    public static String checkDouble(String input, double min, double max) {
+        return Validation.checkDouble(input, min, max);
+    }
+
+    public static String checkCost(String input) {
+        return Validation.checkCost(input);
+    }
+
+    public static String checkString(String input, int minLength, int maxLength) {
+        return Validation.checkString(input, minLength, maxLength);
+    }
+
+    public static String checkName(String input, int minLength, int maxLength) {
+        return Validation.checkName(input, minLength, maxLength);
+    }
+
+    public static String checkLocation(String input, int minLength, int maxLength) {
+        return Validation.checkLocation(input, minLength, maxLength);
+    }
+
+    public static String checkLicenseNumber(String input, int minLength, int maxLength) {
+        return Validation.checkLicenseNumber(input, minLength, maxLength);
+    }
+
+    public static String checkPlate(String input) {
+        return Validation.checkPlate(input);
+    }
+
+    public static String checkPhoneNumber(String input) {
+        return Validation.checkPhoneNumber(input);
+    }
+
+    public static String checkDate(String input) {
+        return Validation.checkDate(input);
+    }
+
+    public static String checkFutureDate(String input) {
+        return Validation.checkFutureDate(input);
+    }
+
+    public static String checkPastDate(String input) {
+        return Validation.checkPastDate(input);
+    }
+
+    public static String checkDateTime(String input) {
+        return Validation.checkDateTime(input);
+    }
+
+    public static String checkFutureDateTime(String input) {
+        return Validation.checkFutureDateTime(input);
+    }
+
+    /**
+     * Return the canonical allowed value matching the input, or null
+     */
+    public static String matchChoice(String input, String[] allowedValues, boolean caseSensitive) {
+        for (String allowed : allowedValues) {
+            if (caseSensitive ? input.equals(allowed) : input.equalsIgnoreCase(allowed)) {
+                return caseSensitive ? input : allowed;
+            }
+        }
+        return null;
+    }
+
     /**
      * Ask user if they want to continue or go back
      */
@@ -0,0 +1,126 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import structures.hash.ScalableBloomFilter;
+
+/**
+ * Filter over every package ID ever issued: live, in cold partitions, or
+ * archived. mightContain() == false means the ID is definitely new, so the
+ * duplicate check needs no disk access; only a hit falls through to the
+ * exact lookups.
+ *
+ * Stored as data/deliveries/package-ids.bloom. It is saved before the
+ * delivery partitions it covers, so on disk it is always a superset of the
+ * stored IDs (a stale filter could only cause an extra exact lookup, never a
+ * missed duplicate). If the file is missing or unreadable it is rebuilt by
+ * scanning partition files and archive blocks in parallel.
+ */
+public class PackageIdIndex {
+
+    private static final String FILE_NAME = "package-ids.bloom";
+
+    private final File file;
+    private final ScalableBloomFilter filter;
+    private long savedSize = -1;    // filter size at the last save; -1 = never saved
+
+    public PackageIdIndex(DeliveryPartitionStore store, ArchiveStore<?> archive) {
+        this.file = new File(store.getDirectory(), FILE_NAME);
+        ScalableBloomFilter loaded = read();
+        if (loaded != null) {
+            filter = loaded;
+            savedSize = loaded.size();
+        } else {
+            filter = rebuild(store, archive);
+            try {
+                save(true);
+            } catch (IOException e) {
+                System.out.println("Error saving package ID filter: " + e.getMessage());
+            }
+        }
+    }
+
+    public boolean mightContain(String packageId) {
+        return filter.mightContain(packageId);
+    }
+
+    public void add(String packageId) {
+        filter.add(packageId);
+    }
+
+    public long size() {
+        return filter.size();
+    }
+
+    /**
+     * Write the filter if IDs were added since the last save. Call before
+     * writing the partitions that hold those IDs.
+     */
+    public synchronized void save(boolean fsync) throws IOException {
+        long size = filter.size();
+        if (size == savedSize) {
+            return;
+        }
+        file.getParentFile().mkdirs();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out), 1 << 16)) {
+            writer.write("# capacity,bitsPerKey,count,filter");
+            writer.newLine();
+            for (String line : filter.toLines()) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            if (fsync) {
+                out.getFD().sync();
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        savedSize = size;
+    }
+
+    private ScalableBloomFilter read() {
+        if (!file.exists()) {
+            return null;
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+            return ScalableBloomFilter.fromLines(lines);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Package ID filter unreadable (" + e.getMessage() + "); rebuilding.");
+            return null;
+        }
+    }
+
+    private ScalableBloomFilter rebuild(DeliveryPartitionStore store, ArchiveStore<?> archive) {
+        long start = System.nanoTime();
+        List<String> ids = store.readAllPackageIds();
+        ids.addAll(archive.keys());
+
+        ScalableBloomFilter rebuilt = new ScalableBloomFilter(ids.size() * 2);
+        for (String id : ids) {
+            rebuilt.add(id);
+        }
+        if (!ids.isEmpty()) {
+            System.out.printf("Rebuilt package ID filter from %d IDs in %d ms.\n",
+                    ids.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+        return rebuilt;
+    }
+}
@@ -0,0 +1,222 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import structures.persistent.PersistentVector;
+
+/**
+ * Page-at-a-time browsing for large listings.
+ *
+ * A listing is a Cursor: positioned access into whatever already holds the
+ * records (a snapshot, a queue, an index's result list). Only the rows of
+ * the page on screen are read and formatted, through one reusable
+ * TextBuffer, so a million-row listing costs the same per page as a
+ * ten-row one. Filtered cursors scan forward only as far as the pages
+ * asked for and remember where each match was.
+ *
+ * Short listings print in one go; longer ones prompt for
+ * [n]ext, [p]rev, a page number, [l]ast or [q]uit.
+ */
+public final class Pager {
+
+    public static final int PAGE_SIZE = 20;
+
+    /** Positioned access to the records of a listing. */
+    public interface Cursor<T> {
+
+        // Record at index, or null past the end
+        T get(int index);
+
+        // Number of records, or -1 while a filter has not seen them all
+        int size();
+    }
+
+    /** Writes one record as one row (no trailing newline). */
+    @FunctionalInterface
+    public interface Row<T> {
+        void render(T item, TextBuffer out);
+    }
+
+    private Pager() {
+    }
+
+    // Non-null entries of a snapshot in index order; empty slots are skipped as pages are reached
+    public static <T> Cursor<T> of(PersistentVector<T> vector) {
+        return sparse(vector.bound(), vector::get, vector.size());
+    }
+
+    // The size non-null entries among slots [0, bound), e.g. an array indexed by ID
+    public static <T> Cursor<T> sparse(int bound, IntFunction<T> slot, int size) {
+        return new Scan<>(slot, bound, true, x -> true, size);
+    }
+
+    // For random-access lists (ArrayList and the like)
+    public static <T> Cursor<T> of(List<T> list) {
+        return indexed(list.size(), list::get);
+    }
+
+    public static <T> Cursor<T> indexed(int size, IntFunction<T> get) {
+        return new Cursor<>() {
+            @Override
+            public T get(int index) {
+                return index >= 0 && index < size ? get.apply(index) : null;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // The records of base that match, found lazily
+    public static <T> Cursor<T> filter(Cursor<T> base, Predicate<? super T> keep) {
+        int bound = base.size() < 0 ? Integer.MAX_VALUE : base.size();
+        return new Scan<>(base::get, bound, false, keep, -1);
+    }
+
+    /**
+     * Forward scan over slots [0, bound) that remembers the slot of every
+     * match it has passed, so going back a page or re-reading one is a
+     * direct lookup.
+     */
+    private static final class Scan<T> implements Cursor<T> {
+        private final IntFunction<T> slot;
+        private final int bound;
+        private final boolean holes;            // null slot: skip it (true) or end of data (false)
+        private final Predicate<? super T> keep;
+        private final int knownSize;            // -1 until the scan reaches the end
+        private int[] hits = new int[64];
+        private int count;
+        private int scanned;                    // slots before this have been tested
+        private boolean done;
+
+        Scan(IntFunction<T> slot, int bound, boolean holes, Predicate<? super T> keep, int knownSize) {
+            this.slot = slot;
+            this.bound = bound;
+            this.holes = holes;
+            this.keep = keep;
+            this.knownSize = knownSize;
+        }
+
+        @Override
+        public T get(int index) {
+            while (index >= count && !done) {
+                if (scanned >= bound) {
+                    done = true;
+                    break;
+                }
+                T item = slot.apply(scanned);
+                if (item == null && !holes) {
+                    done = true;
+                    break;
+                }
+                if (item != null && keep.test(item)) {
+                    if (count == hits.length) {
+                        hits = Arrays.copyOf(hits, count * 2);
+                    }
+                    hits[count++] = scanned;
+                }
+                scanned++;
+            }
+            return index >= 0 && index < count ? slot.apply(hits[index]) : null;
+        }
+
+        @Override
+        public int size() {
+            return done ? count : knownSize;
+        }
+    }
+
+    /**
+     * Show the records page by page. header writes the title lines, each
+     * ended with newline() (or null for none); emptyMessage is printed when
+     * there are no records.
+     */
+    public static <T> void browse(Cursor<T> cursor, Consumer<TextBuffer> header, Row<? super T> row, String emptyMessage) {
+        TextBuffer out = new TextBuffer(System.out);
+        if (cursor.get(0) == null) {
+            System.out.println(emptyMessage);
+            return;
+        }
+        // One page's worth or less: no prompt
+        if (cursor.get(PAGE_SIZE) == null) {
+            renderPage(cursor, 0, header, row, out);
+            out.flush();
+            return;
+        }
+
+        int page = 0;
+        boolean show = true;
+        while (true) {
+            if (show) {
+                renderPage(cursor, page, header, row, out);
+                int size = cursor.size();
+                out.append("Page ").append(page + 1);
+                if (size >= 0) {
+                    out.append(" of ").append((size - 1) / PAGE_SIZE + 1).append(" (").append(size).append(" records)");
+                } else {
+                    out.append(" (more follow)");
+                }
+                out.newline();
+                show = false;
+            }
+            out.append("[n]ext, [p]rev, page number, [l]ast or [q]uit: ");
+            out.flush();
+
+            String input = InputValidator.readLine().trim().toLowerCase();
+            int target = page;
+            switch (input) {
+                case "", "n" -> target = page + 1;
+                case "p" -> target = page - 1;
+                case "l" -> target = lastPage(cursor);
+                case "q", "back" -> {
+                    return;
+                }
+                default -> {
+                    String error = Validation.checkInteger(input, 1, Integer.MAX_VALUE);
+                    if (error != null) {
+                        System.out.println("Invalid input. Use n, p, l, q or a page number.");
+                        continue;
+                    }
+                    target = Integer.parseInt(input) - 1;
+                }
+            }
+            if (target < 0) {
+                System.out.println("Already on the first page.");
+                continue;
+            }
+            if (target > (Integer.MAX_VALUE - PAGE_SIZE) / PAGE_SIZE || cursor.get(target * PAGE_SIZE) == null) {
+                System.out.println(target == page + 1 ? "Already on the last page." : "No such page.");
+                continue;
+            }
+            page = target;
+            show = true;
+        }
+    }
+
+    private static <T> int lastPage(Cursor<T> cursor) {
+        if (cursor.size() < 0) {
+            cursor.get(Integer.MAX_VALUE); // let a filter count everything
+        }
+        return (cursor.size() - 1) / PAGE_SIZE;
+    }
+
+    private static <T> void renderPage(Cursor<T> cursor, int page, Consumer<TextBuffer> header, Row<? super T> row, TextBuffer out) {
+        if (header != null) {
+            header.accept(out);
+        }
+        int from = page * PAGE_SIZE;
+        for (int i = from; i < from + PAGE_SIZE; i++) {
+            T item = cursor.get(i);
+            if (item == null) {
+                break;
+            }
+            row.render(item, out);
+            out.newline();
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package utils;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import models.Driver;
+import models.Maintenance;
+import models.Vehicle;
+import structures.queue.ConcurrentRingQueue;
+
+/**
+ * Background writer for the data files.
+ *
+ * Managers submit a change record (which file of which data directory, plus
+ * a point-in-time copy of its rows) and return at once. The writer thread
+ * keeps only the newest record per file, so a burst of changes to the same
+ * file becomes one rewrite and one fsync. Each depot has its own data
+ * directory; its files are coalesced separately but share the one thread.
+ * When the writes happen depends on the durability mode:
+ *
+ *   PER_OPERATION  write and fsync straight away; submit() waits for it
+ *   GROUP          write and fsync once per window (default 50 ms)
+ *   ON_EXIT        write only on flush() / shutdown
+ *   NONE           never write; set by the simulator, not selectable by flag
+ *
+ * Every submit returns a ticket; awaitDurable(ticket) or flush() block until
+ * the change is on disk. A write that fails is reported and not retried on
+ * its own: tickets stop counting as durable at the failed change, and
+ * awaitDurable() and flush() throw its error until a later save of the same
+ * file succeeds. For a partitioned target that later save only counts if it
+ * covers the failed partitions, so the next change to the target also
+ * rewrites every partition an earlier failed write left unsaved.
+ */
+public class PersistenceWriter {
+
+    public enum Durability {
+        PER_OPERATION, GROUP, ON_EXIT, NONE;
+
+        // "per-op", "group", "on-exit" (case and '-'/'_' tolerant), or null
+        public static Durability parse(String text) {
+            String key = text.trim().toUpperCase().replace('-', '_');
+            return switch (key) {
+                case "PER_OP", "PER_OPERATION", "SYNC" -> PER_OPERATION;
+                case "GROUP" -> GROUP;
+                case "ON_EXIT", "EXIT" -> ON_EXIT;
+                default -> null;
+            };
+        }
+    }
+
+    public enum Target { VEHICLES, DRIVERS, DELIVERIES, MAINTENANCE }
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+    private static Durability durability = Durability.GROUP;
+    private static long groupNanos = 50_000_000L;
+
+    private static final ConcurrentRingQueue<Change> queue = new ConcurrentRingQueue<>(QUEUE_CAPACITY);
+    private static final Object submitLock = new Object();  // keeps tickets in queue order
+    private static final Object durableLock = new Object();
+    private static long submitted = 0;                      // last ticket handed out (under submitLock)
+    private static volatile long durable = 0;               // every ticket <= this is written
+    private static final Map<FileHandler, Failure[]> failures = new LinkedHashMap<>(); // by file (under durableLock)
+    private static volatile boolean flushRequested = false;
+    private static volatile boolean closing = false;
+    private static volatile Thread writer;
+    private static boolean hookInstalled = false;
+
+    // Rewrites only the named partitions of a partitioned target
+    @FunctionalInterface
+    public interface PartitionedWrite {
+        void write(Set<Integer> partitions, boolean fsync) throws IOException;
+    }
+
+    // A file and a supplier of the rows it should hold (suppliers must only read frozen data),
+    // or for partitioned targets the partitions touched and how to rewrite them
+    private record Change(long ticket, FileHandler files, Target target, Supplier<? extends List<?>> rows,
+                          Set<Integer> partitions, PartitionedWrite partitionedWrite) {}
+
+    // The newest change to a file that could not be written
+    private record Failure(Change change, IOException error) {}
+
+    // Choose the mode before the first submit (e.g. from a command-line flag)
+    public static synchronized void configure(Durability mode, long groupMillis) {
+        durability = mode;
+        groupNanos = Math.max(1, groupMillis) * 1_000_000L;
+    }
+
+    public static Durability getDurability() {
+        return durability;
+    }
+
+    public static long getGroupMillis() {
+        return groupNanos / 1_000_000L;
+    }
+
+    /**
+     * Queue a rewrite of one data file and return its ticket. Only blocks in
+     * PER_OPERATION mode, or briefly when the queue is full.
+     */
+    public static long submit(FileHandler files, Target target, Supplier<? extends List<?>> rows) {
+        return enqueue(files, target, rows, null, null);
+    }
+
+    /**
+     * Like submit(), for a target stored in partitions. When changes are
+     * coalesced the newest write runs once over the union of their partitions.
+     */
+    public static long submitPartitioned(FileHandler files, Target target, Set<Integer> partitions,
+                                         PartitionedWrite write) {
+        return enqueue(files, target, null, new HashSet<>(partitions), write);
+    }
+
+    private static long enqueue(FileHandler files, Target target, Supplier<? extends List<?>> rows,
+                                Set<Integer> partitions, PartitionedWrite write) {
+        if (durability == Durability.NONE) {
+            return 0; // nothing to wait for: awaitDurable(0) returns at once
+        }
+        ensureStarted();
+        long ticket;
+        synchronized (submitLock) {
+            ticket = ++submitted;
+            queue.enqueue(new Change(ticket, files, target, rows, partitions, write));
+        }
+        LockSupport.unpark(writer);
+
+        if (durability == Durability.PER_OPERATION) {
+            try {
+                awaitDurable(ticket);
+            } catch (IOException e) {
+                // Already reported by the writer; the caller's next flush() sees it too
+            }
+        }
+        return ticket;
+    }
+
+    /**
+     * Block until the change with this ticket (and every earlier one) is on
+     * disk. Throws the error of a change up to ticket that failed to write.
+     */
+    public static void awaitDurable(long ticket) throws IOException {
+        synchronized (durableLock) {
+            while (durable < ticket && writer != null && writer.isAlive()) {
+                Failure failed = firstFailure();
+                if (failed != null && failed.change().ticket() <= ticket) {
+                    throw describe(failed);
+                }
+                try {
+                    durableLock.wait(IDLE_PARK_NANOS / 1_000_000L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static IOException describe(Failure failed) {
+        Change c = failed.change();
+        return new IOException(c.target().name().toLowerCase() + " in " + c.files().getDirectory().getPath()
+                + " not saved: " + failed.error().getMessage(), failed.error());
+    }
+
+    // The failed change with the lowest ticket, or null (under durableLock)
+    private static Failure firstFailure() {
+        Failure first = null;
+        for (Failure[] slots : failures.values()) {
+            for (Failure f : slots) {
+                if (f != null && (first == null || f.change().ticket() < first.change().ticket())) {
+                    first = f;
+                }
+            }
+        }
+        return first;
+    }
+
+    // Write everything submitted so far, whatever the mode, and wait for it
+    public static void flush() throws IOException {
+        long ticket;
+        synchronized (submitLock) {
+            ticket = submitted;
+        }
+        if (ticket == 0 || writer == null) {
+            return;
+        }
+        flushRequested = true;
+        LockSupport.unpark(writer);
+        awaitDurable(ticket);
+    }
+
+    // Flush and stop the writer thread (called on exit)
+    public static synchronized void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            System.out.println("Some changes were not saved: " + e.getMessage());
+        }
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        closing = false;
+    }
+
+    private static synchronized void ensureStarted() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(PersistenceWriter::run, "persistence-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Ctrl-C or System.exit still gets pending changes to disk
+        if (!hookInstalled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    System.out.println("Some changes were not saved: " + e.getMessage());
+                }
+            }, "persistence-flush"));
+            hookInstalled = true;
+        }
+    }
+
+    // === Writer thread ===
+
+    private static void run() {
+        Map<FileHandler, Change[]> pending = new LinkedHashMap<>(); // newest change per file, per directory
+        int pendingCount = 0;
+        long firstPendingAt = 0;
+        long lastTicket = 0;
+
+        while (true) {
+            Change change;
+            while ((change = queue.poll()) != null) {
+                Change[] slots = pending.computeIfAbsent(change.files(), f -> new Change[Target.values().length]);
+                int slot = change.target().ordinal();
+                Change older = slots[slot];
+                if (older == null) {
+                    if (pendingCount++ == 0) {
+                        firstPendingAt = System.nanoTime();
+                    }
+                } else if (older.partitions() != null && change.partitions() != null) {
+                    change.partitions().addAll(older.partitions());
+                }
+                slots[slot] = change; // coalesce: later rows replace earlier ones
+                lastTicket = change.ticket();
+            }
+
+            boolean forced = flushRequested || closing;
+            if (pendingCount == 0) {
+                if (lastTicket > durable) {
+                    markDurable(lastTicket); // no-op while a failed change holds it back
+                }
+                if (forced) {
+                    flushRequested = false;
+                }
+                if (closing && queue.isEmpty()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            if (!forced) {
+                if (durability == Durability.ON_EXIT) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                if (durability == Durability.GROUP) {
+                    long wait = firstPendingAt + groupNanos - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                        continue;
+                    }
+                }
+            }
+
+            for (Change[] slots : pending.values()) {
+                for (Change c : slots) {
+                    if (c != null) {
+                        write(c);
+                    }
+                }
+            }
+            pending.clear();
+            pendingCount = 0;
+            markDurable(lastTicket);
+        }
+    }
+
+    // Write one change, recording the outcome against its file
+    @SuppressWarnings("unchecked")
+    private static void write(Change change) {
+        if (change.partitions() != null) {
+            synchronized (durableLock) {
+                Failure[] slots = failures.get(change.files());
+                Failure earlier = slots == null ? null : slots[change.target().ordinal()];
+                if (earlier != null) {
+                    // The manager no longer has those partitions marked dirty; retry them here
+                    change.partitions().addAll(earlier.change().partitions());
+                }
+            }
+        }
+        IOException error = null;
+        try {
+            if (change.partitionedWrite() != null) {
+                change.partitionedWrite().write(change.partitions(), true);
+            } else {
+                List<?> rows = change.rows().get();
+                switch (change.target()) {
+                    case VEHICLES -> change.files().writeVehicles((List<Vehicle>) rows, true);
+                    case DRIVERS -> change.files().writeDrivers((List<Driver>) rows, true);
+                    case MAINTENANCE -> change.files().writeMaintenance((List<Maintenance>) rows, true);
+                    case DELIVERIES -> throw new IllegalStateException("Deliveries are saved by partition");
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e.toString(), e);
+        }
+        if (error != null) {
+            System.out.println("Error saving " + change.target().name().toLowerCase() + " in "
+                    + change.files().getDirectory().getPath() + ": " + error.getMessage());
+        }
+        synchronized (durableLock) {
+            Failure[] slots = failures.computeIfAbsent(change.files(), f -> new Failure[Target.values().length]);
+            // A later successful write of the same file (for partitions, a superset) supersedes a failure
+            slots[change.target().ordinal()] = error == null ? null : new Failure(change, error);
+        }
+    }
+
+    // Everything up to ticket is written, except from the first failed change on
+    private static void markDurable(long ticket) {
+        synchronized (durableLock) {
+            Failure failed = firstFailure();
+            long limit = failed == null ? ticket : Math.min(ticket, failed.change().ticket() - 1);
+            durable = Math.max(durable, limit);
+            durableLock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes one report file, row by row, as CSV or as a JSON array of
+ * objects.
+ *
+ * Each row is built in a reused StringBuilder and handed to a 64 KB
+ * BufferedWriter, so memory stays the same however many rows go through.
+ * Output goes to name.tmp and is moved over the real file by close(); a
+ * failed export leaves any earlier file untouched.
+ *
+ * Usage: text()/number()/decimal() once per column, in header order, then
+ * endRow().
+ */
+public class ReportWriter implements Closeable {
+
+    public enum Format {
+        CSV("csv"), JSON("json");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format f : values()) {
+                if (f.extension.equalsIgnoreCase(value.trim())) {
+                    return f;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final File file;
+    private final File tmp;
+    private final Format format;
+    private final String[] columns;
+    private final FileOutputStream out;
+    private final BufferedWriter writer;
+    private final StringBuilder row = new StringBuilder(256);
+    private int column;
+    private long rows;
+    private boolean closed;
+
+    public ReportWriter(File file, Format format, String... columns) throws IOException {
+        this.file = file;
+        this.tmp = new File(file.getPath() + ".tmp");
+        this.format = format;
+        this.columns = columns;
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        this.out = new FileOutputStream(tmp);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+
+        if (format == Format.CSV) {
+            for (String c : columns) {
+                text(c);
+            }
+            writer.append(row).append('\n');
+            row.setLength(0);
+            column = 0;
+        } else {
+            writer.write('[');
+        }
+    }
+
+    public ReportWriter text(String value) {
+        startValue();
+        if (format == Format.CSV) {
+            appendCsv(value == null ? "" : value);
+        } else if (value == null) {
+            row.append("null");
+        } else {
+            appendJson(value);
+        }
+        return this;
+    }
+
+    public ReportWriter number(long value) {
+        startValue();
+        row.append(value);
+        return this;
+    }
+
+    public ReportWriter decimal(double value, int decimals) {
+        startValue();
+        if (format == Format.JSON && (Double.isNaN(value) || Double.isInfinite(value))) {
+            row.append("null"); // JSON has no NaN or Infinity
+        } else {
+            TextBuffer.appendFixed(row, value, decimals);
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        if (column != columns.length) {
+            throw new IllegalStateException("Row has " + column + " values for " + columns.length + " columns.");
+        }
+        if (format == Format.JSON) {
+            writer.write(rows == 0 ? "\n  " : ",\n  ");
+            row.append('}');
+        }
+        writer.append(row);
+        if (format == Format.CSV) {
+            writer.write('\n');
+        }
+        row.setLength(0);
+        column = 0;
+        rows++;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    // Finish the file and move it into place
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (out; writer) {
+            if (format == Format.JSON) {
+                writer.write(rows == 0 ? "]\n" : "\n]\n");
+            }
+            writer.flush();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Drop the partial output; the previous export (if any) stays
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (out; writer) {
+            // closing only
+        } catch (IOException e) {
+            // the file is being thrown away anyway
+        }
+        tmp.delete();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private void startValue() {
+        if (column >= columns.length) {
+            throw new IllegalStateException("More values than the " + columns.length + " columns.");
+        }
+        if (format == Format.CSV) {
+            if (column > 0) {
+                row.append(',');
+            }
+        } else {
+            row.append(column == 0 ? "{" : ", ");
+            appendJson(columns[column]);
+            row.append(": ");
+        }
+        column++;
+    }
+
+    // Quoted only when needed (RFC 4180)
+    private void appendCsv(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    private void appendJson(String value) {
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> row.append("\\\"");
+                case '\\' -> row.append("\\\\");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                case '\t' -> row.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        row.append("\\u00");
+                        row.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                    } else {
+                        row.append(c);
+                    }
+                }
+            }
+        }
+        row.append('"');
+    }
+}
@@ -0,0 +1,153 @@
+package utils;
+
+import java.io.PrintStream;
+
+/**
+ * Reusable output buffer for listings.
+ *
+ * Rows are appended into one StringBuilder and written to the stream in
+ * 64 KB chunks, so a long listing costs a handful of console writes instead
+ * of one synchronized println per record. Numbers and padded columns are
+ * appended in place, without String.format or temporary strings.
+ */
+public final class TextBuffer {
+
+    private static final int FLUSH_AT = 1 << 16;
+    private static final long[] POWERS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final PrintStream out;
+    private final StringBuilder sb = new StringBuilder(FLUSH_AT + 1024);
+
+    public TextBuffer(PrintStream out) {
+        this.out = out;
+    }
+
+    public TextBuffer append(CharSequence s) {
+        sb.append(s);
+        return this;
+    }
+
+    public TextBuffer append(char c) {
+        sb.append(c);
+        return this;
+    }
+
+    public TextBuffer append(long v) {
+        sb.append(v);
+        return this;
+    }
+
+    // v rounded half-up to 0-6 decimals, e.g. appendFixed(0.12345, 3) -> "0.123"
+    public TextBuffer appendFixed(double v, int decimals) {
+        appendFixed(sb, v, decimals);
+        return this;
+    }
+
+    // Same, into any builder (the report writers share it)
+    public static void appendFixed(StringBuilder sb, double v, int decimals) {
+        if (Double.isNaN(v) || Double.isInfinite(v) || Math.abs(v) >= 1e12) {
+            sb.append(v);
+            return;
+        }
+        long scale = POWERS[decimals];
+        long scaled = Math.round(Math.abs(v) * scale);
+        if (v < 0 && scaled != 0) {
+            sb.append('-');
+        }
+        sb.append(scaled / scale);
+        if (decimals > 0) {
+            sb.append('.');
+            long frac = scaled % scale;
+            for (long p = scale / 10; p > frac && p > 1; p /= 10) {
+                sb.append('0');
+            }
+            sb.append(frac);
+        }
+    }
+
+    // Left-aligned column: cut to width (marked with '~') or padded, then one space
+    public TextBuffer column(CharSequence s, int width) {
+        String text = s == null ? "" : s.toString();
+        if (text.length() > width) {
+            sb.append(text, 0, width - 1).append('~');
+        } else {
+            sb.append(text);
+            pad(width - text.length());
+        }
+        sb.append(' ');
+        return this;
+    }
+
+    // Right-aligned text column (headers over number columns), then one space
+    public TextBuffer columnRight(CharSequence s, int width) {
+        pad(width - s.length());
+        sb.append(s).append(' ');
+        return this;
+    }
+
+    // Right-aligned number column, then one space
+    public TextBuffer column(long v, int width) {
+        pad(width - digits(v));
+        sb.append(v).append(' ');
+        return this;
+    }
+
+    // Right-aligned fixed-point column, then one space
+    public TextBuffer column(double v, int decimals, int width) {
+        int start = sb.length();
+        appendFixed(v, decimals);
+        int written = sb.length() - start;
+        for (int i = written; i < width; i++) {
+            sb.insert(start, ' ');
+        }
+        sb.append(' ');
+        return this;
+    }
+
+    // A row of '-' as wide as the columns, e.g. under a header
+    public TextBuffer rule(int width) {
+        pad(width, '-');
+        return newline();
+    }
+
+    // End the row; writes the buffer out once it passes 64 KB
+    public TextBuffer newline() {
+        // Trailing column separators are not worth keeping
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ' ') {
+            end--;
+        }
+        sb.setLength(end);
+        sb.append('\n');
+        if (sb.length() >= FLUSH_AT) {
+            flush();
+        }
+        return this;
+    }
+
+    public void flush() {
+        if (sb.length() > 0) {
+            out.append(sb);
+            sb.setLength(0);
+        }
+        out.flush();
+    }
+
+    private void pad(int n) {
+        pad(n, ' ');
+    }
+
+    private void pad(int n, char c) {
+        for (int i = 0; i < n; i++) {
+            sb.append(c);
+        }
+    }
+
+    private static int digits(long v) {
+        int n = v < 0 ? 2 : 1;
+        for (long a = Math.abs(v / 10); a > 0; a /= 10) {
+            n++;
+        }
+        return n;
+    }
+}
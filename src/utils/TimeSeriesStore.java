@@ -0,0 +1,455 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import structures.timeseries.GorillaBlock;
+import structures.timeseries.SeriesStats;
+
+/**
+ * Append-only store of compressed time series, one series per key, each
+ * point a timestamp (epoch seconds) and a fixed number of double fields.
+ *
+ * Points go into an open GorillaBlock per series. A block is sealed when it
+ * is full or on flush() and appended to the current segment file
+ * (segment-000001.tss, ...); a segment past SEGMENT_BYTES is closed for
+ * good and the next one started, and until then later sessions append to
+ * it too. Each record on disk is
+ *   [length][key][point count][SeriesStats][bit length][bits][CRC32]
+ * so the block summaries are read at startup without touching the bits.
+ *
+ * Range queries take a block whole from its summary when it lies inside
+ * the range and inside one bucket; only blocks straddling an edge are read
+ * and decoded. A year of per-minute readings answered by week touches a
+ * few dozen summaries and two blocks per vehicle.
+ *
+ * Records are written whole before flush() returns. After a crash the
+ * last segment is checked record by record and cut back to the end of the
+ * last one whose CRC matches.
+ */
+public class TimeSeriesStore {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".tss";
+    private static final long SEGMENT_BYTES = 4L << 20;
+
+    /** Bucket widths for aggregate(); days and weeks (from Monday) follow the local calendar. */
+    public enum Bucketing {
+        DAY, WEEK, WHOLE;
+
+        long start(long time, ZoneId zone) {
+            if (this == WHOLE) {
+                return Long.MIN_VALUE;
+            }
+            LocalDate day = Instant.ofEpochSecond(time).atZone(zone).toLocalDate();
+            if (this == WEEK) {
+                day = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            }
+            return day.atStartOfDay(zone).toEpochSecond();
+        }
+
+        long end(long start, ZoneId zone) {
+            if (this == WHOLE) {
+                return Long.MAX_VALUE;
+            }
+            LocalDate day = Instant.ofEpochSecond(start).atZone(zone).toLocalDate();
+            return day.plusDays(this == WEEK ? 7 : 1).atStartOfDay(zone).toEpochSecond();
+        }
+    }
+
+    /** One bucket of a query: points with start <= time < end. */
+    public record Bucket(long start, long end, SeriesStats stats) {}
+
+    /** A query's buckets in time order, and how many blocks it answered from summaries alone. */
+    public record Aggregate(List<Bucket> buckets, int blocksSummarized, int blocksDecoded) {}
+
+    // A sealed block: where its bits are and what they hold
+    private static final class BlockRef {
+        final int segment;
+        final long offset;      // of the bits
+        final int length;
+        final SeriesStats stats;
+
+        BlockRef(int segment, long offset, int length, SeriesStats stats) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.stats = stats;
+        }
+    }
+
+    /** The points of one key. Get one with series(key); appends are cheap, no lookup by key. */
+    public final class Series {
+        private final String key;
+        private final List<BlockRef> blocks = new ArrayList<>();
+        private GorillaBlock open;
+        private long lastTime = Long.MIN_VALUE;
+
+        private Series(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Add a point; false (and nothing stored) unless it is newer than
+         * every point already in the series, so replaying a log twice
+         * stores it once.
+         */
+        public boolean append(long time, double[] values) throws IOException {
+            synchronized (TimeSeriesStore.this) {
+                if (time <= lastTime) {
+                    return false;
+                }
+                if (open == null) {
+                    open = new GorillaBlock(fields);
+                    unsealed.add(this);
+                }
+                open.append(time, values);
+                lastTime = time;
+                points++;
+                if (open.isFull()) {
+                    seal(this);
+                }
+                return true;
+            }
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    private final File dir;
+    private final int fields;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<String, Series> series = new HashMap<>();
+    private final Set<Series> unsealed = new LinkedHashSet<>(); // series with an open block
+
+    private int segment;            // current segment number, 0 before the first
+    private long segmentLength;
+    private FileOutputStream rawOut; // the current segment, opened on first write
+    private DataOutputStream out;
+    private long points;
+    private long bytesOnDisk;
+    private int blockCount;
+
+    public TimeSeriesStore(File dir, int fields) {
+        this.dir = dir;
+        this.fields = fields;
+        load();
+    }
+
+    // The series for key, created empty if new
+    public synchronized Series series(String key) {
+        return series.computeIfAbsent(key, Series::new);
+    }
+
+    public synchronized boolean contains(String key) {
+        Series s = series.get(key);
+        return s != null && s.lastTime != Long.MIN_VALUE;
+    }
+
+    // Every key with points, sorted
+    public synchronized List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        for (Series s : series.values()) {
+            if (s.lastTime != Long.MIN_VALUE) {
+                keys.add(s.key);
+            }
+        }
+        keys.sort(null);
+        return keys;
+    }
+
+    /**
+     * Seal every open block and push the segment to disk; with fsync the
+     * points are durable when this returns. Blocks sealed here may be
+     * short: the next append to that series starts a new one.
+     */
+    public synchronized void flush(boolean fsync) throws IOException {
+        for (Series s : new ArrayList<>(unsealed)) {
+            seal(s);
+        }
+        if (out != null) {
+            out.flush();
+            if (fsync) {
+                rawOut.getFD().sync();
+            }
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        flush(true);
+        if (out != null) {
+            out.close();
+            out = null;
+            rawOut = null;
+        }
+    }
+
+    /**
+     * Bucketed stats of key's points with from <= time < to. Buckets with
+     * no points are left out.
+     */
+    public synchronized Aggregate aggregate(String key, long from, long to, Bucketing bucketing) throws IOException {
+        Series s = series.get(key);
+        List<Bucket> buckets = new ArrayList<>();
+        if (s == null || from >= to) {
+            return new Aggregate(buckets, 0, 0);
+        }
+        if (out != null) {
+            out.flush(); // the bits of recently sealed blocks may still be buffered
+        }
+
+        int summarized = 0, decoded = 0;
+        Bucket[] current = {null};
+        List<BlockRef> candidates = new ArrayList<>(s.blocks);
+        if (s.open != null) {
+            candidates.add(null); // the open block, decoded from memory
+        }
+        for (BlockRef b : candidates) {
+            SeriesStats stats = b == null ? s.open.stats() : b.stats;
+            if (stats.lastTime() < from || stats.firstTime() >= to) {
+                continue;
+            }
+            if (stats.firstTime() >= from && stats.lastTime() < to) {
+                Bucket target = bucketFor(stats.firstTime(), bucketing, current, buckets);
+                if (stats.lastTime() < target.end()) {
+                    target.stats().merge(stats);
+                    summarized++;
+                    continue;
+                }
+            }
+            byte[] bits = b == null ? s.open.toByteArray() : readBits(b);
+            GorillaBlock.decode(bits, (int) stats.count(), fields, (time, values) -> {
+                if (time >= from && time < to) {
+                    bucketFor(time, bucketing, current, buckets).stats().add(time, values);
+                }
+            });
+            decoded++;
+        }
+        return new Aggregate(buckets, summarized, decoded);
+    }
+
+    public synchronized long points() {
+        return points;
+    }
+
+    public synchronized int blockCount() {
+        return blockCount;
+    }
+
+    // Bytes of sealed blocks on disk, headers included
+    public synchronized long bytesOnDisk() {
+        return bytesOnDisk;
+    }
+
+    public synchronized int seriesCount() {
+        return keys().size();
+    }
+
+    // Points arrive in time order, so a new bucket always goes on the end
+    private Bucket bucketFor(long time, Bucketing bucketing, Bucket[] current, List<Bucket> buckets) {
+        Bucket b = current[0];
+        if (b != null && time >= b.start() && time < b.end()) {
+            return b;
+        }
+        long start = bucketing.start(time, zone);
+        b = new Bucket(start, bucketing.end(start, zone), new SeriesStats(fields));
+        buckets.add(b);
+        current[0] = b;
+        return b;
+    }
+
+    // === Writing ===
+
+    private void seal(Series s) throws IOException {
+        GorillaBlock block = s.open;
+        s.open = null;
+        unsealed.remove(s);
+        if (block == null || block.count() == 0) {
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 + (int) (block.bitLength() >>> 3));
+        DataOutputStream record = new DataOutputStream(buffer);
+        byte[] key = s.key.getBytes(StandardCharsets.UTF_8);
+        byte[] bits = block.toByteArray();
+        record.writeShort(key.length);
+        record.write(key);
+        record.writeInt(block.count());
+        block.stats().writeTo(record);
+        record.writeInt(bits.length);
+        int bitsAt = record.size();
+        record.write(bits);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.toByteArray());
+        record.writeInt((int) crc.getValue());
+        byte[] bytes = buffer.toByteArray();
+
+        if (segment == 0 || segmentLength >= SEGMENT_BYTES) {
+            openSegment(segment + 1);
+        } else if (out == null) {
+            openSegment(segment); // first write since open or close: the last segment still has room
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        s.blocks.add(new BlockRef(segment, segmentLength + 4 + bitsAt, bits.length, block.stats()));
+        segmentLength += 4 + bytes.length;
+        bytesOnDisk += 4 + bytes.length;
+        blockCount++;
+    }
+
+    // Continue segment `number`, or start it
+    private void openSegment(int number) throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        dir.mkdirs();
+        segment = number;
+        File file = segmentFile(number);
+        segmentLength = file.length();
+        rawOut = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(rawOut, 1 << 16));
+    }
+
+    private File segmentFile(int number) {
+        return new File(dir, String.format("%s%06d%s", PREFIX, number, SUFFIX));
+    }
+
+    private byte[] readBits(BlockRef b) throws IOException {
+        byte[] bits = new byte[b.length];
+        try (RandomAccessFile in = new RandomAccessFile(segmentFile(b.segment), "r")) {
+            in.seek(b.offset);
+            in.readFully(bits);
+        }
+        return bits;
+    }
+
+    // === Loading ===
+
+    private void load() {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        int[] numbers = new int[files.length];
+        int n = 0;
+        for (File f : files) {
+            try {
+                numbers[n++] = Integer.parseInt(f.getName().substring(PREFIX.length(),
+                        f.getName().length() - SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                System.out.println("Ignoring unexpected file " + f.getName() + " in " + dir.getPath());
+            }
+        }
+        numbers = Arrays.copyOf(numbers, n);
+        Arrays.sort(numbers);
+        for (int i = 0; i < numbers.length; i++) {
+            boolean last = i == numbers.length - 1;
+            try {
+                loadSegment(numbers[i], last);
+            } catch (IOException e) {
+                System.out.println("Error reading " + segmentFile(numbers[i]).getName() + ": " + e.getMessage());
+            }
+        }
+        segment = numbers.length == 0 ? 0 : numbers[numbers.length - 1];
+        segmentLength = segment == 0 ? 0 : segmentFile(segment).length();
+    }
+
+    /*
+     * Closed segments are trusted and only their headers read. The last one
+     * may end in a record torn by a crash, so each of its records is read
+     * whole and checked, and the file is cut back to the last good one.
+     */
+    private void loadSegment(int number, boolean verify) throws IOException {
+        File file = segmentFile(number);
+        long length = file.length();
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            while (offset + 4 <= length) {
+                int recordLength = in.readInt();
+                if (recordLength < 8 || offset + 4 + recordLength > length) {
+                    break;
+                }
+                byte[] head = new byte[2];
+                in.readFully(head);
+                int keyLength = ((head[0] & 0xFF) << 8) | (head[1] & 0xFF);
+                int headerLength = 2 + keyLength + 4 + SeriesStats.serializedSize(fields) + 4;
+                if (headerLength + 4 > recordLength) {
+                    break;
+                }
+                byte[] header = new byte[headerLength];
+                System.arraycopy(head, 0, header, 0, 2);
+                in.readFully(header, 2, headerLength - 2);
+                DataInputStream h = new DataInputStream(new ByteArrayInputStream(header, 2, headerLength - 2));
+                String key = new String(header, 2, keyLength, StandardCharsets.UTF_8);
+                h.skipBytes(keyLength);
+                int count = h.readInt();
+                SeriesStats stats = SeriesStats.readFrom(h, fields);
+                int bitsLength = h.readInt();
+                if (bitsLength != recordLength - headerLength - 4 || count <= 0 || count != stats.count()) {
+                    break;
+                }
+
+                if (verify) {
+                    byte[] rest = new byte[bitsLength + 4];
+                    in.readFully(rest);
+                    CRC32 crc = new CRC32();
+                    crc.update(header);
+                    crc.update(rest, 0, bitsLength);
+                    int stored = ((rest[bitsLength] & 0xFF) << 24) | ((rest[bitsLength + 1] & 0xFF) << 16)
+                            | ((rest[bitsLength + 2] & 0xFF) << 8) | (rest[bitsLength + 3] & 0xFF);
+                    if (stored != (int) crc.getValue()) {
+                        break;
+                    }
+                } else {
+                    in.skipNBytes(bitsLength + 4);
+                }
+
+                Series s = series(key);
+                if (stats.firstTime() > s.lastTime) { // anything else was never written by append()
+                    s.blocks.add(new BlockRef(number, offset + 4 + headerLength, bitsLength, stats));
+                    s.lastTime = stats.lastTime();
+                    points += count;
+                    blockCount++;
+                }
+                bytesOnDisk += 4 + recordLength;
+                offset += 4 + recordLength;
+            }
+        } catch (EOFException e) {
+            // cut short; handled below
+        }
+        if (offset < length) {
+            if (!verify) {
+                throw new IOException("damaged record at offset " + offset + "; later blocks in it are skipped");
+            }
+            System.out.println("Time series " + file.getName() + ": dropping a torn record at offset " + offset);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(offset);
+            }
+        }
+    }
+}
@@ -0,0 +1,556 @@
+package utils;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Validation rules shared by the interactive prompts, the batch command
+ * runner and the data file loaders.
+ *
+ * Field checks return null when the value is valid, otherwise the message to
+ * show. They scan characters by hand instead of using regexes or
+ * DateTimeFormatter, so a valid value is checked without allocating; only a
+ * failure builds its message.
+ *
+ * A Schema checks whole CSV rows: it splits each row, applies one rule per
+ * column and collects a per-row error report. Rows are validated in
+ * parallel, since the rules are pure functions of the text.
+ */
+public final class Validation {
+
+    // Returned by parseDay / parseMinute for text that is not a valid date
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private Validation() {
+    }
+
+    /** One field check: null if the value is valid, otherwise the message. */
+    @FunctionalInterface
+    public interface Rule {
+        String check(String value);
+    }
+
+    // === Numbers ===
+
+    public static String checkInteger(String input, int min, int max) {
+        long value = parseLong(input);
+        if (value == Long.MIN_VALUE) {
+            return "Invalid input. Please enter a valid number";
+        }
+        if (value < min || value > max) {
+            return "Please enter a number between " + min + " and " + max;
+        }
+        return null;
+    }
+
+    public static String checkDouble(String input, double min, double max) {
+        if (!isDecimal(input)) {
+            return "Invalid input. Please enter a valid decimal number";
+        }
+        double value = Double.parseDouble(input);
+        if (value < min || value > max) {
+            return "Please enter a number between " + min + " and " + max;
+        }
+        return null;
+    }
+
+    public static String checkCost(String input) {
+        if (!isDecimal(input)) {
+            return "Invalid input. Please enter a valid cost (e.g., 150.50)";
+        }
+        if (Double.parseDouble(input) < 0) {
+            return "Cost cannot be negative. Please enter a positive value";
+        }
+        return null;
+    }
+
+    // Optional sign and up to 10 digits; Long.MIN_VALUE if that is not what the text is
+    private static long parseLong(String s) {
+        int n = s.length();
+        int i = n > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+        if (i == n || n - i > 10) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return s.charAt(0) == '-' ? -value : value;
+    }
+
+    // [+-]digits[.digits] with at least one digit, so parseDouble can't throw
+    private static boolean isDecimal(String s) {
+        int n = s.length();
+        int i = n > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+        int digits = 0;
+        boolean dot = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return false;
+            }
+        }
+        return digits > 0;
+    }
+
+    // === Text ===
+
+    public static String checkString(String input, int minLength, int maxLength) {
+        return checkLength("Input", input, minLength, maxLength);
+    }
+
+    public static String checkName(String input, int minLength, int maxLength) {
+        String error = checkLength("Name", input, minLength, maxLength);
+        if (error != null) {
+            return error;
+        }
+        // Only letters, spaces, hyphens and apostrophes
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (!isLetter(c) && !Character.isWhitespace(c) && c != '-' && c != '\'') {
+                return "Name can only contain letters, spaces, hyphens, and apostrophes";
+            }
+        }
+        return null;
+    }
+
+    public static String checkLocation(String input, int minLength, int maxLength) {
+        String error = checkLength("Location", input, minLength, maxLength);
+        if (error != null) {
+            return error;
+        }
+        char first = input.charAt(0);
+        if (first >= '0' && first <= '9') {
+            return "Location cannot be purely numeric or start with numbers";
+        }
+        // Must start with a letter; letters, spaces, commas, periods, hyphens, apostrophes only
+        if (!isLetter(first)) {
+            return "Location must start with a letter and contain only letters, spaces, commas, periods, apostrophes, and hyphens";
+        }
+        for (int i = 1; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (!isLetter(c) && !Character.isWhitespace(c) && c != ',' && c != '.' && c != '\'' && c != '-') {
+                return "Location must start with a letter and contain only letters, spaces, commas, periods, apostrophes, and hyphens";
+            }
+        }
+        return null;
+    }
+
+    public static String checkLicenseNumber(String input, int minLength, int maxLength) {
+        String error = checkLength("License number", input, minLength, maxLength);
+        if (error != null) {
+            return error;
+        }
+        boolean letter = false;
+        boolean digit = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                letter = true;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c != '-') {
+                return "License number can only contain letters, numbers, and hyphens (e.g., ABC-123-DEF or DL123456)";
+            }
+        }
+        // At least one letter and one number for realism
+        if (!letter || !digit) {
+            return "License number must contain at least one letter and one number (e.g., ABC-123-DEF or DL123456)";
+        }
+        return null;
+    }
+
+    /**
+     * Vehicle registration number: 3-20 letters and digits, optionally
+     * separated by single hyphens or spaces (GR1234-21, TRK-1001, VH001).
+     */
+    public static String checkPlate(String input) {
+        String error = checkLength("Registration number", input, 3, 20);
+        if (error != null) {
+            return error;
+        }
+        boolean letter = false;
+        boolean digit = false;
+        char prev = '-';
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (isLetter(c)) {
+                letter = true;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if ((c == '-' || c == ' ') && prev != '-' && prev != ' ') {
+                // single separator between two groups
+            } else {
+                return "Registration number can only contain letters and numbers, separated by single hyphens or spaces (e.g., GR1234-21)";
+            }
+            prev = c;
+        }
+        if (prev == '-' || prev == ' ') {
+            return "Registration number cannot end with a hyphen or space";
+        }
+        if (!letter || !digit) {
+            return "Registration number must contain at least one letter and one number (e.g., GR1234-21)";
+        }
+        return null;
+    }
+
+    public static String checkPhoneNumber(String input) {
+        if (input.isEmpty()) {
+            return "Phone number cannot be empty. Please try again";
+        }
+        int digits = 0;
+        boolean other = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (!Character.isWhitespace(c) && c != '-' && c != '(' && c != ')' && c != '+') {
+                other = true;
+            }
+        }
+        if (digits < 10) {
+            return "Phone number must contain at least 10 digits";
+        }
+        if (digits > 15) {
+            return "Phone number must contain no more than 15 digits";
+        }
+        if (other) {
+            return "Phone number can only contain numbers, spaces, hyphens, parentheses, and plus sign (e.g., +1-234-567-8900)";
+        }
+        return null;
+    }
+
+    private static String checkLength(String what, String input, int minLength, int maxLength) {
+        if (input.isEmpty()) {
+            return what + " cannot be empty. Please try again";
+        }
+        if (input.length() < minLength) {
+            return what + " must be at least " + minLength + " characters long";
+        }
+        if (input.length() > maxLength) {
+            return what + " must be no more than " + maxLength + " characters long";
+        }
+        return null;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    // === Dates ===
+
+    public static String checkDate(String input) {
+        if (parseDay(input) == INVALID) {
+            return "Invalid date format. Please use YYYY-MM-DD (e.g., 2025-07-16)";
+        }
+        return null;
+    }
+
+    public static String checkFutureDate(String input) {
+        String error = checkDate(input);
+        if (error != null) {
+            return error;
+        }
+        long today = today();
+        if (parseDay(input) < today) {
+            return "Date cannot be in the past. Please enter today's date (" + LocalDate.ofEpochDay(today) + ") or later";
+        }
+        return null;
+    }
+
+    public static String checkPastDate(String input) {
+        String error = checkDate(input);
+        if (error != null) {
+            return error;
+        }
+        long today = today();
+        if (parseDay(input) > today) {
+            return "Date cannot be in the future. Please enter today's date (" + LocalDate.ofEpochDay(today) + ") or earlier";
+        }
+        return null;
+    }
+
+    public static String checkDateTime(String input) {
+        if (parseMinute(input) == INVALID) {
+            return "Invalid date format. Please use yyyy-MM-dd HH:mm (e.g., 2025-07-16 14:30)";
+        }
+        return null;
+    }
+
+    public static String checkFutureDateTime(String input) {
+        String error = checkDateTime(input);
+        if (error != null) {
+            return error;
+        }
+        if (parseMinute(input) < nowMinute()) {
+            return "ETA cannot be in the past. Please enter a future date and time";
+        }
+        return null;
+    }
+
+    /**
+     * "yyyy-MM-dd" -> days since 1970-01-01, or INVALID. Impossible dates
+     * (2025-02-30) are rejected rather than rolled back to the month end.
+     */
+    public static int parseDay(CharSequence s) {
+        return s.length() == 10 ? dayAt(s) : INVALID;
+    }
+
+    /**
+     * "yyyy-MM-dd HH:mm" -> minutes since 1970-01-01 00:00 on the local wall
+     * clock (the encoding Delivery uses for ETAs), or INVALID.
+     */
+    public static int parseMinute(CharSequence s) {
+        if (s.length() != 16 || s.charAt(10) != ' ' || s.charAt(13) != ':') {
+            return INVALID;
+        }
+        int day = dayAt(s);
+        int h = digits(s, 11, 2);
+        int min = digits(s, 14, 2);
+        if (day == INVALID || h < 0 || h > 23 || min < 0 || min > 59) {
+            return INVALID;
+        }
+        return day * 1440 + h * 60 + min;
+    }
+
+    // The yyyy-MM-dd date in the first 10 characters, or INVALID
+    private static int dayAt(CharSequence s) {
+        if (s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return INVALID;
+        }
+        int y = digits(s, 0, 4);
+        int m = digits(s, 5, 2);
+        int d = digits(s, 8, 2);
+        if (y < 1 || m < 1 || m > 12 || d < 1 || d > daysInMonth(y, m)) {
+            return INVALID;
+        }
+        return epochDay(y, m, d);
+    }
+
+    // Fixed-width unsigned decimal, or -1
+    private static int digits(CharSequence s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int y, int m) {
+        if (m == 2) {
+            return (y % 4 == 0 && (y % 100 != 0 || y % 400 == 0)) ? 29 : 28;
+        }
+        return (m == 4 || m == 6 || m == 9 || m == 11) ? 30 : 31;
+    }
+
+    // Days from 1970-01-01 to a proleptic Gregorian date (civil-from-days, inverted)
+    private static int epochDay(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        int era = y / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    // === Clock ===
+    // Local "today" and "now" without building LocalDate/LocalDateTime objects.
+    // The zone offset is looked up at most once a minute.
+
+    private static volatile long offsetMillis;
+    private static volatile long offsetValidUntil;
+
+    private static long localMillis() {
+        long now = System.currentTimeMillis();
+        if (now >= offsetValidUntil) {
+            offsetMillis = ZonedDateTime.now().getOffset().getTotalSeconds() * 1000L;
+            offsetValidUntil = now - now % 60_000 + 60_000;
+        }
+        return now + offsetMillis;
+    }
+
+    public static long today() {
+        return Math.floorDiv(localMillis(), 86_400_000L);
+    }
+
+    public static long nowMinute() {
+        return Math.floorDiv(localMillis(), 60_000L);
+    }
+
+    // === Rows ===
+
+    /**
+     * Column rules for one CSV file. Build with field() calls in column
+     * order; validate() then checks a whole batch of rows.
+     */
+    public static final class Schema {
+        private final String name;
+        private final List<String> fields = new ArrayList<>();
+        private final List<Rule> rules = new ArrayList<>();
+        private int required = -1; // fields every row must have; -1 = all of them
+
+        public Schema(String name) {
+            this.name = name;
+        }
+
+        public Schema field(String fieldName, Rule rule) {
+            if (required >= 0) {
+                throw new IllegalStateException("Required field " + fieldName + " after an optional one.");
+            }
+            fields.add(fieldName);
+            rules.add(rule);
+            return this;
+        }
+
+        // A trailing column older files may not have; missing values are checked and returned as ""
+        public Schema optional(String fieldName, Rule rule) {
+            if (required < 0) {
+                required = fields.size();
+            }
+            fields.add(fieldName);
+            rules.add(rule);
+            return this;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        // Trimmed fields of one row, or the first error as "field: message"
+        private String[] split(String line, String[] error) {
+            String[] parts = line.split(",", -1);
+            int min = required < 0 ? rules.size() : required;
+            if (parts.length < min || parts.length > rules.size()) {
+                error[0] = "expected " + (min == rules.size() ? "" : min + " to ") + rules.size()
+                        + " fields, found " + parts.length;
+                return null;
+            }
+            if (parts.length < rules.size()) {
+                int given = parts.length;
+                parts = Arrays.copyOf(parts, rules.size());
+                Arrays.fill(parts, given, parts.length, "");
+            }
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = parts[i].trim();
+                String message = rules.get(i).check(parts[i]);
+                if (message != null) {
+                    error[0] = fields.get(i) + ": " + message;
+                    return null;
+                }
+            }
+            return parts;
+        }
+
+        /**
+         * Validate every row in parallel. Blank rows are ignored. firstLine
+         * is the file line number of rows.get(0), used in the report.
+         */
+        public Report validate(List<String> rows, int firstLine) {
+            int n = rows.size();
+            String[][] parsed = new String[n][];
+            String[] errors = new String[n];
+            IntStream range = IntStream.range(0, n);
+            (n >= 2048 ? range.parallel() : range).forEach(i -> {
+                String line = rows.get(i);
+                if (line.isBlank()) {
+                    return;
+                }
+                String[] error = new String[1];
+                parsed[i] = split(line, error);
+                errors[i] = error[0];
+            });
+            return new Report(this, rows, firstLine, parsed, errors);
+        }
+    }
+
+    /** Outcome of Schema.validate(): the parsed fields of valid rows and a message per invalid one. */
+    public static final class Report {
+        private final Schema schema;
+        private final List<String> rows;
+        private final int firstLine;
+        private final String[][] parsed;
+        private final String[] errors;
+        private final int errorCount;
+
+        private Report(Schema schema, List<String> rows, int firstLine, String[][] parsed, String[] errors) {
+            this.schema = schema;
+            this.rows = rows;
+            this.firstLine = firstLine;
+            this.parsed = parsed;
+            this.errors = errors;
+            int count = 0;
+            for (String e : errors) {
+                if (e != null) {
+                    count++;
+                }
+            }
+            this.errorCount = count;
+        }
+
+        public int size() {
+            return parsed.length;
+        }
+
+        // Trimmed fields of row i, or null if it was blank or invalid
+        public String[] fields(int i) {
+            return parsed[i];
+        }
+
+        public int errorCount() {
+            return errorCount;
+        }
+
+        // "line N: field: message | raw row" for every invalid row, in file order
+        public List<String> errors() {
+            List<String> result = new ArrayList<>(errorCount);
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] != null) {
+                    result.add("line " + (firstLine + i) + ": " + errors[i] + " | " + rows.get(i));
+                }
+            }
+            return result;
+        }
+
+        // The raw text of every invalid row, in file order, as errors() reports them
+        public List<String> invalidRows() {
+            List<String> result = new ArrayList<>(errorCount);
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] != null) {
+                    result.add(rows.get(i));
+                }
+            }
+            return result;
+        }
+
+        // Print up to max row errors under a one-line summary
+        public void print(String source, int max) {
+            if (errorCount == 0) {
+                return;
+            }
+            System.out.println("Skipping " + errorCount + " invalid " + schema.name() + " row(s) in " + source + ":");
+            List<String> all = errors();
+            for (int i = 0; i < Math.min(max, all.size()); i++) {
+                System.out.println("  " + all.get(i));
+            }
+            if (all.size() > max) {
+                System.out.println("  ... and " + (all.size() - max) + " more");
+            }
+        }
+    }
+}